@@ -1,49 +1,92 @@
 package com.example;
 
+import com.example.bootstrap.RedisClientFactory;
+import com.example.cluster.ReadRouting;
+import com.example.jedis.AdaptiveJedisPoolController;
+import com.example.jedis.AffinityPolicy;
+import com.example.jedis.JedisScriptLoader;
+import com.example.jedis.PoolSizingPolicy;
+import com.example.script.ClusterScripts;
+import com.example.serializer.BinaryTypeRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
 import org.springframework.data.redis.connection.RedisClusterConfiguration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
-import org.springframework.data.redis.connection.jedis.JedisConnectionFactory;
-import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
-import redis.clients.jedis.JedisPoolConfig;
+
+import java.time.Duration;
 
 @Configuration
 @Profile(value = "jedis")
 public class JedisConfig {
 
     @Bean
-    RedisConnectionFactory redisConnectionFactory() {
-        RedisClusterConfiguration clusterConfiguration = new RedisClusterConfiguration();
-        clusterConfiguration.clusterNode("0.0.0.0", 7000);
+    PoolSizingPolicy poolSizingPolicy(@Value("${redis.jedis.pool.min-total:8}") int minTotal,
+                                      @Value("${redis.jedis.pool.max-total:128}") int maxTotal,
+                                      @Value("${redis.jedis.pool.step:8}") int step,
+                                      @Value("${redis.jedis.pool.target-borrow-wait-ms:2}") long targetBorrowWait) {
+        return new PoolSizingPolicy(minTotal, maxTotal, step, Duration.ofMillis(targetBorrowWait), 0.5, 6,
+                Duration.ofMillis(500));
+    }
 
-        JedisPoolConfig poolConfig = new JedisPoolConfig();
-        poolConfig.setMaxIdle(50);
-        poolConfig.setMinIdle(50);
-        poolConfig.setMaxTotal(50);
-        return new JedisConnectionFactory(clusterConfiguration, poolConfig);
+    @Bean
+    @ConditionalOnProperty(name = "redis.jedis.affinity.enabled")
+    AffinityPolicy affinityPolicy(@Value("${redis.jedis.affinity.max-operations:1000}") int maxOperations,
+                                  @Value("${redis.jedis.affinity.max-lease-ms:1000}") long maxLease,
+                                  @Value("${redis.jedis.affinity.idle-ms:50}") long idle) {
+        return new AffinityPolicy(maxOperations, Duration.ofMillis(maxLease), Duration.ofMillis(idle));
+    }
+
+    @Bean
+    RedisConnectionFactory redisConnectionFactory(RedisClusterConfiguration clusterConfiguration,
+                                                  PoolSizingPolicy poolSizingPolicy,
+                                                  ObjectProvider<ReadRouting> readRouting,
+                                                  ObjectProvider<AffinityPolicy> affinityPolicy) {
+        return RedisClientFactory.jedisConnectionFactory(clusterConfiguration, poolSizingPolicy,
+                readRouting.getIfAvailable(), affinityPolicy.getIfAvailable());
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "close")
+    AdaptiveJedisPoolController adaptiveJedisPoolController(RedisConnectionFactory connectionFactory,
+                                                            PoolSizingPolicy poolSizingPolicy,
+                                                            ObjectProvider<MeterRegistry> meterRegistry) {
+        return RedisClientFactory.adaptiveJedisPoolController(connectionFactory, poolSizingPolicy,
+                meterRegistry.getIfAvailable(SimpleMeterRegistry::new));
+    }
+
+    @Bean(initMethod = "preload")
+    ClusterScripts clusterScripts(RedisConnectionFactory connectionFactory) {
+        return new ClusterScripts(connectionFactory, new JedisScriptLoader());
+    }
+
+    @Bean
+    RedisTemplate<String, String> redisTemplate(RedisConnectionFactory connectionFactory,
+                                                ClusterScripts clusterScripts,
+                                                ObjectProvider<RedisSerializer<String>> valueSerializer) {
+        return RedisClientFactory.stringTemplate(connectionFactory, clusterScripts,
+                valueSerializer.getIfAvailable(StringRedisSerializer::new), true);
     }
 
     @Bean
-    RedisTemplate<String, String> redisTemplate(RedisConnectionFactory connectionFactory) {
-        final RedisTemplate<String, String> template = new RedisTemplate<>();
-        template.setConnectionFactory(connectionFactory);
-        template.setKeySerializer(new StringRedisSerializer());
-        template.setValueSerializer(new StringRedisSerializer());
-        template.setEnableTransactionSupport(true);
-        return template;
+    RedisTemplate<String, String> redisTemplateNonTransaction(RedisConnectionFactory connectionFactory,
+                                                              ClusterScripts clusterScripts,
+                                                              ObjectProvider<RedisSerializer<String>> valueSerializer) {
+        return RedisClientFactory.stringTemplate(connectionFactory, clusterScripts,
+                valueSerializer.getIfAvailable(StringRedisSerializer::new), false);
     }
 
     @Bean
-    RedisTemplate<String, String> redisTemplateNonTransaction(RedisConnectionFactory connectionFactory) {
-        final RedisTemplate<String, String> template = new RedisTemplate<>();
-        template.setConnectionFactory(connectionFactory);
-        template.setKeySerializer(new StringRedisSerializer());
-        template.setValueSerializer(new StringRedisSerializer());
-        template.setEnableTransactionSupport(false);
-        return template;
+    RedisTemplate<String, Object> redisObjectTemplate(RedisConnectionFactory connectionFactory,
+                                                      ObjectProvider<BinaryTypeRegistry> binaryTypeRegistry) {
+        return RedisClientFactory.objectTemplate(connectionFactory,
+                binaryTypeRegistry.getIfAvailable(BinaryTypeRegistry::new));
     }
 }
@@ -1,42 +1,120 @@
 package com.example;
 
+import com.example.bootstrap.RedisClientFactory;
+import com.example.cluster.ReadRouting;
+import com.example.lettuce.EventLoopPolicy;
+import com.example.lettuce.FlushPolicy;
+import com.example.lettuce.LettuceEventLoops;
+import com.example.lettuce.LettuceBufferOperations;
+import com.example.lettuce.LettuceScriptLoader;
+import com.example.lettuce.LettuceTopologyMetrics;
+import com.example.lettuce.TopologyRefreshPolicy;
+import com.example.metrics.RedisMetrics;
+import com.example.script.ClusterScripts;
+import com.example.serializer.BinaryTypeRegistry;
+import io.lettuce.core.resource.ClientResources;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
 import org.springframework.data.redis.connection.RedisClusterConfiguration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
-import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
 @Configuration
 @Profile(value = "lettuce")
 public class LettuceConfig {
 
     @Bean
-    RedisConnectionFactory redisConnectionFactory() {
-        RedisClusterConfiguration clusterConfiguration = new RedisClusterConfiguration();
-        clusterConfiguration.clusterNode("0.0.0.0", 7000);
-        return new LettuceConnectionFactory(clusterConfiguration);
+    TopologyRefreshPolicy topologyRefreshPolicy(@Value("${redis.lettuce.topology.period-ms:30000}") long period,
+                                                @Value("${redis.lettuce.topology.adaptive:true}") boolean adaptive,
+                                                @Value("${redis.lettuce.topology.debounce-ms:1000}") long debounce,
+                                                @Value("${redis.lettuce.topology.reconnect-attempts:3}") int reconnectAttempts) {
+        return new TopologyRefreshPolicy(Duration.ofMillis(period), adaptive, Duration.ofMillis(debounce),
+                reconnectAttempts);
+    }
+
+    @Bean
+    EventLoopPolicy eventLoopPolicy(@Value("${redis.lettuce.transport:auto}") String transport,
+                                    @Value("${redis.lettuce.io-threads:0}") int ioThreads,
+                                    @Value("${redis.lettuce.computation-threads:0}") int computationThreads,
+                                    @Value("${redis.lettuce.io-cpus:}") int[] ioCpus) {
+        return new EventLoopPolicy(EventLoopPolicy.Transport.valueOf(transport.toUpperCase(Locale.ROOT)),
+                ioThreads, computationThreads, Arrays.stream(ioCpus).boxed().collect(Collectors.toList()));
+    }
+
+    @Bean(destroyMethod = "close")
+    LettuceEventLoops lettuceEventLoops(EventLoopPolicy eventLoopPolicy) {
+        return new LettuceEventLoops(eventLoopPolicy);
+    }
+
+    @Bean(destroyMethod = "close")
+    LettuceTopologyMetrics lettuceTopologyMetrics(ObjectProvider<MeterRegistry> meterRegistry) {
+        return new LettuceTopologyMetrics(meterRegistry.getIfAvailable(SimpleMeterRegistry::new));
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    ClientResources lettuceClientResources(LettuceEventLoops eventLoops,
+                                           LettuceTopologyMetrics topologyMetrics,
+                                           ObjectProvider<RedisMetrics> redisMetrics,
+                                           ObjectProvider<ReadRouting> readRouting,
+                                           ObjectProvider<ClusterScripts> clusterScripts) {
+        return RedisClientFactory.lettuceClientResources(eventLoops, topologyMetrics, readRouting.getIfAvailable(),
+                () -> {
+                    redisMetrics.ifAvailable(RedisMetrics::topologyChanged);
+                    clusterScripts.ifAvailable(ClusterScripts::topologyChanged);
+                });
+    }
+
+    @Bean
+    RedisConnectionFactory redisConnectionFactory(RedisClusterConfiguration clusterConfiguration,
+                                                  ClientResources lettuceClientResources,
+                                                  TopologyRefreshPolicy topologyRefreshPolicy,
+                                                  ObjectProvider<ReadRouting> readRouting) {
+        return RedisClientFactory.lettuceConnectionFactory(clusterConfiguration, lettuceClientResources,
+                topologyRefreshPolicy, FlushPolicy.defaults(), readRouting.getIfAvailable());
+    }
+
+    @Bean(initMethod = "preload")
+    ClusterScripts clusterScripts(RedisConnectionFactory connectionFactory) {
+        return new ClusterScripts(connectionFactory, new LettuceScriptLoader());
+    }
+
+    @Bean
+    RedisTemplate<String, String> redisTemplate(RedisConnectionFactory connectionFactory,
+                                                ClusterScripts clusterScripts,
+                                                ObjectProvider<RedisSerializer<String>> valueSerializer) {
+        return RedisClientFactory.stringTemplate(connectionFactory, clusterScripts,
+                valueSerializer.getIfAvailable(StringRedisSerializer::new), true);
     }
 
     @Bean
-    RedisTemplate<String, String> redisTemplate(RedisConnectionFactory connectionFactory) {
-        final RedisTemplate<String, String> template = new RedisTemplate<>();
-        template.setConnectionFactory(connectionFactory);
-        template.setKeySerializer(new StringRedisSerializer());
-        template.setValueSerializer(new StringRedisSerializer());
-        template.setEnableTransactionSupport(true);
-        return template;
+    RedisTemplate<String, String> redisTemplateNonTransaction(RedisConnectionFactory connectionFactory,
+                                                              ClusterScripts clusterScripts,
+                                                              ObjectProvider<RedisSerializer<String>> valueSerializer) {
+        return RedisClientFactory.stringTemplate(connectionFactory, clusterScripts,
+                valueSerializer.getIfAvailable(StringRedisSerializer::new), false);
     }
 
     @Bean
-    RedisTemplate<String, String> redisTemplateNonTransaction(RedisConnectionFactory connectionFactory) {
-        final RedisTemplate<String, String> template = new RedisTemplate<>();
-        template.setConnectionFactory(connectionFactory);
-        template.setKeySerializer(new StringRedisSerializer());
-        template.setValueSerializer(new StringRedisSerializer());
-        template.setEnableTransactionSupport(false);
-        return template;
+    RedisTemplate<String, Object> redisObjectTemplate(RedisConnectionFactory connectionFactory,
+                                                      ObjectProvider<BinaryTypeRegistry> binaryTypeRegistry) {
+        return RedisClientFactory.objectTemplate(connectionFactory,
+                binaryTypeRegistry.getIfAvailable(BinaryTypeRegistry::new));
+    }
+
+    @Bean(destroyMethod = "close")
+    LettuceBufferOperations lettuceBufferOperations(RedisConnectionFactory connectionFactory) {
+        return RedisClientFactory.lettuceBufferOperations(connectionFactory);
     }
 }
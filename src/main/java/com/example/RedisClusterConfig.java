@@ -0,0 +1,19 @@
+package com.example;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.redis.connection.RedisClusterConfiguration;
+
+import java.util.Arrays;
+
+@Configuration
+@Profile("!embedded")
+public class RedisClusterConfig {
+
+    @Bean
+    RedisClusterConfiguration redisClusterConfiguration(@Value("${redis.cluster.nodes:0.0.0.0:7000}") String[] nodes) {
+        return new RedisClusterConfiguration(Arrays.asList(nodes));
+    }
+}
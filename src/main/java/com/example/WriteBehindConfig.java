@@ -0,0 +1,30 @@
+package com.example;
+
+import com.example.writebehind.WriteBehindBatcher;
+import com.example.writebehind.WriteBehindPolicy;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.time.Duration;
+
+@Configuration
+public class WriteBehindConfig {
+
+    @Bean
+    WriteBehindPolicy writeBehindPolicy(@Value("${redis.write-behind.max-batch:64}") int maxBatch,
+                                        @Value("${redis.write-behind.linger-micros:200}") long lingerMicros,
+                                        @Value("${redis.write-behind.queue-capacity:4096}") int queueCapacity,
+                                        @Value("${redis.write-behind.offer-timeout-ms:100}") long offerTimeout) {
+        return new WriteBehindPolicy(maxBatch, lingerMicros, queueCapacity, Duration.ofMillis(offerTimeout));
+    }
+
+    @Bean(destroyMethod = "close")
+    WriteBehindBatcher<String, String> writeBehindBatcher(
+            @Qualifier("redisTemplateNonTransaction") RedisTemplate<String, String> template,
+            WriteBehindPolicy writeBehindPolicy) {
+        return new WriteBehindBatcher<>(template, writeBehindPolicy);
+    }
+}
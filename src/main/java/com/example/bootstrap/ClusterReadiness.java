@@ -0,0 +1,78 @@
+package com.example.bootstrap;
+
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.ClusterInfo;
+import org.springframework.data.redis.connection.RedisClusterConnection;
+import org.springframework.data.redis.connection.RedisClusterNode;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Waits until a cluster reports {@code cluster_state:ok} and every node it knows, masters and replicas, answers
+ * {@code PING}. The nodes are pinged in parallel, each from a thread and cluster connection of its own, so the
+ * node connections are open once the check passes and the first commands do not pay for them. Replaces fixed
+ * sleeps before tests and benchmarks: it returns as soon as the cluster is usable and fails if it does not get
+ * there in time.
+ */
+public final class ClusterReadiness {
+
+    private static final long RETRY_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private ClusterReadiness() {
+    }
+
+    /**
+     * Checks the cluster, checking again every 10 ms until it is ready or {@code timeout} has passed.
+     *
+     * @return the nodes that answered
+     * @throws RedisConnectionFailureException if the cluster is not ready in time or the thread is interrupted
+     */
+    public static List<RedisClusterNode> await(RedisConnectionFactory connectionFactory, Duration timeout) {
+        final long deadline = System.nanoTime() + timeout.toNanos();
+        RuntimeException failure;
+        do {
+            try {
+                return check(connectionFactory, deadline);
+            } catch (RuntimeException e) {
+                failure = e;
+            }
+            if (Thread.currentThread().isInterrupted()) {
+                break;
+            }
+            LockSupport.parkNanos(RETRY_NANOS);
+        } while (System.nanoTime() < deadline);
+        throw new RedisConnectionFailureException("Cluster not ready after " + timeout.toMillis() + " ms: "
+                + failure.getMessage(), failure);
+    }
+
+    private static List<RedisClusterNode> check(RedisConnectionFactory connectionFactory, long deadline) {
+        final List<RedisClusterNode> nodes = new ArrayList<>();
+        try (RedisClusterConnection connection = connectionFactory.getClusterConnection()) {
+            final ClusterInfo info = connection.clusterGetClusterInfo();
+            if (!"ok".equals(info.getState())) {
+                throw new IllegalStateException("cluster_state is " + info.getState());
+            }
+            connection.clusterGetNodes().forEach(nodes::add);
+        }
+        final List<Runnable> pings = new ArrayList<>(nodes.size());
+        for (RedisClusterNode node : nodes) {
+            pings.add(() -> ping(connectionFactory, node));
+        }
+        ParallelTasks.run(pings, "cluster-readiness", deadline);
+        return nodes;
+    }
+
+    private static void ping(RedisConnectionFactory connectionFactory, RedisClusterNode node) {
+        try (RedisClusterConnection connection = connectionFactory.getClusterConnection()) {
+            final String reply = connection.ping(node);
+            if (!"PONG".equalsIgnoreCase(reply)) {
+                throw new IllegalStateException(node.asString() + " answered " + reply);
+            }
+        }
+    }
+}
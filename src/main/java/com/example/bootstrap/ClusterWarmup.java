@@ -0,0 +1,147 @@
+package com.example.bootstrap;
+
+import com.example.cluster.WarmableConnectionFactory;
+import com.example.metrics.InstrumentedConnectionFactory;
+import com.example.script.ClusterScripts;
+import org.springframework.data.redis.connection.RedisClusterNode;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Startup stage that brings the clients to the state they have under load before they serve anything:
+ * <ol>
+ * <li>waits for {@link ClusterReadiness}, which discovers the topology and opens a connection to every node,</li>
+ * <li>opens every connection the factory keeps to the nodes, all nodes in parallel, see
+ * {@link WarmableConnectionFactory},</li>
+ * <li>loads the registered scripts on every node,</li>
+ * <li>primes the JIT by running the {@link WarmupPolicy} command mix through the template on several
+ * threads.</li>
+ * </ol>
+ * {@link #isComplete()} turns {@code true} only after all of it. Priming writes keys under {@code warmup:} and
+ * deletes them again.
+ */
+public class ClusterWarmup {
+
+    static final String KEY_PREFIX = "warmup:";
+
+    private static final int KEYS_PER_THREAD = 1024;
+
+    private static final long IN_FLIGHT_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private static final String VALUE = String.join("", Collections.nCopies(64, "w"));
+
+    private final RedisConnectionFactory connectionFactory;
+
+    private final ClusterScripts clusterScripts;
+
+    private final RedisTemplate<String, String> template;
+
+    private final WarmupPolicy policy;
+
+    private volatile boolean complete;
+
+    public ClusterWarmup(RedisConnectionFactory connectionFactory, ClusterScripts clusterScripts,
+                         RedisTemplate<String, String> template, WarmupPolicy policy) {
+        this.connectionFactory = connectionFactory;
+        this.clusterScripts = clusterScripts;
+        this.template = template;
+        this.policy = policy;
+    }
+
+    /**
+     * Runs the stage on the calling thread.
+     *
+     * @throws org.springframework.data.redis.RedisConnectionFailureException if the cluster is not ready in time
+     * @throws IllegalStateException if the node connections are not open in time
+     */
+    public void run() {
+        final long deadline = System.nanoTime() + policy.getTimeout().toNanos();
+        final List<RedisClusterNode> nodes = ClusterReadiness.await(connectionFactory, policy.getTimeout());
+        final RedisConnectionFactory factory = InstrumentedConnectionFactory.unwrap(connectionFactory);
+        if (factory instanceof WarmableConnectionFactory) {
+            ParallelTasks.run(((WarmableConnectionFactory) factory).connectionOpeners(), "cluster-warmup-connect",
+                    deadline);
+        }
+        clusterScripts.preload();
+        if (policy.getIterations() > 0 && !policy.getCommands().isEmpty() && !nodes.isEmpty()) {
+            prime(deadline);
+        }
+        complete = true;
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * Runs the command mix until every thread did its iterations or the deadline passed, whichever is first,
+     * then deletes the keys it may have left.
+     */
+    private void prime(long deadline) {
+        final List<Runnable> threads = new ArrayList<>(policy.getThreads());
+        for (int thread = 0; thread < policy.getThreads(); thread++) {
+            final String prefix = KEY_PREFIX + thread + ":";
+            threads.add(() -> {
+                final int keys = Math.min(policy.getIterations(), KEYS_PER_THREAD);
+                try {
+                    for (int i = 0; i < policy.getIterations() && System.nanoTime() < deadline; i++) {
+                        round(prefix + (i % KEYS_PER_THREAD));
+                    }
+                } finally {
+                    final List<String> written = new ArrayList<>(keys);
+                    for (int i = 0; i < keys; i++) {
+                        written.add(prefix + i);
+                    }
+                    template.delete(written);
+                }
+            });
+        }
+        // the threads stop at the deadline on their own, beyond it only the commands in flight are waited for
+        ParallelTasks.run(threads, "cluster-warmup-prime", deadline + IN_FLIGHT_NANOS);
+    }
+
+    private void round(String key) {
+        for (WarmupPolicy.Command command : policy.getCommands()) {
+            switch (command) {
+                case SET:
+                    template.opsForValue().set(key, VALUE);
+                    break;
+                case GET:
+                    template.opsForValue().get(key);
+                    break;
+                case PIPELINE:
+                    pipeline(key);
+                    break;
+                case DELETE:
+                    template.delete(key);
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown command " + command);
+            }
+        }
+    }
+
+    private void pipeline(String key) {
+        final byte[] value = VALUE.getBytes(StandardCharsets.UTF_8);
+        final byte[][] keys = new byte[policy.getPipelineDepth()][];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = (key + ":" + i).getBytes(StandardCharsets.UTF_8);
+        }
+        template.executePipelined((RedisCallback<Object>) connection -> {
+            for (byte[] pipelined : keys) {
+                connection.set(pipelined, value);
+            }
+            for (byte[] pipelined : keys) {
+                connection.del(pipelined);
+            }
+            return null;
+        });
+    }
+}
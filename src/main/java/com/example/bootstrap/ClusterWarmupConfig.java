@@ -0,0 +1,53 @@
+package com.example.bootstrap;
+
+import com.example.script.ClusterScripts;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+/**
+ * Runs a {@link ClusterWarmup} for both client profiles once every singleton exists, so that scripts registered
+ * by other beans are preloaded too. The context only finishes refreshing, and the application only reports
+ * ready, after the warm-up. Turned off with {@code redis.warmup.enabled=false}.
+ */
+@Configuration
+@Profile({"jedis", "lettuce"})
+@ConditionalOnProperty(name = "redis.warmup.enabled", matchIfMissing = true)
+public class ClusterWarmupConfig {
+
+    @Bean
+    WarmupPolicy warmupPolicy(@Value("${redis.warmup.timeout-ms:30000}") long timeout,
+                              @Value("${redis.warmup.iterations:2000}") int iterations,
+                              @Value("${redis.warmup.threads:4}") int threads,
+                              @Value("${redis.warmup.pipeline-depth:16}") int pipelineDepth,
+                              @Value("${redis.warmup.commands:set,get,pipeline,delete}") String[] commands) {
+        return new WarmupPolicy(Duration.ofMillis(timeout), iterations, threads, pipelineDepth,
+                Arrays.stream(commands)
+                        .filter(command -> !command.trim().isEmpty())
+                        .map(command -> WarmupPolicy.Command.valueOf(command.trim().toUpperCase(Locale.ROOT)))
+                        .collect(Collectors.toList()));
+    }
+
+    @Bean
+    ClusterWarmup clusterWarmup(RedisConnectionFactory connectionFactory, ClusterScripts clusterScripts,
+                                @Qualifier("redisTemplateNonTransaction") RedisTemplate<String, String> template,
+                                WarmupPolicy warmupPolicy) {
+        return new ClusterWarmup(connectionFactory, clusterScripts, template, warmupPolicy);
+    }
+
+    @Bean
+    SmartInitializingSingleton clusterWarmupStage(ClusterWarmup clusterWarmup) {
+        return clusterWarmup::run;
+    }
+}
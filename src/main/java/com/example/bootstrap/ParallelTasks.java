@@ -0,0 +1,54 @@
+package com.example.bootstrap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs startup tasks on a daemon thread each and waits for all of them. Startup work here is one blocking task
+ * per node or per priming thread, so a thread per task is what a pool would end up with anyway.
+ */
+final class ParallelTasks {
+
+    private ParallelTasks() {
+    }
+
+    /**
+     * @param deadline {@link System#nanoTime()} by which every task must have completed
+     * @throws RuntimeException the failure of the first task that failed, {@link IllegalStateException} if the
+     *                          deadline passed or the thread was interrupted first
+     */
+    static void run(List<? extends Runnable> tasks, String threadName, long deadline) {
+        final List<CompletableFuture<Void>> results = new ArrayList<>(tasks.size());
+        for (int i = 0; i < tasks.size(); i++) {
+            final Runnable task = tasks.get(i);
+            final CompletableFuture<Void> result = new CompletableFuture<>();
+            final Thread thread = new Thread(() -> {
+                try {
+                    task.run();
+                    result.complete(null);
+                } catch (RuntimeException | Error e) {
+                    result.completeExceptionally(e);
+                }
+            }, threadName + "-" + i);
+            thread.setDaemon(true);
+            thread.start();
+            results.add(result);
+        }
+        try {
+            CompletableFuture.allOf(results.toArray(new CompletableFuture<?>[0]))
+                    .get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            throw cause instanceof RuntimeException ? (RuntimeException) cause : new IllegalStateException(cause);
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Not every " + threadName + " task completed in time", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the " + threadName + " tasks", e);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.bootstrap;
+
+import com.example.cluster.ReadRouting;
+import com.example.jedis.AdaptiveJedisPoolController;
+import com.example.jedis.AffinityPolicy;
+import com.example.jedis.PipeliningJedisConnectionFactory;
+import com.example.jedis.PoolSizingPolicy;
+import com.example.lettuce.BatchingLettuceConnectionFactory;
+import com.example.lettuce.BufferCodec;
+import com.example.lettuce.FlushPolicy;
+import com.example.lettuce.LatencyAwareReadFrom;
+import com.example.lettuce.LettuceBufferOperations;
+import com.example.lettuce.LettuceEventLoops;
+import com.example.lettuce.LettuceTopologyMetrics;
+import com.example.lettuce.NodeLatencyCollector;
+import com.example.lettuce.TopologyRefreshPolicy;
+import com.example.metrics.InstrumentedConnectionFactory;
+import com.example.script.ClusterScripts;
+import com.example.script.PreloadingScriptExecutor;
+import com.example.serializer.BinaryRedisSerializer;
+import com.example.serializer.BinaryTypeRegistry;
+import io.lettuce.core.resource.ClientResources;
+import io.lettuce.core.resource.DefaultClientResources;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.data.redis.connection.RedisClusterConfiguration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import redis.clients.jedis.JedisCluster;
+import redis.clients.jedis.JedisPoolConfig;
+
+/**
+ * Builds the connection factories, templates and their collaborators of the {@code jedis} and {@code lettuce}
+ * profiles. {@code JedisConfig} and {@code LettuceConfig} declare them as beans and {@link RedisClients} wires
+ * them by hand, so both get the same clients. Nothing is initialized here: Spring or {@link RedisClients} calls
+ * {@code afterPropertiesSet} and owns the lifecycle.
+ */
+public final class RedisClientFactory {
+
+    private RedisClientFactory() {
+    }
+
+    /**
+     * Node pools start at {@link PoolSizingPolicy#getMinTotal()} connections, an
+     * {@link AdaptiveJedisPoolController} grows them from there.
+     */
+    public static PipeliningJedisConnectionFactory jedisConnectionFactory(RedisClusterConfiguration cluster,
+                                                                          PoolSizingPolicy poolSizing,
+                                                                          ReadRouting readRouting,
+                                                                          AffinityPolicy affinity) {
+        final JedisPoolConfig poolConfig = new JedisPoolConfig();
+        poolConfig.setMaxIdle(poolSizing.getMinTotal());
+        poolConfig.setMinIdle(poolSizing.getMinTotal());
+        poolConfig.setMaxTotal(poolSizing.getMinTotal());
+        final PipeliningJedisConnectionFactory factory = new PipeliningJedisConnectionFactory(cluster, poolConfig);
+        factory.setReadRouting(readRouting);
+        factory.setAffinityPolicy(affinity);
+        return factory;
+    }
+
+    public static AdaptiveJedisPoolController adaptiveJedisPoolController(RedisConnectionFactory connectionFactory,
+                                                                          PoolSizingPolicy poolSizing,
+                                                                          MeterRegistry meterRegistry) {
+        return new AdaptiveJedisPoolController(
+                () -> (JedisCluster) connectionFactory.getClusterConnection().getNativeConnection(),
+                poolSizing, meterRegistry);
+    }
+
+    /**
+     * @param topologyChanged called after Lettuce reloaded the partitions and the topology differs
+     */
+    public static ClientResources lettuceClientResources(LettuceEventLoops eventLoops,
+                                                         LettuceTopologyMetrics topologyMetrics,
+                                                         ReadRouting readRouting,
+                                                         Runnable topologyChanged) {
+        final DefaultClientResources.Builder builder = eventLoops.configure(DefaultClientResources.builder())
+                .nettyCustomizer(topologyMetrics);
+        if (readRouting != null) {
+            builder.commandLatencyCollector(new NodeLatencyCollector(readRouting.getLatencies()));
+        }
+        final ClientResources resources = builder.build();
+        topologyMetrics.bind(resources.eventBus(), topologyChanged);
+        return resources;
+    }
+
+    public static BatchingLettuceConnectionFactory lettuceConnectionFactory(RedisClusterConfiguration cluster,
+                                                                            ClientResources clientResources,
+                                                                            TopologyRefreshPolicy topologyRefresh,
+                                                                            FlushPolicy flush,
+                                                                            ReadRouting readRouting) {
+        final LettuceClientConfiguration.LettuceClientConfigurationBuilder builder = LettuceClientConfiguration.builder()
+                .clientResources(clientResources)
+                .clientOptions(topologyRefresh.clientOptions());
+        if (readRouting != null) {
+            builder.readFrom(new LatencyAwareReadFrom(readRouting));
+        }
+        final BatchingLettuceConnectionFactory factory =
+                new BatchingLettuceConnectionFactory(cluster, builder.build(), flush);
+        factory.setReadRouting(readRouting);
+        return factory;
+    }
+
+    public static LettuceBufferOperations lettuceBufferOperations(RedisConnectionFactory connectionFactory) {
+        final BatchingLettuceConnectionFactory factory =
+                (BatchingLettuceConnectionFactory) InstrumentedConnectionFactory.unwrap(connectionFactory);
+        final BufferCodec codec = new BufferCodec(4096);
+        return new LettuceBufferOperations(() -> factory.connect(codec), codec);
+    }
+
+    /**
+     * String keys and values, scripts run through {@code clusterScripts}.
+     */
+    public static RedisTemplate<String, String> stringTemplate(RedisConnectionFactory connectionFactory,
+                                                               ClusterScripts clusterScripts,
+                                                               RedisSerializer<String> valueSerializer,
+                                                               boolean transactional) {
+        final RedisTemplate<String, String> template = new RedisTemplate<>();
+        template.setConnectionFactory(connectionFactory);
+        template.setKeySerializer(new StringRedisSerializer());
+        template.setValueSerializer(valueSerializer);
+        template.setScriptExecutor(new PreloadingScriptExecutor<>(template, clusterScripts));
+        template.setEnableTransactionSupport(transactional);
+        return template;
+    }
+
+    /**
+     * String keys, values in the {@link BinaryRedisSerializer} format of {@code binaryTypes}.
+     */
+    public static RedisTemplate<String, Object> objectTemplate(RedisConnectionFactory connectionFactory,
+                                                               BinaryTypeRegistry binaryTypes) {
+        final RedisTemplate<String, Object> template = new RedisTemplate<>();
+        template.setConnectionFactory(connectionFactory);
+        template.setKeySerializer(new StringRedisSerializer());
+        template.setValueSerializer(new BinaryRedisSerializer<>(binaryTypes));
+        template.setEnableTransactionSupport(false);
+        return template;
+    }
+}
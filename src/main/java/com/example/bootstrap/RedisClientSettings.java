@@ -0,0 +1,256 @@
+package com.example.bootstrap;
+
+import com.example.cluster.ReadRouting;
+import com.example.jedis.AffinityPolicy;
+import com.example.jedis.PoolSizingPolicy;
+import com.example.lettuce.EventLoopPolicy;
+import com.example.lettuce.FlushPolicy;
+import com.example.lettuce.TopologyRefreshPolicy;
+import com.example.metrics.RedisMetrics;
+import com.example.serializer.BinaryTypeRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Everything {@link RedisClients} needs to build the clients of the {@code jedis} or {@code lettuce} profile
+ * without Spring. Defaults are the ones of the {@code redis.*} properties; policies of the other client are
+ * ignored.
+ */
+public class RedisClientSettings {
+
+    public enum Client {
+        JEDIS,
+        LETTUCE
+    }
+
+    private final Client client;
+
+    private final List<String> nodes;
+
+    private final PoolSizingPolicy poolSizing;
+
+    private final AffinityPolicy affinity;
+
+    private final TopologyRefreshPolicy topologyRefresh;
+
+    private final EventLoopPolicy eventLoops;
+
+    private final FlushPolicy flush;
+
+    private final ReadRouting readRouting;
+
+    private final RedisSerializer<String> valueSerializer;
+
+    private final BinaryTypeRegistry binaryTypes;
+
+    private final MeterRegistry meterRegistry;
+
+    private final RedisMetrics metrics;
+
+    private final WarmupPolicy warmup;
+
+    private RedisClientSettings(Builder builder) {
+        if (builder.client == null || builder.nodes.isEmpty()) {
+            throw new IllegalArgumentException("A client and at least one cluster node are required");
+        }
+        this.client = builder.client;
+        this.nodes = Collections.unmodifiableList(new ArrayList<>(builder.nodes));
+        this.poolSizing = builder.poolSizing;
+        this.affinity = builder.affinity;
+        this.topologyRefresh = builder.topologyRefresh;
+        this.eventLoops = builder.eventLoops;
+        this.flush = builder.flush;
+        this.readRouting = builder.readRouting;
+        this.valueSerializer = builder.valueSerializer;
+        this.binaryTypes = builder.binaryTypes;
+        this.meterRegistry = builder.meterRegistry;
+        this.metrics = builder.metrics;
+        this.warmup = builder.warmup;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public Client getClient() {
+        return client;
+    }
+
+    public List<String> getNodes() {
+        return nodes;
+    }
+
+    public PoolSizingPolicy getPoolSizing() {
+        return poolSizing;
+    }
+
+    /**
+     * @return the Jedis connection affinity, {@code null} to borrow a connection per command
+     */
+    public AffinityPolicy getAffinity() {
+        return affinity;
+    }
+
+    public TopologyRefreshPolicy getTopologyRefresh() {
+        return topologyRefresh;
+    }
+
+    public EventLoopPolicy getEventLoops() {
+        return eventLoops;
+    }
+
+    public FlushPolicy getFlush() {
+        return flush;
+    }
+
+    /**
+     * @return the routing of reads to replicas, {@code null} to read from the masters
+     */
+    public ReadRouting getReadRouting() {
+        return readRouting;
+    }
+
+    public RedisSerializer<String> getValueSerializer() {
+        return valueSerializer;
+    }
+
+    public BinaryTypeRegistry getBinaryTypes() {
+        return binaryTypes;
+    }
+
+    public MeterRegistry getMeterRegistry() {
+        return meterRegistry;
+    }
+
+    /**
+     * @return the metrics to instrument the connection factory with, {@code null} to leave it uninstrumented
+     */
+    public RedisMetrics getMetrics() {
+        return metrics;
+    }
+
+    public WarmupPolicy getWarmup() {
+        return warmup;
+    }
+
+    @Override
+    public String toString() {
+        return "RedisClientSettings[client=" + client + ", nodes=" + nodes + "]";
+    }
+
+    public static final class Builder {
+
+        private Client client;
+
+        private List<String> nodes = Collections.emptyList();
+
+        private PoolSizingPolicy poolSizing = PoolSizingPolicy.defaults();
+
+        private AffinityPolicy affinity;
+
+        private TopologyRefreshPolicy topologyRefresh = TopologyRefreshPolicy.defaults();
+
+        private EventLoopPolicy eventLoops = EventLoopPolicy.defaults();
+
+        private FlushPolicy flush = FlushPolicy.defaults();
+
+        private ReadRouting readRouting;
+
+        private RedisSerializer<String> valueSerializer = new StringRedisSerializer();
+
+        private BinaryTypeRegistry binaryTypes = new BinaryTypeRegistry();
+
+        private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+        private RedisMetrics metrics;
+
+        private WarmupPolicy warmup = WarmupPolicy.defaults();
+
+        private Builder() {
+        }
+
+        public Builder client(Client client) {
+            this.client = client;
+            return this;
+        }
+
+        /**
+         * Seed nodes as {@code host:port}, the rest of the cluster is discovered from them.
+         */
+        public Builder nodes(List<String> nodes) {
+            this.nodes = nodes;
+            return this;
+        }
+
+        public Builder poolSizing(PoolSizingPolicy poolSizing) {
+            this.poolSizing = poolSizing;
+            return this;
+        }
+
+        public Builder affinity(AffinityPolicy affinity) {
+            this.affinity = affinity;
+            return this;
+        }
+
+        public Builder topologyRefresh(TopologyRefreshPolicy topologyRefresh) {
+            this.topologyRefresh = topologyRefresh;
+            return this;
+        }
+
+        public Builder eventLoops(EventLoopPolicy eventLoops) {
+            this.eventLoops = eventLoops;
+            return this;
+        }
+
+        public Builder flush(FlushPolicy flush) {
+            this.flush = flush;
+            return this;
+        }
+
+        /**
+         * Routes reads to replicas. The routing is started with the clients and closed with them.
+         */
+        public Builder readRouting(ReadRouting readRouting) {
+            this.readRouting = readRouting;
+            return this;
+        }
+
+        public Builder valueSerializer(RedisSerializer<String> valueSerializer) {
+            this.valueSerializer = valueSerializer;
+            return this;
+        }
+
+        public Builder binaryTypes(BinaryTypeRegistry binaryTypes) {
+            this.binaryTypes = binaryTypes;
+            return this;
+        }
+
+        public Builder meterRegistry(MeterRegistry meterRegistry) {
+            this.meterRegistry = meterRegistry;
+            return this;
+        }
+
+        public Builder metrics(RedisMetrics metrics) {
+            this.metrics = metrics;
+            return this;
+        }
+
+        /**
+         * The {@link ClusterWarmup} {@link RedisClients#start} runs before it returns.
+         */
+        public Builder warmup(WarmupPolicy warmup) {
+            this.warmup = warmup;
+            return this;
+        }
+
+        public RedisClientSettings build() {
+            return new RedisClientSettings(this);
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.example.bootstrap;
+
+import com.example.jedis.AdaptiveJedisPoolController;
+import com.example.jedis.JedisScriptLoader;
+import com.example.jedis.PipeliningJedisConnectionFactory;
+import com.example.lettuce.BatchingLettuceConnectionFactory;
+import com.example.lettuce.LettuceEventLoops;
+import com.example.lettuce.LettuceScriptLoader;
+import com.example.lettuce.LettuceTopologyMetrics;
+import com.example.metrics.InstrumentedConnectionFactory;
+import com.example.script.ClusterScripts;
+import io.lettuce.core.resource.ClientResources;
+import org.springframework.data.redis.connection.RedisClusterConfiguration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * The connection factory, scripts and templates of the {@code jedis} or {@code lettuce} profile, built by
+ * {@link RedisClientFactory} from {@link RedisClientSettings} without a Spring context. {@link #start} returns
+ * once the {@link ClusterWarmup} completed; {@link #close} releases everything in reverse order of creation.
+ */
+public final class RedisClients implements Closeable {
+
+    private final RedisClientSettings settings;
+
+    private final Deque<AutoCloseable> resources = new ArrayDeque<>();
+
+    private volatile RedisConnectionFactory connectionFactory;
+
+    private volatile ClusterScripts clusterScripts;
+
+    private RedisTemplate<String, String> template;
+
+    private RedisTemplate<String, String> nonTransactionTemplate;
+
+    private RedisTemplate<String, Object> objectTemplate;
+
+    private RedisClients(RedisClientSettings settings) {
+        this.settings = settings;
+    }
+
+    /**
+     * Builds and starts the clients, closing whatever was started if that fails.
+     *
+     * @throws org.springframework.data.redis.RedisConnectionFailureException if the cluster is not ready within
+     *                                                                         the warm-up timeout
+     */
+    public static RedisClients start(RedisClientSettings settings) {
+        final RedisClients clients = new RedisClients(settings);
+        try {
+            clients.init();
+        } catch (RuntimeException e) {
+            try {
+                clients.close();
+            } catch (RuntimeException closeFailure) {
+                e.addSuppressed(closeFailure);
+            }
+            throw e;
+        }
+        return clients;
+    }
+
+    private void init() {
+        final RedisClusterConfiguration cluster = new RedisClusterConfiguration(settings.getNodes());
+        if (settings.getReadRouting() != null) {
+            resources.push(settings.getReadRouting());
+        }
+        final boolean jedis = settings.getClient() == RedisClientSettings.Client.JEDIS;
+        final RedisConnectionFactory factory = jedis ? jedis(cluster) : lettuce(cluster);
+        connectionFactory = settings.getMetrics() != null
+                ? new InstrumentedConnectionFactory(factory, settings.getMetrics()) : factory;
+        clusterScripts = new ClusterScripts(connectionFactory,
+                jedis ? new JedisScriptLoader() : new LettuceScriptLoader());
+        if (jedis) {
+            final AdaptiveJedisPoolController controller = RedisClientFactory.adaptiveJedisPoolController(
+                    connectionFactory, settings.getPoolSizing(), settings.getMeterRegistry());
+            controller.start();
+            resources.push(controller);
+        }
+
+        template = RedisClientFactory.stringTemplate(connectionFactory, clusterScripts,
+                settings.getValueSerializer(), true);
+        template.afterPropertiesSet();
+        nonTransactionTemplate = RedisClientFactory.stringTemplate(connectionFactory, clusterScripts,
+                settings.getValueSerializer(), false);
+        nonTransactionTemplate.afterPropertiesSet();
+        objectTemplate = RedisClientFactory.objectTemplate(connectionFactory, settings.getBinaryTypes());
+        objectTemplate.afterPropertiesSet();
+
+        new ClusterWarmup(connectionFactory, clusterScripts, nonTransactionTemplate, settings.getWarmup()).run();
+    }
+
+    private RedisConnectionFactory jedis(RedisClusterConfiguration cluster) {
+        final PipeliningJedisConnectionFactory factory = RedisClientFactory.jedisConnectionFactory(cluster,
+                settings.getPoolSizing(), settings.getReadRouting(), settings.getAffinity());
+        factory.afterPropertiesSet();
+        resources.push(factory::destroy);
+        return factory;
+    }
+
+    private RedisConnectionFactory lettuce(RedisClusterConfiguration cluster) {
+        final LettuceEventLoops eventLoops = new LettuceEventLoops(settings.getEventLoops());
+        resources.push(eventLoops);
+        final LettuceTopologyMetrics topologyMetrics = new LettuceTopologyMetrics(settings.getMeterRegistry());
+        resources.push(topologyMetrics);
+        final ClientResources clientResources = RedisClientFactory.lettuceClientResources(eventLoops,
+                topologyMetrics, settings.getReadRouting(), this::topologyChanged);
+        resources.push(clientResources::shutdown);
+        final BatchingLettuceConnectionFactory factory = RedisClientFactory.lettuceConnectionFactory(cluster,
+                clientResources, settings.getTopologyRefresh(), settings.getFlush(), settings.getReadRouting());
+        factory.afterPropertiesSet();
+        resources.push(factory::destroy);
+        return factory;
+    }
+
+    private void topologyChanged() {
+        if (settings.getMetrics() != null) {
+            settings.getMetrics().topologyChanged();
+        }
+        final ClusterScripts scripts = clusterScripts;
+        if (scripts != null) {
+            scripts.topologyChanged();
+        }
+    }
+
+    public RedisClientSettings getSettings() {
+        return settings;
+    }
+
+    public RedisConnectionFactory getConnectionFactory() {
+        return connectionFactory;
+    }
+
+    public ClusterScripts getClusterScripts() {
+        return clusterScripts;
+    }
+
+    /**
+     * @return the template of the {@code redisTemplate} bean, with transaction support
+     */
+    public RedisTemplate<String, String> getTemplate() {
+        return template;
+    }
+
+    /**
+     * @return the template of the {@code redisTemplateNonTransaction} bean
+     */
+    public RedisTemplate<String, String> getNonTransactionTemplate() {
+        return nonTransactionTemplate;
+    }
+
+    /**
+     * @return the template of the {@code redisObjectTemplate} bean
+     */
+    public RedisTemplate<String, Object> getObjectTemplate() {
+        return objectTemplate;
+    }
+
+    /**
+     * Closes everything started, in reverse order, even if closing some of it fails.
+     *
+     * @throws IllegalStateException with the other failures suppressed if anything failed to close
+     */
+    @Override
+    public void close() {
+        IllegalStateException failure = null;
+        while (!resources.isEmpty()) {
+            try {
+                resources.pop().close();
+            } catch (Exception e) {
+                if (failure == null) {
+                    failure = new IllegalStateException("Could not close the Redis clients", e);
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
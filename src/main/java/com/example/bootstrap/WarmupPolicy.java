@@ -0,0 +1,95 @@
+package com.example.bootstrap;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * What {@link ClusterWarmup} does before the clients count as ready. The cluster must be ready and every node
+ * connection open within {@code timeout}; then {@code threads} threads run {@code iterations} rounds of the
+ * synthetic {@code commands} each, as far as the rest of the timeout allows. Zero iterations skip the priming.
+ */
+public class WarmupPolicy {
+
+    public enum Command {
+
+        /**
+         * {@code SET} of a 64-byte value.
+         */
+        SET,
+
+        /**
+         * {@code GET} of the key just set.
+         */
+        GET,
+
+        /**
+         * A pipeline of {@code pipelineDepth} keys, each set and deleted.
+         */
+        PIPELINE,
+
+        /**
+         * {@code DEL} of the key.
+         */
+        DELETE
+    }
+
+    private final Duration timeout;
+
+    private final int iterations;
+
+    private final int threads;
+
+    private final int pipelineDepth;
+
+    private final Set<Command> commands;
+
+    public WarmupPolicy(Duration timeout, int iterations, int threads, int pipelineDepth,
+                        Collection<Command> commands) {
+        if (timeout.isNegative() || iterations < 0 || threads < 1 || pipelineDepth < 1) {
+            throw new IllegalArgumentException("timeout and iterations must not be negative, "
+                    + "threads and pipelineDepth must be positive");
+        }
+        this.timeout = timeout;
+        this.iterations = iterations;
+        this.threads = threads;
+        this.pipelineDepth = pipelineDepth;
+        this.commands = Collections.unmodifiableSet(commands.isEmpty()
+                ? EnumSet.noneOf(Command.class) : EnumSet.copyOf(commands));
+    }
+
+    public static WarmupPolicy defaults() {
+        return new WarmupPolicy(Duration.ofSeconds(30), 2000, 4, 16, EnumSet.allOf(Command.class));
+    }
+
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public int getPipelineDepth() {
+        return pipelineDepth;
+    }
+
+    /**
+     * @return the commands of every round, run in declaration order
+     */
+    public Set<Command> getCommands() {
+        return commands;
+    }
+
+    @Override
+    public String toString() {
+        return "WarmupPolicy[timeout=" + timeout + ", iterations=" + iterations + ", threads=" + threads
+                + ", pipelineDepth=" + pipelineDepth + ", commands=" + commands + "]";
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.bulk;
+
+import org.springframework.data.redis.RedisSystemException;
+
+/**
+ * Thrown when a {@link BulkLoader} run stops early: a node failed, a redirect showed that the topology changed,
+ * or the input is malformed. The checkpoint has been saved; running the loader again resumes from it.
+ */
+public class BulkLoadException extends RedisSystemException {
+
+    private final transient BulkLoadProgress progress;
+
+    public BulkLoadException(String msg, Throwable cause, BulkLoadProgress progress) {
+        super(msg, cause);
+        this.progress = progress;
+    }
+
+    /**
+     * @return the state the run stopped in
+     */
+    public BulkLoadProgress getProgress() {
+        return progress;
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.bulk;
+
+/**
+ * Input formats of the {@link BulkLoader}.
+ */
+public enum BulkLoadFormat {
+
+    /**
+     * One {@code key,value} pair per line, loaded with {@code SET}. The value is everything after the first comma;
+     * there is no quoting.
+     */
+    CSV((byte) ','),
+
+    /**
+     * One {@code key<TAB>value} pair per line, loaded with {@code SET}.
+     */
+    TSV((byte) '\t'),
+
+    /**
+     * RESP-encoded commands as accepted by {@code redis-cli --pipe}, sent unchanged to the node owning their first
+     * argument. Inline commands are not supported.
+     */
+    RESP((byte) 0);
+
+    private final byte separator;
+
+    BulkLoadFormat(byte separator) {
+        this.separator = separator;
+    }
+
+    byte getSeparator() {
+        return separator;
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.bulk;
+
+import java.time.Duration;
+
+/**
+ * Limits of a {@link BulkLoader} run. {@code window} bounds the commands sent to a node whose replies have not
+ * been read yet, {@code bufferBytes} the RESP buffered per node before it is written to the socket. Progress is
+ * reported and the checkpoint saved every {@code progressInterval}; a node that sends no reply for
+ * {@code replyTimeout} while commands are outstanding fails the run.
+ */
+public class BulkLoadPolicy {
+
+    private final int window;
+
+    private final int bufferBytes;
+
+    private final Duration progressInterval;
+
+    private final Duration replyTimeout;
+
+    public BulkLoadPolicy(int window, int bufferBytes, Duration progressInterval, Duration replyTimeout) {
+        if (window < 1 || bufferBytes < 64) {
+            throw new IllegalArgumentException("window must be positive and bufferBytes at least 64");
+        }
+        this.window = window;
+        this.bufferBytes = bufferBytes;
+        this.progressInterval = progressInterval;
+        this.replyTimeout = replyTimeout;
+    }
+
+    public static BulkLoadPolicy defaults() {
+        return new BulkLoadPolicy(16 * 1024, 256 * 1024, Duration.ofSeconds(1), Duration.ofSeconds(30));
+    }
+
+    public int getWindow() {
+        return window;
+    }
+
+    public int getBufferBytes() {
+        return bufferBytes;
+    }
+
+    public Duration getProgressInterval() {
+        return progressInterval;
+    }
+
+    public Duration getReplyTimeout() {
+        return replyTimeout;
+    }
+
+    @Override
+    public String toString() {
+        return "BulkLoadPolicy[window=" + window + ", bufferBytes=" + bufferBytes + ", progressInterval="
+                + progressInterval + ", replyTimeout=" + replyTimeout + "]";
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.bulk;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Snapshot of a {@link BulkLoader} run. {@link #getCheckpoint()} is the input offset before which every record
+ * has been acknowledged by its node; a new run resumes from there.
+ */
+public class BulkLoadProgress {
+
+    private final long checkpoint;
+
+    private final long size;
+
+    private final long sent;
+
+    private final long acknowledged;
+
+    private final long failed;
+
+    private final long elapsedNanos;
+
+    private final List<String> errors;
+
+    BulkLoadProgress(long checkpoint, long size, long sent, long acknowledged, long failed, long elapsedNanos,
+                     List<String> errors) {
+        this.checkpoint = checkpoint;
+        this.size = size;
+        this.sent = sent;
+        this.acknowledged = acknowledged;
+        this.failed = failed;
+        this.elapsedNanos = elapsedNanos;
+        this.errors = errors;
+    }
+
+    public long getCheckpoint() {
+        return checkpoint;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * @return records sent in this run
+     */
+    public long getSent() {
+        return sent;
+    }
+
+    /**
+     * @return records whose reply was read in this run, including failed ones
+     */
+    public long getAcknowledged() {
+        return acknowledged;
+    }
+
+    /**
+     * @return records answered with an error other than a redirect, which are not retried
+     */
+    public long getFailed() {
+        return failed;
+    }
+
+    /**
+     * @return the first error replies, at most 10
+     */
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public double getRecordsPerSecond() {
+        return elapsedNanos == 0 ? 0 : acknowledged * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+
+    public boolean isComplete() {
+        return checkpoint == size;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%.1f%% (%d of %d bytes), %d sent, %d acknowledged, %d failed, %.0f records/s",
+                size == 0 ? 100.0 : checkpoint * 100.0 / size, checkpoint, size, sent, acknowledged, failed,
+                getRecordsPerSecond());
+    }
+}
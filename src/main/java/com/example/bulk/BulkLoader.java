@@ -0,0 +1,277 @@
+package com.example.bulk;
+
+import com.example.cluster.ClusterSlots;
+import org.springframework.data.redis.connection.RedisClusterConnection;
+import org.springframework.data.redis.connection.RedisClusterNode;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Loads a file into the cluster the way {@code redis-cli --pipe} does, but slot-aware: the input is memory-mapped
+ * and parsed in place, every record is encoded as RESP straight into the buffer of the master owning its key and
+ * the buffers are streamed over one dedicated connection per master. Replies are read on a thread per master
+ * and only checked for errors; at most {@link BulkLoadPolicy#getWindow()} commands per master are in flight.
+ * <p>
+ * The offset up to which every record has been acknowledged is written to a checkpoint file while loading. A
+ * run that fails, including on a redirect because slots moved, can be repeated and resumes from the checkpoint;
+ * records after it may be sent twice, which is harmless for {@code SET}. The checkpoint file is deleted once the
+ * whole input has been loaded. Connections are plain TCP, without {@code AUTH} or TLS.
+ */
+public class BulkLoader {
+
+    static final int WINDOW_BYTES = 1 << 30;
+
+    private final RedisConnectionFactory connectionFactory;
+
+    private final BulkLoadPolicy policy;
+
+    private final int windowBytes;
+
+    public BulkLoader(RedisConnectionFactory connectionFactory, BulkLoadPolicy policy) {
+        this(connectionFactory, policy, WINDOW_BYTES);
+    }
+
+    BulkLoader(RedisConnectionFactory connectionFactory, BulkLoadPolicy policy, int windowBytes) {
+        this.connectionFactory = connectionFactory;
+        this.policy = policy;
+        this.windowBytes = windowBytes;
+    }
+
+    /**
+     * Loads {@code input} from the offset saved in {@code checkpoint}, or from the start if there is none.
+     *
+     * @param listener called on the loading thread every {@link BulkLoadPolicy#getProgressInterval()}
+     * @return the final progress, with the failed records and their first errors
+     * @throws BulkLoadException if the run stopped early, after saving the checkpoint
+     */
+    public BulkLoadProgress load(Path input, BulkLoadFormat format, Path checkpoint,
+                                 Consumer<BulkLoadProgress> listener) {
+        try (MappedInput mapped = MappedInput.open(input, windowBytes)) {
+            return new Run(mapped, format, checkpoint, listener).execute();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read " + input, e);
+        }
+    }
+
+    static long readCheckpoint(Path checkpoint) throws IOException {
+        if (!Files.exists(checkpoint)) {
+            return 0;
+        }
+        return Long.parseLong(new String(Files.readAllBytes(checkpoint), StandardCharsets.US_ASCII).trim());
+    }
+
+    static void writeCheckpoint(Path checkpoint, long offset) throws IOException {
+        final Path temporary = checkpoint.resolveSibling(checkpoint.getFileName() + ".tmp");
+        Files.write(temporary, Long.toString(offset).getBytes(StandardCharsets.US_ASCII));
+        Files.move(temporary, checkpoint, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private class Run {
+
+        private final MappedInput input;
+
+        private final BulkLoadFormat format;
+
+        private final Path checkpoint;
+
+        private final Consumer<BulkLoadProgress> listener;
+
+        private final List<String> errors = new ArrayList<>();
+
+        private final int[] owners = new int[ClusterSlots.SLOT_COUNT];
+
+        private final List<NodeStream> nodes = new ArrayList<>();
+
+        private final long timeoutNanos = policy.getReplyTimeout().toNanos();
+
+        private final long started = System.nanoTime();
+
+        private long offset;
+
+        Run(MappedInput input, BulkLoadFormat format, Path checkpoint, Consumer<BulkLoadProgress> listener) {
+            this.input = input;
+            this.format = format;
+            this.checkpoint = checkpoint;
+            this.listener = listener;
+        }
+
+        BulkLoadProgress execute() throws IOException {
+            offset = readCheckpoint(checkpoint);
+            if (offset > input.size()) {
+                throw new IllegalStateException("Checkpoint " + offset + " is beyond the end of the input");
+            }
+            try {
+                connect();
+                stream();
+                drain();
+            } catch (IOException e) {
+                throw abort(e);
+            } catch (IllegalArgumentException | IllegalStateException e) {
+                // the connections still work, let the records already sent count towards the checkpoint
+                try {
+                    drain();
+                } catch (IOException | IllegalStateException drainFailure) {
+                    e.addSuppressed(drainFailure);
+                }
+                throw abort(e);
+            } finally {
+                for (NodeStream node : nodes) {
+                    node.close();
+                }
+            }
+            final BulkLoadProgress progress = progress();
+            if (progress.isComplete()) {
+                Files.deleteIfExists(checkpoint);
+            }
+            return progress;
+        }
+
+        private void connect() throws IOException {
+            Arrays.fill(owners, -1);
+            try (RedisClusterConnection connection = connectionFactory.getClusterConnection()) {
+                for (RedisClusterNode node : connection.clusterGetNodes()) {
+                    if (!node.isMaster() || node.getSlotRange().getSlots().isEmpty()) {
+                        continue;
+                    }
+                    for (int slot : node.getSlotRange().getSlotsArray()) {
+                        owners[slot] = nodes.size();
+                    }
+                    nodes.add(new NodeStream(node.getHost(), node.getPort(), policy, errors));
+                }
+            }
+        }
+
+        private void stream() throws IOException {
+            final long progressNanos = policy.getProgressInterval().toNanos();
+            long nextProgress = System.nanoTime() + progressNanos;
+            final RecordParser parser = new RecordParser(format);
+            ByteBuffer window = input.map(offset);
+            ByteBuffer view = window.duplicate();
+            long records = 0;
+            while (offset < input.size()) {
+                final int position = (int) (offset - input.base());
+                final int result;
+                try {
+                    result = parser.parse(window, position, window.limit(), input.isLast());
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Malformed record at offset " + offset + ": "
+                            + e.getMessage(), e);
+                }
+                if (result == RecordParser.INCOMPLETE) {
+                    if (position == 0) {
+                        throw new IllegalArgumentException("Record at offset " + offset + " is larger than "
+                                + windowBytes + " bytes");
+                    }
+                    window = input.map(offset);
+                    view = window.duplicate();
+                    continue;
+                }
+                if (result == RecordParser.RECORD) {
+                    final int slot = ClusterSlots.slot(window, parser.keyOffset, parser.keyLength);
+                    if (owners[slot] < 0) {
+                        throw new IllegalStateException("No master serves slot " + slot);
+                    }
+                    final NodeStream node = nodes.get(owners[slot]);
+                    if (format == BulkLoadFormat.RESP) {
+                        node.command(view, position, parser.end - position, offset);
+                    } else {
+                        node.set(view, parser.keyOffset, parser.keyLength, parser.valueOffset, parser.valueLength,
+                                offset);
+                    }
+                }
+                offset = input.base() + parser.end;
+                if ((++records & 1023) == 0 && System.nanoTime() >= nextProgress) {
+                    nextProgress = System.nanoTime() + progressNanos;
+                    report();
+                }
+            }
+        }
+
+        private void drain() throws IOException {
+            for (NodeStream node : nodes) {
+                node.flush();
+            }
+            final long progressNanos = policy.getProgressInterval().toNanos();
+            long nextProgress = System.nanoTime() + progressNanos;
+            while (!isDrained()) {
+                for (NodeStream node : nodes) {
+                    node.check(timeoutNanos);
+                }
+                LockSupport.parkNanos(this, 1_000_000);
+                if (System.nanoTime() >= nextProgress) {
+                    nextProgress = System.nanoTime() + progressNanos;
+                    listener.accept(progress());
+                }
+            }
+            report();
+        }
+
+        private boolean isDrained() {
+            for (NodeStream node : nodes) {
+                if (!node.isDrained()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Flushes every node, saves the checkpoint and tells the listener. Fails the run on a redirect, since
+         * the slot table it routes by is out of date.
+         */
+        private void report() throws IOException {
+            for (NodeStream node : nodes) {
+                node.flush();
+                node.check(timeoutNanos);
+                if (node.getRedirect() != null) {
+                    throw new IllegalStateException("Topology changed: " + node.getRedirect());
+                }
+            }
+            final BulkLoadProgress progress = progress();
+            writeCheckpoint(checkpoint, progress.getCheckpoint());
+            listener.accept(progress);
+        }
+
+        private BulkLoadProgress progress() {
+            long checkpointOffset = offset;
+            long sent = 0;
+            long acknowledged = 0;
+            long failed = 0;
+            for (NodeStream node : nodes) {
+                checkpointOffset = Math.min(checkpointOffset, node.checkpoint());
+                sent += node.getSent();
+                acknowledged += node.getAcknowledged();
+                failed += node.getFailed();
+            }
+            final List<String> firstErrors;
+            synchronized (errors) {
+                firstErrors = new ArrayList<>(errors);
+            }
+            return new BulkLoadProgress(checkpointOffset, input.size(), sent, acknowledged, failed,
+                    System.nanoTime() - started, firstErrors);
+        }
+
+        private BulkLoadException abort(Exception cause) {
+            final BulkLoadProgress progress = progress();
+            try {
+                writeCheckpoint(checkpoint, progress.getCheckpoint());
+            } catch (IOException e) {
+                cause.addSuppressed(e);
+            }
+            return new BulkLoadException("Bulk load stopped at offset " + progress.getCheckpoint() + ": "
+                    + cause.getMessage(), cause, progress);
+        }
+    }
+}
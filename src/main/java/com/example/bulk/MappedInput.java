@@ -0,0 +1,67 @@
+package com.example.bulk;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Read-only memory map of an input file, one window of at most {@code windowBytes} at a time so that files larger
+ * than 2 GiB can be read. The parser works on the window directly, nothing is copied onto the heap.
+ */
+final class MappedInput implements Closeable {
+
+    private final FileChannel channel;
+
+    private final long size;
+
+    private final int windowBytes;
+
+    private MappedByteBuffer window;
+
+    private long base;
+
+    private MappedInput(FileChannel channel, int windowBytes) throws IOException {
+        this.channel = channel;
+        this.size = channel.size();
+        this.windowBytes = windowBytes;
+    }
+
+    static MappedInput open(Path path, int windowBytes) throws IOException {
+        return new MappedInput(FileChannel.open(path, StandardOpenOption.READ), windowBytes);
+    }
+
+    long size() {
+        return size;
+    }
+
+    /**
+     * Maps the window starting at {@code offset}.
+     */
+    MappedByteBuffer map(long offset) throws IOException {
+        this.base = offset;
+        this.window = channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(windowBytes, size - offset));
+        return window;
+    }
+
+    /**
+     * @return the file offset of the first byte of the window
+     */
+    long base() {
+        return base;
+    }
+
+    /**
+     * @return {@code true} if the window reaches the end of the file
+     */
+    boolean isLast() {
+        return base + window.limit() >= size;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
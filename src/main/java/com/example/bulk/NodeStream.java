@@ -0,0 +1,317 @@
+package com.example.bulk;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Dedicated connection to one master. The loader thread encodes commands into a direct buffer and writes it out
+ * when full; a reader thread consumes the replies as they arrive. The input offset of every command in flight
+ * sits in a ring of {@code window} entries, which is what bounds the commands in flight and tells the loader
+ * how far the node has acknowledged the input.
+ */
+final class NodeStream implements Closeable {
+
+    private static final byte[] SET_HEADER = "*3\r\n$3\r\nSET\r\n$".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] VALUE_HEADER = {'\r', '\n', '$'};
+
+    private static final byte[] CRLF = {'\r', '\n'};
+
+    private static final int MAX_ERRORS = 10;
+
+    private static final String[] RETRYABLE_ERRORS = {"MOVED", "ASK", "TRYAGAIN", "CLUSTERDOWN", "LOADING"};
+
+    final String address;
+
+    private final SocketChannel channel;
+
+    private final ByteBuffer out;
+
+    private final long[] offsets;
+
+    private final int mask;
+
+    private final List<String> errors;
+
+    private final Thread loader;
+
+    private final Thread reader;
+
+    private volatile long head;
+
+    private volatile long tail;
+
+    private volatile long failed;
+
+    private volatile long lastActivity = System.nanoTime();
+
+    private volatile long hold = Long.MAX_VALUE;
+
+    private volatile String redirect;
+
+    private volatile IOException failure;
+
+    private final byte[] digits = new byte[10];
+
+    NodeStream(String host, int port, BulkLoadPolicy policy, List<String> errors) throws IOException {
+        this.address = host + ":" + port;
+        this.channel = SocketChannel.open(new InetSocketAddress(host, port));
+        this.channel.socket().setTcpNoDelay(true);
+        this.out = ByteBuffer.allocateDirect(policy.getBufferBytes());
+        this.offsets = new long[Integer.highestOneBit(policy.getWindow() * 2 - 1)];
+        this.mask = offsets.length - 1;
+        this.errors = errors;
+        this.loader = Thread.currentThread();
+        this.reader = new Thread(this::readReplies, "bulk-load-" + address);
+        this.reader.setDaemon(true);
+        this.reader.start();
+    }
+
+    /**
+     * Queues {@code SET key value} with key and value taken from {@code input}.
+     */
+    void set(ByteBuffer input, int keyOffset, int keyLength, int valueOffset, int valueLength, long offset)
+            throws IOException {
+        enqueue(offset);
+        put(SET_HEADER);
+        putLength(keyLength);
+        copy(input, keyOffset, keyLength);
+        put(VALUE_HEADER);
+        putLength(valueLength);
+        copy(input, valueOffset, valueLength);
+        put(CRLF);
+    }
+
+    /**
+     * Queues a command that is already RESP-encoded in {@code input}.
+     */
+    void command(ByteBuffer input, int commandOffset, int commandLength, long offset) throws IOException {
+        enqueue(offset);
+        copy(input, commandOffset, commandLength);
+    }
+
+    void flush() throws IOException {
+        if (out.position() == 0) {
+            return;
+        }
+        out.flip();
+        while (out.hasRemaining()) {
+            channel.write(out);
+        }
+        out.clear();
+        lastActivity = System.nanoTime();
+    }
+
+    /**
+     * @return the input offset of the oldest command not acknowledged yet, or of a command that was redirected,
+     * {@link Long#MAX_VALUE} if there is none
+     */
+    long checkpoint() {
+        final long acknowledged = head;
+        final long oldest = acknowledged < tail ? offsets[(int) (acknowledged & mask)] : Long.MAX_VALUE;
+        return Math.min(oldest, hold);
+    }
+
+    boolean isDrained() {
+        return head == tail;
+    }
+
+    long getAcknowledged() {
+        return head;
+    }
+
+    long getSent() {
+        return tail;
+    }
+
+    long getFailed() {
+        return failed;
+    }
+
+    /**
+     * @return the first redirect or cluster state error, {@code null} if there was none
+     */
+    String getRedirect() {
+        return redirect;
+    }
+
+    /**
+     * Throws the I/O failure of the reader, or a timeout if the node has not answered for {@code timeoutNanos}
+     * while commands are outstanding.
+     */
+    void check(long timeoutNanos) throws IOException {
+        if (failure != null) {
+            throw failure;
+        }
+        if (!isDrained() && System.nanoTime() - lastActivity > timeoutNanos) {
+            throw new IOException("No reply from " + address + " for "
+                    + TimeUnit.NANOSECONDS.toMillis(timeoutNanos) + " ms");
+        }
+    }
+
+    private void enqueue(long offset) throws IOException {
+        while (tail - head >= offsets.length) {
+            flush();
+            if (failure != null) {
+                throw failure;
+            }
+            LockSupport.parkNanos(this, 100_000);
+        }
+        offsets[(int) (tail & mask)] = offset;
+        tail = tail + 1;
+    }
+
+    private void copy(ByteBuffer input, int offset, int length) throws IOException {
+        int position = offset;
+        final int end = offset + length;
+        while (position < end) {
+            if (!out.hasRemaining()) {
+                flush();
+            }
+            final int chunk = Math.min(out.remaining(), end - position);
+            input.limit(position + chunk);
+            input.position(position);
+            out.put(input);
+            position += chunk;
+        }
+    }
+
+    private void put(byte[] bytes) throws IOException {
+        if (out.remaining() < bytes.length) {
+            flush();
+        }
+        out.put(bytes);
+    }
+
+    private void putLength(int length) throws IOException {
+        if (out.remaining() < digits.length + 2) {
+            flush();
+        }
+        int position = digits.length;
+        int remaining = length;
+        do {
+            digits[--position] = (byte) ('0' + remaining % 10);
+            remaining /= 10;
+        } while (remaining != 0);
+        out.put(digits, position, digits.length - position);
+        out.put((byte) '\r').put((byte) '\n');
+    }
+
+    private void readReplies() {
+        ByteBuffer in = ByteBuffer.allocate(64 * 1024);
+        try {
+            while (true) {
+                if (channel.read(in) < 0) {
+                    throw new EOFException("Connection to " + address + " closed");
+                }
+                in.flip();
+                int end;
+                while ((end = skipReply(in, in.position())) >= 0) {
+                    if (in.get(in.position()) == '-') {
+                        error(new String(in.array(), in.position() + 1, end - in.position() - 3,
+                                StandardCharsets.UTF_8));
+                    }
+                    in.position(end);
+                    head = head + 1;
+                }
+                in.compact();
+                if (!in.hasRemaining()) {
+                    final ByteBuffer grown = ByteBuffer.allocate(in.capacity() * 2);
+                    in.flip();
+                    in = grown.put(in);
+                }
+                lastActivity = System.nanoTime();
+                LockSupport.unpark(loader);
+            }
+        } catch (IOException e) {
+            if (channel.isOpen()) {
+                failure = e;
+            }
+        } finally {
+            LockSupport.unpark(loader);
+        }
+    }
+
+    private void error(String message) {
+        for (String retryable : RETRYABLE_ERRORS) {
+            if (message.startsWith(retryable)) {
+                hold = Math.min(hold, offsets[(int) (head & mask)]);
+                if (redirect == null) {
+                    redirect = address + ": " + message;
+                }
+                return;
+            }
+        }
+        failed = failed + 1;
+        synchronized (errors) {
+            if (errors.size() < MAX_ERRORS) {
+                errors.add(address + ": " + message);
+            }
+        }
+    }
+
+    /**
+     * @return the index after the reply starting at {@code position}, {@code -1} if it is not complete yet
+     */
+    private static int skipReply(ByteBuffer in, int position) throws IOException {
+        final int limit = in.limit();
+        if (position >= limit) {
+            return -1;
+        }
+        int lineEnd = position + 1;
+        while (lineEnd + 1 < limit && in.get(lineEnd) != '\r') {
+            lineEnd++;
+        }
+        if (lineEnd + 1 >= limit) {
+            return -1;
+        }
+        final byte type = in.get(position);
+        if (type == '+' || type == '-' || type == ':') {
+            return lineEnd + 2;
+        }
+        if (type != '$' && type != '*') {
+            throw new IOException("Protocol error: unexpected reply type '" + (char) type + "'");
+        }
+        final int length = parseLength(in, position + 1, lineEnd);
+        if (type == '$') {
+            final int end = lineEnd + 2 + length + 2;
+            return length < 0 ? lineEnd + 2 : end <= limit ? end : -1;
+        }
+        int next = lineEnd + 2;
+        for (int i = 0; i < length && next >= 0; i++) {
+            next = skipReply(in, next);
+        }
+        return next;
+    }
+
+    private static int parseLength(ByteBuffer in, int from, int to) throws IOException {
+        final boolean negative = in.get(from) == '-';
+        int value = 0;
+        for (int i = negative ? from + 1 : from; i < to; i++) {
+            final byte b = in.get(i);
+            if (b < '0' || b > '9') {
+                throw new IOException("Protocol error: invalid length");
+            }
+            value = value * 10 + (b - '0');
+        }
+        return negative ? -value : value;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+        try {
+            reader.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
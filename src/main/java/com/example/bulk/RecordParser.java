@@ -0,0 +1,139 @@
+package com.example.bulk;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Finds the next record of a {@link BulkLoadFormat} in a buffer and exposes where its parts are, as buffer
+ * indexes. The parser keeps no copy of the data and allocates nothing.
+ */
+final class RecordParser {
+
+    static final int INCOMPLETE = -1;
+
+    static final int SKIP = 0;
+
+    static final int RECORD = 1;
+
+    private final BulkLoadFormat format;
+
+    /**
+     * Index after the last record parsed.
+     */
+    int end;
+
+    int keyOffset;
+
+    int keyLength;
+
+    int valueOffset;
+
+    int valueLength;
+
+    private int number;
+
+    RecordParser(BulkLoadFormat format) {
+        this.format = format;
+    }
+
+    /**
+     * @param last {@code true} if the buffer ends where the input ends, so a final line needs no newline
+     * @return {@link #RECORD}, {@link #SKIP} for a blank line or {@link #INCOMPLETE} if the record continues past
+     * {@code limit}
+     * @throws IllegalArgumentException if the record is malformed
+     */
+    int parse(ByteBuffer buffer, int position, int limit, boolean last) {
+        return format == BulkLoadFormat.RESP ? parseCommand(buffer, position, limit, last)
+                : parseLine(buffer, position, limit, last);
+    }
+
+    private int parseLine(ByteBuffer buffer, int position, int limit, boolean last) {
+        int newline = position;
+        while (newline < limit && buffer.get(newline) != '\n') {
+            newline++;
+        }
+        if (newline == limit && !last) {
+            return INCOMPLETE;
+        }
+        end = newline < limit ? newline + 1 : limit;
+        int contentEnd = newline;
+        if (contentEnd > position && buffer.get(contentEnd - 1) == '\r') {
+            contentEnd--;
+        }
+        if (contentEnd == position) {
+            return SKIP;
+        }
+        final byte separator = format.getSeparator();
+        for (int i = position; i < contentEnd; i++) {
+            if (buffer.get(i) == separator) {
+                keyOffset = position;
+                keyLength = i - position;
+                valueOffset = i + 1;
+                valueLength = contentEnd - i - 1;
+                return RECORD;
+            }
+        }
+        throw new IllegalArgumentException("Line without a '" + (char) separator + "' separator");
+    }
+
+    private int parseCommand(ByteBuffer buffer, int position, int limit, boolean last) {
+        if (buffer.get(position) != '*') {
+            throw new IllegalArgumentException("Expected '*' but got '" + (char) buffer.get(position) + "'");
+        }
+        int index = readNumber(buffer, position + 1, limit);
+        final int count = number;
+        if (index >= 0 && count < 2) {
+            throw new IllegalArgumentException("Command of " + count + " arguments has no key");
+        }
+        for (int i = 0; i < count && index >= 0; i++) {
+            if (index >= limit) {
+                index = -1;
+                break;
+            }
+            if (buffer.get(index) != '$') {
+                throw new IllegalArgumentException("Expected '$' but got '" + (char) buffer.get(index) + "'");
+            }
+            index = readNumber(buffer, index + 1, limit);
+            if (index < 0 || index + number + 2 > limit) {
+                index = -1;
+                break;
+            }
+            if (i == 1) {
+                keyOffset = index;
+                keyLength = number;
+            }
+            index += number + 2;
+        }
+        if (index < 0) {
+            if (last) {
+                throw new IllegalArgumentException("Truncated command at the end of the input");
+            }
+            return INCOMPLETE;
+        }
+        end = index;
+        return RECORD;
+    }
+
+    /**
+     * Reads a decimal number terminated by CRLF into {@link #number}.
+     *
+     * @return the index after the CRLF, {@code -1} if the buffer ends first
+     */
+    private int readNumber(ByteBuffer buffer, int position, int limit) {
+        int value = 0;
+        for (int i = position; i < limit; i++) {
+            final byte b = buffer.get(i);
+            if (b == '\r') {
+                if (i + 1 >= limit) {
+                    return -1;
+                }
+                number = value;
+                return i + 2;
+            }
+            if (b < '0' || b > '9') {
+                throw new IllegalArgumentException("Invalid length");
+            }
+            value = value * 10 + (b - '0');
+        }
+        return -1;
+    }
+}
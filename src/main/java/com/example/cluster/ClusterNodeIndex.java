@@ -0,0 +1,89 @@
+package com.example.cluster;
+
+import org.springframework.data.redis.connection.RedisClusterConnection;
+import org.springframework.data.redis.connection.RedisClusterNode;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Maps hash slots to small, stable node indexes so that per-node state can be kept in arrays. A node keeps its
+ * index across topology refreshes; nodes beyond {@link #MAX_NODES} share the {@link #UNKNOWN} index.
+ */
+public final class ClusterNodeIndex {
+
+    public static final int MAX_NODES = 64;
+
+    public static final int UNKNOWN = MAX_NODES;
+
+    private static final long REFRESH_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private final List<String> names = new CopyOnWriteArrayList<>();
+
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+
+    private volatile byte[] slotNodes;
+
+    private volatile long loadedAt;
+
+    public int node(int slot) {
+        final byte[] table = slotNodes;
+        return table == null || slot < 0 ? UNKNOWN : table[slot];
+    }
+
+    public String name(int node) {
+        return node < names.size() ? names.get(node) : "unknown";
+    }
+
+    public boolean isStale() {
+        return slotNodes == null || System.nanoTime() - loadedAt > REFRESH_INTERVAL_NANOS;
+    }
+
+    /**
+     * Makes the index stale, so that the next caller checking {@link #isStale()} reloads it.
+     */
+    public void invalidate() {
+        loadedAt = System.nanoTime() - REFRESH_INTERVAL_NANOS - 1;
+    }
+
+    /**
+     * Reloads the slot owners from {@code CLUSTER NODES} unless another thread is already doing so.
+     */
+    public void refresh(RedisClusterConnection connection) {
+        if (!refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            final byte[] table = new byte[ClusterSlots.SLOT_COUNT];
+            Arrays.fill(table, (byte) UNKNOWN);
+            for (RedisClusterNode node : connection.clusterGetNodes()) {
+                if (!node.isMaster() || node.getSlotRange() == null) {
+                    continue;
+                }
+                final byte index = (byte) indexOf(node.getHost() + ":" + node.getPort());
+                for (int slot : node.getSlotRange().getSlots()) {
+                    table[slot] = index;
+                }
+            }
+            slotNodes = table;
+        } finally {
+            loadedAt = System.nanoTime();
+            refreshing.set(false);
+        }
+    }
+
+    private synchronized int indexOf(String name) {
+        final int index = names.indexOf(name);
+        if (index >= 0) {
+            return index;
+        }
+        if (names.size() == MAX_NODES) {
+            return UNKNOWN;
+        }
+        names.add(name);
+        return names.size() - 1;
+    }
+}
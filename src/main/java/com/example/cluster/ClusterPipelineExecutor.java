@@ -0,0 +1,35 @@
+package com.example.cluster;
+
+import java.util.List;
+
+/**
+ * Executes the commands recorded by a {@link PipeliningClusterConnection} and returns their replies in the
+ * order in which they were queued. Commands without a reply ({@code void} methods) contribute no entry.
+ */
+public interface ClusterPipelineExecutor {
+
+    List<Object> execute(List<QueuedCommand> commands);
+
+    /**
+     * Executes {@code commands} for their side effects only, see
+     * {@link ReplyDiscardingConnection#closePipelineDiscardingReplies()}. The default collects the replies anyway.
+     */
+    default void executeDiscarding(List<QueuedCommand> commands) {
+        execute(commands);
+    }
+
+    /**
+     * Pipelines containing a command this executor cannot handle are replayed on the wrapped connection instead.
+     */
+    default boolean supports(QueuedCommand command) {
+        return true;
+    }
+
+    /**
+     * @return whether read-only commands should be sent through this executor even outside a pipeline, because
+     * it routes them to replicas
+     */
+    default boolean routesReads() {
+        return false;
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.cluster;
+
+import redis.clients.util.JedisClusterCRC16;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Hash slot calculation as used by Redis Cluster, honouring {@code {hashtag}} keys, on top of the CRC16 of
+ * {@link JedisClusterCRC16} so that both agree on every key. Unlike Jedis it also hashes keys held in part of an
+ * array or in a buffer.
+ */
+public final class ClusterSlots {
+
+    public static final int SLOT_COUNT = 16384;
+
+    private static final int MAX_SCRATCH = 1024;
+
+    private static final ThreadLocal<byte[]> SCRATCH = ThreadLocal.withInitial(() -> new byte[64]);
+
+    private ClusterSlots() {
+    }
+
+    public static int slot(String key) {
+        return slot(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static int slot(byte[] key) {
+        return slot(key, 0, key.length);
+    }
+
+    public static int slot(byte[] key, int offset, int length) {
+        final int end = offset + length;
+        int from = offset;
+        int to = end;
+        for (int i = offset; i < end; i++) {
+            if (key[i] == '{') {
+                for (int j = i + 1; j < end; j++) {
+                    if (key[j] == '}') {
+                        if (j > i + 1) {
+                            from = i + 1;
+                            to = j;
+                        }
+                        break;
+                    }
+                }
+                break;
+            }
+        }
+        return crc16(key, from, to) & (SLOT_COUNT - 1);
+    }
+
+    /**
+     * Slot of a key held in a (direct or mapped) buffer, read with absolute gets so the buffer is not modified.
+     * Keys outside a heap buffer are copied to a scratch array first.
+     */
+    public static int slot(ByteBuffer key, int offset, int length) {
+        if (key.hasArray()) {
+            return slot(key.array(), key.arrayOffset() + offset, length);
+        }
+        final byte[] bytes = scratch(length);
+        for (int i = 0; i < length; i++) {
+            bytes[i] = key.get(offset + i);
+        }
+        return slot(bytes, 0, length);
+    }
+
+    /**
+     * @return a thread-local array of at least {@code length} bytes, a fresh one for unusually long keys
+     */
+    static byte[] scratch(int length) {
+        byte[] bytes = SCRATCH.get();
+        if (bytes.length < length) {
+            bytes = new byte[length];
+            if (length <= MAX_SCRATCH) {
+                SCRATCH.set(bytes);
+            }
+        }
+        return bytes;
+    }
+
+    static int crc16(byte[] bytes, int from, int to) {
+        return JedisClusterCRC16.getCRC16(bytes, from, to);
+    }
+}
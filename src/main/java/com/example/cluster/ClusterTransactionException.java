@@ -0,0 +1,35 @@
+package com.example.cluster;
+
+import org.springframework.data.redis.RedisSystemException;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Thrown when some slot transactions of a cluster {@code EXEC} failed or were discarded while others were
+ * applied. Applied slot transactions are not rolled back.
+ */
+public class ClusterTransactionException extends RedisSystemException {
+
+    private final List<Object> results;
+
+    private final Set<Integer> failedSlots;
+
+    public ClusterTransactionException(String msg, Throwable cause, List<Object> results, Set<Integer> failedSlots) {
+        super(msg, cause);
+        this.results = results;
+        this.failedSlots = failedSlots;
+    }
+
+    /**
+     * @return replies in queue order; commands of failed slot transactions hold the exception, commands of
+     * discarded ones {@code null}
+     */
+    public List<Object> getResults() {
+        return results;
+    }
+
+    public Set<Integer> getFailedSlots() {
+        return failedSlots;
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.cluster;
+
+import java.util.List;
+
+/**
+ * Executes the commands recorded between {@code MULTI} and {@code EXEC} on a {@link PipeliningClusterConnection}
+ * as one {@code MULTI}/{@code EXEC} per hash slot, on the nodes owning those slots.
+ */
+public interface ClusterTransactionExecutor {
+
+    /**
+     * @return replies in queue order
+     * @throws ClusterTransactionException if only some of the slot transactions were applied
+     */
+    List<Object> execute(List<QueuedCommand> commands);
+
+    /**
+     * Starts a transaction that watches keys before its commands are queued.
+     */
+    Session openSession();
+
+    /**
+     * A transaction whose keys are watched when {@link #watch(byte[]...)} is called, each on a connection to the
+     * node of its slot. The session holds one connection per watched slot until it executes or is closed, because
+     * {@code EXEC} on a connection ends every {@code WATCH} made on it.
+     */
+    interface Session extends AutoCloseable {
+
+        /**
+         * Sends {@code WATCH} for the keys right away. If it fails the session is closed.
+         */
+        void watch(byte[]... keys);
+
+        /**
+         * Runs the commands, the slot transactions of watched slots on the connections that watched them, and
+         * closes the session. A watched slot without commands still runs an empty {@code MULTI}/{@code EXEC}, so
+         * a change of its keys discards it.
+         *
+         * @return replies in queue order, or {@code null} if every slot transaction was discarded because a
+         * watched key changed
+         * @throws ClusterTransactionException if only some of the slot transactions were applied
+         */
+        List<Object> execute(List<QueuedCommand> commands);
+
+        /**
+         * Unwatches the keys and releases the connections, unless the session already executed.
+         */
+        @Override
+        void close();
+    }
+}
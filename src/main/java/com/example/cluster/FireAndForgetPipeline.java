@@ -0,0 +1,53 @@
+package com.example.cluster;
+
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisConnectionUtils;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+
+/**
+ * {@link RedisTemplate#executePipelined(SessionCallback)} for callers that do not need the replies. The commands
+ * of the session run as one pipeline, but the replies are neither deserialized nor returned; on connections
+ * implementing {@link ReplyDiscardingConnection} they are not even collected, so a batch of any size costs no
+ * memory for its results. Errors still fail the call.
+ */
+public final class FireAndForgetPipeline {
+
+    private FireAndForgetPipeline() {
+    }
+
+    /**
+     * @throws org.springframework.data.redis.connection.RedisPipelineException if a command failed
+     */
+    public static <K, V> void execute(RedisTemplate<K, V> template, SessionCallback<?> session) {
+        final RedisConnectionFactory connectionFactory = template.getRequiredConnectionFactory();
+        RedisConnectionUtils.bindConnection(connectionFactory);
+        try {
+            template.execute((RedisCallback<Object>) connection -> {
+                connection.openPipeline();
+                boolean closed = false;
+                try {
+                    if (session.execute(template) != null) {
+                        throw new InvalidDataAccessApiUsageException(
+                                "Callback cannot return a non-null value as its replies are discarded");
+                    }
+                    closed = true;
+                    if (connection instanceof ReplyDiscardingConnection) {
+                        ((ReplyDiscardingConnection) connection).closePipelineDiscardingReplies();
+                    } else {
+                        connection.closePipeline();
+                    }
+                } finally {
+                    if (!closed) {
+                        connection.closePipeline();
+                    }
+                }
+                return null;
+            });
+        } finally {
+            RedisConnectionUtils.unbindConnection(connectionFactory);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.cluster;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Exponentially weighted moving average of the command latency observed per node, keyed by {@code host:port}.
+ * Recording is a CAS on the node's average, lookups do not lock.
+ */
+public class NodeLatencies {
+
+    private final double alpha;
+
+    private final ConcurrentMap<String, Average> averages = new ConcurrentHashMap<>();
+
+    /**
+     * @param alpha weight of a new sample, between 0 (never changes) and 1 (last sample only)
+     */
+    public NodeLatencies(double alpha) {
+        if (alpha <= 0 || alpha > 1) {
+            throw new IllegalArgumentException("alpha must be in (0, 1]");
+        }
+        this.alpha = alpha;
+    }
+
+    public void record(String node, long nanos) {
+        Average average = averages.get(node);
+        if (average == null) {
+            average = averages.computeIfAbsent(node, name -> new Average());
+        }
+        average.add(nanos, alpha);
+    }
+
+    /**
+     * @return the average latency in nanoseconds, {@code 0} for a node without samples so that it gets tried
+     */
+    public double average(String node) {
+        final Average average = averages.get(node);
+        return average != null ? average.get() : 0;
+    }
+
+    /**
+     * Halves the average of every node that got no sample since the previous call. A node that stopped being
+     * chosen because it was slow once is thereby retried eventually.
+     */
+    public void decayIdle() {
+        for (Average average : averages.values()) {
+            average.decayIfIdle();
+        }
+    }
+
+    private static final class Average {
+
+        private final AtomicLong bits = new AtomicLong(Double.doubleToRawLongBits(Double.NaN));
+
+        private volatile boolean sampled;
+
+        void add(long nanos, double alpha) {
+            long current;
+            double next;
+            do {
+                current = bits.get();
+                final double previous = Double.longBitsToDouble(current);
+                next = Double.isNaN(previous) ? nanos : previous + alpha * (nanos - previous);
+            } while (!bits.compareAndSet(current, Double.doubleToRawLongBits(next)));
+            if (!sampled) {
+                sampled = true;
+            }
+        }
+
+        double get() {
+            final double value = Double.longBitsToDouble(bits.get());
+            return Double.isNaN(value) ? 0 : value;
+        }
+
+        void decayIfIdle() {
+            if (sampled) {
+                sampled = false;
+                return;
+            }
+            long current;
+            do {
+                current = bits.get();
+            } while (!bits.compareAndSet(current, Double.doubleToRawLongBits(Double.longBitsToDouble(current) / 2)));
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.cluster;
+
+import java.util.Collection;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * The queue in front of the one thread that owns the connection to a cluster node: any number of producers, one
+ * consumer. Producers only touch a lock-free queue and a counter bounding it, and wake the consumer once as many
+ * items are queued as it waits for. An item that reaches the queue after the consumer terminated is rejected, by
+ * the consumer or by the producer, whichever notices it.
+ */
+public final class NodeQueue<T> {
+
+    private static final long FULL_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final Queue<T> queue = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger size = new AtomicInteger();
+
+    private final Thread consumer;
+
+    private final int capacity;
+
+    private final Consumer<? super T> rejecter;
+
+    // the number of queued items the parked consumer waits for
+    private volatile int wakeSize = Integer.MAX_VALUE;
+
+    private volatile boolean open = true;
+
+    private volatile boolean terminated;
+
+    /**
+     * @param rejecter fails items that can no longer be consumed
+     */
+    public NodeQueue(Thread consumer, int capacity, Consumer<? super T> rejecter) {
+        this.consumer = consumer;
+        this.capacity = capacity;
+        this.rejecter = rejecter;
+    }
+
+    /**
+     * Queues the item, waiting while {@code capacity} items are queued.
+     *
+     * @return {@code false} if the queue stayed full until the deadline or was closed meanwhile
+     */
+    public boolean offer(T item, long deadline) {
+        int current;
+        while ((current = size.get()) >= capacity || !size.compareAndSet(current, current + 1)) {
+            if (current >= capacity) {
+                if (!open || System.nanoTime() >= deadline) {
+                    return false;
+                }
+                LockSupport.unpark(consumer);
+                LockSupport.parkNanos(this, FULL_PARK_NANOS);
+            }
+        }
+        enqueue(item, current + 1);
+        return true;
+    }
+
+    /**
+     * Queues the item even if the queue is full, for producers that must not wait for this consumer.
+     */
+    public void add(T item) {
+        enqueue(item, size.incrementAndGet());
+    }
+
+    private void enqueue(T item, int queued) {
+        queue.add(item);
+        if (terminated) {
+            rejectQueued();
+        } else if (queued >= wakeSize) {
+            LockSupport.unpark(consumer);
+        }
+    }
+
+    /**
+     * Parks the consumer until an item is queued or the queue is closed.
+     */
+    public void awaitItems() {
+        awaitSize(1, 0);
+    }
+
+    /**
+     * Parks the consumer until {@code items} are queued, the queue is closed or the timeout passed.
+     *
+     * @param nanos the longest wait, {@code 0} to wait without a timeout
+     */
+    public void awaitSize(int items, long nanos) {
+        wakeSize = items;
+        if (open && size.get() < items) {
+            if (nanos > 0) {
+                LockSupport.parkNanos(this, nanos);
+            } else {
+                LockSupport.park(this);
+            }
+        }
+        wakeSize = Integer.MAX_VALUE;
+    }
+
+    /**
+     * Moves up to {@code max} items to the batch.
+     *
+     * @return the number of items moved
+     */
+    public int drainTo(Collection<? super T> batch, int max) {
+        int count = 0;
+        T item;
+        while (count < max && (item = queue.poll()) != null) {
+            batch.add(item);
+            count++;
+        }
+        size.addAndGet(-count);
+        return count;
+    }
+
+    /**
+     * @return the oldest item, {@code null} if the queue is empty or its producer has reserved space but not
+     * queued yet
+     */
+    public T peek() {
+        return queue.peek();
+    }
+
+    /**
+     * @return the queued items, including those whose producer has reserved space but not queued yet
+     */
+    public int size() {
+        return size.get();
+    }
+
+    public boolean isEmpty() {
+        return queue.isEmpty();
+    }
+
+    public boolean isOpen() {
+        return open;
+    }
+
+    /**
+     * Lets the consumer finish the queued items and stop.
+     */
+    public void close() {
+        open = false;
+        LockSupport.unpark(consumer);
+    }
+
+    /**
+     * Rejects the queued items and every item queued from now on. Called by the consumer when it stops.
+     */
+    public void terminate() {
+        terminated = true;
+        rejectQueued();
+    }
+
+    private void rejectQueued() {
+        T item;
+        while ((item = queue.poll()) != null) {
+            size.decrementAndGet();
+            rejecter.accept(item);
+        }
+    }
+}
@@ -0,0 +1,282 @@
+package com.example.cluster;
+
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.data.redis.connection.RedisClusterConnection;
+import org.springframework.data.redis.connection.RedisClusterNode;
+import org.springframework.data.redis.connection.RedisPipelineException;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Adds pipelining to a {@link RedisClusterConnection}. While a pipeline is open, key commands are recorded
+ * instead of executed and handed to a {@link ClusterPipelineExecutor} on {@code closePipeline()}, which sends
+ * them grouped by owning node. Outside a pipeline every call goes straight to the wrapped connection.
+ * <p>
+ * With a {@link ClusterTransactionExecutor}, {@code multi()} likewise starts recording and {@code exec()} runs the
+ * recorded commands as one {@code MULTI}/{@code EXEC} per hash slot. {@code watch()} sends {@code WATCH} right
+ * away through a {@link ClusterTransactionExecutor.Session}, which keeps the connections that watched until
+ * {@code exec()}, {@code discard()}, {@code unwatch()} or {@code close()}.
+ * <p>
+ * A pipeline closed with {@link ReplyDiscardingConnection#closePipelineDiscardingReplies()} is handed to
+ * {@link ClusterPipelineExecutor#executeDiscarding(List)} instead, which does not collect the replies.
+ * <p>
+ * If the executor {@link ClusterPipelineExecutor#routesReads() routes reads}, single-key reads outside a pipeline
+ * or transaction go through it as well, as a pipeline of one.
+ */
+public class PipeliningClusterConnection implements InvocationHandler {
+
+    private static final Set<String> LIFECYCLE_METHODS = new HashSet<>();
+
+    private static final Set<String> TRANSACTION_METHODS = new HashSet<>();
+
+    static {
+        Collections.addAll(LIFECYCLE_METHODS, "close", "isClosed", "getNativeConnection", "isQueueing",
+                "getSentinelConnection");
+        Collections.addAll(TRANSACTION_METHODS, "multi", "exec", "discard", "watch", "unwatch");
+    }
+
+    private final RedisClusterConnection delegate;
+
+    private final ClusterPipelineExecutor executor;
+
+    private final ClusterTransactionExecutor transactionExecutor;
+
+    private List<QueuedCommand> pipeline;
+
+    private List<QueuedCommand> transaction;
+
+    private ClusterTransactionExecutor.Session session;
+
+    protected PipeliningClusterConnection(RedisClusterConnection delegate, ClusterPipelineExecutor executor,
+                                          ClusterTransactionExecutor transactionExecutor) {
+        this.delegate = delegate;
+        this.executor = executor;
+        this.transactionExecutor = transactionExecutor;
+    }
+
+    public static RedisClusterConnection wrap(RedisClusterConnection delegate, ClusterPipelineExecutor executor) {
+        return wrap(delegate, executor, null);
+    }
+
+    /**
+     * @param transactionExecutor runs {@code multi()}/{@code exec()} blocks, {@code null} to leave them to the
+     *                            wrapped connection
+     */
+    public static RedisClusterConnection wrap(RedisClusterConnection delegate, ClusterPipelineExecutor executor,
+                                              ClusterTransactionExecutor transactionExecutor) {
+        return (RedisClusterConnection) Proxy.newProxyInstance(PipeliningClusterConnection.class.getClassLoader(),
+                new Class<?>[]{RedisClusterConnection.class, ReplyDiscardingConnection.class},
+                new PipeliningClusterConnection(delegate, executor, transactionExecutor));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        final String name = method.getName();
+        if (method.getDeclaringClass() == Object.class) {
+            if ("equals".equals(name)) {
+                return proxy == args[0];
+            }
+            if ("hashCode".equals(name)) {
+                return System.identityHashCode(proxy);
+            }
+            return "Pipelining[" + delegate + "]";
+        }
+
+        if (transactionExecutor != null && pipeline == null && TRANSACTION_METHODS.contains(name)) {
+            return transaction(name, args);
+        }
+
+        switch (name) {
+            case "openPipeline":
+                if (transaction != null) {
+                    throw new UnsupportedOperationException("Cannot open a pipeline inside a cluster transaction");
+                }
+                if (pipeline == null) {
+                    pipeline = new ArrayList<>();
+                }
+                return null;
+            case "closePipeline":
+                return closePipeline();
+            case "closePipelineDiscardingReplies":
+                closePipelineDiscardingReplies();
+                return null;
+            case "isPipelined":
+                return pipeline != null;
+            case "isQueueing":
+                if (transactionExecutor != null) {
+                    return transaction != null;
+                }
+                break;
+            case "close":
+                pipeline = null;
+                transaction = null;
+                closeSession();
+                break;
+            default:
+                break;
+        }
+
+        if (pipeline != null && !LIFECYCLE_METHODS.contains(name) && !isCommandsAccessor(method)) {
+            if (TRANSACTION_METHODS.contains(name) || isNodeCommand(method)) {
+                throw new UnsupportedOperationException(
+                        "'" + name + "' is not supported while a cluster pipeline is open");
+            }
+            pipeline.add(QueuedCommand.of(method, args));
+            return null;
+        }
+
+        if (transaction != null && !LIFECYCLE_METHODS.contains(name) && !isCommandsAccessor(method)) {
+            if (isNodeCommand(method)) {
+                throw new UnsupportedOperationException(
+                        "'" + name + "' is not supported inside a cluster transaction");
+            }
+            transaction.add(QueuedCommand.of(method, args));
+            return null;
+        }
+
+        if (executor.routesReads() && QueuedCommand.isReadOnly(method)) {
+            return read(QueuedCommand.of(method, args));
+        }
+
+        try {
+            return method.invoke(delegate, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    private Object read(QueuedCommand command) {
+        try {
+            return executor.execute(Collections.singletonList(command)).get(0);
+        } catch (RedisPipelineException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
+    }
+
+    private List<Object> closePipeline() {
+        final List<QueuedCommand> commands = pipeline;
+        pipeline = null;
+        if (commands == null || commands.isEmpty()) {
+            return Collections.emptyList();
+        }
+        for (QueuedCommand command : commands) {
+            if (!executor.supports(command)) {
+                return replay(commands);
+            }
+        }
+        return executor.execute(commands);
+    }
+
+    private void closePipelineDiscardingReplies() {
+        final List<QueuedCommand> commands = pipeline;
+        pipeline = null;
+        if (commands == null || commands.isEmpty()) {
+            return;
+        }
+        for (QueuedCommand command : commands) {
+            if (!executor.supports(command)) {
+                replay(commands);
+                return;
+            }
+        }
+        executor.executeDiscarding(commands);
+    }
+
+    private Object transaction(String name, Object[] args) {
+        switch (name) {
+            case "multi":
+                if (transaction != null) {
+                    throw new InvalidDataAccessApiUsageException("MULTI calls can not be nested");
+                }
+                transaction = new ArrayList<>();
+                return null;
+            case "watch":
+                if (transaction != null) {
+                    throw new InvalidDataAccessApiUsageException("WATCH is not allowed during MULTI");
+                }
+                if (session == null) {
+                    session = transactionExecutor.openSession();
+                }
+                try {
+                    session.watch((byte[][]) args[0]);
+                } catch (RuntimeException e) {
+                    // a failed watch closed the session
+                    session = null;
+                    throw e;
+                }
+                return null;
+            case "unwatch":
+                closeSession();
+                return null;
+            case "discard":
+                if (transaction == null) {
+                    throw new InvalidDataAccessApiUsageException("DISCARD without MULTI");
+                }
+                transaction = null;
+                closeSession();
+                return null;
+            default:
+                return exec();
+        }
+    }
+
+    private List<Object> exec() {
+        if (transaction == null) {
+            throw new InvalidDataAccessApiUsageException("EXEC without MULTI");
+        }
+        final List<QueuedCommand> commands = transaction;
+        final ClusterTransactionExecutor.Session watching = session;
+        transaction = null;
+        session = null;
+        if (watching != null) {
+            // even without commands, EXEC tells whether a watched key changed
+            return watching.execute(commands);
+        }
+        if (commands.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return transactionExecutor.execute(commands);
+    }
+
+    private void closeSession() {
+        final ClusterTransactionExecutor.Session watching = session;
+        session = null;
+        if (watching != null) {
+            watching.close();
+        }
+    }
+
+    private List<Object> replay(List<QueuedCommand> commands) {
+        delegate.openPipeline();
+        try {
+            for (QueuedCommand command : commands) {
+                command.invoke(delegate);
+            }
+        } catch (RuntimeException e) {
+            delegate.closePipeline();
+            throw e;
+        }
+        return delegate.closePipeline();
+    }
+
+    private static boolean isCommandsAccessor(Method method) {
+        return method.getParameterCount() == 0 && method.getName().endsWith("Commands");
+    }
+
+    private static boolean isNodeCommand(Method method) {
+        for (Class<?> type : method.getParameterTypes()) {
+            if (RedisClusterNode.class.isAssignableFrom(type)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,189 @@
+package com.example.cluster;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A connection method invocation recorded while a pipeline is open, together with the slot of its first key. The
+ * key of {@code eval}/{@code evalSha} is the first of its {@code keysAndArgs}, not the script. Commands taking
+ * several keys remember whether those span more than one slot.
+ */
+public final class QueuedCommand {
+
+    public static final int NO_SLOT = -1;
+
+    private static final Set<String> READ_ONLY_METHODS = new HashSet<>();
+
+    /**
+     * Commands whose every {@code byte[]} and {@code byte[][]} argument is a key, not only the first one.
+     */
+    private static final Set<String> ALL_KEYS_METHODS = new HashSet<>();
+
+    static {
+        Collections.addAll(READ_ONLY_METHODS, "get", "exists", "ttl", "pTtl", "type", "strLen", "getRange",
+                "getBit", "bitCount", "dump", "hGet", "hMGet", "hGetAll", "hKeys", "hVals", "hLen", "hExists",
+                "hStrLen", "lRange", "lLen", "lIndex", "sMembers", "sIsMember", "sCard", "sRandMember", "zRange",
+                "zRangeWithScores", "zRangeByScore", "zRangeByScoreWithScores", "zRevRange", "zRevRangeWithScores",
+                "zCard", "zScore", "zRank", "zRevRank", "zCount", "pfCount");
+        Collections.addAll(ALL_KEYS_METHODS, "rename", "renameNX", "rPopLPush", "bRPopLPush", "bLPop", "bRPop",
+                "sInterStore", "sUnionStore", "sDiffStore", "zUnionStore", "zInterStore", "pfMerge", "bitOp");
+    }
+
+    private final Method method;
+
+    private final Object[] args;
+
+    private final byte[] key;
+
+    private final int slot;
+
+    private final boolean crossSlot;
+
+    private QueuedCommand(Method method, Object[] args, byte[] key, boolean crossSlot) {
+        this.method = method;
+        this.args = args;
+        this.key = key;
+        this.slot = key != null ? ClusterSlots.slot(key) : NO_SLOT;
+        this.crossSlot = crossSlot;
+    }
+
+    public static QueuedCommand of(Method method, Object[] args) {
+        final String name = method.getName();
+        if ("eval".equals(name) || "evalSha".equals(name)) {
+            return of(method, args, scriptKeys(args));
+        }
+        if ("sMove".equals(name)) {
+            return of(method, args, args != null && args.length == 3 ? Arrays.asList(args).subList(0, 2) : null);
+        }
+        if (ALL_KEYS_METHODS.contains(name)) {
+            return of(method, args, args != null ? Arrays.asList(args) : null);
+        }
+        if (args != null && args.length > 0 && args[0] instanceof byte[]) {
+            return new QueuedCommand(method, args, (byte[]) args[0], false);
+        }
+        return of(method, args, args != null && args.length > 0 ? Collections.singletonList(args[0]) : null);
+    }
+
+    /**
+     * @param candidates arguments holding keys: {@code byte[]}, {@code byte[][]} or a {@link Map} keyed by
+     *                   {@code byte[]}, anything else is skipped
+     */
+    private static QueuedCommand of(Method method, Object[] args, List<?> candidates) {
+        byte[] first = null;
+        int firstSlot = NO_SLOT;
+        boolean crossSlot = false;
+        if (candidates != null) {
+            for (Object candidate : candidates) {
+                final Iterable<?> keys = candidate instanceof byte[][] ? Arrays.asList((byte[][]) candidate)
+                        : candidate instanceof Map ? ((Map<?, ?>) candidate).keySet()
+                        : Collections.singletonList(candidate);
+                for (Object key : keys) {
+                    if (!(key instanceof byte[])) {
+                        continue;
+                    }
+                    if (first == null) {
+                        first = (byte[]) key;
+                        firstSlot = ClusterSlots.slot(first);
+                    } else if (!crossSlot && ClusterSlots.slot((byte[]) key) != firstSlot) {
+                        crossSlot = true;
+                    }
+                }
+            }
+        }
+        return new QueuedCommand(method, args, first, crossSlot);
+    }
+
+    public Method getMethod() {
+        return method;
+    }
+
+    public Object[] getArgs() {
+        return args;
+    }
+
+    public byte[] getKey() {
+        return key;
+    }
+
+    public int getSlot() {
+        return slot;
+    }
+
+    /**
+     * @return whether the keys of this command hash to different slots, which no single node accepts
+     */
+    public boolean isCrossSlot() {
+        return crossSlot;
+    }
+
+    /**
+     * @return whether the command only reads a single key, so that a replica may serve it
+     */
+    public boolean isReadOnly() {
+        return isReadOnly(method);
+    }
+
+    public static boolean isReadOnly(Method method) {
+        return READ_ONLY_METHODS.contains(method.getName()) && method.getParameterCount() > 0
+                && method.getParameterTypes()[0] == byte[].class;
+    }
+
+    public boolean hasReply() {
+        return method.getReturnType() != void.class;
+    }
+
+    /**
+     * @return the number of key and value bytes carried by the arguments, a lower bound of the encoded size.
+     */
+    public long argumentBytes() {
+        long bytes = 0;
+        if (args != null) {
+            for (Object arg : args) {
+                if (arg instanceof byte[]) {
+                    bytes += ((byte[]) arg).length;
+                } else if (arg instanceof byte[][]) {
+                    for (byte[] element : (byte[][]) arg) {
+                        bytes += element.length;
+                    }
+                }
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Replays this command on the given connection, unwrapping the exception thrown by the target.
+     */
+    public Object invoke(Object connection) {
+        try {
+            return method.invoke(connection, args);
+        } catch (InvocationTargetException e) {
+            final Throwable cause = e.getTargetException();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return method.getName() + "@" + slot;
+    }
+
+    private static List<byte[]> scriptKeys(Object[] args) {
+        if (args == null || args.length != 4 || !(args[2] instanceof Integer) || !(args[3] instanceof byte[][])) {
+            return null;
+        }
+        final byte[][] keysAndArgs = (byte[][]) args[3];
+        return Arrays.asList(keysAndArgs).subList(0, Math.max(0, Math.min((Integer) args[2], keysAndArgs.length)));
+    }
+}
@@ -0,0 +1,178 @@
+package com.example.cluster;
+
+import org.springframework.data.redis.connection.RedisClusterConnection;
+import org.springframework.data.redis.connection.RedisClusterNode;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Decides which node serves reads of a slot when reading from replicas: the replica with the lowest
+ * {@link NodeLatencies moving average latency} first, the master last. Replicas whose replication offset trails
+ * their master by more than {@code maxLagBytes}, or whose link is down, are left out until they caught up, so
+ * reads fall back to the master.
+ * <p>
+ * Once started, the replication state is polled with {@code INFO replication} on every master; listeners are
+ * told whenever the preferred replica of a master changes, so that clients caching their choice can reselect.
+ */
+public class ReadRouting implements AutoCloseable {
+
+    private final NodeLatencies latencies;
+
+    private final long maxLagBytes;
+
+    private final Duration interval;
+
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+
+    private volatile Set<String> lagging = Collections.emptySet();
+
+    private volatile Map<String, String> preferred = Collections.emptyMap();
+
+    private ScheduledExecutorService scheduler;
+
+    public ReadRouting(NodeLatencies latencies, long maxLagBytes, Duration interval) {
+        this.latencies = latencies;
+        this.maxLagBytes = maxLagBytes;
+        this.interval = interval;
+    }
+
+    public NodeLatencies getLatencies() {
+        return latencies;
+    }
+
+    /**
+     * @param master   the master of the slot, {@code null} to rank the replicas only
+     * @param replicas the replicas of the slot
+     * @param names    the {@code host:port} of a node
+     * @return the nodes that may serve reads, in order of preference
+     */
+    public <T> List<T> order(T master, List<T> replicas, Function<T, String> names) {
+        final Set<String> excluded = lagging;
+        final List<T> usable = new ArrayList<>(replicas.size() + 1);
+        for (T replica : replicas) {
+            if (!excluded.contains(names.apply(replica))) {
+                usable.add(replica);
+            }
+        }
+        usable.sort(Comparator.comparingDouble(replica -> latencies.average(names.apply(replica))));
+        if (master != null) {
+            usable.add(master);
+        }
+        return usable;
+    }
+
+    public boolean isLagging(String node) {
+        return lagging.contains(node);
+    }
+
+    public void onChange(Runnable listener) {
+        listeners.add(listener);
+    }
+
+    public synchronized void start(Supplier<RedisClusterConnection> connections) {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "read-routing");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try (RedisClusterConnection connection = connections.get()) {
+                refresh(connection);
+            } catch (RuntimeException e) {
+                // keep routing on the last known state until the cluster answers again
+            }
+        }, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Reloads the replication state of all masters and notifies the listeners if a preferred replica changed.
+     */
+    public void refresh(RedisClusterConnection connection) {
+        final Map<String, String> masters = new HashMap<>();
+        final List<RedisClusterNode> replicas = new ArrayList<>();
+        final Set<String> lagged = new HashSet<>();
+        for (RedisClusterNode node : connection.clusterGetNodes()) {
+            if (node.isMaster()) {
+                masters.put(node.getId(), name(node));
+                lagged.addAll(laggingReplicas(connection.info(node, "replication"), maxLagBytes));
+            } else if (node.getMasterId() != null) {
+                replicas.add(node);
+            }
+        }
+        lagging = Collections.unmodifiableSet(lagged);
+        latencies.decayIdle();
+
+        final Map<String, List<String>> replicasByMaster = new HashMap<>();
+        for (RedisClusterNode replica : replicas) {
+            final String master = masters.get(replica.getMasterId());
+            if (master != null) {
+                replicasByMaster.computeIfAbsent(master, key -> new ArrayList<>()).add(name(replica));
+            }
+        }
+        final Map<String, String> best = new HashMap<>();
+        for (Map.Entry<String, List<String>> entry : replicasByMaster.entrySet()) {
+            best.put(entry.getKey(), order(entry.getKey(), entry.getValue(), Function.identity()).get(0));
+        }
+        if (!best.equals(preferred)) {
+            preferred = Collections.unmodifiableMap(best);
+            for (Runnable listener : listeners) {
+                listener.run();
+            }
+        }
+    }
+
+    /**
+     * @return the {@code host:port} of the replicas listed in a master's {@code INFO replication} that are not
+     * online or trail the master by more than {@code maxLagBytes}
+     */
+    static Set<String> laggingReplicas(Properties replication, long maxLagBytes) {
+        final Set<String> lagging = new HashSet<>();
+        final long masterOffset = Long.parseLong(replication.getProperty("master_repl_offset", "0"));
+        for (String name : replication.stringPropertyNames()) {
+            if (!name.startsWith("slave") || !Character.isDigit(name.charAt(name.length() - 1))) {
+                continue;
+            }
+            final Map<String, String> fields = new HashMap<>();
+            for (String field : replication.getProperty(name).split(",")) {
+                final int separator = field.indexOf('=');
+                if (separator > 0) {
+                    fields.put(field.substring(0, separator), field.substring(separator + 1));
+                }
+            }
+            final long offset = Long.parseLong(fields.getOrDefault("offset", "0"));
+            if (!"online".equals(fields.get("state")) || masterOffset - offset > maxLagBytes) {
+                lagging.add(fields.get("ip") + ":" + fields.get("port"));
+            }
+        }
+        return lagging;
+    }
+
+    private static String name(RedisClusterNode node) {
+        return node.getHost() + ":" + node.getPort();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.cluster;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * A {@link ReadRouting} picked up by both client profiles, turned on with {@code redis.read-from=replica}. Replicas
+ * more than {@code redis.read-from.max-lag-bytes} behind their master are skipped until they catch up.
+ */
+@Configuration
+@ConditionalOnProperty(name = "redis.read-from", havingValue = "replica")
+public class ReadRoutingConfig {
+
+    @Bean(destroyMethod = "close")
+    ReadRouting readRouting(@Value("${redis.read-from.max-lag-bytes:1048576}") long maxLagBytes,
+                            @Value("${redis.read-from.refresh-ms:1000}") long refresh,
+                            @Value("${redis.read-from.latency-alpha:0.2}") double alpha) {
+        return new ReadRouting(new NodeLatencies(alpha), maxLagBytes, Duration.ofMillis(refresh));
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.cluster;
+
+import org.springframework.data.redis.connection.RedisPipelineException;
+
+/**
+ * Implemented by connections whose pipeline can be closed without collecting its replies, for callers that
+ * pipeline commands for their side effects only.
+ */
+public interface ReplyDiscardingConnection {
+
+    /**
+     * Executes the open pipeline like {@code closePipeline()}, but the replies are only checked for errors and
+     * then dropped: none is converted or collected.
+     *
+     * @throws RedisPipelineException if a command failed, with the errors as the pipeline result
+     */
+    void closePipelineDiscardingReplies();
+}
@@ -0,0 +1,171 @@
+package com.example.cluster;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * The commands of a cluster transaction that share one hash slot and therefore run in a single
+ * {@code MULTI}/{@code EXEC} on the node owning that slot.
+ */
+public final class SlotTransaction {
+
+    private final int slot;
+
+    private final List<Integer> indexes = new ArrayList<>();
+
+    private final List<QueuedCommand> commands = new ArrayList<>();
+
+    private final List<byte[]> watchedKeys = new ArrayList<>();
+
+    private List<Object> results;
+
+    private boolean discarded;
+
+    private DataAccessException failure;
+
+    private SlotTransaction(int slot) {
+        this.slot = slot;
+    }
+
+    /**
+     * Groups commands by slot in order of first appearance. Keyless commands join the first group. A watched key
+     * whose slot has no command gets a transaction of its own that only watches, so a change of that key still
+     * discards it.
+     *
+     * @throws InvalidDataAccessApiUsageException if a command has keys of more than one slot, which no slot
+     *                                            transaction could run
+     */
+    public static List<SlotTransaction> partition(List<QueuedCommand> commands, List<byte[]> watchedKeys) {
+        for (QueuedCommand command : commands) {
+            if (command.isCrossSlot()) {
+                throw new InvalidDataAccessApiUsageException("CROSSSLOT Keys of '" + command.getMethod().getName()
+                        + "' don't hash to the same slot in a cluster transaction");
+            }
+        }
+        final Map<Integer, SlotTransaction> bySlot = new LinkedHashMap<>();
+        for (int i = 0; i < commands.size(); i++) {
+            final QueuedCommand command = commands.get(i);
+            int slot = command.getSlot();
+            if (slot == QueuedCommand.NO_SLOT) {
+                slot = bySlot.isEmpty() ? firstSlot(commands) : bySlot.keySet().iterator().next();
+            }
+            final SlotTransaction transaction = bySlot.computeIfAbsent(slot, SlotTransaction::new);
+            transaction.indexes.add(i);
+            transaction.commands.add(command);
+        }
+        for (byte[] key : watchedKeys) {
+            bySlot.computeIfAbsent(ClusterSlots.slot(key), SlotTransaction::new).watchedKeys.add(key);
+        }
+        return new ArrayList<>(bySlot.values());
+    }
+
+    /**
+     * @return the keys grouped by slot in order of first appearance, as a session watches them
+     */
+    public static Map<Integer, byte[][]> keysBySlot(byte[][] keys) {
+        final Map<Integer, List<byte[]>> bySlot = new LinkedHashMap<>();
+        for (byte[] key : keys) {
+            bySlot.computeIfAbsent(ClusterSlots.slot(key), slot -> new ArrayList<>()).add(key);
+        }
+        final Map<Integer, byte[][]> grouped = new LinkedHashMap<>();
+        bySlot.forEach((slot, slotKeys) -> grouped.put(slot, slotKeys.toArray(new byte[0][])));
+        return grouped;
+    }
+
+    private static int firstSlot(List<QueuedCommand> commands) {
+        for (QueuedCommand command : commands) {
+            if (command.getSlot() != QueuedCommand.NO_SLOT) {
+                return command.getSlot();
+            }
+        }
+        return 0;
+    }
+
+    public int getSlot() {
+        return slot;
+    }
+
+    public List<QueuedCommand> getCommands() {
+        return commands;
+    }
+
+    public List<byte[]> getWatchedKeys() {
+        return watchedKeys;
+    }
+
+    /**
+     * @param execResults the replies of {@code EXEC} for commands with a reply, {@code null} if it was discarded
+     */
+    public void completed(List<Object> execResults) {
+        this.results = execResults;
+        this.discarded = execResults == null;
+    }
+
+    public void failed(DataAccessException failure) {
+        this.failure = failure;
+    }
+
+    /**
+     * Puts the outcome of every slot transaction back into queue order.
+     *
+     * @return the combined replies, {@code null} if all slot transactions were discarded
+     * @throws ClusterTransactionException if some slot transactions failed or were discarded and others applied
+     */
+    public static List<Object> merge(int commandCount, List<SlotTransaction> transactions) {
+        final Object[] replies = new Object[commandCount];
+        final boolean[] hasReply = new boolean[commandCount];
+        final TreeSet<Integer> failedSlots = new TreeSet<>();
+        DataAccessException firstFailure = null;
+        boolean allDiscarded = true;
+
+        for (SlotTransaction transaction : transactions) {
+            if (transaction.failure != null || transaction.discarded) {
+                failedSlots.add(transaction.slot);
+                if (firstFailure == null) {
+                    firstFailure = transaction.failure;
+                }
+            }
+            allDiscarded &= transaction.discarded;
+
+            final Iterator<Object> results = transaction.results != null ? transaction.results.iterator() : null;
+            for (int i = 0; i < transaction.indexes.size(); i++) {
+                final int index = transaction.indexes.get(i);
+                hasReply[index] = transaction.commands.get(i).hasReply();
+                if (!hasReply[index]) {
+                    continue;
+                }
+                if (transaction.failure != null) {
+                    replies[index] = transaction.failure;
+                } else if (results != null) {
+                    if (!results.hasNext()) {
+                        throw new InvalidDataAccessApiUsageException(
+                                "EXEC returned fewer replies than commands queued for slot " + transaction.slot);
+                    }
+                    replies[index] = results.next();
+                }
+            }
+        }
+
+        if (allDiscarded) {
+            return null;
+        }
+        final List<Object> merged = new ArrayList<>(commandCount);
+        for (int i = 0; i < commandCount; i++) {
+            if (hasReply[i]) {
+                merged.add(replies[i]);
+            }
+        }
+        if (!failedSlots.isEmpty()) {
+            throw new ClusterTransactionException("Transactions for slots " + failedSlots
+                    + " failed or were discarded while others were applied", firstFailure, merged, failedSlots);
+        }
+        return merged;
+    }
+}
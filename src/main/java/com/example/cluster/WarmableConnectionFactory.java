@@ -0,0 +1,16 @@
+package com.example.cluster;
+
+import java.util.List;
+
+/**
+ * Implemented by connection factories that can open the connections they keep to the cluster nodes before the
+ * first commands need them, so that those commands do not pay for the TCP handshakes.
+ */
+public interface WarmableConnectionFactory {
+
+    /**
+     * @return one task per node that opens the connections the factory keeps to that node, safe to run in
+     * parallel with each other
+     */
+    List<Runnable> connectionOpeners();
+}
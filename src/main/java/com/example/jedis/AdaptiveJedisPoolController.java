@@ -0,0 +1,154 @@
+package com.example.jedis;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.commons.pool2.impl.GenericObjectPool;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisCluster;
+import redis.clients.jedis.JedisPool;
+import redis.clients.util.Pool;
+
+import java.lang.reflect.Field;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Resizes the per-node pools of a {@link JedisCluster} within the bounds of a {@link PoolSizingPolicy}. Every
+ * interval it looks at the waiters, the mean borrow wait and the active connections of each node pool and grows
+ * or shrinks its maximum; idle connections above the new maximum are closed by the pool itself.
+ * <p>
+ * Publishes {@code redis.pool.max.total} per node and counts decisions in {@code redis.pool.resize}, tagged
+ * with the node and {@code grow}/{@code shrink}.
+ */
+public class AdaptiveJedisPoolController implements AutoCloseable {
+
+    private static final Field INTERNAL_POOL = internalPoolField();
+
+    private final Supplier<JedisCluster> cluster;
+
+    private final PoolSizingPolicy policy;
+
+    private final MeterRegistry registry;
+
+    private final Map<String, NodeState> nodes = new ConcurrentHashMap<>();
+
+    private volatile JedisCluster resolved;
+
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "jedis-pool-controller");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public AdaptiveJedisPoolController(Supplier<JedisCluster> cluster, PoolSizingPolicy policy,
+                                       MeterRegistry registry) {
+        this.cluster = cluster;
+        this.policy = policy;
+        this.registry = registry;
+    }
+
+    public void start() {
+        final long interval = policy.getInterval().toMillis();
+        timer.scheduleWithFixedDelay(this::adjustQuietly, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    private void adjustQuietly() {
+        try {
+            adjust();
+        } catch (RuntimeException e) {
+            // the next check retries; a failed check must not cancel the schedule
+        }
+    }
+
+    /**
+     * Runs one check over all node pools.
+     */
+    void adjust() {
+        if (resolved == null) {
+            resolved = cluster.get();
+        }
+        for (Map.Entry<String, JedisPool> entry : resolved.getClusterNodes().entrySet()) {
+            final NodeState node = nodes.computeIfAbsent(entry.getKey(), name -> new NodeState(name, entry.getValue()));
+            node.adjust(internalPool(entry.getValue()));
+        }
+    }
+
+    public PoolSizingPolicy getPolicy() {
+        return policy;
+    }
+
+    @Override
+    public void close() {
+        timer.shutdownNow();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static GenericObjectPool<Jedis> internalPool(JedisPool pool) {
+        try {
+            return (GenericObjectPool<Jedis>) INTERNAL_POOL.get(pool);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Jedis 2.9 keeps the commons-pool instance, whose limits can change at runtime, in a protected field
+    private static Field internalPoolField() {
+        try {
+            final Field field = Pool.class.getDeclaredField("internalPool");
+            field.setAccessible(true);
+            return field;
+        } catch (NoSuchFieldException e) {
+            throw new IllegalStateException("Unsupported Jedis version", e);
+        }
+    }
+
+    private final class NodeState {
+
+        private final Counter grown;
+
+        private final Counter shrunk;
+
+        private volatile int maxTotal;
+
+        private int quietChecks;
+
+        private long borrowed;
+
+        NodeState(String name, JedisPool pool) {
+            this.maxTotal = internalPool(pool).getMaxTotal();
+            this.grown = Counter.builder("redis.pool.resize").tag("node", name).tag("direction", "grow")
+                    .register(registry);
+            this.shrunk = Counter.builder("redis.pool.resize").tag("node", name).tag("direction", "shrink")
+                    .register(registry);
+            Gauge.builder("redis.pool.max.total", this, state -> state.maxTotal).tag("node", name)
+                    .register(registry);
+        }
+
+        void adjust(GenericObjectPool<Jedis> pool) {
+            final int current = pool.getMaxTotal();
+            final int active = pool.getNumActive();
+            final int waiters = pool.getNumWaiters();
+            quietChecks = policy.isQuiet(current, active, waiters) ? quietChecks + 1 : 0;
+            // the mean covers the last 100 borrows, it only says something if there were borrows since the last check
+            final long borrowedNow = pool.getBorrowedCount();
+            final long meanWait = borrowedNow != borrowed ? pool.getMeanBorrowWaitTimeMillis() : 0;
+            borrowed = borrowedNow;
+
+            final int resized = policy.resize(current, active, waiters, meanWait, quietChecks);
+            if (resized == current) {
+                return;
+            }
+            pool.setMaxTotal(resized);
+            pool.setMaxIdle(resized);
+            pool.setMinIdle(Math.min(pool.getMinIdle(), resized));
+            maxTotal = resized;
+            quietChecks = 0;
+            (resized > current ? grown : shrunk).increment();
+        }
+    }
+}
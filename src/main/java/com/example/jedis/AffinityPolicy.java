@@ -0,0 +1,39 @@
+package com.example.jedis;
+
+import java.time.Duration;
+
+/**
+ * Bounds of a {@link JedisConnectionAffinity} lease. A thread gives its connection to a node back after
+ * {@code maxOperations} commands, after holding it for {@code maxLease}, after {@code idleTimeout} without a
+ * command, or as soon as another thread waits on that node's pool.
+ */
+public class AffinityPolicy {
+
+    private final int maxOperations;
+
+    private final Duration maxLease;
+
+    private final Duration idleTimeout;
+
+    public AffinityPolicy(int maxOperations, Duration maxLease, Duration idleTimeout) {
+        if (maxOperations < 1 || maxLease.isNegative() || maxLease.isZero() || idleTimeout.isNegative()
+                || idleTimeout.isZero()) {
+            throw new IllegalArgumentException("Requires positive maxOperations, maxLease and idleTimeout");
+        }
+        this.maxOperations = maxOperations;
+        this.maxLease = maxLease;
+        this.idleTimeout = idleTimeout;
+    }
+
+    public int getMaxOperations() {
+        return maxOperations;
+    }
+
+    public Duration getMaxLease() {
+        return maxLease;
+    }
+
+    public Duration getIdleTimeout() {
+        return idleTimeout;
+    }
+}
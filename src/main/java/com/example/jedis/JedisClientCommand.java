@@ -0,0 +1,75 @@
+package com.example.jedis;
+
+import com.example.cluster.QueuedCommand;
+import redis.clients.jedis.Client;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+
+/**
+ * Maps the key/value commands of {@code RedisConnection} recorded in a pipeline onto the Jedis {@link Client},
+ * which only writes the command. Unlike a Jedis {@code Pipeline} nothing is registered to build a response
+ * from the reply, so the replies can be read raw and dropped.
+ */
+enum JedisClientCommand {
+
+    GET("get", (c, a) -> c.get((byte[]) a[0]), byte[].class),
+    SET("set", (c, a) -> c.set((byte[]) a[0], (byte[]) a[1]), byte[].class, byte[].class),
+    SET_NX("setNX", (c, a) -> c.setnx((byte[]) a[0], (byte[]) a[1]), byte[].class, byte[].class),
+    SET_EX("setEx", (c, a) -> c.setex((byte[]) a[0], Math.toIntExact((Long) a[1]), (byte[]) a[2]),
+            byte[].class, long.class, byte[].class),
+    P_SET_EX("pSetEx", (c, a) -> c.psetex((byte[]) a[0], (Long) a[1], (byte[]) a[2]),
+            byte[].class, long.class, byte[].class),
+    GET_SET("getSet", (c, a) -> c.getSet((byte[]) a[0], (byte[]) a[1]), byte[].class, byte[].class),
+    INCR("incr", (c, a) -> c.incr((byte[]) a[0]), byte[].class),
+    INCR_BY("incrBy", (c, a) -> c.incrBy((byte[]) a[0], (Long) a[1]), byte[].class, long.class),
+    DECR("decr", (c, a) -> c.decr((byte[]) a[0]), byte[].class),
+    DECR_BY("decrBy", (c, a) -> c.decrBy((byte[]) a[0], (Long) a[1]), byte[].class, long.class),
+    DEL("del", (c, a) -> c.del((byte[][]) a[0]), byte[][].class),
+    EXISTS_KEYS("exists", (c, a) -> c.exists((byte[][]) a[0]), byte[][].class),
+    EXPIRE("expire", (c, a) -> c.expire((byte[]) a[0], Math.toIntExact((Long) a[1])), byte[].class, long.class),
+    P_EXPIRE("pExpire", (c, a) -> c.pexpire((byte[]) a[0], (Long) a[1]), byte[].class, long.class),
+    H_SET("hSet", (c, a) -> c.hset((byte[]) a[0], (byte[]) a[1], (byte[]) a[2]),
+            byte[].class, byte[].class, byte[].class),
+    H_DEL("hDel", (c, a) -> c.hdel((byte[]) a[0], (byte[][]) a[1]), byte[].class, byte[][].class);
+
+    private static final Map<Method, JedisClientCommand> RESOLVED = new ConcurrentHashMap<>();
+
+    private final String methodName;
+
+    private final Class<?>[] parameterTypes;
+
+    private final BiConsumer<Client, Object[]> sender;
+
+    JedisClientCommand(String methodName, BiConsumer<Client, Object[]> sender, Class<?>... parameterTypes) {
+        this.methodName = methodName;
+        this.sender = sender;
+        this.parameterTypes = parameterTypes;
+    }
+
+    /**
+     * @return the matching command or {@code null} if the recorded method has no mapping
+     */
+    static JedisClientCommand of(QueuedCommand command) {
+        final Method method = command.getMethod();
+        final JedisClientCommand resolved = RESOLVED.get(method);
+        if (resolved != null) {
+            return resolved;
+        }
+        for (JedisClientCommand candidate : values()) {
+            if (candidate.methodName.equals(method.getName())
+                    && Arrays.equals(candidate.parameterTypes, method.getParameterTypes())) {
+                RESOLVED.put(method, candidate);
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    void send(Client client, Object[] args) {
+        sender.accept(client, args);
+    }
+}
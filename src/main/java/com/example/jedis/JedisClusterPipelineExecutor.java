@@ -0,0 +1,349 @@
+package com.example.jedis;
+
+import com.example.cluster.ClusterPipelineExecutor;
+import com.example.cluster.QueuedCommand;
+import com.example.cluster.ReadRouting;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.data.redis.ClusterRedirectException;
+import org.springframework.data.redis.TooManyClusterRedirectionsException;
+import org.springframework.data.redis.connection.RedisPipelineException;
+import org.springframework.data.redis.connection.jedis.JedisConnection;
+import org.springframework.data.redis.connection.jedis.JedisConverters;
+import redis.clients.jedis.Client;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.exceptions.JedisAskDataException;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.jedis.exceptions.JedisRedirectionException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Pipelines queued commands against a Jedis cluster: commands are grouped by the node owning their hash
+ * slot, each group is sent as one pipeline over a connection borrowed from that node's {@link JedisPool} and
+ * the replies are put back into queue order. The groups of different nodes run in parallel, the first on the
+ * calling thread and the others on a bounded pool, so a pipeline takes about as long as its slowest node.
+ * {@code MOVED}/{@code ASK} replies are retried on the target node.
+ * <p>
+ * Commands are routed by key, so pipelines holding a keyless command or a command whose keys span several slots
+ * are rejected up front with {@link InvalidDataAccessApiUsageException} rather than failing on some node.
+ * <p>
+ * With a {@link ReadRouting}, pipelines made only of single-key reads go to the replica it prefers for each slot
+ * (after {@code READONLY}, sent once per connection), everything else stays on the masters so that a pipeline
+ * reads its own writes. The per-command latency of every pipeline is fed back into the routing.
+ */
+public class JedisClusterPipelineExecutor implements ClusterPipelineExecutor, AutoCloseable {
+
+    private static final Object NO_REPLY = new Object();
+
+    private final JedisSlotTable slotTable;
+
+    private final int maxRedirects;
+
+    private final ReadRouting readRouting;
+
+    private final ExecutorService nodeExecutor;
+
+    private final Set<Jedis> readOnlyConnections = Collections.synchronizedSet(
+            Collections.newSetFromMap(new WeakHashMap<>()));
+
+    public JedisClusterPipelineExecutor(JedisSlotTable slotTable, int maxRedirects) {
+        this(slotTable, maxRedirects, null);
+    }
+
+    /**
+     * @param readRouting picks the node serving reads, {@code null} to send everything to the masters
+     */
+    public JedisClusterPipelineExecutor(JedisSlotTable slotTable, int maxRedirects, ReadRouting readRouting) {
+        this(slotTable, maxRedirects, readRouting, NodeExecutors.DEFAULT_THREADS);
+    }
+
+    /**
+     * @param nodeThreads the most node groups running besides those of the calling threads, typically the
+     *                    connections a node pool allows
+     */
+    public JedisClusterPipelineExecutor(JedisSlotTable slotTable, int maxRedirects, ReadRouting readRouting,
+                                        int nodeThreads) {
+        this.slotTable = slotTable;
+        this.maxRedirects = maxRedirects;
+        this.readRouting = readRouting;
+        this.nodeExecutor = NodeExecutors.fixed("jedis-cluster-pipeline", nodeThreads);
+    }
+
+    @Override
+    public boolean routesReads() {
+        return readRouting != null;
+    }
+
+    @Override
+    public List<Object> execute(List<QueuedCommand> commands) {
+        validate(commands);
+        final boolean replicaReads = readRouting != null && isReadOnly(commands);
+        final Map<JedisPool, List<Integer>> groups = new IdentityHashMap<>();
+        for (int i = 0; i < commands.size(); i++) {
+            final int slot = commands.get(i).getSlot();
+            final JedisPool pool = replicaReads ? readPool(slot) : slotTable.poolFor(slot);
+            groups.computeIfAbsent(pool, p -> new ArrayList<>()).add(i);
+        }
+
+        final Object[] replies = new Object[commands.size()];
+        final List<Runnable> tasks = new ArrayList<>(groups.size());
+        for (Map.Entry<JedisPool, List<Integer>> group : groups.entrySet()) {
+            tasks.add(() -> executeGroup(group.getKey(), replicaReads, group.getValue(), commands, replies));
+        }
+        runInParallel(tasks);
+
+        final List<Object> results = new ArrayList<>(replies.length);
+        DataAccessException failure = null;
+        for (int i = 0; i < replies.length; i++) {
+            Object reply = replies[i];
+            if (reply instanceof ClusterRedirectException) {
+                reply = redirect(commands.get(i), (ClusterRedirectException) reply);
+            }
+            if (reply == NO_REPLY) {
+                continue;
+            }
+            if (failure == null && reply instanceof DataAccessException) {
+                failure = (DataAccessException) reply;
+            }
+            results.add(reply);
+        }
+        if (failure != null) {
+            throw new RedisPipelineException(failure, results);
+        }
+        return results;
+    }
+
+    /**
+     * Writes the commands of each node straight through the Jedis {@link Client} and reads the replies back one by
+     * one, keeping nothing but the errors. Redirected commands are retried through {@link #execute(List)}, as are
+     * whole pipelines holding a command without a {@link JedisClientCommand} mapping. Everything goes to the
+     * masters.
+     */
+    @Override
+    public void executeDiscarding(List<QueuedCommand> commands) {
+        for (QueuedCommand command : commands) {
+            if (JedisClientCommand.of(command) == null) {
+                execute(commands);
+                return;
+            }
+        }
+        validate(commands);
+        final Map<JedisPool, List<QueuedCommand>> groups = new IdentityHashMap<>();
+        for (QueuedCommand command : commands) {
+            groups.computeIfAbsent(slotTable.poolFor(command.getSlot()), p -> new ArrayList<>()).add(command);
+        }
+
+        final List<QueuedCommand> redirected = Collections.synchronizedList(new ArrayList<>());
+        final List<Object> errors = Collections.synchronizedList(new ArrayList<>());
+        final List<Runnable> tasks = new ArrayList<>(groups.size());
+        for (Map.Entry<JedisPool, List<QueuedCommand>> group : groups.entrySet()) {
+            tasks.add(() -> discardGroup(group.getKey(), group.getValue(), redirected, errors));
+        }
+        runInParallel(tasks);
+        if (!redirected.isEmpty()) {
+            try {
+                execute(redirected);
+            } catch (RedisPipelineException e) {
+                for (Object reply : e.getPipelineResult()) {
+                    if (reply instanceof DataAccessException) {
+                        errors.add(reply);
+                    }
+                }
+            }
+        }
+        if (!errors.isEmpty()) {
+            throw new RedisPipelineException((DataAccessException) errors.get(0), errors);
+        }
+    }
+
+    private static void validate(List<QueuedCommand> commands) {
+        for (QueuedCommand command : commands) {
+            if (command.getSlot() == QueuedCommand.NO_SLOT) {
+                throw new InvalidDataAccessApiUsageException(
+                        "Cannot route '" + command.getMethod().getName() + "' without a key in a cluster pipeline");
+            }
+            if (command.isCrossSlot()) {
+                throw new InvalidDataAccessApiUsageException("CROSSSLOT Keys of '" + command.getMethod().getName()
+                        + "' don't hash to the same slot");
+            }
+        }
+    }
+
+    private void runInParallel(List<Runnable> tasks) {
+        NodeExecutors.runInParallel(nodeExecutor, tasks, "cluster pipeline");
+    }
+
+    private void discardGroup(JedisPool pool, List<QueuedCommand> commands, List<QueuedCommand> redirected,
+                              List<Object> errors) {
+        final long start = System.nanoTime();
+        final Jedis jedis = pool.getResource();
+        try {
+            final Client client = jedis.getClient();
+            int sent = 0;
+            try {
+                for (QueuedCommand command : commands) {
+                    JedisClientCommand.of(command).send(client, command.getArgs());
+                    sent++;
+                }
+            } catch (RuntimeException e) {
+                skipReplies(client, sent);
+                throw e;
+            }
+            for (QueuedCommand command : commands) {
+                try {
+                    client.getOne();
+                } catch (JedisRedirectionException e) {
+                    redirected.add(command);
+                } catch (JedisDataException e) {
+                    errors.add(JedisConverters.toDataAccessException(e));
+                }
+            }
+        } finally {
+            jedis.close();
+        }
+        if (readRouting != null) {
+            readRouting.getLatencies().record(slotTable.nameOf(pool), (System.nanoTime() - start) / commands.size());
+        }
+    }
+
+    private static void skipReplies(Client client, int replies) {
+        for (int i = 0; i < replies; i++) {
+            try {
+                client.getOne();
+            } catch (JedisDataException e) {
+                // replies of a failed batch are discarded
+            }
+        }
+    }
+
+    private static boolean isReadOnly(List<QueuedCommand> commands) {
+        for (QueuedCommand command : commands) {
+            if (!command.isReadOnly()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private JedisPool readPool(int slot) {
+        final JedisPool master = slotTable.poolFor(slot);
+        final JedisPool[] replicas = slotTable.replicasFor(slot);
+        if (replicas.length == 0) {
+            return master;
+        }
+        return readRouting.order(master, Arrays.asList(replicas), slotTable::nameOf).get(0);
+    }
+
+    private void executeGroup(JedisPool pool, boolean replicaReads, List<Integer> indexes,
+                              List<QueuedCommand> commands, Object[] replies) {
+        List<Object> results;
+        final long start = System.nanoTime();
+        final Jedis jedis = pool.getResource();
+        final JedisConnection connection = new JedisConnection(jedis, pool, 0);
+        try {
+            if (replicaReads) {
+                // harmless on a master, which serves reads that fell back to it either way
+                readOnly(jedis);
+            }
+            connection.openPipeline();
+            try {
+                for (int index : indexes) {
+                    commands.get(index).invoke(connection);
+                }
+            } catch (RuntimeException e) {
+                drain(connection);
+                throw e;
+            }
+            try {
+                results = connection.closePipeline();
+            } catch (RedisPipelineException e) {
+                results = e.getPipelineResult();
+            }
+        } finally {
+            connection.close();
+        }
+        if (readRouting != null) {
+            readRouting.getLatencies().record(slotTable.nameOf(pool), (System.nanoTime() - start) / indexes.size());
+        }
+
+        // JedisConnection only reports replies of commands with a return value, so void commands are skipped here
+        final Iterator<Object> iterator = results.iterator();
+        for (int index : indexes) {
+            if (!commands.get(index).hasReply()) {
+                replies[index] = NO_REPLY;
+            } else if (iterator.hasNext()) {
+                replies[index] = iterator.next();
+            } else {
+                throw new InvalidDataAccessApiUsageException(
+                        "Pipeline returned fewer replies than commands queued for " + commands.get(index));
+            }
+        }
+    }
+
+    private Object redirect(QueuedCommand command, ClusterRedirectException redirect) {
+        ClusterRedirectException current = redirect;
+        for (int attempt = 0; attempt < maxRedirects; attempt++) {
+            final boolean ask = current.getCause() instanceof JedisAskDataException;
+            final JedisPool pool = slotTable.pool(current.getTargetHost(), current.getTargetPort());
+            if (!ask) {
+                slotTable.moved(current.getSlot(), pool);
+            }
+
+            final Jedis jedis = pool.getResource();
+            final JedisConnection connection = new JedisConnection(jedis, pool, 0);
+            try {
+                if (ask) {
+                    jedis.asking();
+                }
+                final Object reply = command.invoke(connection);
+                return command.hasReply() ? reply : NO_REPLY;
+            } catch (ClusterRedirectException e) {
+                current = e;
+            } catch (DataAccessException e) {
+                return e;
+            } finally {
+                connection.close();
+            }
+        }
+        return new TooManyClusterRedirectionsException(
+                "No more redirects allowed after " + maxRedirects + " attempts for " + command);
+    }
+
+    /**
+     * Allows a replica connection to serve reads of its master's slots.
+     */
+    private void readOnly(Jedis jedis) {
+        if (readOnlyConnections.add(jedis)) {
+            try {
+                jedis.readonly();
+            } catch (RuntimeException e) {
+                readOnlyConnections.remove(jedis);
+                throw e;
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        nodeExecutor.shutdownNow();
+    }
+
+    private static void drain(JedisConnection connection) {
+        try {
+            connection.closePipeline();
+        } catch (RuntimeException e) {
+            // replies of a failed batch are discarded
+        }
+    }
+}
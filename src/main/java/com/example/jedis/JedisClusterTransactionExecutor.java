@@ -0,0 +1,240 @@
+package com.example.jedis;
+
+import com.example.cluster.ClusterTransactionExecutor;
+import com.example.cluster.QueuedCommand;
+import com.example.cluster.SlotTransaction;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.data.redis.ClusterRedirectException;
+import org.springframework.data.redis.connection.jedis.JedisConnection;
+import org.springframework.data.redis.connection.jedis.JedisConverters;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.exceptions.JedisException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Runs a cluster transaction against a Jedis cluster as one {@code MULTI}/{@code EXEC} per hash slot, on a
+ * connection borrowed from the pool of the node owning the slot. Slot transactions of different nodes run in
+ * parallel, those of the same node one after another. A slot transaction aborted by the server because the slot
+ * moved is retried once after reloading the slot table, unless its keys were watched. Nodes beyond the first run
+ * on a bounded pool of {@code nodeThreads} threads; the calling thread runs the first node itself.
+ * <p>
+ * A session keeps the connection of every watched slot borrowed until it executes or is closed, so it watches no
+ * more slots of a node than that node's pool allows.
+ */
+public class JedisClusterTransactionExecutor implements ClusterTransactionExecutor, AutoCloseable {
+
+    private final JedisSlotTable slotTable;
+
+    private final ExecutorService nodeExecutor;
+
+    public JedisClusterTransactionExecutor(JedisSlotTable slotTable) {
+        this(slotTable, NodeExecutors.DEFAULT_THREADS);
+    }
+
+    /**
+     * @param nodeThreads the most nodes running besides those of the calling threads, typically the connections a
+     *                    node pool allows
+     */
+    public JedisClusterTransactionExecutor(JedisSlotTable slotTable, int nodeThreads) {
+        this.slotTable = slotTable;
+        this.nodeExecutor = NodeExecutors.fixed("jedis-cluster-transaction", nodeThreads);
+    }
+
+    @Override
+    public List<Object> execute(List<QueuedCommand> commands) {
+        return execute(commands, Collections.emptyList(), Collections.emptyMap());
+    }
+
+    @Override
+    public Session openSession() {
+        return new WatchSession();
+    }
+
+    /**
+     * @param watching the connections that watched the keys of a slot, which run that slot's transaction
+     */
+    private List<Object> execute(List<QueuedCommand> commands, List<byte[]> watchedKeys,
+                                 Map<Integer, JedisConnection> watching) {
+        final List<SlotTransaction> transactions = SlotTransaction.partition(commands, watchedKeys);
+        final Map<JedisPool, List<SlotTransaction>> byNode = new IdentityHashMap<>();
+        for (SlotTransaction transaction : transactions) {
+            byNode.computeIfAbsent(slotTable.poolFor(transaction.getSlot()), pool -> new ArrayList<>())
+                    .add(transaction);
+        }
+
+        final List<Runnable> tasks = new ArrayList<>(byNode.size());
+        for (List<SlotTransaction> node : byNode.values()) {
+            tasks.add(() -> executeAll(node, watching));
+        }
+        NodeExecutors.runInParallel(nodeExecutor, tasks, "cluster transaction");
+        return SlotTransaction.merge(commands.size(), transactions);
+    }
+
+    private void executeAll(List<SlotTransaction> transactions, Map<Integer, JedisConnection> watching) {
+        for (SlotTransaction transaction : transactions) {
+            try {
+                final JedisConnection watched = watching.get(transaction.getSlot());
+                // a watched slot is not retried elsewhere, its keys are watched on this connection only
+                transaction.completed(watched != null ? execute(watched, transaction) : executeWithRetry(transaction));
+            } catch (DataAccessException e) {
+                transaction.failed(e);
+            }
+        }
+    }
+
+    private List<Object> executeWithRetry(SlotTransaction transaction) {
+        try {
+            return execute(transaction);
+        } catch (DataAccessException e) {
+            if (!(e instanceof ClusterRedirectException) && !isExecAbort(e)) {
+                throw e;
+            }
+            slotTable.invalidate();
+            return execute(transaction);
+        }
+    }
+
+    private List<Object> execute(SlotTransaction transaction) {
+        final JedisConnection connection = connect(transaction.getSlot());
+        try {
+            return execute(connection, transaction);
+        } finally {
+            connection.close();
+        }
+    }
+
+    private static List<Object> execute(JedisConnection connection, SlotTransaction transaction) {
+        connection.multi();
+        try {
+            for (QueuedCommand command : transaction.getCommands()) {
+                command.invoke(connection);
+            }
+        } catch (RuntimeException e) {
+            connection.discard();
+            throw e;
+        }
+        return connection.exec();
+    }
+
+    private JedisConnection connect(int slot) {
+        final JedisPool pool = slotTable.poolFor(slot);
+        return new JedisConnection(borrow(pool), pool, 0);
+    }
+
+    private static Jedis borrow(JedisPool pool) {
+        try {
+            return pool.getResource();
+        } catch (JedisException e) {
+            throw JedisConverters.toDataAccessException(e);
+        }
+    }
+
+    private static boolean isExecAbort(DataAccessException e) {
+        return e.getMessage() != null && e.getMessage().contains("EXECABORT");
+    }
+
+    /**
+     * Holds a connection borrowed from the pool of each watched slot's node, on which that slot's keys are
+     * watched and its transaction runs.
+     */
+    private final class WatchSession implements Session {
+
+        private final Map<Integer, JedisConnection> watching = new LinkedHashMap<>();
+
+        private final List<byte[]> watchedKeys = new ArrayList<>();
+
+        private boolean closed;
+
+        @Override
+        public void watch(byte[]... keys) {
+            checkOpen();
+            try {
+                SlotTransaction.keysBySlot(keys).forEach(this::watch);
+            } catch (RuntimeException e) {
+                close();
+                throw e;
+            }
+            Collections.addAll(watchedKeys, keys);
+        }
+
+        private void watch(int slot, byte[][] keys) {
+            final JedisConnection watched = watching.get(slot);
+            if (watched != null) {
+                watched.watch(keys);
+                return;
+            }
+            try {
+                watching.put(slot, watchOn(slot, keys));
+            } catch (ClusterRedirectException e) {
+                // nothing of the slot is watched yet, so its new owner can watch the keys from scratch
+                slotTable.invalidate();
+                watching.put(slot, watchOn(slot, keys));
+            }
+        }
+
+        private JedisConnection watchOn(int slot, byte[][] keys) {
+            final JedisConnection connection = connect(slot);
+            try {
+                connection.watch(keys);
+                return connection;
+            } catch (RuntimeException e) {
+                connection.close();
+                throw e;
+            }
+        }
+
+        @Override
+        public List<Object> execute(List<QueuedCommand> commands) {
+            checkOpen();
+            try {
+                return JedisClusterTransactionExecutor.this.execute(commands, watchedKeys, watching);
+            } finally {
+                // EXEC or DISCARD ended the watches
+                releaseWatches(false);
+            }
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                releaseWatches(true);
+            }
+        }
+
+        private void releaseWatches(boolean unwatch) {
+            closed = true;
+            for (JedisConnection connection : watching.values()) {
+                try {
+                    if (unwatch) {
+                        connection.unwatch();
+                    }
+                } catch (DataAccessException e) {
+                    // a connection that failed goes back to the pool broken and is never reused
+                } finally {
+                    connection.close();
+                }
+            }
+            watching.clear();
+        }
+
+        private void checkOpen() {
+            if (closed) {
+                throw new InvalidDataAccessApiUsageException("The cluster transaction session is closed");
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        nodeExecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,235 @@
+package com.example.jedis;
+
+import com.example.cluster.QueuedCommand;
+import org.springframework.data.redis.ClusterRedirectException;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.RedisClusterConnection;
+import org.springframework.data.redis.connection.jedis.JedisConnection;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lets a thread keep the connection it borrowed from a node pool for its next commands to that node, instead of
+ * borrowing and returning one per command as {@code JedisCluster} does. Leases are bounded by an
+ * {@link AffinityPolicy}: the owner gives a lease back once it used it long or often enough, or when other
+ * threads wait on the pool; a reaper gives back leases of threads that went idle.
+ * <p>
+ * Only single-key commands take this path. Commands on several keys, scans, scripts and redirected commands go
+ * to the wrapped connection, which handles them across the cluster.
+ */
+public class JedisConnectionAffinity implements AutoCloseable {
+
+    private static final Set<String> SINGLE_KEY_METHODS = new HashSet<>();
+
+    static {
+        Collections.addAll(SINGLE_KEY_METHODS, "get", "set", "setEx", "pSetEx", "setNX", "getSet", "incr",
+                "incrBy", "decr", "decrBy", "append", "strLen", "getRange", "setRange", "getBit", "setBit",
+                "bitCount", "exists", "del", "unlink", "expire", "pExpire", "expireAt", "pExpireAt", "ttl", "pTtl",
+                "persist", "type", "dump", "hSet", "hSetNX", "hGet", "hMGet", "hMSet", "hDel", "hGetAll", "hIncrBy",
+                "hExists", "hLen", "hKeys", "hVals", "hStrLen", "lPush", "rPush", "lPushX", "rPushX", "lPop", "rPop",
+                "lRange", "lLen", "lIndex", "lSet", "lRem", "lTrim", "sAdd", "sRem", "sPop", "sMembers",
+                "sIsMember", "sCard", "sRandMember", "zAdd", "zRem", "zIncrBy", "zScore", "zRank", "zRevRank",
+                "zRange", "zRevRange", "zRangeWithScores", "zRevRangeWithScores", "zRangeByScore", "zCard",
+                "zCount", "pfAdd", "pfCount");
+    }
+
+    private static final int IDLE = 0;
+
+    private static final int BUSY = 1;
+
+    private static final int RELEASED = 2;
+
+    private final JedisSlotTable slotTable;
+
+    private final int maxOperations;
+
+    private final long maxLeaseNanos;
+
+    private final long idleNanos;
+
+    private final ThreadLocal<Map<JedisPool, Lease>> threadLeases = ThreadLocal.withInitial(IdentityHashMap::new);
+
+    private final Set<Lease> leases = ConcurrentHashMap.newKeySet();
+
+    private final ScheduledExecutorService reaper;
+
+    public JedisConnectionAffinity(JedisSlotTable slotTable, AffinityPolicy policy) {
+        this.slotTable = slotTable;
+        this.maxOperations = policy.getMaxOperations();
+        this.maxLeaseNanos = policy.getMaxLease().toNanos();
+        this.idleNanos = policy.getIdleTimeout().toNanos();
+        this.reaper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "jedis-affinity-reaper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        final long period = Math.max(1, TimeUnit.NANOSECONDS.toMillis(idleNanos) / 2);
+        reaper.scheduleWithFixedDelay(this::reap, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return the connection with its single-key commands sent over the calling thread's leased connections
+     */
+    public RedisClusterConnection wrap(RedisClusterConnection connection) {
+        return (RedisClusterConnection) Proxy.newProxyInstance(JedisConnectionAffinity.class.getClassLoader(),
+                new Class<?>[]{RedisClusterConnection.class}, new AffinityHandler(connection));
+    }
+
+    /**
+     * @return the number of connections currently leased by threads
+     */
+    public int getLeased() {
+        return leases.size();
+    }
+
+    static boolean isSingleKey(Method method, Object[] args) {
+        if (!SINGLE_KEY_METHODS.contains(method.getName()) || args == null || args.length == 0) {
+            return false;
+        }
+        return args[0] instanceof byte[] || args[0] instanceof byte[][] && ((byte[][]) args[0]).length == 1;
+    }
+
+    private Object execute(RedisClusterConnection delegate, Method method, Object[] args) throws Throwable {
+        final int slot = QueuedCommand.of(method, args).getSlot();
+        final JedisPool pool = slotTable.poolFor(slot);
+        final Lease lease = acquire(pool);
+        boolean broken = false;
+        try {
+            return method.invoke(lease.connection, args);
+        } catch (InvocationTargetException e) {
+            final Throwable cause = e.getTargetException();
+            if (cause instanceof ClusterRedirectException) {
+                slotTable.invalidate();
+                return invokeDelegate(delegate, method, args);
+            }
+            broken = cause instanceof RedisConnectionFailureException;
+            throw cause;
+        } finally {
+            afterUse(lease, broken);
+        }
+    }
+
+    private Lease acquire(JedisPool pool) {
+        final Map<JedisPool, Lease> owned = threadLeases.get();
+        final Lease lease = owned.get(pool);
+        if (lease != null && lease.state.compareAndSet(IDLE, BUSY)) {
+            return lease;
+        }
+        final Lease leased = new Lease(pool);
+        owned.put(pool, leased);
+        leases.add(leased);
+        return leased;
+    }
+
+    private void afterUse(Lease lease, boolean broken) {
+        final long now = System.nanoTime();
+        if (broken || ++lease.operations >= maxOperations || now - lease.leasedAt > maxLeaseNanos
+                || lease.pool.getNumWaiters() > 0) {
+            threadLeases.get().remove(lease.pool);
+            release(lease);
+            return;
+        }
+        lease.lastUsed = now;
+        lease.state.set(IDLE);
+    }
+
+    private void reap() {
+        final long now = System.nanoTime();
+        for (Lease lease : leases) {
+            if ((now - lease.lastUsed > idleNanos || lease.pool.getNumWaiters() > 0)
+                    && lease.state.compareAndSet(IDLE, BUSY)) {
+                release(lease);
+            }
+        }
+    }
+
+    /**
+     * Returns a lease owned by the caller, marked {@code BUSY}, to its pool. An owner finding it released leases
+     * a new connection.
+     */
+    private void release(Lease lease) {
+        leases.remove(lease);
+        lease.state.set(RELEASED);
+        lease.connection.close();
+    }
+
+    private static Object invokeDelegate(RedisClusterConnection delegate, Method method, Object[] args)
+            throws Throwable {
+        try {
+            return method.invoke(delegate, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    @Override
+    public void close() {
+        reaper.shutdownNow();
+        for (Lease lease : leases) {
+            if (lease.state.compareAndSet(IDLE, BUSY)) {
+                release(lease);
+            }
+        }
+    }
+
+    private final class AffinityHandler implements InvocationHandler {
+
+        private final RedisClusterConnection delegate;
+
+        AffinityHandler(RedisClusterConnection delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (method.getDeclaringClass() == Object.class) {
+                if ("equals".equals(method.getName())) {
+                    return proxy == args[0];
+                }
+                if ("hashCode".equals(method.getName())) {
+                    return System.identityHashCode(proxy);
+                }
+            }
+            if (isSingleKey(method, args) && !delegate.isPipelined() && !delegate.isQueueing()) {
+                return execute(delegate, method, args);
+            }
+            return invokeDelegate(delegate, method, args);
+        }
+    }
+
+    private static final class Lease {
+
+        final JedisPool pool;
+
+        final JedisConnection connection;
+
+        final AtomicInteger state = new AtomicInteger(BUSY);
+
+        final long leasedAt = System.nanoTime();
+
+        volatile long lastUsed = leasedAt;
+
+        int operations;
+
+        Lease(JedisPool pool) {
+            this.pool = pool;
+            final Jedis jedis = pool.getResource();
+            this.connection = new JedisConnection(jedis, pool, 0);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.jedis;
+
+import com.example.script.ScriptLoader;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.data.redis.connection.RedisConnection;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisCluster;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.util.SafeEncoder;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Loads scripts through the pool of every node the {@link JedisCluster} knows, masters and replicas alike. The
+ * masters are taken from {@code CLUSTER SLOTS} of the first node reached.
+ */
+public class JedisScriptLoader implements ScriptLoader {
+
+    @Override
+    public boolean load(RedisConnection connection, Collection<byte[]> sources) {
+        if (!(connection.getNativeConnection() instanceof JedisCluster)) {
+            throw new InvalidDataAccessApiUsageException("Scripts can only be preloaded on a Jedis cluster");
+        }
+        final Map<String, JedisPool> nodes = ((JedisCluster) connection.getNativeConnection()).getClusterNodes();
+        final Set<String> loaded = new HashSet<>();
+        Set<String> masters = null;
+        for (Map.Entry<String, JedisPool> node : nodes.entrySet()) {
+            try (Jedis jedis = node.getValue().getResource()) {
+                if (masters == null) {
+                    masters = masters(jedis.clusterSlots());
+                }
+                for (byte[] source : sources) {
+                    jedis.scriptLoad(source);
+                }
+                loaded.add(node.getKey());
+            } catch (JedisConnectionException e) {
+                // the node is down, it answers NOSCRIPT when it is back
+            }
+        }
+        return masters != null && !masters.isEmpty() && loaded.containsAll(masters);
+    }
+
+    /**
+     * @return the {@code host:port} of the master of every slot range
+     */
+    private static Set<String> masters(List<Object> slots) {
+        final Set<String> masters = new HashSet<>();
+        for (Object range : slots) {
+            final List<?> master = (List<?>) ((List<?>) range).get(2);
+            masters.add(SafeEncoder.encode((byte[]) master.get(0)) + ":" + master.get(1));
+        }
+        return masters;
+    }
+}
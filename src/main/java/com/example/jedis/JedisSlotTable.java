@@ -0,0 +1,152 @@
+package com.example.jedis;
+
+import com.example.cluster.ClusterSlots;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.springframework.data.redis.ClusterStateFailureException;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisCluster;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.exceptions.JedisException;
+import redis.clients.util.SafeEncoder;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cached slot-to-pool mapping of a {@link JedisCluster}, loaded from {@code CLUSTER SLOTS} and reloaded lazily
+ * after a redirect. Nodes the cluster does not know yet get pools of their own. The replicas of each slot are
+ * kept alongside its master.
+ */
+public class JedisSlotTable implements AutoCloseable {
+
+    private final JedisCluster cluster;
+
+    private final GenericObjectPoolConfig poolConfig;
+
+    private final int timeout;
+
+    private static final JedisPool[] NO_REPLICAS = new JedisPool[0];
+
+    private final Map<String, JedisPool> foreignPools = new ConcurrentHashMap<>();
+
+    private final Map<JedisPool, String> names = new ConcurrentHashMap<>();
+
+    private volatile JedisPool[] slots;
+
+    private volatile JedisPool[][] replicas;
+
+    private volatile boolean stale = true;
+
+    public JedisSlotTable(JedisCluster cluster, GenericObjectPoolConfig poolConfig, int timeout) {
+        this.cluster = cluster;
+        this.poolConfig = poolConfig;
+        this.timeout = timeout;
+    }
+
+    /**
+     * @return the pool of the node serving the slot, {@link ClusterStateFailureException} if there is none
+     */
+    public JedisPool poolFor(int slot) {
+        final JedisPool pool = slots()[slot];
+        if (pool == null) {
+            stale = true;
+            throw new ClusterStateFailureException("No node serves slot " + slot);
+        }
+        return pool;
+    }
+
+    /**
+     * Records a {@code MOVED} redirect and schedules a full reload for the next lookup.
+     */
+    public void moved(int slot, JedisPool pool) {
+        slots()[slot] = pool;
+        stale = true;
+    }
+
+    public void invalidate() {
+        stale = true;
+    }
+
+    /**
+     * @return the pools of the replicas serving the slot, empty if it has none
+     */
+    public JedisPool[] replicasFor(int slot) {
+        slots();
+        final JedisPool[] pools = replicas[slot];
+        return pools != null ? pools : NO_REPLICAS;
+    }
+
+    public JedisPool pool(String host, int port) {
+        final String nodeKey = host + ":" + port;
+        JedisPool pool = cluster.getClusterNodes().get(nodeKey);
+        if (pool == null) {
+            pool = foreignPools.computeIfAbsent(nodeKey, key -> new JedisPool(poolConfig, host, port, timeout));
+        }
+        names.putIfAbsent(pool, nodeKey);
+        return pool;
+    }
+
+    /**
+     * @return the {@code host:port} of a pool obtained from this table
+     */
+    public String nameOf(JedisPool pool) {
+        return names.getOrDefault(pool, "unknown");
+    }
+
+    private JedisPool[] slots() {
+        JedisPool[] table = slots;
+        if (table == null || stale) {
+            synchronized (this) {
+                if (slots == null || stale) {
+                    final JedisPool[][] replicaTable = new JedisPool[ClusterSlots.SLOT_COUNT][];
+                    final JedisPool[] masterTable = load(replicaTable);
+                    replicas = replicaTable;
+                    slots = masterTable;
+                    stale = false;
+                }
+                table = slots;
+            }
+        }
+        return table;
+    }
+
+    @SuppressWarnings("unchecked")
+    private JedisPool[] load(JedisPool[][] replicaTable) {
+        JedisException failure = null;
+        for (JedisPool candidate : cluster.getClusterNodes().values()) {
+            try (Jedis jedis = candidate.getResource()) {
+                final JedisPool[] table = new JedisPool[ClusterSlots.SLOT_COUNT];
+                for (Object entry : jedis.clusterSlots()) {
+                    final List<Object> range = (List<Object>) entry;
+                    final JedisPool owner = pool((List<Object>) range.get(2));
+                    final JedisPool[] rangeReplicas = new JedisPool[range.size() - 3];
+                    for (int i = 0; i < rangeReplicas.length; i++) {
+                        rangeReplicas[i] = pool((List<Object>) range.get(3 + i));
+                    }
+                    final int end = ((Long) range.get(1)).intValue();
+                    for (int slot = ((Long) range.get(0)).intValue(); slot <= end; slot++) {
+                        table[slot] = owner;
+                        replicaTable[slot] = rangeReplicas;
+                    }
+                }
+                return table;
+            } catch (JedisException e) {
+                failure = e;
+            }
+        }
+        throw new ClusterStateFailureException("Could not load the cluster slot table", failure);
+    }
+
+    private JedisPool pool(List<Object> node) {
+        return pool(SafeEncoder.encode((byte[]) node.get(0)), ((Long) node.get(1)).intValue());
+    }
+
+    @Override
+    public void close() {
+        for (JedisPool pool : foreignPools.values()) {
+            pool.close();
+        }
+        foreignPools.clear();
+    }
+}
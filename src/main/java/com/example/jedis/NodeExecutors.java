@@ -0,0 +1,93 @@
+package com.example.jedis;
+
+import org.springframework.data.redis.RedisSystemException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Thread pools running the per-node share of a cluster pipeline or transaction while the calling thread runs the
+ * share of the first node itself. The pools never grow beyond a fixed number of daemon threads, named
+ * {@code <name>-<n>}, which exit after a minute without work.
+ */
+final class NodeExecutors {
+
+    static final int DEFAULT_THREADS = 8;
+
+    private NodeExecutors() {
+    }
+
+    static ExecutorService fixed(String name, int threads) {
+        final AtomicInteger count = new AtomicInteger();
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 1, TimeUnit.MINUTES,
+                new LinkedBlockingQueue<>(), runnable -> {
+            final Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Runs the first task on the calling thread and the others on the executor, waiting for all of them even if
+     * one fails so that no task still writes into the caller's state afterwards. The first failure is rethrown
+     * with the others suppressed.
+     */
+    static void runInParallel(ExecutorService executor, List<Runnable> tasks, String operation) {
+        if (tasks.isEmpty()) {
+            return;
+        }
+        final List<Future<?>> remote = new ArrayList<>(tasks.size() - 1);
+        for (int i = 1; i < tasks.size(); i++) {
+            remote.add(executor.submit(tasks.get(i)));
+        }
+        RuntimeException failure = null;
+        try {
+            tasks.get(0).run();
+        } catch (RuntimeException e) {
+            failure = e;
+        }
+        for (Future<?> future : remote) {
+            try {
+                await(future, operation);
+            } catch (RuntimeException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Waits for a node's share, rethrowing its unchecked exception as it is.
+     */
+    static void await(Future<?> future, String operation) {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RedisSystemException("Interrupted while waiting for a " + operation, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new RedisSystemException(operation + " failed", e.getCause());
+        }
+    }
+}
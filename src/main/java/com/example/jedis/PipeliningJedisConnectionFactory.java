@@ -0,0 +1,151 @@
+package com.example.jedis;
+
+import com.example.cluster.PipeliningClusterConnection;
+import com.example.cluster.ReadRouting;
+import com.example.cluster.WarmableConnectionFactory;
+import org.springframework.data.redis.connection.RedisClusterConfiguration;
+import org.springframework.data.redis.connection.RedisClusterConnection;
+import org.springframework.data.redis.connection.jedis.JedisClusterConnection;
+import org.springframework.data.redis.connection.jedis.JedisConnectionFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisCluster;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisPoolConfig;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link JedisConnectionFactory} whose cluster connections support {@code openPipeline()}/{@code closePipeline()}
+ * through a {@link JedisClusterPipelineExecutor}, so {@code RedisTemplate.executePipelined} works on a cluster,
+ * and {@code multi()}/{@code exec()} through a {@link JedisClusterTransactionExecutor}. With a
+ * {@link ReadRouting}, single-key reads are served by replicas; transactions always run on the masters. With an
+ * {@link AffinityPolicy}, threads keep the connections of single-key commands through a
+ * {@link JedisConnectionAffinity} instead of borrowing one from the node pool per command.
+ */
+public class PipeliningJedisConnectionFactory extends JedisConnectionFactory implements WarmableConnectionFactory {
+
+    private static final int DEFAULT_MAX_REDIRECTS = 5;
+
+    private final int maxRedirects;
+
+    private ReadRouting readRouting;
+
+    private AffinityPolicy affinityPolicy;
+
+    private JedisConnectionAffinity affinity;
+
+    private volatile JedisSlotTable slotTable;
+
+    private JedisClusterPipelineExecutor pipelineExecutor;
+
+    private JedisClusterTransactionExecutor transactionExecutor;
+
+    public PipeliningJedisConnectionFactory(RedisClusterConfiguration clusterConfiguration,
+                                            JedisPoolConfig poolConfig) {
+        super(clusterConfiguration, poolConfig);
+        this.maxRedirects = clusterConfiguration.getMaxRedirects() != null
+                ? clusterConfiguration.getMaxRedirects() : DEFAULT_MAX_REDIRECTS;
+    }
+
+    /**
+     * Routes reads to replicas; the routing is started with this factory.
+     */
+    public void setReadRouting(ReadRouting readRouting) {
+        this.readRouting = readRouting;
+    }
+
+    /**
+     * Lets threads keep node connections across single-key commands, {@code null} to borrow one per command.
+     */
+    public void setAffinityPolicy(AffinityPolicy affinityPolicy) {
+        this.affinityPolicy = affinityPolicy;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        super.afterPropertiesSet();
+        if (readRouting != null) {
+            readRouting.start(this::getClusterConnection);
+        }
+    }
+
+    @Override
+    public RedisClusterConnection getClusterConnection() {
+        final RedisClusterConnection connection = super.getClusterConnection();
+        initExecutors((JedisClusterConnection) connection);
+        return PipeliningClusterConnection.wrap(affinity != null ? affinity.wrap(connection) : connection,
+                pipelineExecutor, transactionExecutor);
+    }
+
+    /**
+     * Fills the pool of every node the cluster knows to {@code minIdle} connections.
+     */
+    @Override
+    public List<Runnable> connectionOpeners() {
+        final int minIdle = getPoolConfig().getMinIdle();
+        final List<Runnable> openers = new ArrayList<>();
+        // the pools belong to the shared JedisCluster and outlive the connection
+        try (JedisClusterConnection connection = (JedisClusterConnection) super.getClusterConnection()) {
+            final JedisCluster cluster = connection.getNativeConnection();
+            for (JedisPool pool : cluster.getClusterNodes().values()) {
+                openers.add(() -> fill(pool, minIdle));
+            }
+        }
+        return openers;
+    }
+
+    /**
+     * Borrows {@code connections} at once, which makes the pool create the ones it does not hold yet, then
+     * returns them to stay idle.
+     */
+    private static void fill(JedisPool pool, int connections) {
+        final List<Jedis> borrowed = new ArrayList<>(connections);
+        try {
+            for (int i = 0; i < connections; i++) {
+                borrowed.add(pool.getResource());
+            }
+        } finally {
+            borrowed.forEach(Jedis::close);
+        }
+    }
+
+    private void initExecutors(JedisClusterConnection connection) {
+        if (slotTable == null) {
+            synchronized (this) {
+                if (slotTable == null) {
+                    final JedisSlotTable table = new JedisSlotTable(connection.getNativeConnection(),
+                            getPoolConfig(), (int) getClientConfiguration().getReadTimeout().toMillis());
+                    pipelineExecutor = new JedisClusterPipelineExecutor(table, maxRedirects, readRouting,
+                            nodeThreads());
+                    transactionExecutor = new JedisClusterTransactionExecutor(table, nodeThreads());
+                    if (affinityPolicy != null) {
+                        affinity = new JedisConnectionAffinity(table, affinityPolicy);
+                    }
+                    slotTable = table;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return one thread per connection a node pool allows, a node group never needs more
+     */
+    private int nodeThreads() {
+        final int maxTotal = getPoolConfig().getMaxTotal();
+        return maxTotal > 0 ? maxTotal : Runtime.getRuntime().availableProcessors();
+    }
+
+    @Override
+    public void destroy() {
+        if (slotTable != null) {
+            if (affinity != null) {
+                affinity.close();
+            }
+            pipelineExecutor.close();
+            transactionExecutor.close();
+            slotTable.close();
+        }
+        super.destroy();
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.jedis;
+
+import java.time.Duration;
+
+/**
+ * Bounds and thresholds for {@link AdaptiveJedisPoolController}. A node pool grows by {@code step} connections
+ * while callers wait for connections or the mean borrow wait exceeds {@code targetBorrowWait}, and shrinks by
+ * {@code step} after {@code shrinkAfter} consecutive checks below {@code lowUtilisation}, always staying within
+ * {@code [minTotal, maxTotal]}.
+ */
+public class PoolSizingPolicy {
+
+    private final int minTotal;
+
+    private final int maxTotal;
+
+    private final int step;
+
+    private final Duration targetBorrowWait;
+
+    private final double lowUtilisation;
+
+    private final int shrinkAfter;
+
+    private final Duration interval;
+
+    public PoolSizingPolicy(int minTotal, int maxTotal, int step, Duration targetBorrowWait, double lowUtilisation,
+                            int shrinkAfter, Duration interval) {
+        if (minTotal < 1 || maxTotal < minTotal || step < 1 || shrinkAfter < 1) {
+            throw new IllegalArgumentException("Requires 1 <= minTotal <= maxTotal, a positive step and shrinkAfter");
+        }
+        if (lowUtilisation < 0 || lowUtilisation >= 1) {
+            throw new IllegalArgumentException("lowUtilisation must be in [0, 1)");
+        }
+        this.minTotal = minTotal;
+        this.maxTotal = maxTotal;
+        this.step = step;
+        this.targetBorrowWait = targetBorrowWait;
+        this.lowUtilisation = lowUtilisation;
+        this.shrinkAfter = shrinkAfter;
+        this.interval = interval;
+    }
+
+    public static PoolSizingPolicy defaults() {
+        return new PoolSizingPolicy(8, 128, 8, Duration.ofMillis(2), 0.5, 6, Duration.ofMillis(500));
+    }
+
+    public int getMinTotal() {
+        return minTotal;
+    }
+
+    public int getMaxTotal() {
+        return maxTotal;
+    }
+
+    public int getStep() {
+        return step;
+    }
+
+    public Duration getTargetBorrowWait() {
+        return targetBorrowWait;
+    }
+
+    public double getLowUtilisation() {
+        return lowUtilisation;
+    }
+
+    public int getShrinkAfter() {
+        return shrinkAfter;
+    }
+
+    public Duration getInterval() {
+        return interval;
+    }
+
+    /**
+     * @return the new maximum for a pool, equal to {@code currentTotal} to keep it
+     */
+    int resize(int currentTotal, int active, int waiters, long meanBorrowWaitMillis, int quietChecks) {
+        if ((waiters > 0 || meanBorrowWaitMillis > targetBorrowWait.toMillis()) && currentTotal < maxTotal) {
+            return Math.min(maxTotal, currentTotal + step);
+        }
+        if (quietChecks >= shrinkAfter && currentTotal > minTotal) {
+            return Math.max(minTotal, Math.max(active, currentTotal - step));
+        }
+        return currentTotal;
+    }
+
+    boolean isQuiet(int currentTotal, int active, int waiters) {
+        return waiters == 0 && active < currentTotal * lowUtilisation;
+    }
+
+    @Override
+    public String toString() {
+        return "PoolSizingPolicy[minTotal=" + minTotal + ", maxTotal=" + maxTotal + ", step=" + step
+                + ", targetBorrowWait=" + targetBorrowWait + ", lowUtilisation=" + lowUtilisation
+                + ", shrinkAfter=" + shrinkAfter + ", interval=" + interval + "]";
+    }
+}
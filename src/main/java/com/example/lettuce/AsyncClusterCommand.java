@@ -0,0 +1,99 @@
+package com.example.lettuce;
+
+import com.example.cluster.QueuedCommand;
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.cluster.api.async.RedisClusterAsyncCommands;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Maps the key/value commands of {@code RedisConnection} recorded in a pipeline or transaction onto the Lettuce
+ * asynchronous cluster or node API, converting replies to the types Spring Data Redis returns for the same call.
+ */
+enum AsyncClusterCommand {
+
+    GET("get", (c, a) -> c.get((byte[]) a[0]), byte[].class),
+    SET("set", (c, a) -> c.set((byte[]) a[0], (byte[]) a[1]), AsyncClusterCommand::ok, byte[].class, byte[].class),
+    SET_NX("setNX", (c, a) -> c.setnx((byte[]) a[0], (byte[]) a[1]), byte[].class, byte[].class),
+    SET_EX("setEx", (c, a) -> c.setex((byte[]) a[0], (Long) a[1], (byte[]) a[2]), AsyncClusterCommand::ok,
+            byte[].class, long.class, byte[].class),
+    P_SET_EX("pSetEx", (c, a) -> c.psetex((byte[]) a[0], (Long) a[1], (byte[]) a[2]), AsyncClusterCommand::ok,
+            byte[].class, long.class, byte[].class),
+    GET_SET("getSet", (c, a) -> c.getset((byte[]) a[0], (byte[]) a[1]), byte[].class, byte[].class),
+    INCR("incr", (c, a) -> c.incr((byte[]) a[0]), byte[].class),
+    INCR_BY("incrBy", (c, a) -> c.incrby((byte[]) a[0], (Long) a[1]), byte[].class, long.class),
+    DECR("decr", (c, a) -> c.decr((byte[]) a[0]), byte[].class),
+    DECR_BY("decrBy", (c, a) -> c.decrby((byte[]) a[0], (Long) a[1]), byte[].class, long.class),
+    DEL("del", (c, a) -> c.del((byte[][]) a[0]), byte[][].class),
+    UNLINK("unlink", (c, a) -> c.unlink((byte[][]) a[0]), byte[][].class),
+    EXISTS("exists", (c, a) -> c.exists(new byte[][]{(byte[]) a[0]}), reply -> ((Long) reply) > 0, byte[].class),
+    EXISTS_KEYS("exists", (c, a) -> c.exists((byte[][]) a[0]), byte[][].class),
+    EXPIRE("expire", (c, a) -> c.expire((byte[]) a[0], (Long) a[1]), byte[].class, long.class),
+    P_EXPIRE("pExpire", (c, a) -> c.pexpire((byte[]) a[0], (Long) a[1]), byte[].class, long.class),
+    TTL("ttl", (c, a) -> c.ttl((byte[]) a[0]), byte[].class),
+    H_SET("hSet", (c, a) -> c.hset((byte[]) a[0], (byte[]) a[1], (byte[]) a[2]),
+            byte[].class, byte[].class, byte[].class),
+    H_GET("hGet", (c, a) -> c.hget((byte[]) a[0], (byte[]) a[1]), byte[].class, byte[].class),
+    H_DEL("hDel", (c, a) -> c.hdel((byte[]) a[0], (byte[][]) a[1]), byte[].class, byte[][].class);
+
+    private static final Map<Method, AsyncClusterCommand> RESOLVED = new ConcurrentHashMap<>();
+
+    private final String methodName;
+
+    private final Class<?>[] parameterTypes;
+
+    private final BiFunction<RedisClusterAsyncCommands<byte[], byte[]>, Object[], RedisFuture<?>> dispatcher;
+
+    private final Function<Object, Object> converter;
+
+    AsyncClusterCommand(String methodName,
+                        BiFunction<RedisClusterAsyncCommands<byte[], byte[]>, Object[], RedisFuture<?>> dispatcher,
+                        Class<?>... parameterTypes) {
+        this(methodName, dispatcher, Function.identity(), parameterTypes);
+    }
+
+    AsyncClusterCommand(String methodName,
+                        BiFunction<RedisClusterAsyncCommands<byte[], byte[]>, Object[], RedisFuture<?>> dispatcher,
+                        Function<Object, Object> converter, Class<?>... parameterTypes) {
+        this.methodName = methodName;
+        this.dispatcher = dispatcher;
+        this.converter = converter;
+        this.parameterTypes = parameterTypes;
+    }
+
+    /**
+     * @return the matching command or {@code null} if the recorded method has no asynchronous mapping.
+     */
+    static AsyncClusterCommand of(QueuedCommand command) {
+        final Method method = command.getMethod();
+        final AsyncClusterCommand resolved = RESOLVED.get(method);
+        if (resolved != null) {
+            return resolved;
+        }
+        for (AsyncClusterCommand candidate : values()) {
+            if (candidate.methodName.equals(method.getName())
+                    && Arrays.equals(candidate.parameterTypes, method.getParameterTypes())) {
+                RESOLVED.put(method, candidate);
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    RedisFuture<?> dispatch(RedisClusterAsyncCommands<byte[], byte[]> commands, Object[] args) {
+        return dispatcher.apply(commands, args);
+    }
+
+    Object convert(Object reply) {
+        return reply == null ? null : converter.apply(reply);
+    }
+
+    private static Object ok(Object reply) {
+        return "OK".equals(reply);
+    }
+}
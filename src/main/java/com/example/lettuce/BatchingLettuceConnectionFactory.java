@@ -0,0 +1,227 @@
+package com.example.lettuce;
+
+import com.example.cluster.PipeliningClusterConnection;
+import com.example.cluster.ReadRouting;
+import com.example.cluster.WarmableConnectionFactory;
+import io.lettuce.core.ReadFrom;
+import io.lettuce.core.RedisURI;
+import io.lettuce.core.cluster.ClusterClientOptions;
+import io.lettuce.core.cluster.RedisClusterClient;
+import io.lettuce.core.cluster.api.StatefulRedisClusterConnection;
+import io.lettuce.core.cluster.api.async.RedisAdvancedClusterAsyncCommands;
+import io.lettuce.core.cluster.models.partitions.RedisClusterNode;
+import io.lettuce.core.codec.ByteArrayCodec;
+import io.lettuce.core.codec.RedisCodec;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.springframework.data.redis.connection.RedisClusterConfiguration;
+import org.springframework.data.redis.connection.RedisClusterConnection;
+import org.springframework.data.redis.connection.RedisNode;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * {@link LettuceConnectionFactory} whose cluster pipelines do not open a dedicated connection per callback.
+ * Pipelined commands are dispatched on one long-lived batching connection shared by all callers and flushed
+ * according to a {@link FlushPolicy}. {@code multi()}/{@code exec()} blocks run through a
+ * {@link LettuceClusterTransactionExecutor} on pooled connections; everything else keeps using the shared native
+ * connection.
+ * <p>
+ * With a {@link ReadRouting}, reads are routed by a {@link LatencyAwareReadFrom} on every connection except the
+ * batching and transaction ones, which stay on the masters: a pipeline or transaction reading a key it wrote
+ * before must not be answered by a replica that has not seen the write yet. Lettuce caches its read selection per
+ * slot, so the connections reselect whenever the routing's preferred replicas change.
+ */
+public class BatchingLettuceConnectionFactory extends LettuceConnectionFactory
+        implements WarmableConnectionFactory {
+
+    private final RedisClusterConfiguration clusterConfiguration;
+
+    private static final int TRANSACTION_CONNECTIONS = 8;
+
+    private final FlushPolicy flushPolicy;
+
+    private volatile LettuceBatchingPipelineExecutor pipelineExecutor;
+
+    private volatile LettuceClusterTransactionExecutor transactionExecutor;
+
+    private volatile RedisClusterClient batchingClient;
+
+    private ReadRouting readRouting;
+
+    private final Set<StatefulRedisClusterConnection<?, ?>> readingConnections = Collections.synchronizedSet(
+            Collections.newSetFromMap(new WeakHashMap<>()));
+
+    public BatchingLettuceConnectionFactory(RedisClusterConfiguration clusterConfiguration, FlushPolicy flushPolicy) {
+        super(clusterConfiguration);
+        this.clusterConfiguration = clusterConfiguration;
+        this.flushPolicy = flushPolicy;
+    }
+
+    public BatchingLettuceConnectionFactory(RedisClusterConfiguration clusterConfiguration,
+                                            LettuceClientConfiguration clientConfiguration,
+                                            FlushPolicy flushPolicy) {
+        super(clusterConfiguration, clientConfiguration);
+        this.clusterConfiguration = clusterConfiguration;
+        this.flushPolicy = flushPolicy;
+    }
+
+    /**
+     * Routes reads as the given routing prefers; it must also back the {@link LatencyAwareReadFrom} of the client
+     * configuration. The routing is started with this factory.
+     */
+    public void setReadRouting(ReadRouting readRouting) {
+        this.readRouting = readRouting;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        super.afterPropertiesSet();
+        if (readRouting != null) {
+            readRouting.onChange(this::reselectReaders);
+            readRouting.start(this::getClusterConnection);
+        }
+        this.pipelineExecutor = new LettuceBatchingPipelineExecutor(this::connectBatchingConnection, flushPolicy,
+                getClientConfiguration().getCommandTimeout());
+
+        final GenericObjectPoolConfig poolConfig = new GenericObjectPoolConfig();
+        poolConfig.setMaxTotal(TRANSACTION_CONNECTIONS);
+        poolConfig.setMaxIdle(TRANSACTION_CONNECTIONS);
+        // sessions hold a connection per watched slot, so an exhausted pool fails instead of waiting for them
+        poolConfig.setMaxWaitMillis(getClientConfiguration().getCommandTimeout().toMillis());
+        this.transactionExecutor = new LettuceClusterTransactionExecutor(this::batchingClient, poolConfig,
+                getClientConfiguration().getCommandTimeout());
+    }
+
+    @Override
+    public RedisClusterConnection getClusterConnection() {
+        return PipeliningClusterConnection.wrap(super.getClusterConnection(), pipelineExecutor, transactionExecutor);
+    }
+
+    /**
+     * Opens the connections of the shared native connection to every master. Replica connections are opened
+     * read-only on their first read, the batching and transaction connections on their first use.
+     */
+    @Override
+    public List<Runnable> connectionOpeners() {
+        final List<Runnable> openers = new ArrayList<>();
+        try (RedisClusterConnection connection = super.getClusterConnection()) {
+            final Object nativeConnection = connection.getNativeConnection();
+            if (!(nativeConnection instanceof RedisAdvancedClusterAsyncCommands)) {
+                return openers;
+            }
+            final StatefulRedisClusterConnection<?, ?> shared =
+                    ((RedisAdvancedClusterAsyncCommands<?, ?>) nativeConnection).getStatefulConnection();
+            for (RedisClusterNode node : shared.getPartitions()) {
+                if (node.is(RedisClusterNode.NodeFlag.MASTER)) {
+                    openers.add(() -> shared.getConnection(node.getNodeId()));
+                }
+            }
+        }
+        return openers;
+    }
+
+    private StatefulRedisClusterConnection<byte[], byte[]> connectBatchingConnection() {
+        final StatefulRedisClusterConnection<byte[], byte[]> connection =
+                batchingClient().connect(ByteArrayCodec.INSTANCE);
+        connection.setReadFrom(ReadFrom.MASTER);
+        return connection;
+    }
+
+    /**
+     * Opens a dedicated cluster connection with the given codec, for callers that bypass the template
+     * serializers. The caller closes it.
+     */
+    public <K, V> StatefulRedisClusterConnection<K, V> connect(RedisCodec<K, V> codec) {
+        final StatefulRedisClusterConnection<K, V> connection = batchingClient().connect(codec);
+        getClientConfiguration().getReadFrom().ifPresent(readFrom -> {
+            connection.setReadFrom(readFrom);
+            readingConnections.add(connection);
+        });
+        return connection;
+    }
+
+    /**
+     * Makes the open connections, including the shared native one, select their read nodes again.
+     */
+    public void reselectReaders() {
+        final ReadFrom readFrom = getClientConfiguration().getReadFrom().orElse(null);
+        if (readFrom == null) {
+            return;
+        }
+        synchronized (readingConnections) {
+            for (StatefulRedisClusterConnection<?, ?> connection : readingConnections) {
+                if (connection.isOpen()) {
+                    connection.setReadFrom(readFrom);
+                }
+            }
+        }
+        try (RedisClusterConnection connection = super.getClusterConnection()) {
+            final Object nativeConnection = connection.getNativeConnection();
+            if (nativeConnection instanceof RedisAdvancedClusterAsyncCommands) {
+                ((RedisAdvancedClusterAsyncCommands<?, ?>) nativeConnection).getStatefulConnection()
+                        .setReadFrom(readFrom);
+            }
+        }
+    }
+
+    /**
+     * @return the client of the batching, transaction and codec connections, created on first use
+     */
+    private RedisClusterClient batchingClient() {
+        RedisClusterClient client = batchingClient;
+        if (client == null) {
+            synchronized (this) {
+                if (batchingClient == null) {
+                    batchingClient = createBatchingClient();
+                }
+                client = batchingClient;
+            }
+        }
+        return client;
+    }
+
+    private RedisClusterClient createBatchingClient() {
+        final LettuceClientConfiguration clientConfiguration = getClientConfiguration();
+        final List<RedisURI> uris = new ArrayList<>();
+        for (RedisNode node : clusterConfiguration.getClusterNodes()) {
+            final RedisURI uri = RedisURI.create(node.getHost(), node.getPort());
+            uri.setTimeout(clientConfiguration.getCommandTimeout());
+            if (clusterConfiguration.getPassword().isPresent()) {
+                uri.setPassword(new String(clusterConfiguration.getPassword().get()));
+            }
+            uris.add(uri);
+        }
+
+        final RedisClusterClient client = clientConfiguration.getClientResources()
+                .map(resources -> RedisClusterClient.create(resources, uris))
+                .orElseGet(() -> RedisClusterClient.create(uris));
+        clientConfiguration.getClientOptions()
+                .filter(ClusterClientOptions.class::isInstance)
+                .ifPresent(options -> client.setOptions((ClusterClientOptions) options));
+        return client;
+    }
+
+    public FlushPolicy getFlushPolicy() {
+        return flushPolicy;
+    }
+
+    @Override
+    public void destroy() {
+        if (pipelineExecutor != null) {
+            pipelineExecutor.close();
+        }
+        if (transactionExecutor != null) {
+            transactionExecutor.close();
+        }
+        if (batchingClient != null) {
+            batchingClient.shutdown();
+        }
+        super.destroy();
+    }
+}
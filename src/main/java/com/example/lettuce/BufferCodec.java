@@ -0,0 +1,117 @@
+package com.example.lettuce;
+
+import io.lettuce.core.codec.RedisCodec;
+import io.lettuce.core.codec.ToByteBufEncoder;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Codec for {@code String} keys and {@link ByteBuffer} values that writes both straight into Lettuce's pooled
+ * Netty buffers: keys are UTF-8 encoded in place or copied from a {@link HotKeyCache}, values are copied from the
+ * caller's buffer without an intermediate {@code byte[]}. Decoded values are copied once into a read-only heap
+ * buffer, since the Netty buffer is reused as soon as decoding returns.
+ * <p>
+ * Lettuce encodes a key into a {@link ByteBuffer} of its own only to hash its cluster slot, and is done with it
+ * before it encodes the next key on the same thread. That buffer is therefore reused per thread instead of
+ * allocated per command, for keys of up to {@link #MAX_KEY_BUFFER} bytes.
+ */
+public class BufferCodec implements RedisCodec<String, ByteBuffer>, ToByteBufEncoder<String, ByteBuffer> {
+
+    static final int MAX_KEY_BUFFER = 1024;
+
+    private static final ThreadLocal<ByteBuffer> KEY_BUFFER =
+            ThreadLocal.withInitial(() -> ByteBuffer.allocate(MAX_KEY_BUFFER));
+
+    private final HotKeyCache hotKeys;
+
+    public BufferCodec(int hotKeyCapacity) {
+        this.hotKeys = new HotKeyCache(hotKeyCapacity);
+    }
+
+    @Override
+    public String decodeKey(ByteBuffer bytes) {
+        return StandardCharsets.UTF_8.decode(bytes).toString();
+    }
+
+    @Override
+    public ByteBuffer decodeValue(ByteBuffer bytes) {
+        final ByteBuffer copy = ByteBuffer.allocate(bytes.remaining());
+        copy.put(bytes).flip();
+        return copy.asReadOnlyBuffer();
+    }
+
+    /**
+     * @return the encoded key, valid until the next key is encoded on the calling thread
+     */
+    @Override
+    public ByteBuffer encodeKey(String key) {
+        final byte[] cached = hotKeys.get(key);
+        if (cached != null) {
+            return ByteBuffer.wrap(cached);
+        }
+        if (key.length() * 3 > MAX_KEY_BUFFER) {
+            return ByteBuffer.wrap(key.getBytes(StandardCharsets.UTF_8));
+        }
+        final ByteBuffer buffer = KEY_BUFFER.get();
+        buffer.clear();
+        writeUtf8(key, buffer);
+        buffer.flip();
+        return buffer;
+    }
+
+    @Override
+    public ByteBuffer encodeValue(ByteBuffer value) {
+        return value == null ? ByteBuffer.allocate(0) : value.duplicate();
+    }
+
+    @Override
+    public void encodeKey(String key, ByteBuf target) {
+        final byte[] cached = hotKeys.get(key);
+        if (cached != null) {
+            target.writeBytes(cached);
+        } else {
+            ByteBufUtil.writeUtf8(target, key);
+        }
+    }
+
+    @Override
+    public void encodeValue(ByteBuffer value, ByteBuf target) {
+        if (value != null) {
+            target.writeBytes(value.duplicate());
+        }
+    }
+
+    /**
+     * Encodes like {@link String#getBytes(java.nio.charset.Charset)}, an unpaired surrogate becomes {@code '?'}.
+     */
+    static void writeUtf8(String key, ByteBuffer target) {
+        for (int i = 0; i < key.length(); i++) {
+            final char c = key.charAt(i);
+            if (c < 0x80) {
+                target.put((byte) c);
+            } else if (c < 0x800) {
+                target.put((byte) (0xc0 | c >> 6)).put((byte) (0x80 | c & 0x3f));
+            } else if (!Character.isSurrogate(c)) {
+                target.put((byte) (0xe0 | c >> 12)).put((byte) (0x80 | c >> 6 & 0x3f)).put((byte) (0x80 | c & 0x3f));
+            } else if (Character.isHighSurrogate(c) && i + 1 < key.length()
+                    && Character.isLowSurrogate(key.charAt(i + 1))) {
+                final int codePoint = Character.toCodePoint(c, key.charAt(++i));
+                target.put((byte) (0xf0 | codePoint >> 18)).put((byte) (0x80 | codePoint >> 12 & 0x3f))
+                        .put((byte) (0x80 | codePoint >> 6 & 0x3f)).put((byte) (0x80 | codePoint & 0x3f));
+            } else {
+                target.put((byte) '?');
+            }
+        }
+    }
+
+    @Override
+    public int estimateSize(Object keyOrValue) {
+        if (keyOrValue instanceof String) {
+            return ByteBufUtil.utf8MaxBytes((String) keyOrValue);
+        }
+        return keyOrValue instanceof ByteBuffer ? ((ByteBuffer) keyOrValue).remaining() : 0;
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.lettuce;
+
+import net.openhft.affinity.Affinity;
+
+import java.util.List;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Kept apart from {@link LettuceEventLoops} so that the optional affinity library is only loaded when pinning is
+ * configured.
+ */
+final class CpuPinning {
+
+    private CpuPinning() {
+    }
+
+    /**
+     * @return a factory whose threads pin themselves to the next of {@code cpus} before they start running
+     */
+    static ThreadFactory pin(ThreadFactory threads, List<Integer> cpus) {
+        final AtomicInteger next = new AtomicInteger();
+        return task -> {
+            final int cpu = cpus.get(Math.floorMod(next.getAndIncrement(), cpus.size()));
+            return threads.newThread(() -> {
+                Affinity.setAffinity(cpu);
+                task.run();
+            });
+        };
+    }
+}
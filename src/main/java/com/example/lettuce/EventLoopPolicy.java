@@ -0,0 +1,83 @@
+package com.example.lettuce;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Threads of the Lettuce clients. {@code ioThreads} event loops run the connections on the given
+ * {@link Transport}, {@code computationThreads} run the event bus and reactive callbacks; zero keeps the Lettuce
+ * default of one per core, at least three. If {@code ioCpus} is not empty, the I/O threads are pinned to those
+ * CPUs round robin, which needs OpenHFT Java-Thread-Affinity on the class path.
+ */
+public class EventLoopPolicy {
+
+    public enum Transport {
+
+        /**
+         * Epoll on Linux when the native library loads, NIO otherwise.
+         */
+        AUTO,
+
+        /**
+         * Epoll, failing at startup if the native library is not available.
+         */
+        EPOLL,
+
+        /**
+         * NIO, even where epoll is available.
+         */
+        NIO
+    }
+
+    private static final int DEFAULT_THREADS = Math.max(3, Runtime.getRuntime().availableProcessors());
+
+    private final Transport transport;
+
+    private final int ioThreads;
+
+    private final int computationThreads;
+
+    private final List<Integer> ioCpus;
+
+    public EventLoopPolicy(Transport transport, int ioThreads, int computationThreads, List<Integer> ioCpus) {
+        if (ioThreads < 0 || computationThreads < 0) {
+            throw new IllegalArgumentException("ioThreads and computationThreads must not be negative");
+        }
+        for (int cpu : ioCpus) {
+            if (cpu < 0) {
+                throw new IllegalArgumentException("Invalid CPU " + cpu);
+            }
+        }
+        this.transport = transport;
+        this.ioThreads = ioThreads == 0 ? DEFAULT_THREADS : ioThreads;
+        this.computationThreads = computationThreads == 0 ? DEFAULT_THREADS : computationThreads;
+        this.ioCpus = Collections.unmodifiableList(new ArrayList<>(ioCpus));
+    }
+
+    public static EventLoopPolicy defaults() {
+        return new EventLoopPolicy(Transport.AUTO, 0, 0, Collections.emptyList());
+    }
+
+    public Transport getTransport() {
+        return transport;
+    }
+
+    public int getIoThreads() {
+        return ioThreads;
+    }
+
+    public int getComputationThreads() {
+        return computationThreads;
+    }
+
+    public List<Integer> getIoCpus() {
+        return ioCpus;
+    }
+
+    @Override
+    public String toString() {
+        return "EventLoopPolicy[transport=" + transport + ", ioThreads=" + ioThreads + ", computationThreads="
+                + computationThreads + ", ioCpus=" + ioCpus + "]";
+    }
+}
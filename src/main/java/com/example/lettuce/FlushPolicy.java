@@ -0,0 +1,60 @@
+package com.example.lettuce;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides when commands buffered on the batching connection are written out. A flush happens as soon as the
+ * pending commands or bytes reach their limit, otherwise at the latest {@code lingerMicros} after the first
+ * unflushed command. A linger of zero flushes every pipeline on its own.
+ */
+public class FlushPolicy {
+
+    private final int maxCommands;
+
+    private final long maxBytes;
+
+    private final long lingerMicros;
+
+    public FlushPolicy(int maxCommands, long maxBytes, long lingerMicros) {
+        if (maxCommands < 1 || maxBytes < 1 || lingerMicros < 0) {
+            throw new IllegalArgumentException("maxCommands and maxBytes must be positive, lingerMicros not negative");
+        }
+        this.maxCommands = maxCommands;
+        this.maxBytes = maxBytes;
+        this.lingerMicros = lingerMicros;
+    }
+
+    public static FlushPolicy immediate() {
+        return new FlushPolicy(1, 1, 0);
+    }
+
+    public static FlushPolicy defaults() {
+        return new FlushPolicy(64, 64 * 1024, 20);
+    }
+
+    public int getMaxCommands() {
+        return maxCommands;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public long getLingerMicros() {
+        return lingerMicros;
+    }
+
+    boolean shouldFlush(int pendingCommands, long pendingBytes) {
+        return lingerMicros == 0 || pendingCommands >= maxCommands || pendingBytes >= maxBytes;
+    }
+
+    long lingerNanos() {
+        return TimeUnit.MICROSECONDS.toNanos(lingerMicros);
+    }
+
+    @Override
+    public String toString() {
+        return "FlushPolicy[maxCommands=" + maxCommands + ", maxBytes=" + maxBytes + ", lingerMicros="
+                + lingerMicros + "]";
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.lettuce;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Direct-mapped cache of UTF-8 encoded keys. A key is only encoded and cached the second time in a row it lands
+ * on its slot, so one-off keys cost nothing but a reference write; a cached key is then written without being
+ * encoded again.
+ */
+final class HotKeyCache {
+
+    private final String[] candidates;
+
+    private final Entry[] entries;
+
+    private final int mask;
+
+    HotKeyCache(int capacity) {
+        final int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        this.candidates = new String[size];
+        this.entries = new Entry[size];
+        this.mask = size - 1;
+    }
+
+    /**
+     * @return the cached encoding, {@code null} if the key is not hot (yet)
+     */
+    byte[] get(String key) {
+        final int index = spread(key.hashCode()) & mask;
+        final Entry entry = entries[index];
+        if (entry != null && (entry.key == key || entry.key.equals(key))) {
+            return entry.bytes;
+        }
+        // candidates are only a hint, a lost race just delays caching
+        final String candidate = candidates[index];
+        if (candidate == key || key.equals(candidate)) {
+            final Entry hot = new Entry(key, key.getBytes(StandardCharsets.UTF_8));
+            entries[index] = hot;
+            return hot.bytes;
+        }
+        candidates[index] = key;
+        return null;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private static final class Entry {
+
+        final String key;
+
+        final byte[] bytes;
+
+        Entry(String key, byte[] bytes) {
+            this.key = key;
+            this.bytes = bytes;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.lettuce;
+
+import io.lettuce.core.codec.RedisCodec;
+import io.lettuce.core.output.CommandOutput;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Bulk reply output that copies the reply straight from the Netty buffer into a caller-supplied buffer. The
+ * output is the target buffer, or {@code null} for a missing key. A reply larger than the space left in the
+ * target is not copied; {@link #getRequired()} then tells how much space it needs. Once {@link #cancel()
+ * cancelled}, for a caller that stopped waiting, the output never touches the target again.
+ */
+class IntoBufferOutput extends CommandOutput<String, ByteBuffer, ByteBuffer> {
+
+    private int required = -1;
+
+    private boolean cancelled;
+
+    IntoBufferOutput(RedisCodec<String, ByteBuffer> codec, ByteBuffer target) {
+        super(codec, target);
+    }
+
+    @Override
+    public synchronized void set(ByteBuffer bytes) {
+        if (bytes == null || cancelled) {
+            return;
+        }
+        required = bytes.remaining();
+        if (required <= output.remaining()) {
+            output.put(bytes);
+        }
+    }
+
+    @Override
+    public ByteBuffer get() {
+        return required < 0 ? null : output;
+    }
+
+    /**
+     * Stops any later write into the target and waits for one in progress, so the caller owns the target again
+     * when this returns.
+     */
+    synchronized void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * @return the size of the reply, {@code -1} if the key was missing
+     */
+    int getRequired() {
+        return required;
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.lettuce;
+
+import com.example.cluster.ReadRouting;
+import io.lettuce.core.ReadFrom;
+import io.lettuce.core.RedisURI;
+import io.lettuce.core.models.role.RedisInstance;
+import io.lettuce.core.models.role.RedisNodeDescription;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link ReadFrom} ordering the nodes of a slot as {@link ReadRouting} prefers them: replicas by observed latency,
+ * lagging replicas left out, the master last. Lettuce caches the selection per slot until the partitions change
+ * or the {@code ReadFrom} is set again, see {@link BatchingLettuceConnectionFactory#reselectReaders()}.
+ */
+public class LatencyAwareReadFrom extends ReadFrom {
+
+    private final ReadRouting routing;
+
+    public LatencyAwareReadFrom(ReadRouting routing) {
+        this.routing = routing;
+    }
+
+    @Override
+    public List<RedisNodeDescription> select(Nodes nodes) {
+        RedisNodeDescription master = null;
+        final List<RedisNodeDescription> replicas = new ArrayList<>();
+        for (RedisNodeDescription node : nodes.getNodes()) {
+            if (node.getRole() == RedisInstance.Role.MASTER) {
+                master = node;
+            } else {
+                replicas.add(node);
+            }
+        }
+        return routing.order(master, replicas, LatencyAwareReadFrom::name);
+    }
+
+    private static String name(RedisNodeDescription node) {
+        final RedisURI uri = node.getUri();
+        return uri.getHost() + ":" + uri.getPort();
+    }
+}
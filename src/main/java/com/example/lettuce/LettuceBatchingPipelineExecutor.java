@@ -0,0 +1,263 @@
+package com.example.lettuce;
+
+import com.example.cluster.ClusterPipelineExecutor;
+import com.example.cluster.QueuedCommand;
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.cluster.api.StatefulRedisClusterConnection;
+import io.lettuce.core.cluster.api.async.RedisAdvancedClusterAsyncCommands;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.redis.RedisSystemException;
+import org.springframework.data.redis.connection.RedisPipelineException;
+import org.springframework.data.redis.connection.lettuce.LettuceConverters;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Pipelines recorded commands over one long-lived cluster connection with auto-flush disabled. Every caller
+ * dispatches its commands asynchronously and the buffered writes of all callers go out together, one flush per
+ * node connection, whenever the {@link FlushPolicy} says so.
+ * <p>
+ * Lettuce follows {@code MOVED} and {@code ASK} replies by writing the command again to the node named in the
+ * reply, and with auto-flush disabled that write stays buffered until the next flush. A caller still waiting for
+ * replies therefore flushes the connection again every {@link #REFLUSH_NANOS} (or linger, if longer), so a
+ * redirected command goes out even when no other caller is writing.
+ */
+public class LettuceBatchingPipelineExecutor implements ClusterPipelineExecutor, AutoCloseable {
+
+    static final long REFLUSH_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final Supplier<StatefulRedisClusterConnection<byte[], byte[]>> connector;
+
+    private final FlushPolicy flushPolicy;
+
+    private final long timeoutNanos;
+
+    private final long reflushNanos;
+
+    // running totals, what is pending is the difference; a flush only ever raises the flushed totals, so
+    // concurrent writes and flushes never lose each other's counts
+    private final AtomicLong writtenCommands = new AtomicLong();
+
+    private final AtomicLong writtenBytes = new AtomicLong();
+
+    private final AtomicLong flushedCommands = new AtomicLong();
+
+    private final AtomicLong flushedBytes = new AtomicLong();
+
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+    private final ScheduledExecutorService lingerTimer;
+
+    private volatile StatefulRedisClusterConnection<byte[], byte[]> connection;
+
+    public LettuceBatchingPipelineExecutor(Supplier<StatefulRedisClusterConnection<byte[], byte[]>> connector,
+                                           FlushPolicy flushPolicy, Duration timeout) {
+        this.connector = connector;
+        this.flushPolicy = flushPolicy;
+        this.timeoutNanos = timeout.toNanos();
+        this.reflushNanos = Math.max(REFLUSH_NANOS, flushPolicy.lingerNanos());
+        this.lingerTimer = flushPolicy.getLingerMicros() > 0
+                ? Executors.newSingleThreadScheduledExecutor(runnable -> {
+                    final Thread thread = new Thread(runnable, "lettuce-pipeline-flush");
+                    thread.setDaemon(true);
+                    return thread;
+                })
+                : null;
+    }
+
+    @Override
+    public boolean supports(QueuedCommand command) {
+        return AsyncClusterCommand.of(command) != null;
+    }
+
+    @Override
+    public List<Object> execute(List<QueuedCommand> commands) {
+        final RedisAdvancedClusterAsyncCommands<byte[], byte[]> async = connection().async();
+        final List<RedisFuture<?>> futures = new ArrayList<>(commands.size());
+        long bytes = 0;
+        for (QueuedCommand command : commands) {
+            futures.add(AsyncClusterCommand.of(command).dispatch(async, command.getArgs()));
+            bytes += command.argumentBytes();
+        }
+        written(commands.size(), bytes);
+
+        final long deadline = System.nanoTime() + timeoutNanos;
+        final List<Object> results = new ArrayList<>(commands.size());
+        DataAccessException failure = null;
+        for (int i = 0; i < futures.size(); i++) {
+            Object reply;
+            try {
+                reply = AsyncClusterCommand.of(commands.get(i)).convert(await(futures.get(i), deadline));
+            } catch (ExecutionException e) {
+                reply = translate(e.getCause());
+            } catch (TimeoutException e) {
+                throw new QueryTimeoutException("Pipeline did not complete within " + timeoutNanos + " ns", e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new QueryTimeoutException("Interrupted while waiting for pipeline replies", e);
+            }
+            if (failure == null && reply instanceof DataAccessException) {
+                failure = (DataAccessException) reply;
+            }
+            results.add(reply);
+        }
+        if (failure != null) {
+            throw new RedisPipelineException(failure, results);
+        }
+        return results;
+    }
+
+    /**
+     * Dispatches like {@link #execute(List)}, but the futures are not kept: each one only counts down as it
+     * completes and reports its error, so neither the replies nor the futures of a large batch stay reachable.
+     * Redirected commands count down only once the node they were redirected to replied, so their writes are
+     * confirmed like all others.
+     */
+    @Override
+    public void executeDiscarding(List<QueuedCommand> commands) {
+        final RedisAdvancedClusterAsyncCommands<byte[], byte[]> async = connection().async();
+        final DiscardedReplies replies = new DiscardedReplies(commands.size());
+        long bytes = 0;
+        for (QueuedCommand command : commands) {
+            AsyncClusterCommand.of(command).dispatch(async, command.getArgs()).whenComplete(replies);
+            bytes += command.argumentBytes();
+        }
+        written(commands.size(), bytes);
+
+        try {
+            if (!await(replies, System.nanoTime() + timeoutNanos)) {
+                throw new QueryTimeoutException("Pipeline did not complete within " + timeoutNanos + " ns, "
+                        + replies.getCount() + " of " + commands.size() + " replies missing");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new QueryTimeoutException("Interrupted while waiting for pipeline replies", e);
+        }
+        final List<Object> errors = replies.errors();
+        if (!errors.isEmpty()) {
+            throw new RedisPipelineException((DataAccessException) errors.get(0), errors);
+        }
+    }
+
+    private Object await(RedisFuture<?> future, long deadline)
+            throws ExecutionException, InterruptedException, TimeoutException {
+        while (true) {
+            final long remaining = deadline - System.nanoTime();
+            try {
+                return future.get(Math.min(remaining, reflushNanos), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                if (remaining <= reflushNanos) {
+                    throw e;
+                }
+                flush();
+            }
+        }
+    }
+
+    private boolean await(CountDownLatch replies, long deadline) throws InterruptedException {
+        while (true) {
+            final long remaining = deadline - System.nanoTime();
+            if (replies.await(Math.min(remaining, reflushNanos), TimeUnit.NANOSECONDS)) {
+                return true;
+            }
+            if (remaining <= reflushNanos) {
+                return false;
+            }
+            flush();
+        }
+    }
+
+    static DataAccessException translate(Throwable cause) {
+        final DataAccessException translated = cause instanceof Exception
+                ? LettuceConverters.toDataAccessException((Exception) cause) : null;
+        return translated != null ? translated : new RedisSystemException(String.valueOf(cause.getMessage()), cause);
+    }
+
+    private void written(int commands, long bytes) {
+        final long queued = writtenCommands.addAndGet(commands) - flushedCommands.get();
+        final long queuedBytes = writtenBytes.addAndGet(bytes) - flushedBytes.get();
+        if (flushPolicy.shouldFlush((int) Math.min(queued, Integer.MAX_VALUE), queuedBytes)) {
+            flush();
+        } else if (flushScheduled.compareAndSet(false, true)) {
+            // anything written before the scheduled flush clears the flag is covered by it
+            lingerTimer.schedule(this::flush, flushPolicy.lingerNanos(), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void flush() {
+        flushScheduled.set(false);
+        // read before flushing, everything counted by then was dispatched already and goes out now
+        final long commands = writtenCommands.get();
+        final long bytes = writtenBytes.get();
+        connection.flushCommands();
+        flushedCommands.accumulateAndGet(commands, Math::max);
+        flushedBytes.accumulateAndGet(bytes, Math::max);
+    }
+
+    private StatefulRedisClusterConnection<byte[], byte[]> connection() {
+        StatefulRedisClusterConnection<byte[], byte[]> current = connection;
+        if (current == null) {
+            synchronized (this) {
+                if (connection == null) {
+                    final StatefulRedisClusterConnection<byte[], byte[]> created = connector.get();
+                    created.setAutoFlushCommands(false);
+                    connection = created;
+                }
+                current = connection;
+            }
+        }
+        return current;
+    }
+
+    public FlushPolicy getFlushPolicy() {
+        return flushPolicy;
+    }
+
+    @Override
+    public void close() {
+        if (lingerTimer != null) {
+            lingerTimer.shutdownNow();
+        }
+        if (connection != null) {
+            connection.close();
+        }
+    }
+
+    private static final class DiscardedReplies extends CountDownLatch implements BiConsumer<Object, Throwable> {
+
+        private final List<Object> errors = new ArrayList<>();
+
+        DiscardedReplies(int commands) {
+            super(commands);
+        }
+
+        @Override
+        public void accept(Object reply, Throwable failure) {
+            if (failure != null) {
+                synchronized (errors) {
+                    errors.add(translate(failure));
+                }
+            }
+            countDown();
+        }
+
+        List<Object> errors() {
+            synchronized (errors) {
+                return new ArrayList<>(errors);
+            }
+        }
+    }
+}
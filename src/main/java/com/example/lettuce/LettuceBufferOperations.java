@@ -0,0 +1,106 @@
+package com.example.lettuce;
+
+import io.lettuce.core.RedisException;
+import io.lettuce.core.cluster.api.StatefulRedisClusterConnection;
+import io.lettuce.core.cluster.api.sync.RedisAdvancedClusterCommands;
+import io.lettuce.core.protocol.CommandArgs;
+import io.lettuce.core.protocol.CommandType;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+
+import java.nio.ByteBuffer;
+import java.util.function.Supplier;
+
+/**
+ * Key/value operations over a {@link BufferCodec} connection, for hot paths where the {@code byte[]} copies of
+ * {@code RedisTemplate} serializers show up in GC logs. Values are written from and read into
+ * {@link ByteBuffer}s: {@link #get(String, ByteBuffer)} copies the reply from the Netty buffer into the caller's
+ * buffer, {@link #getView(String)} decodes lazily.
+ */
+public class LettuceBufferOperations implements AutoCloseable {
+
+    private final Supplier<StatefulRedisClusterConnection<String, ByteBuffer>> connector;
+
+    private final BufferCodec codec;
+
+    private volatile StatefulRedisClusterConnection<String, ByteBuffer> connection;
+
+    public LettuceBufferOperations(Supplier<StatefulRedisClusterConnection<String, ByteBuffer>> connector,
+                                   BufferCodec codec) {
+        this.connector = connector;
+        this.codec = codec;
+    }
+
+    public boolean set(String key, ByteBuffer value) {
+        try {
+            return "OK".equals(commands().set(key, value));
+        } catch (RedisException e) {
+            throw LettuceBatchingPipelineExecutor.translate(e);
+        }
+    }
+
+    /**
+     * Copies the value into {@code target}, starting at its position.
+     *
+     * @return the number of bytes copied, {@code -1} if the key does not exist
+     * @throws InvalidDataAccessApiUsageException if the value does not fit, {@code target} is left unchanged
+     * @throws org.springframework.dao.QueryTimeoutException if the reply timed out, {@code target} is no longer
+     *                                                       written to
+     */
+    public int get(String key, ByteBuffer target) {
+        final int space = target.remaining();
+        final IntoBufferOutput output = new IntoBufferOutput(codec, target);
+        try {
+            commands().dispatch(CommandType.GET, output, new CommandArgs<>(codec).addKey(key));
+        } catch (RedisException e) {
+            // a timed out reply may still arrive after the caller reused its buffer
+            output.cancel();
+            throw LettuceBatchingPipelineExecutor.translate(e);
+        }
+        final int required = output.getRequired();
+        if (required > space) {
+            throw new InvalidDataAccessApiUsageException(
+                    "Value of " + required + " bytes does not fit into " + space + " bytes");
+        }
+        return required;
+    }
+
+    /**
+     * @return the value, {@code null} if the key does not exist
+     */
+    public RedisValueView getView(String key) {
+        try {
+            final ByteBuffer value = commands().get(key);
+            return value != null ? new RedisValueView(value) : null;
+        } catch (RedisException e) {
+            throw LettuceBatchingPipelineExecutor.translate(e);
+        }
+    }
+
+    public long del(String key) {
+        try {
+            return commands().del(key);
+        } catch (RedisException e) {
+            throw LettuceBatchingPipelineExecutor.translate(e);
+        }
+    }
+
+    private RedisAdvancedClusterCommands<String, ByteBuffer> commands() {
+        StatefulRedisClusterConnection<String, ByteBuffer> current = connection;
+        if (current == null) {
+            synchronized (this) {
+                if (connection == null) {
+                    connection = connector.get();
+                }
+                current = connection;
+            }
+        }
+        return current.sync();
+    }
+
+    @Override
+    public void close() {
+        if (connection != null) {
+            connection.close();
+        }
+    }
+}
@@ -0,0 +1,401 @@
+package com.example.lettuce;
+
+import com.example.cluster.ClusterTransactionException;
+import com.example.cluster.ClusterTransactionExecutor;
+import com.example.cluster.QueuedCommand;
+import com.example.cluster.SlotTransaction;
+import io.lettuce.core.RedisCommandExecutionException;
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.TransactionResult;
+import io.lettuce.core.api.async.RedisAsyncCommands;
+import io.lettuce.core.cluster.RedisClusterClient;
+import io.lettuce.core.cluster.api.StatefulRedisClusterConnection;
+import io.lettuce.core.codec.ByteArrayCodec;
+import io.lettuce.core.support.ConnectionPoolSupport;
+import org.apache.commons.pool2.impl.GenericObjectPool;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.redis.RedisConnectionFailureException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Runs a cluster transaction against a Lettuce cluster as one {@code MULTI}/{@code EXEC} per hash slot.
+ * {@code MULTI} state belongs to a node connection, so every transaction borrows a cluster connection of its own
+ * from a small pool instead of using the shared one. The slot transactions of all nodes are dispatched before any
+ * reply is awaited, which costs one round trip per node. Slot transactions aborted by the server because the slot
+ * moved are retried once after reloading the partitions, unless their keys were watched.
+ * <p>
+ * A session borrows one more cluster connection for every watched slot and keeps it until it executes or is
+ * closed. Borrowing waits at most as long as the pool configuration allows.
+ * <p>
+ * A slot transaction that fails while it is dispatched is discarded on its node connection, so the connection
+ * leaves neither {@code MULTI} nor {@code WATCH} behind. A connection that may still have replies in flight, after
+ * a timeout or any other failure, is not returned to the pool but closed.
+ */
+public class LettuceClusterTransactionExecutor implements ClusterTransactionExecutor, AutoCloseable {
+
+    private final Supplier<RedisClusterClient> client;
+
+    private final GenericObjectPoolConfig poolConfig;
+
+    private final long timeoutNanos;
+
+    private volatile GenericObjectPool<StatefulRedisClusterConnection<byte[], byte[]>> pool;
+
+    public LettuceClusterTransactionExecutor(Supplier<RedisClusterClient> client, GenericObjectPoolConfig poolConfig,
+                                             Duration timeout) {
+        this.client = client;
+        this.poolConfig = poolConfig;
+        this.timeoutNanos = timeout.toNanos();
+    }
+
+    @Override
+    public List<Object> execute(List<QueuedCommand> commands) {
+        return execute(commands, Collections.emptyList(), Collections.emptyMap());
+    }
+
+    @Override
+    public Session openSession() {
+        return new WatchSession(pool());
+    }
+
+    /**
+     * @param watches the node connections that watched the keys of a slot, which run that slot's transaction
+     */
+    private List<Object> execute(List<QueuedCommand> commands, List<byte[]> watchedKeys, Map<Integer, Watch> watches) {
+        for (QueuedCommand command : commands) {
+            if (AsyncClusterCommand.of(command) == null) {
+                throw new InvalidDataAccessApiUsageException(
+                        "'" + command.getMethod().getName() + "' is not supported inside a cluster transaction");
+            }
+        }
+
+        final List<SlotTransaction> transactions = SlotTransaction.partition(commands, watchedKeys);
+        if (watches.keySet().containsAll(slots(transactions))) {
+            executeAll(null, watches, transactions, null);
+            return SlotTransaction.merge(commands.size(), transactions);
+        }
+        final GenericObjectPool<StatefulRedisClusterConnection<byte[], byte[]>> pool = pool();
+        final StatefulRedisClusterConnection<byte[], byte[]> connection = borrow(pool);
+        boolean reusable = false;
+        try {
+            final List<SlotTransaction> retry = new ArrayList<>();
+            executeAll(connection, watches, transactions, retry);
+            if (!retry.isEmpty()) {
+                client.get().reloadPartitions();
+                executeAll(connection, Collections.emptyMap(), retry, null);
+            }
+            reusable = true;
+        } finally {
+            release(pool, connection, reusable);
+        }
+        return SlotTransaction.merge(commands.size(), transactions);
+    }
+
+    private static Set<Integer> slots(List<SlotTransaction> transactions) {
+        final Set<Integer> slots = new HashSet<>();
+        for (SlotTransaction transaction : transactions) {
+            slots.add(transaction.getSlot());
+        }
+        return slots;
+    }
+
+    /**
+     * @param connection runs the slot transactions of unwatched slots
+     * @param retry      collects unwatched slot transactions aborted because their slot moved, {@code null} to fail
+     *                   them
+     */
+    private void executeAll(StatefulRedisClusterConnection<byte[], byte[]> connection, Map<Integer, Watch> watches,
+                            List<SlotTransaction> transactions, List<SlotTransaction> retry) {
+        final List<RedisFuture<TransactionResult>> replies = new ArrayList<>(transactions.size());
+        for (SlotTransaction transaction : transactions) {
+            final Watch watch = watches.get(transaction.getSlot());
+            replies.add(dispatch(watch != null ? watch.commands : null, connection, transaction));
+        }
+
+        final long deadline = System.nanoTime() + timeoutNanos;
+        for (int i = 0; i < transactions.size(); i++) {
+            final SlotTransaction transaction = transactions.get(i);
+            if (replies.get(i) == null) {
+                continue;
+            }
+            try {
+                final TransactionResult result = replies.get(i).get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                transaction.completed(result.wasDiscarded() ? null : convert(transaction, result));
+            } catch (ExecutionException e) {
+                // a watched slot is not retried elsewhere, its keys are watched on its own connection only
+                if (retry != null && !watches.containsKey(transaction.getSlot()) && isExecAbort(e.getCause())) {
+                    retry.add(transaction);
+                } else {
+                    transaction.failed(LettuceBatchingPipelineExecutor.translate(e.getCause()));
+                }
+            } catch (TimeoutException e) {
+                throw new QueryTimeoutException("Transaction did not complete within " + timeoutNanos + " ns", e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new QueryTimeoutException("Interrupted while waiting for transaction replies", e);
+            }
+        }
+    }
+
+    /**
+     * @param watched the node connection that watched the slot's keys, {@code null} to use the one of
+     *                {@code connection} for the slot
+     * @return the reply of {@code EXEC}, {@code null} if the slot transaction failed before and was discarded
+     */
+    private static RedisFuture<TransactionResult> dispatch(RedisAsyncCommands<byte[], byte[]> watched,
+                                                           StatefulRedisClusterConnection<byte[], byte[]> connection,
+                                                           SlotTransaction transaction) {
+        RedisAsyncCommands<byte[], byte[]> async = watched;
+        boolean multi = false;
+        try {
+            if (async == null) {
+                async = nodeCommands(connection, transaction.getSlot());
+            }
+            multi = true;
+            async.multi();
+            for (QueuedCommand command : transaction.getCommands()) {
+                AsyncClusterCommand.of(command).dispatch(async, command.getArgs());
+            }
+            return async.exec();
+        } catch (RuntimeException e) {
+            if (multi) {
+                // DISCARD also drops the WATCH
+                async.discard();
+            }
+            transaction.failed(LettuceBatchingPipelineExecutor.translate(e));
+            return null;
+        }
+    }
+
+    private static RedisAsyncCommands<byte[], byte[]> nodeCommands(
+            StatefulRedisClusterConnection<byte[], byte[]> connection, int slot) {
+        final String nodeId = connection.getPartitions().getPartitionBySlot(slot).getNodeId();
+        return connection.getConnection(nodeId).async();
+    }
+
+    private static List<Object> convert(SlotTransaction transaction, TransactionResult result) {
+        final List<Object> converted = new ArrayList<>(result.size());
+        for (int i = 0; i < result.size(); i++) {
+            final Object reply = result.get(i);
+            converted.add(reply instanceof Throwable
+                    ? LettuceBatchingPipelineExecutor.translate((Throwable) reply)
+                    : AsyncClusterCommand.of(transaction.getCommands().get(i)).convert(reply));
+        }
+        return converted;
+    }
+
+    private static boolean isExecAbort(Throwable cause) {
+        return cause instanceof RedisCommandExecutionException
+                && cause.getMessage() != null && cause.getMessage().startsWith("EXECABORT");
+    }
+
+    private static boolean isMoved(Throwable cause) {
+        return cause instanceof RedisCommandExecutionException
+                && cause.getMessage() != null && cause.getMessage().startsWith("MOVED");
+    }
+
+    private <T> T await(RedisFuture<T> reply) {
+        try {
+            return reply.get(timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            throw LettuceBatchingPipelineExecutor.translate(e.getCause());
+        } catch (TimeoutException e) {
+            throw new QueryTimeoutException("Command did not complete within " + timeoutNanos + " ns", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new QueryTimeoutException("Interrupted while waiting for a reply", e);
+        }
+    }
+
+    /**
+     * @return the pool, with connections that are closed for real rather than returned by {@code close()}
+     */
+    private GenericObjectPool<StatefulRedisClusterConnection<byte[], byte[]>> pool() {
+        GenericObjectPool<StatefulRedisClusterConnection<byte[], byte[]>> current = pool;
+        if (current == null) {
+            synchronized (this) {
+                if (pool == null) {
+                    pool = ConnectionPoolSupport.createGenericObjectPool(
+                            () -> client.get().connect(ByteArrayCodec.INSTANCE), poolConfig, false);
+                }
+                current = pool;
+            }
+        }
+        return current;
+    }
+
+    private static StatefulRedisClusterConnection<byte[], byte[]> borrow(
+            GenericObjectPool<StatefulRedisClusterConnection<byte[], byte[]>> pool) {
+        try {
+            return pool.borrowObject();
+        } catch (Exception e) {
+            throw new RedisConnectionFailureException("Could not borrow a transaction connection", e);
+        }
+    }
+
+    /**
+     * @param reusable whether every reply sent on the connection was read, otherwise it is closed
+     */
+    private static void release(GenericObjectPool<StatefulRedisClusterConnection<byte[], byte[]>> pool,
+                                StatefulRedisClusterConnection<byte[], byte[]> connection, boolean reusable) {
+        if (reusable) {
+            pool.returnObject(connection);
+            return;
+        }
+        try {
+            pool.invalidateObject(connection);
+        } catch (Exception e) {
+            connection.close();
+        }
+    }
+
+    /**
+     * The node connection that watched the keys of a slot, and the borrowed cluster connection it belongs to.
+     */
+    private static final class Watch {
+
+        final StatefulRedisClusterConnection<byte[], byte[]> connection;
+
+        final RedisAsyncCommands<byte[], byte[]> commands;
+
+        Watch(StatefulRedisClusterConnection<byte[], byte[]> connection, RedisAsyncCommands<byte[], byte[]> commands) {
+            this.connection = connection;
+            this.commands = commands;
+        }
+    }
+
+    /**
+     * Holds a cluster connection borrowed for each watched slot, whose node connection watched the slot's keys and
+     * runs its transaction. Unwatched slots run on another borrowed connection.
+     */
+    private final class WatchSession implements Session {
+
+        private final GenericObjectPool<StatefulRedisClusterConnection<byte[], byte[]>> pool;
+
+        private final Map<Integer, Watch> watches = new LinkedHashMap<>();
+
+        private final List<byte[]> watchedKeys = new ArrayList<>();
+
+        private boolean closed;
+
+        WatchSession(GenericObjectPool<StatefulRedisClusterConnection<byte[], byte[]>> pool) {
+            this.pool = pool;
+        }
+
+        @Override
+        public void watch(byte[]... keys) {
+            checkOpen();
+            try {
+                SlotTransaction.keysBySlot(keys).forEach(this::watch);
+            } catch (RuntimeException e) {
+                close();
+                throw e;
+            }
+            Collections.addAll(watchedKeys, keys);
+        }
+
+        private void watch(int slot, byte[][] keys) {
+            final Watch watch = watches.get(slot);
+            if (watch != null) {
+                await(watch.commands.watch(keys));
+                return;
+            }
+            try {
+                watches.put(slot, watchOn(slot, keys));
+            } catch (DataAccessException e) {
+                if (!isMoved(e.getCause())) {
+                    throw e;
+                }
+                // nothing of the slot is watched yet, so its new owner can watch the keys from scratch
+                client.get().reloadPartitions();
+                watches.put(slot, watchOn(slot, keys));
+            }
+        }
+
+        private Watch watchOn(int slot, byte[][] keys) {
+            final StatefulRedisClusterConnection<byte[], byte[]> connection = borrow(pool);
+            boolean watched = false;
+            try {
+                final RedisAsyncCommands<byte[], byte[]> commands = nodeCommands(connection, slot);
+                await(commands.watch(keys));
+                watched = true;
+                return new Watch(connection, commands);
+            } finally {
+                if (!watched) {
+                    release(pool, connection, false);
+                }
+            }
+        }
+
+        @Override
+        public List<Object> execute(List<QueuedCommand> commands) {
+            checkOpen();
+            boolean reusable = false;
+            try {
+                final List<Object> replies = LettuceClusterTransactionExecutor.this.execute(commands, watchedKeys,
+                        watches);
+                reusable = true;
+                return replies;
+            } catch (ClusterTransactionException e) {
+                // every reply was read, some slot transactions just did not apply
+                reusable = true;
+                throw e;
+            } finally {
+                // EXEC or DISCARD ended the watches
+                releaseWatches(reusable, false);
+            }
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                releaseWatches(true, true);
+            }
+        }
+
+        private void releaseWatches(boolean reusable, boolean unwatch) {
+            closed = true;
+            for (Watch watch : watches.values()) {
+                boolean unwatched = reusable;
+                try {
+                    if (unwatch) {
+                        await(watch.commands.unwatch());
+                    }
+                } catch (DataAccessException e) {
+                    unwatched = false;
+                } finally {
+                    release(pool, watch.connection, unwatched);
+                }
+            }
+            watches.clear();
+        }
+
+        private void checkOpen() {
+            if (closed) {
+                throw new InvalidDataAccessApiUsageException("The cluster transaction session is closed");
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        if (pool != null) {
+            pool.close();
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.lettuce;
+
+import io.lettuce.core.resource.DefaultClientResources;
+import io.lettuce.core.resource.EpollProvider;
+import io.lettuce.core.resource.EventLoopGroupProvider;
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.util.concurrent.DefaultEventExecutorGroup;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import io.netty.util.concurrent.EventExecutorGroup;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.GlobalEventExecutor;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Event loops of an {@link EventLoopPolicy}, shared by every Lettuce client built on the
+ * {@link #configure(DefaultClientResources.Builder) configured} resources. Lettuce does not shut down event loops
+ * it was given, and releasing them when a client shuts down leaves them running; they stop on {@link #close()},
+ * which waits until every thread has terminated, so close the client resources first.
+ */
+public class LettuceEventLoops implements EventLoopGroupProvider, Closeable {
+
+    static final String EPOLL_ENABLED = "io.lettuce.core.epoll";
+
+    private static final long QUIET_PERIOD_MILLIS = 100;
+
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 5000;
+
+    private final EventLoopPolicy policy;
+
+    private final Map<Class<?>, EventLoopGroup> groups = new LinkedHashMap<>();
+
+    private final EventExecutorGroup computation;
+
+    public LettuceEventLoops(EventLoopPolicy policy) {
+        this.policy = policy;
+        selectTransport(policy.getTransport());
+        this.computation = new DefaultEventExecutorGroup(policy.getComputationThreads(),
+                new DefaultThreadFactory("lettuce-computation", true));
+    }
+
+    /**
+     * Lettuce decides between epoll and NIO once per JVM, when it first looks at the transport.
+     */
+    private static void selectTransport(EventLoopPolicy.Transport transport) {
+        switch (transport) {
+            case EPOLL:
+                if (!EpollProvider.isAvailable()) {
+                    throw new IllegalStateException("Epoll transport is not available", Epoll.unavailabilityCause());
+                }
+                break;
+            case NIO:
+                System.setProperty(EPOLL_ENABLED, "false");
+                if (EpollProvider.isAvailable()) {
+                    throw new IllegalStateException("Lettuce already chose the epoll transport");
+                }
+                break;
+            default:
+        }
+    }
+
+    public DefaultClientResources.Builder configure(DefaultClientResources.Builder builder) {
+        return builder.eventLoopGroupProvider(this)
+                .eventExecutorGroup(computation);
+    }
+
+    /**
+     * @return whether connections run on epoll rather than NIO
+     */
+    public boolean isEpoll() {
+        return EpollProvider.isAvailable();
+    }
+
+    @Override
+    public synchronized <T extends EventLoopGroup> T allocate(Class<T> type) {
+        return type.cast(groups.computeIfAbsent(type, this::create));
+    }
+
+    private EventLoopGroup create(Class<?> type) {
+        final int threads = policy.getIoThreads();
+        ThreadFactory threadFactory = new DefaultThreadFactory("lettuce-" + type.getSimpleName(), true);
+        if (!policy.getIoCpus().isEmpty()) {
+            threadFactory = CpuPinning.pin(threadFactory, policy.getIoCpus());
+        }
+        if (type == EpollEventLoopGroup.class) {
+            return new EpollEventLoopGroup(threads, threadFactory);
+        }
+        if (type == NioEventLoopGroup.class) {
+            return new NioEventLoopGroup(threads, threadFactory);
+        }
+        if (type == DefaultEventLoopGroup.class) {
+            return new DefaultEventLoopGroup(threads, threadFactory);
+        }
+        throw new IllegalArgumentException("Unsupported event loop group " + type.getName());
+    }
+
+    @Override
+    public int threadPoolSize() {
+        return policy.getIoThreads();
+    }
+
+    @Override
+    public Future<Boolean> release(EventExecutorGroup eventLoopGroup, long quietPeriod, long timeout,
+                                   TimeUnit unit) {
+        return GlobalEventExecutor.INSTANCE.newSucceededFuture(true);
+    }
+
+    @Override
+    public synchronized Future<Boolean> shutdown(long quietPeriod, long timeout, TimeUnit unit) {
+        final List<EventExecutorGroup> stopping = new ArrayList<>(groups.values());
+        stopping.add(computation);
+        groups.clear();
+        for (EventExecutorGroup group : stopping) {
+            group.shutdownGracefully(quietPeriod, timeout, unit);
+        }
+        return GlobalEventExecutor.INSTANCE.submit(() -> {
+            boolean terminated = true;
+            for (EventExecutorGroup group : stopping) {
+                terminated &= group.terminationFuture().await(timeout, unit);
+            }
+            return terminated;
+        });
+    }
+
+    @Override
+    public void close() {
+        shutdown(QUIET_PERIOD_MILLIS, SHUTDOWN_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)
+                .syncUninterruptibly();
+    }
+
+    @Override
+    public String toString() {
+        return "LettuceEventLoops[" + policy + ", epoll=" + isEpoll() + "]";
+    }
+}
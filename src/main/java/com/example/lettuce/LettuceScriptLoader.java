@@ -0,0 +1,45 @@
+package com.example.lettuce;
+
+import com.example.script.ScriptLoader;
+import io.lettuce.core.RedisException;
+import io.lettuce.core.api.sync.RedisCommands;
+import io.lettuce.core.cluster.api.StatefulRedisClusterConnection;
+import io.lettuce.core.cluster.api.async.RedisAdvancedClusterAsyncCommands;
+import io.lettuce.core.cluster.models.partitions.RedisClusterNode;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.data.redis.connection.RedisConnection;
+
+import java.util.Collection;
+
+/**
+ * Loads scripts over the node connections of the shared cluster connection, for every node in its partitions.
+ */
+public class LettuceScriptLoader implements ScriptLoader {
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean load(RedisConnection connection, Collection<byte[]> sources) {
+        if (!(connection.getNativeConnection() instanceof RedisAdvancedClusterAsyncCommands)) {
+            throw new InvalidDataAccessApiUsageException("Scripts can only be preloaded on a Lettuce cluster");
+        }
+        final StatefulRedisClusterConnection<byte[], byte[]> cluster =
+                ((RedisAdvancedClusterAsyncCommands<byte[], byte[]>) connection.getNativeConnection())
+                        .getStatefulConnection();
+        boolean masters = false;
+        boolean complete = true;
+        for (RedisClusterNode node : cluster.getPartitions()) {
+            final boolean master = node.is(RedisClusterNode.NodeFlag.MASTER);
+            masters |= master;
+            try {
+                final RedisCommands<byte[], byte[]> commands = cluster.getConnection(node.getNodeId()).sync();
+                for (byte[] source : sources) {
+                    commands.scriptLoad(source);
+                }
+            } catch (RedisException e) {
+                // the node is down, it answers NOSCRIPT when it is back
+                complete &= !master;
+            }
+        }
+        return masters && complete;
+    }
+}
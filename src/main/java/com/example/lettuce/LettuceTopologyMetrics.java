@@ -0,0 +1,174 @@
+package com.example.lettuce;
+
+import io.lettuce.core.cluster.event.ClusterTopologyChangedEvent;
+import io.lettuce.core.event.EventBus;
+import io.lettuce.core.protocol.CommandHandler;
+import io.lettuce.core.resource.NettyCustomizer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelPipeline;
+import reactor.core.Disposable;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Topology meters of the Lettuce clients sharing one {@code ClientResources}:
+ * <ul>
+ * <li>{@code redis.redirects}: {@code MOVED}/{@code ASK} replies, tagged with the node that sent them and the
+ * {@code type}</li>
+ * <li>{@code redis.topology.changes}: partition reloads that changed the topology</li>
+ * </ul>
+ * Redirects are spotted in front of Lettuce's command handler, which follows them without telling anyone. The
+ * replies are split into RESP frames there, bulk strings are skipped by their length, so only the first bytes of
+ * error replies are compared and values that happen to contain a redirect are not counted.
+ */
+public class LettuceTopologyMetrics implements NettyCustomizer, AutoCloseable {
+
+    private static final byte[] MOVED = "MOVED ".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] ASK = "ASK ".getBytes(StandardCharsets.US_ASCII);
+
+    private final MeterRegistry registry;
+
+    private final Counter topologyChanges;
+
+    private volatile Disposable subscription;
+
+    public LettuceTopologyMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.topologyChanges = registry.counter("redis.topology.changes");
+    }
+
+    @Override
+    public void afterChannelInitialized(Channel channel) {
+        final ChannelPipeline pipeline = channel.pipeline();
+        final RedirectDetector detector = new RedirectDetector();
+        final ChannelHandlerContext commandHandler = pipeline.context(CommandHandler.class);
+        if (commandHandler != null) {
+            pipeline.addBefore(commandHandler.name(), "redirectDetector", detector);
+        } else {
+            pipeline.addFirst("redirectDetector", detector);
+        }
+    }
+
+    /**
+     * Counts topology changes published on the event bus and runs the listener after each of them.
+     */
+    public void bind(EventBus eventBus, Runnable listener) {
+        this.subscription = eventBus.get()
+                .filter(ClusterTopologyChangedEvent.class::isInstance)
+                .subscribe(event -> {
+                    topologyChanges.increment();
+                    listener.run();
+                });
+    }
+
+    private void redirected(SocketAddress node, String type) {
+        final String name = node instanceof InetSocketAddress
+                ? ((InetSocketAddress) node).getHostString() + ":" + ((InetSocketAddress) node).getPort()
+                : String.valueOf(node);
+        registry.counter("redis.redirects", "node", name, "type", type).increment();
+    }
+
+    @Override
+    public void close() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+
+    /**
+     * Follows the RESP frames of one connection across reads and counts the error replies that are redirects.
+     */
+    private final class RedirectDetector extends ChannelInboundHandlerAdapter {
+
+        private final byte[] error = new byte[MOVED.length];
+
+        // type byte of the frame whose first line is being read, 0 between frames
+        private byte type;
+
+        private long length;
+
+        private boolean negative;
+
+        private int errorLength;
+
+        // payload and CRLF of a bulk string still to pass
+        private long skip;
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            if (msg instanceof ByteBuf) {
+                scan((ByteBuf) msg, ctx.channel().remoteAddress());
+            }
+            ctx.fireChannelRead(msg);
+        }
+
+        private void scan(ByteBuf buffer, SocketAddress node) {
+            int index = buffer.readerIndex();
+            final int end = buffer.writerIndex();
+            while (index < end) {
+                if (skip > 0) {
+                    final int skipped = (int) Math.min(skip, end - index);
+                    index += skipped;
+                    skip -= skipped;
+                    continue;
+                }
+                final byte next = buffer.getByte(index++);
+                if (type == 0) {
+                    type = next;
+                    length = 0;
+                    negative = false;
+                    errorLength = 0;
+                } else if (next == '\n') {
+                    lineEnded(node);
+                    type = 0;
+                } else if (next != '\r') {
+                    if (type == '$') {
+                        if (next == '-') {
+                            negative = true;
+                        } else {
+                            length = length * 10 + (next - '0');
+                        }
+                    } else if (type == '-' && errorLength < error.length) {
+                        error[errorLength++] = next;
+                    } else {
+                        // nothing more of interest on this line
+                        final int newline = buffer.indexOf(index, end, (byte) '\n');
+                        index = newline < 0 ? end : newline;
+                    }
+                }
+            }
+        }
+
+        private void lineEnded(SocketAddress node) {
+            if (type == '$' && !negative) {
+                skip = length + 2;
+            } else if (type == '-') {
+                if (startsWith(MOVED)) {
+                    redirected(node, "moved");
+                } else if (startsWith(ASK)) {
+                    redirected(node, "ask");
+                }
+            }
+        }
+
+        private boolean startsWith(byte[] prefix) {
+            if (errorLength < prefix.length) {
+                return false;
+            }
+            for (int i = 0; i < prefix.length; i++) {
+                if (error[i] != prefix[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
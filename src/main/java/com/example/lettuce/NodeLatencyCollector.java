@@ -0,0 +1,61 @@
+package com.example.lettuce;
+
+import com.example.cluster.NodeLatencies;
+import io.lettuce.core.metrics.CommandLatencyCollector;
+import io.lettuce.core.metrics.CommandLatencyId;
+import io.lettuce.core.metrics.CommandMetrics;
+import io.lettuce.core.protocol.ProtocolKeyword;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Feeds the completion latency Lettuce measures for every command into {@link NodeLatencies}, keyed by the
+ * {@code host:port} of the node that answered. Keeps no histograms of its own.
+ */
+public class NodeLatencyCollector implements CommandLatencyCollector {
+
+    private final NodeLatencies latencies;
+
+    private final Map<SocketAddress, String> names = new ConcurrentHashMap<>();
+
+    public NodeLatencyCollector(NodeLatencies latencies) {
+        this.latencies = latencies;
+    }
+
+    @Override
+    public void recordCommandLatency(SocketAddress local, SocketAddress remote, ProtocolKeyword commandType,
+                                     long firstResponseLatency, long completionLatency) {
+        String name = names.get(remote);
+        if (name == null) {
+            name = names.computeIfAbsent(remote, NodeLatencyCollector::name);
+        }
+        latencies.record(name, completionLatency);
+    }
+
+    static String name(SocketAddress address) {
+        if (address instanceof InetSocketAddress) {
+            final InetSocketAddress inet = (InetSocketAddress) address;
+            return inet.getHostString() + ":" + inet.getPort();
+        }
+        return String.valueOf(address);
+    }
+
+    @Override
+    public Map<CommandLatencyId, CommandMetrics> retrieveMetrics() {
+        return Collections.emptyMap();
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    @Override
+    public void shutdown() {
+        names.clear();
+    }
+}
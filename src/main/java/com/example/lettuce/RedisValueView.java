@@ -0,0 +1,42 @@
+package com.example.lettuce;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Read-only view of a value read by {@link LettuceBufferOperations}. The bytes are decoded into a
+ * {@code String} only when {@link #asString()} is first called.
+ */
+public final class RedisValueView {
+
+    private final ByteBuffer bytes;
+
+    private String string;
+
+    RedisValueView(ByteBuffer bytes) {
+        this.bytes = bytes;
+    }
+
+    public int length() {
+        return bytes.remaining();
+    }
+
+    /**
+     * @return a read-only buffer over the value, positioned at its start
+     */
+    public ByteBuffer asByteBuffer() {
+        return bytes.duplicate();
+    }
+
+    public String asString() {
+        if (string == null) {
+            string = StandardCharsets.UTF_8.decode(bytes.duplicate()).toString();
+        }
+        return string;
+    }
+
+    @Override
+    public String toString() {
+        return asString();
+    }
+}
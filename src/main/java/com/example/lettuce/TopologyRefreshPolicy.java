@@ -0,0 +1,77 @@
+package com.example.lettuce;
+
+import io.lettuce.core.cluster.ClusterClientOptions;
+import io.lettuce.core.cluster.ClusterTopologyRefreshOptions;
+import io.lettuce.core.cluster.ClusterTopologyRefreshOptions.RefreshTrigger;
+
+import java.time.Duration;
+
+/**
+ * When a Lettuce cluster client reloads its partitions: every {@code period} (zero turns that off) and, if
+ * {@code adaptive}, as soon as a command is redirected with {@code MOVED}/{@code ASK} or a node connection keeps
+ * failing to reconnect. Adaptive refreshes are debounced, a storm of redirects during a reshard triggers at most
+ * one refresh per {@code debounce}.
+ */
+public class TopologyRefreshPolicy {
+
+    private final Duration period;
+
+    private final boolean adaptive;
+
+    private final Duration debounce;
+
+    private final int reconnectAttempts;
+
+    public TopologyRefreshPolicy(Duration period, boolean adaptive, Duration debounce, int reconnectAttempts) {
+        if (period.isNegative() || debounce.isNegative() || reconnectAttempts < 1) {
+            throw new IllegalArgumentException(
+                    "period and debounce must not be negative, reconnectAttempts must be positive");
+        }
+        this.period = period;
+        this.adaptive = adaptive;
+        this.debounce = debounce;
+        this.reconnectAttempts = reconnectAttempts;
+    }
+
+    public static TopologyRefreshPolicy defaults() {
+        return new TopologyRefreshPolicy(Duration.ofSeconds(30), true, Duration.ofSeconds(1), 3);
+    }
+
+    public Duration getPeriod() {
+        return period;
+    }
+
+    public boolean isAdaptive() {
+        return adaptive;
+    }
+
+    public Duration getDebounce() {
+        return debounce;
+    }
+
+    public int getReconnectAttempts() {
+        return reconnectAttempts;
+    }
+
+    public ClusterClientOptions clientOptions() {
+        final ClusterTopologyRefreshOptions.Builder refresh = ClusterTopologyRefreshOptions.builder()
+                .dynamicRefreshSources(true)
+                .closeStaleConnections(true);
+        if (!period.isZero()) {
+            refresh.enablePeriodicRefresh(period);
+        }
+        if (adaptive) {
+            refresh.enableAdaptiveRefreshTrigger(RefreshTrigger.MOVED_REDIRECT, RefreshTrigger.ASK_REDIRECT,
+                    RefreshTrigger.PERSISTENT_RECONNECTS)
+                    .adaptiveRefreshTriggersTimeout(debounce)
+                    .refreshTriggersReconnectAttempts(reconnectAttempts);
+        }
+        return ClusterClientOptions.builder().topologyRefreshOptions(refresh.build()).build();
+    }
+
+    @Override
+    public String toString() {
+        return "TopologyRefreshPolicy[period=" + period + ", adaptive=" + adaptive + ", debounce=" + debounce
+                + ", reconnectAttempts=" + reconnectAttempts + "]";
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.metrics;
+
+/**
+ * How a command reached the server: on its own, inside {@code openPipeline()}/{@code closePipeline()} or inside
+ * {@code multi()}/{@code exec()}.
+ */
+public enum CommandMode {
+
+    SINGLE, PIPELINE, TRANSACTION;
+
+    final String tag = name().toLowerCase();
+}
@@ -0,0 +1,204 @@
+package com.example.metrics;
+
+import com.example.cluster.ClusterNodeIndex;
+import com.example.cluster.ClusterSlots;
+import com.example.cluster.ReplyDiscardingConnection;
+import org.springframework.data.redis.connection.RedisClusterConnection;
+import org.springframework.data.redis.connection.RedisConnection;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Times every command of a {@link RedisConnection} into {@link RedisMetrics}. Single commands are recorded per
+ * command and node; commands inside a pipeline or transaction are counted and the batch is timed from
+ * {@code openPipeline()}/{@code multi()} to {@code closePipeline()}/{@code exec()}.
+ */
+public class InstrumentedConnection implements InvocationHandler {
+
+    private final RedisConnection delegate;
+
+    private final RedisMetrics metrics;
+
+    private final boolean cluster;
+
+    private CommandMode batchMode;
+
+    private long batchStart;
+
+    private int batchDepth;
+
+    private long batchBytesOut;
+
+    protected InstrumentedConnection(RedisConnection delegate, RedisMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+        this.cluster = delegate instanceof RedisClusterConnection;
+    }
+
+    public static RedisConnection wrap(RedisConnection delegate, RedisMetrics metrics) {
+        final Class<?> type = delegate instanceof RedisClusterConnection
+                ? RedisClusterConnection.class : RedisConnection.class;
+        final Class<?>[] types = delegate instanceof ReplyDiscardingConnection
+                ? new Class<?>[]{type, ReplyDiscardingConnection.class} : new Class<?>[]{type};
+        return (RedisConnection) Proxy.newProxyInstance(InstrumentedConnection.class.getClassLoader(),
+                types, new InstrumentedConnection(delegate, metrics));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        final String name = method.getName();
+        if (method.getDeclaringClass() == Object.class) {
+            if ("equals".equals(name)) {
+                return proxy == args[0];
+            }
+            if ("hashCode".equals(name)) {
+                return System.identityHashCode(proxy);
+            }
+            return "Instrumented[" + delegate + "]";
+        }
+
+        switch (name) {
+            case "openPipeline":
+                return beginBatch(CommandMode.PIPELINE, method, args);
+            case "multi":
+                return beginBatch(CommandMode.TRANSACTION, method, args);
+            case "closePipeline":
+            case "closePipelineDiscardingReplies":
+            case "exec":
+                return endBatch(method, args);
+            case "discard":
+                batchMode = null;
+                return invokeDelegate(method, args);
+            default:
+                break;
+        }
+        if (isUntimed(method)) {
+            return invokeDelegate(method, args);
+        }
+        if (batchMode != null) {
+            batchDepth++;
+            batchBytesOut += argumentBytes(args);
+            return invokeDelegate(method, args);
+        }
+
+        final int node = node(args);
+        final long start = System.nanoTime();
+        Object reply = null;
+        try {
+            reply = invokeDelegate(method, args);
+            return reply;
+        } finally {
+            metrics.recordCommand(method, node, System.nanoTime() - start);
+            metrics.recordBytes(CommandMode.SINGLE, argumentBytes(args), replyBytes(reply));
+        }
+    }
+
+    private Object beginBatch(CommandMode mode, Method method, Object[] args) throws Throwable {
+        final Object result = invokeDelegate(method, args);
+        if (batchMode == null) {
+            batchMode = mode;
+            batchStart = System.nanoTime();
+            batchDepth = 0;
+            batchBytesOut = 0;
+        }
+        return result;
+    }
+
+    private Object endBatch(Method method, Object[] args) throws Throwable {
+        final CommandMode mode = batchMode;
+        batchMode = null;
+        Object reply = null;
+        try {
+            reply = invokeDelegate(method, args);
+            return reply;
+        } finally {
+            if (mode != null) {
+                metrics.recordBatch(mode, batchDepth, System.nanoTime() - batchStart);
+                metrics.recordBytes(mode, batchBytesOut, replyBytes(reply));
+            }
+        }
+    }
+
+    private int node(Object[] args) {
+        if (!cluster) {
+            return -1;
+        }
+        final ClusterNodeIndex nodes = metrics.nodes();
+        if (nodes.isStale()) {
+            try {
+                metrics.refreshNodes((RedisClusterConnection) delegate);
+            } catch (RuntimeException e) {
+                // keep the previous index, the next command retries
+            }
+        }
+        if (args != null && args.length > 0) {
+            if (args[0] instanceof byte[]) {
+                return nodes.node(ClusterSlots.slot((byte[]) args[0]));
+            }
+            if (args[0] instanceof byte[][] && ((byte[][]) args[0]).length > 0) {
+                return nodes.node(ClusterSlots.slot(((byte[][]) args[0])[0]));
+            }
+        }
+        return ClusterNodeIndex.UNKNOWN;
+    }
+
+    private Object invokeDelegate(Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(delegate, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    private static boolean isUntimed(Method method) {
+        switch (method.getName()) {
+            case "close":
+            case "isClosed":
+            case "isPipelined":
+            case "isQueueing":
+            case "getNativeConnection":
+            case "getSentinelConnection":
+                return true;
+            default:
+                return method.getParameterCount() == 0 && method.getName().endsWith("Commands");
+        }
+    }
+
+    private static long argumentBytes(Object[] args) {
+        long bytes = 0;
+        if (args != null) {
+            for (Object arg : args) {
+                if (arg instanceof byte[]) {
+                    bytes += ((byte[]) arg).length;
+                } else if (arg instanceof byte[][]) {
+                    for (byte[] element : (byte[][]) arg) {
+                        bytes += element != null ? element.length : 0;
+                    }
+                }
+            }
+        }
+        return bytes;
+    }
+
+    private static long replyBytes(Object reply) {
+        if (reply instanceof byte[]) {
+            return ((byte[]) reply).length;
+        }
+        if (reply instanceof List && reply instanceof RandomAccess) {
+            final List<?> replies = (List<?>) reply;
+            long bytes = 0;
+            for (int i = 0; i < replies.size(); i++) {
+                if (replies.get(i) instanceof byte[]) {
+                    bytes += ((byte[]) replies.get(i)).length;
+                }
+            }
+            return bytes;
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.metrics;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.RedisClusterConnection;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisSentinelConnection;
+
+/**
+ * {@link RedisConnectionFactory} decorator whose connections record {@link RedisMetrics}. Lifecycle callbacks
+ * stay with the decorated factory.
+ */
+public class InstrumentedConnectionFactory implements RedisConnectionFactory {
+
+    private final RedisConnectionFactory delegate;
+
+    private final RedisMetrics metrics;
+
+    public InstrumentedConnectionFactory(RedisConnectionFactory delegate, RedisMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public RedisConnection getConnection() {
+        final long start = System.nanoTime();
+        final RedisConnection connection = delegate.getConnection();
+        metrics.recordAcquire(System.nanoTime() - start);
+        return InstrumentedConnection.wrap(connection, metrics);
+    }
+
+    @Override
+    public RedisClusterConnection getClusterConnection() {
+        final long start = System.nanoTime();
+        final RedisClusterConnection connection = delegate.getClusterConnection();
+        metrics.recordAcquire(System.nanoTime() - start);
+        return (RedisClusterConnection) InstrumentedConnection.wrap(connection, metrics);
+    }
+
+    @Override
+    public boolean getConvertPipelineAndTxResults() {
+        return delegate.getConvertPipelineAndTxResults();
+    }
+
+    @Override
+    public RedisSentinelConnection getSentinelConnection() {
+        return delegate.getSentinelConnection();
+    }
+
+    @Override
+    public DataAccessException translateExceptionIfPossible(RuntimeException ex) {
+        return delegate.translateExceptionIfPossible(ex);
+    }
+
+    public RedisConnectionFactory getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * @return the decorated factory if {@code connectionFactory} is instrumented, otherwise the factory itself
+     */
+    public static RedisConnectionFactory unwrap(RedisConnectionFactory connectionFactory) {
+        return connectionFactory instanceof InstrumentedConnectionFactory
+                ? ((InstrumentedConnectionFactory) connectionFactory).getDelegate() : connectionFactory;
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.metrics;
+
+import com.example.cluster.ClusterNodeIndex;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.data.redis.connection.RedisClusterConnection;
+import redis.clients.jedis.JedisCluster;
+import redis.clients.jedis.JedisPool;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micrometer meters for Redis commands, published with p50/p99/p999 from HDR histograms:
+ * <ul>
+ * <li>{@code redis.command}: latency of single commands, tagged with command and node</li>
+ * <li>{@code redis.batch}: latency of a whole pipeline or transaction, which may span several nodes</li>
+ * <li>{@code redis.batch.depth}: commands per pipeline or transaction</li>
+ * <li>{@code redis.connection.acquire}: time to obtain a connection from the factory, including pool waits</li>
+ * <li>{@code redis.bytes.out}/{@code redis.bytes.in}: key/value bytes sent and received</li>
+ * <li>{@code redis.pool.*}: borrow wait, waiters and active connections of the Jedis node pools</li>
+ * </ul>
+ * Meters are resolved once and then kept in arrays indexed by mode and node, so recording allocates nothing.
+ */
+public class RedisMetrics {
+
+    static final String STANDALONE = "standalone";
+
+    private static final double[] PERCENTILES = {0.5, 0.99, 0.999};
+
+    private static final Duration MAX_EXPECTED_LATENCY = Duration.ofSeconds(10);
+
+    private static final int MODES = CommandMode.values().length;
+
+    private final MeterRegistry registry;
+
+    private final ClusterNodeIndex nodes = new ClusterNodeIndex();
+
+    private final Map<Method, Timer[]> commandTimers = new ConcurrentHashMap<>();
+
+    private final Timer[] batchTimers = new Timer[MODES];
+
+    private final DistributionSummary[] batchDepths = new DistributionSummary[MODES];
+
+    private final Counter[] bytesOut = new Counter[MODES];
+
+    private final Counter[] bytesIn = new Counter[MODES];
+
+    private final Timer acquire;
+
+    public RedisMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        for (CommandMode mode : CommandMode.values()) {
+            if (mode != CommandMode.SINGLE) {
+                batchTimers[mode.ordinal()] = timer("redis.batch").tag("mode", mode.tag).register(registry);
+                batchDepths[mode.ordinal()] = DistributionSummary.builder("redis.batch.depth")
+                        .tag("mode", mode.tag)
+                        .publishPercentiles(PERCENTILES)
+                        .register(registry);
+            }
+            bytesOut[mode.ordinal()] = Counter.builder("redis.bytes.out").baseUnit("bytes")
+                    .tag("mode", mode.tag).register(registry);
+            bytesIn[mode.ordinal()] = Counter.builder("redis.bytes.in").baseUnit("bytes")
+                    .tag("mode", mode.tag).register(registry);
+        }
+        this.acquire = timer("redis.connection.acquire").register(registry);
+    }
+
+    public MeterRegistry getRegistry() {
+        return registry;
+    }
+
+    ClusterNodeIndex nodes() {
+        return nodes;
+    }
+
+    /**
+     * Drops the slot-to-node mapping after the client saw the topology change, instead of waiting for it to
+     * expire.
+     */
+    public void topologyChanged() {
+        nodes.invalidate();
+    }
+
+    /**
+     * Reloads the node index and registers pool gauges for nodes that joined since the last refresh.
+     */
+    void refreshNodes(RedisClusterConnection connection) {
+        nodes.refresh(connection);
+        final Object nativeConnection = connection.getNativeConnection();
+        if (nativeConnection instanceof JedisCluster) {
+            for (Map.Entry<String, JedisPool> entry : ((JedisCluster) nativeConnection).getClusterNodes().entrySet()) {
+                bindPool(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    private void bindPool(String node, JedisPool pool) {
+        Gauge.builder("redis.pool.borrow.wait.mean", pool, JedisPool::getMeanBorrowWaitTimeMillis)
+                .tag("node", node).baseUnit("milliseconds").register(registry);
+        Gauge.builder("redis.pool.borrow.wait.max", pool, JedisPool::getMaxBorrowWaitTimeMillis)
+                .tag("node", node).baseUnit("milliseconds").register(registry);
+        Gauge.builder("redis.pool.waiters", pool, JedisPool::getNumWaiters).tag("node", node).register(registry);
+        Gauge.builder("redis.pool.active", pool, JedisPool::getNumActive).tag("node", node).register(registry);
+    }
+
+    /**
+     * @param node the index from {@link ClusterNodeIndex#node(int)}, or {@code -1} for a standalone connection
+     */
+    void recordCommand(Method method, int node, long nanos) {
+        Timer[] timers = commandTimers.get(method);
+        if (timers == null) {
+            timers = commandTimers.computeIfAbsent(method, m -> new Timer[ClusterNodeIndex.MAX_NODES + 2]);
+        }
+        final int slot = node + 1;
+        Timer timer = timers[slot];
+        if (timer == null) {
+            // racing threads get the same timer back from the registry
+            timer = timers[slot] = timer("redis.command")
+                    .tag("command", method.getName())
+                    .tag("node", node < 0 ? STANDALONE : nodes.name(node))
+                    .tag("mode", CommandMode.SINGLE.tag)
+                    .register(registry);
+        }
+        timer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    void recordBatch(CommandMode mode, int depth, long nanos) {
+        batchTimers[mode.ordinal()].record(nanos, TimeUnit.NANOSECONDS);
+        batchDepths[mode.ordinal()].record(depth);
+    }
+
+    void recordBytes(CommandMode mode, long out, long in) {
+        if (out > 0) {
+            bytesOut[mode.ordinal()].increment(out);
+        }
+        if (in > 0) {
+            bytesIn[mode.ordinal()].increment(in);
+        }
+    }
+
+    void recordAcquire(long nanos) {
+        acquire.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private static Timer.Builder timer(String name) {
+        return Timer.builder(name)
+                .publishPercentiles(PERCENTILES)
+                .maximumExpectedValue(MAX_EXPECTED_LATENCY);
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+
+/**
+ * Decorates every {@link RedisConnectionFactory} bean with an {@link InstrumentedConnectionFactory}. Turned off
+ * with {@code redis.metrics.enabled=false}. Meters go to a {@link SimpleMeterRegistry} of its own unless
+ * {@code redis.metrics.simple-registry=false}, for applications that register their own {@link MeterRegistry}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "redis.metrics.enabled", matchIfMissing = true)
+public class RedisMetricsConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "redis.metrics.simple-registry", matchIfMissing = true)
+    MeterRegistry meterRegistry() {
+        return new SimpleMeterRegistry();
+    }
+
+    @Bean
+    RedisMetrics redisMetrics(MeterRegistry meterRegistry) {
+        return new RedisMetrics(meterRegistry);
+    }
+
+    @Bean
+    static BeanPostProcessor instrumentedConnectionFactoryPostProcessor(ObjectProvider<RedisMetrics> metrics) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof RedisConnectionFactory && !(bean instanceof InstrumentedConnectionFactory)) {
+                    return new InstrumentedConnectionFactory((RedisConnectionFactory) bean, metrics.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+}
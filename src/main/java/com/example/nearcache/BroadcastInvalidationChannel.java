@@ -0,0 +1,75 @@
+package com.example.nearcache;
+
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisConnectionUtils;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * Invalidations over a Redis pub/sub channel, which the cluster bus delivers to subscribers on every node. Each
+ * write is published as {@code <publishedAt>:<origin>:<key>}, where the origin identifies this channel so that it
+ * can skip its own messages.
+ * <p>
+ * This is the fallback for client-side caching without {@code CLIENT TRACKING}, which neither Jedis 2.9 nor
+ * Lettuce 5.1 can consume. Messages sent while the subscription is being re-established are lost, so the
+ * near cache TTL is what bounds staleness in that case.
+ */
+public class BroadcastInvalidationChannel implements InvalidationChannel {
+
+    public static final String DEFAULT_CHANNEL = "nearcache:invalidations";
+
+    private final RedisConnectionFactory connectionFactory;
+
+    private final ChannelTopic topic;
+
+    private final byte[] channel;
+
+    private final String origin = UUID.randomUUID().toString();
+
+    private final RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+
+    public BroadcastInvalidationChannel(RedisConnectionFactory connectionFactory, String channel) {
+        this.connectionFactory = connectionFactory;
+        this.topic = new ChannelTopic(channel);
+        this.channel = channel.getBytes(StandardCharsets.UTF_8);
+        container.setConnectionFactory(connectionFactory);
+        container.afterPropertiesSet();
+        container.start();
+    }
+
+    @Override
+    public void subscribe(Listener listener) {
+        container.addMessageListener((message, pattern) -> {
+            final String payload = new String(message.getBody(), StandardCharsets.UTF_8);
+            final int separator = payload.indexOf(':');
+            final int keyStart = payload.indexOf(':', separator + 1) + 1;
+            if (!payload.regionMatches(separator + 1, origin, 0, origin.length())) {
+                listener.invalidated(payload.substring(keyStart), Long.parseLong(payload.substring(0, separator)));
+            }
+        }, topic);
+    }
+
+    @Override
+    public void publish(String key) {
+        final byte[] payload = (System.currentTimeMillis() + ":" + origin + ":" + key).getBytes(StandardCharsets.UTF_8);
+        final RedisConnection connection = RedisConnectionUtils.getConnection(connectionFactory);
+        try {
+            connection.publish(channel, payload);
+        } finally {
+            RedisConnectionUtils.releaseConnection(connection, connectionFactory);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            container.destroy();
+        } catch (Exception e) {
+            throw new IllegalStateException("Could not stop the invalidation subscription", e);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.nearcache;
+
+/**
+ * Count-min sketch of byte counters, saturating at 15, estimating how often keys were seen recently. All counters
+ * are halved once the number of increments reaches ten times the width, so the estimate follows changes in
+ * popularity.
+ */
+final class FrequencySketch {
+
+    private static final int DEPTH = 4;
+
+    private static final int MAX_COUNT = 15;
+
+    private static final int[] SEEDS = {0x97cb3127, 0xb1a9f7c3, 0x85ebca6b, 0xc2b2ae35};
+
+    private final byte[][] rows = new byte[DEPTH][];
+
+    private final int shift;
+
+    private final int sampleSize;
+
+    private int additions;
+
+    FrequencySketch(int expectedEntries) {
+        final int width = Integer.highestOneBit(Math.max(16, expectedEntries - 1)) << 1;
+        for (int i = 0; i < DEPTH; i++) {
+            rows[i] = new byte[width];
+        }
+        this.shift = 32 - Integer.numberOfTrailingZeros(width);
+        this.sampleSize = 10 * width;
+    }
+
+    void increment(Object key) {
+        final int hash = spread(key.hashCode());
+        boolean added = false;
+        for (int i = 0; i < DEPTH; i++) {
+            final byte[] row = rows[i];
+            final int index = (hash * SEEDS[i]) >>> shift;
+            if (row[index] < MAX_COUNT) {
+                row[index]++;
+                added = true;
+            }
+        }
+        if (added && ++additions >= sampleSize) {
+            reset();
+        }
+    }
+
+    int frequency(Object key) {
+        final int hash = spread(key.hashCode());
+        int frequency = MAX_COUNT;
+        for (int i = 0; i < DEPTH; i++) {
+            frequency = Math.min(frequency, rows[i][(hash * SEEDS[i]) >>> shift]);
+        }
+        return frequency;
+    }
+
+    private void reset() {
+        for (byte[] row : rows) {
+            for (int i = 0; i < row.length; i++) {
+                row[i] >>>= 1;
+            }
+        }
+        additions /= 2;
+    }
+
+    private static int spread(int hash) {
+        final int h = hash * 0x9e3779b9;
+        return h ^ (h >>> 16);
+    }
+}
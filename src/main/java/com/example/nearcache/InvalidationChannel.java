@@ -0,0 +1,26 @@
+package com.example.nearcache;
+
+/**
+ * Carries key invalidations between the {@link NearCache near caches} of all application instances.
+ */
+public interface InvalidationChannel extends AutoCloseable {
+
+    void subscribe(Listener listener);
+
+    /**
+     * Tells the subscribers of every other channel that the key was written. The subscribers of this channel are
+     * not told, the writer has already dropped its own entry and an echo would only discard a fresh reload.
+     */
+    void publish(String key);
+
+    @Override
+    void close();
+
+    interface Listener {
+
+        /**
+         * @param publishedAt the {@link System#currentTimeMillis()} of the publisher when it sent the invalidation
+         */
+        void invalidated(String key, long publishedAt);
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.nearcache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Evicts the least recently used entries.
+ */
+public class LruStore implements NearCacheStore {
+
+    private final LinkedHashMap<String, NearCacheEntry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final long maximumWeight;
+
+    private long weightedSize;
+
+    private Consumer<String> evictionListener = key -> {
+    };
+
+    public LruStore(long maximumWeight) {
+        this.maximumWeight = maximumWeight;
+    }
+
+    @Override
+    public NearCacheEntry get(String key) {
+        return entries.get(key);
+    }
+
+    @Override
+    public int put(String key, NearCacheEntry entry) {
+        if (entry.weight > maximumWeight) {
+            remove(key);
+            evictionListener.accept(key);
+            return 1;
+        }
+        final NearCacheEntry previous = entries.put(key, entry);
+        weightedSize += entry.weight - (previous != null ? previous.weight : 0);
+
+        int evicted = 0;
+        final Iterator<Map.Entry<String, NearCacheEntry>> eldest = entries.entrySet().iterator();
+        while (weightedSize > maximumWeight) {
+            final Map.Entry<String, NearCacheEntry> victim = eldest.next();
+            weightedSize -= victim.getValue().weight;
+            eldest.remove();
+            evictionListener.accept(victim.getKey());
+            evicted++;
+        }
+        return evicted;
+    }
+
+    @Override
+    public void setEvictionListener(Consumer<String> listener) {
+        this.evictionListener = listener;
+    }
+
+    @Override
+    public boolean remove(String key) {
+        final NearCacheEntry removed = entries.remove(key);
+        if (removed == null) {
+            return false;
+        }
+        weightedSize -= removed.weight;
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        entries.clear();
+        weightedSize = 0;
+    }
+
+    @Override
+    public int size() {
+        return entries.size();
+    }
+
+    @Override
+    public long weightedSize() {
+        return weightedSize;
+    }
+}
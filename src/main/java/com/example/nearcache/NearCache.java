@@ -0,0 +1,216 @@
+package com.example.nearcache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded in-process cache in front of the string values of a {@link RedisTemplate}. Reads are answered locally
+ * until the entry expires or an {@link InvalidationChannel} reports a write of the key by another instance;
+ * writes go through to Redis, drop the local entry and are then published as invalidations.
+ * <p>
+ * Hits are served from a concurrent map without locking. The {@link NearCacheStore} deciding what to evict sees
+ * the reads through a {@link ReadBuffer} that is replayed under the store lock, which loads and invalidations
+ * take anyway, so readers never wait for each other.
+ * <p>
+ * Meters, tagged with the cache name:
+ * <ul>
+ * <li>{@code redis.nearcache.gets}: reads, tagged with {@code result} {@code hit} or {@code miss}</li>
+ * <li>{@code redis.nearcache.invalidations}: cached entries dropped because of a write</li>
+ * <li>{@code redis.nearcache.invalidation.lag}: time from publishing an invalidation to receiving it, the
+ * staleness window of the other instances</li>
+ * <li>{@code redis.nearcache.evictions}: entries dropped to stay within the byte limit</li>
+ * <li>{@code redis.nearcache.entries}/{@code redis.nearcache.weight}: current entries and their bytes</li>
+ * </ul>
+ */
+public class NearCache implements AutoCloseable {
+
+    private final ValueOperations<String, String> operations;
+
+    private final RedisTemplate<String, String> template;
+
+    private final NearCacheStore store;
+
+    // the entries of the store, changed together with it under the lock
+    private final ConcurrentMap<String, NearCacheEntry> entries = new ConcurrentHashMap<>();
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final ReadBuffer reads = new ReadBuffer();
+
+    private final long ttlNanos;
+
+    private final InvalidationChannel invalidations;
+
+    // the token of the latest load of each key, removed by an invalidation so that a load racing with it is not cached
+    private final ConcurrentMap<String, Object> loads = new ConcurrentHashMap<>();
+
+    private final Counter hits;
+
+    private final Counter misses;
+
+    private final Counter invalidated;
+
+    private final Counter evictions;
+
+    private final Timer invalidationLag;
+
+    public NearCache(String name, RedisTemplate<String, String> template, NearCacheStore store, Duration ttl,
+                     InvalidationChannel invalidations, MeterRegistry registry) {
+        this.template = template;
+        this.operations = template.opsForValue();
+        this.store = store;
+        store.setEvictionListener(entries::remove);
+        this.ttlNanos = ttl.toNanos();
+        this.invalidations = invalidations;
+        this.hits = Counter.builder("redis.nearcache.gets").tag("cache", name).tag("result", "hit")
+                .register(registry);
+        this.misses = Counter.builder("redis.nearcache.gets").tag("cache", name).tag("result", "miss")
+                .register(registry);
+        this.invalidated = Counter.builder("redis.nearcache.invalidations").tag("cache", name).register(registry);
+        this.evictions = Counter.builder("redis.nearcache.evictions").tag("cache", name).register(registry);
+        this.invalidationLag = Timer.builder("redis.nearcache.invalidation.lag").tag("cache", name)
+                .publishPercentiles(0.5, 0.99, 0.999)
+                .register(registry);
+        Gauge.builder("redis.nearcache.entries", this, NearCache::size).tag("cache", name).register(registry);
+        Gauge.builder("redis.nearcache.weight", this, NearCache::weightedSize).tag("cache", name)
+                .baseUnit("bytes").register(registry);
+        invalidations.subscribe(this::invalidated);
+    }
+
+    public String get(String key) {
+        final long now = System.nanoTime();
+        final NearCacheEntry entry = entries.get(key);
+        if (entry != null) {
+            if (!entry.isExpired(now)) {
+                if (reads.offer(key)) {
+                    drainReads();
+                }
+                hits.increment();
+                return entry.value;
+            }
+            expire(key, entry);
+        }
+
+        misses.increment();
+        final Object token = new Object();
+        loads.put(key, token);
+        try {
+            final String value = operations.get(key);
+            if (value != null) {
+                cache(key, new NearCacheEntry(key, value, now + ttlNanos), token);
+            }
+            return value;
+        } finally {
+            loads.remove(key, token);
+        }
+    }
+
+    private void cache(String key, NearCacheEntry loaded, Object token) {
+        lock.lock();
+        try {
+            if (loads.get(key) == token) {
+                reads.drainTo(store::get);
+                entries.put(key, loaded);
+                evictions.increment(store.put(key, loaded));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void expire(String key, NearCacheEntry entry) {
+        lock.lock();
+        try {
+            if (entries.remove(key, entry)) {
+                store.remove(key);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void drainReads() {
+        if (lock.tryLock()) {
+            try {
+                reads.drainTo(store::get);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    public void set(String key, String value) {
+        operations.set(key, value);
+        invalidate(key);
+        invalidations.publish(key);
+    }
+
+    public Boolean delete(String key) {
+        final Boolean deleted = template.delete(key);
+        invalidate(key);
+        invalidations.publish(key);
+        return deleted;
+    }
+
+    /**
+     * Drops the local entry of the key.
+     */
+    public void invalidate(String key) {
+        loads.remove(key);
+        final boolean removed;
+        lock.lock();
+        try {
+            removed = entries.remove(key) != null;
+            store.remove(key);
+        } finally {
+            lock.unlock();
+        }
+        if (removed) {
+            invalidated.increment();
+        }
+    }
+
+    public void invalidateAll() {
+        loads.clear();
+        lock.lock();
+        try {
+            entries.clear();
+            store.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void invalidated(String key, long publishedAt) {
+        invalidationLag.record(Math.max(0, System.currentTimeMillis() - publishedAt), TimeUnit.MILLISECONDS);
+        invalidate(key);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long weightedSize() {
+        lock.lock();
+        try {
+            return store.weightedSize();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        invalidations.close();
+    }
+}
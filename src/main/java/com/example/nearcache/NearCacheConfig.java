@@ -0,0 +1,41 @@
+package com.example.nearcache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.time.Duration;
+
+/**
+ * A {@link NearCache} over {@code redisTemplateNonTransaction}, turned on with {@code redis.near-cache.enabled=true}.
+ * {@code redis.near-cache.eviction} selects {@code tiny-lfu} (default) or {@code lru}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "redis.near-cache.enabled")
+public class NearCacheConfig {
+
+    @Bean(destroyMethod = "close")
+    InvalidationChannel invalidationChannel(RedisConnectionFactory connectionFactory,
+                                            @Value("${redis.near-cache.channel:nearcache:invalidations}") String channel) {
+        return new BroadcastInvalidationChannel(connectionFactory, channel);
+    }
+
+    @Bean(destroyMethod = "close")
+    NearCache nearCache(@Qualifier("redisTemplateNonTransaction") RedisTemplate<String, String> template,
+                        InvalidationChannel invalidationChannel,
+                        ObjectProvider<MeterRegistry> meterRegistry,
+                        @Value("${redis.near-cache.eviction:tiny-lfu}") String eviction,
+                        @Value("${redis.near-cache.max-bytes:67108864}") long maxBytes,
+                        @Value("${redis.near-cache.ttl-ms:60000}") long ttl) {
+        final NearCacheStore store = "lru".equals(eviction) ? new LruStore(maxBytes) : new TinyLfuStore(maxBytes);
+        return new NearCache("default", template, store, Duration.ofMillis(ttl), invalidationChannel,
+                meterRegistry.getIfAvailable(SimpleMeterRegistry::new));
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.nearcache;
+
+/**
+ * A cached value with its approximate heap footprint and the {@link System#nanoTime()} it expires at.
+ */
+public final class NearCacheEntry {
+
+    private static final int OVERHEAD = 96;
+
+    final String value;
+
+    final int weight;
+
+    final long expiresAt;
+
+    NearCacheEntry(String key, String value, long expiresAt) {
+        this.value = value;
+        this.weight = OVERHEAD + 2 * (key.length() + value.length());
+        this.expiresAt = expiresAt;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public int getWeight() {
+        return weight;
+    }
+
+    boolean isExpired(long now) {
+        return now - expiresAt >= 0;
+    }
+}
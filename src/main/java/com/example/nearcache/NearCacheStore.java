@@ -0,0 +1,39 @@
+package com.example.nearcache;
+
+import java.util.function.Consumer;
+
+/**
+ * Bounded storage and eviction policy of a {@link NearCache}. Implementations are not thread-safe, the cache
+ * serialises access to them.
+ */
+public interface NearCacheStore {
+
+    /**
+     * @return the entry, {@code null} if absent; counts as an access for the eviction policy
+     */
+    NearCacheEntry get(String key);
+
+    /**
+     * Adds or replaces the entry and evicts until the store is within its byte limit again.
+     *
+     * @return the number of entries evicted, including the new one if the policy did not admit it
+     */
+    int put(String key, NearCacheEntry entry);
+
+    /**
+     * @param listener told the key of every entry evicted by {@link #put}, including the new one if it was not
+     *                 admitted
+     */
+    void setEvictionListener(Consumer<String> listener);
+
+    boolean remove(String key);
+
+    void clear();
+
+    int size();
+
+    /**
+     * @return the summed {@link NearCacheEntry#getWeight() weight} of the entries
+     */
+    long weightedSize();
+}
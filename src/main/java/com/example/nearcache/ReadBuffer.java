@@ -0,0 +1,82 @@
+package com.example.nearcache;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Lossy buffer of the keys read from a {@link NearCache}, replayed into its {@link NearCacheStore} by whichever
+ * thread holds the store lock next. Readers pick a stripe by thread id and claim a slot with a single CAS; a read
+ * that loses the CAS or finds its stripe full is dropped, which only blurs the access order and frequencies the
+ * eviction policy sees.
+ */
+final class ReadBuffer {
+
+    private static final int STRIPE_SIZE = 16;
+
+    private static final int STRIPE_MASK = STRIPE_SIZE - 1;
+
+    private final Stripe[] stripes;
+
+    private final int mask;
+
+    ReadBuffer() {
+        final int count = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 4 - 1) << 1;
+        this.stripes = new Stripe[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new Stripe();
+        }
+        this.mask = count - 1;
+    }
+
+    /**
+     * @return {@code true} if the stripe of the calling thread is full and should be drained
+     */
+    boolean offer(String key) {
+        final Stripe stripe = stripes[(int) spread(Thread.currentThread().getId()) & mask];
+        final long writes = stripe.writes.get();
+        final long pending = writes - stripe.reads;
+        if (pending >= STRIPE_SIZE) {
+            return true;
+        }
+        if (stripe.writes.compareAndSet(writes, writes + 1)) {
+            stripe.keys.lazySet((int) writes & STRIPE_MASK, key);
+        }
+        return pending + 1 >= STRIPE_SIZE;
+    }
+
+    /**
+     * Hands every published key to the consumer. Only one thread may drain at a time.
+     */
+    void drainTo(Consumer<String> consumer) {
+        for (Stripe stripe : stripes) {
+            long reads = stripe.reads;
+            final long writes = stripe.writes.get();
+            for (; reads < writes; reads++) {
+                final int index = (int) reads & STRIPE_MASK;
+                final String key = stripe.keys.get(index);
+                if (key == null) {
+                    // claimed but not yet published, picked up by the next drain
+                    break;
+                }
+                stripe.keys.lazySet(index, null);
+                consumer.accept(key);
+            }
+            stripe.reads = reads;
+        }
+    }
+
+    private static long spread(long id) {
+        final long h = id * 0x9e3779b97f4a7c15L;
+        return h ^ (h >>> 32);
+    }
+
+    private static final class Stripe {
+
+        final AtomicLong writes = new AtomicLong();
+
+        final AtomicReferenceArray<String> keys = new AtomicReferenceArray<>(STRIPE_SIZE);
+
+        volatile long reads;
+    }
+}
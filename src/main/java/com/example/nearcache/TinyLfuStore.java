@@ -0,0 +1,193 @@
+package com.example.nearcache;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * W-TinyLFU: new entries go to a small LRU window; entries leaving the window compete with the eldest entry of
+ * the main segment and are only admitted if a {@link FrequencySketch} says they are used more often. The main
+ * segment is a segmented LRU, entries hit again while on probation are promoted to the protected part. One-off
+ * reads of cold keys, which dominate a Zipfian scan, therefore cannot flush the hot keys out.
+ */
+public class TinyLfuStore implements NearCacheStore {
+
+    private final LinkedHashMap<String, NearCacheEntry> window = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final LinkedHashMap<String, NearCacheEntry> probation = new LinkedHashMap<>();
+
+    private final LinkedHashMap<String, NearCacheEntry> protectedSegment = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final Deque<String> candidates = new ArrayDeque<>();
+
+    private final FrequencySketch sketch;
+
+    private final long maximumWeight;
+
+    private final long windowMaximum;
+
+    private final long protectedMaximum;
+
+    private long windowWeight;
+
+    private long probationWeight;
+
+    private long protectedWeight;
+
+    private Consumer<String> evictionListener = key -> {
+    };
+
+    public TinyLfuStore(long maximumWeight) {
+        this.maximumWeight = maximumWeight;
+        this.windowMaximum = Math.max(1, maximumWeight / 100);
+        this.protectedMaximum = (maximumWeight - windowMaximum) * 8 / 10;
+        this.sketch = new FrequencySketch((int) Math.min(1 << 22, Math.max(1024, maximumWeight / 128)));
+    }
+
+    @Override
+    public NearCacheEntry get(String key) {
+        sketch.increment(key);
+        NearCacheEntry entry = window.get(key);
+        if (entry != null) {
+            return entry;
+        }
+        entry = probation.remove(key);
+        if (entry != null) {
+            probationWeight -= entry.weight;
+            protectedSegment.put(key, entry);
+            protectedWeight += entry.weight;
+            demoteProtected();
+            return entry;
+        }
+        return protectedSegment.get(key);
+    }
+
+    @Override
+    public int put(String key, NearCacheEntry entry) {
+        sketch.increment(key);
+        if (entry.weight > maximumWeight) {
+            remove(key);
+            evictionListener.accept(key);
+            return 1;
+        }
+        NearCacheEntry previous;
+        if ((previous = window.get(key)) != null) {
+            window.put(key, entry);
+            windowWeight += entry.weight - previous.weight;
+        } else if ((previous = probation.get(key)) != null) {
+            probation.put(key, entry);
+            probationWeight += entry.weight - previous.weight;
+        } else if ((previous = protectedSegment.get(key)) != null) {
+            protectedSegment.put(key, entry);
+            protectedWeight += entry.weight - previous.weight;
+            demoteProtected();
+        } else {
+            window.put(key, entry);
+            windowWeight += entry.weight;
+        }
+        return evict();
+    }
+
+    private void demoteProtected() {
+        final Iterator<Map.Entry<String, NearCacheEntry>> eldest = protectedSegment.entrySet().iterator();
+        while (protectedWeight > protectedMaximum && eldest.hasNext()) {
+            final Map.Entry<String, NearCacheEntry> demoted = eldest.next();
+            eldest.remove();
+            protectedWeight -= demoted.getValue().weight;
+            probation.put(demoted.getKey(), demoted.getValue());
+            probationWeight += demoted.getValue().weight;
+        }
+    }
+
+    private int evict() {
+        // window overflow moves to the young end of probation and has to win against the eldest entry there
+        final Iterator<Map.Entry<String, NearCacheEntry>> windowEldest = window.entrySet().iterator();
+        while (windowWeight > windowMaximum && windowEldest.hasNext()) {
+            final Map.Entry<String, NearCacheEntry> overflow = windowEldest.next();
+            windowEldest.remove();
+            windowWeight -= overflow.getValue().weight;
+            probation.put(overflow.getKey(), overflow.getValue());
+            probationWeight += overflow.getValue().weight;
+            candidates.add(overflow.getKey());
+        }
+
+        int evicted = 0;
+        while (weightedSize() > maximumWeight) {
+            if (probation.isEmpty()) {
+                evictEldest(protectedSegment.isEmpty() ? window : protectedSegment);
+            } else {
+                final String victim = probation.keySet().iterator().next();
+                final String candidate = candidates.peekFirst();
+                if (candidate == null || candidate.equals(victim)
+                        || sketch.frequency(candidate) > sketch.frequency(victim)) {
+                    removeFromProbation(victim);
+                } else {
+                    removeFromProbation(candidate);
+                }
+            }
+            evicted++;
+        }
+        candidates.clear();
+        return evicted;
+    }
+
+    private void evictEldest(LinkedHashMap<String, NearCacheEntry> segment) {
+        final Iterator<Map.Entry<String, NearCacheEntry>> eldest = segment.entrySet().iterator();
+        final Map.Entry<String, NearCacheEntry> victim = eldest.next();
+        eldest.remove();
+        if (segment == window) {
+            windowWeight -= victim.getValue().weight;
+        } else {
+            protectedWeight -= victim.getValue().weight;
+        }
+        evictionListener.accept(victim.getKey());
+    }
+
+    private void removeFromProbation(String key) {
+        final NearCacheEntry removed = probation.remove(key);
+        probationWeight -= removed.weight;
+        candidates.remove(key);
+        evictionListener.accept(key);
+    }
+
+    @Override
+    public void setEvictionListener(Consumer<String> listener) {
+        this.evictionListener = listener;
+    }
+
+    @Override
+    public boolean remove(String key) {
+        NearCacheEntry removed;
+        if ((removed = window.remove(key)) != null) {
+            windowWeight -= removed.weight;
+        } else if ((removed = probation.remove(key)) != null) {
+            probationWeight -= removed.weight;
+        } else if ((removed = protectedSegment.remove(key)) != null) {
+            protectedWeight -= removed.weight;
+        }
+        return removed != null;
+    }
+
+    @Override
+    public void clear() {
+        window.clear();
+        probation.clear();
+        protectedSegment.clear();
+        windowWeight = 0;
+        probationWeight = 0;
+        protectedWeight = 0;
+    }
+
+    @Override
+    public int size() {
+        return window.size() + probation.size() + protectedSegment.size();
+    }
+
+    @Override
+    public long weightedSize() {
+        return windowWeight + probationWeight + protectedWeight;
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.scan;
+
+import org.springframework.data.redis.RedisSystemException;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Keys of a running {@link ClusterScanner#scan scan}, in no particular order. Reading blocks until a worker has
+ * delivered the next batch; the first worker failure is rethrown by {@link #hasNext()} once the keys that worker
+ * delivered before it have been read, and stops the others. Closing stops the workers after their current
+ * {@code SCAN} call.
+ * <p>
+ * Not thread-safe: the keys are meant for one consumer.
+ */
+public final class ClusterScan implements Iterator<byte[]>, AutoCloseable {
+
+    private static final List<byte[]> END = Collections.emptyList();
+
+    private static final long OFFER_MILLIS = 100;
+
+    private final BlockingQueue<List<byte[]>> batches;
+
+    private volatile boolean closed;
+
+    private volatile RuntimeException failure;
+
+    private int running;
+
+    private List<byte[]> batch = Collections.emptyList();
+
+    private int index;
+
+    ClusterScan(int nodes, int bufferedBatches) {
+        this.batches = new ArrayBlockingQueue<>(bufferedBatches);
+        this.running = nodes;
+    }
+
+    void start(String address, Runnable worker) {
+        final Thread thread = new Thread(() -> {
+            try {
+                worker.run();
+            } catch (RuntimeException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            } finally {
+                offer(END);
+            }
+        }, "cluster-scan-" + address);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Hands a batch to the consumer, waiting while the queue is full. Gives up once the scan is closed.
+     */
+    void offer(List<byte[]> keys) {
+        try {
+            while (!closed) {
+                if (batches.offer(keys, OFFER_MILLIS, TimeUnit.MILLISECONDS)) {
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (index == batch.size()) {
+            if (running == 0) {
+                return false;
+            }
+            if (closed) {
+                throw new IllegalStateException("Cluster scan is closed");
+            }
+            final List<byte[]> next;
+            try {
+                next = batches.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                close();
+                throw new IllegalStateException("Interrupted while waiting for keys", e);
+            }
+            if (next == END) {
+                running--;
+                final RuntimeException cause = failure;
+                if (cause != null) {
+                    close();
+                    throw new RedisSystemException("Cluster scan failed: " + cause.getMessage(), cause);
+                }
+            }
+            batch = next;
+            index = 0;
+        }
+        return true;
+    }
+
+    @Override
+    public byte[] next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return batch.get(index++);
+    }
+
+    /**
+     * @return the keys as a sequential stream that closes the scan when it is closed
+     */
+    public Stream<byte[]> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.NONNULL), false)
+                .onClose(this::close);
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        batches.clear();
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.scan;
+
+import org.springframework.data.redis.connection.RedisClusterConnection;
+import org.springframework.data.redis.connection.RedisClusterNode;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs {@code SCAN} on every master of the cluster at once, one worker thread and connection per master, and
+ * merges the keys into a single {@link ClusterScan}. Workers hand over keys in batches through a queue of at most
+ * {@code bufferedBatches}, so a slow consumer stalls the scan instead of letting it pile up keys in memory.
+ */
+public class ClusterScanner {
+
+    private final RedisConnectionFactory connectionFactory;
+
+    private final int bufferedBatches;
+
+    private final int batchSize;
+
+    public ClusterScanner(RedisConnectionFactory connectionFactory) {
+        this(connectionFactory, 64, 1024);
+    }
+
+    public ClusterScanner(RedisConnectionFactory connectionFactory, int bufferedBatches, int batchSize) {
+        if (bufferedBatches < 1 || batchSize < 1) {
+            throw new IllegalArgumentException("bufferedBatches and batchSize must be positive");
+        }
+        this.connectionFactory = connectionFactory;
+        this.bufferedBatches = bufferedBatches;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Starts scanning. {@link ScanOptions#getCount() COUNT} is the hint passed to every {@code SCAN} call, so
+     * values in the thousands keep the round trips per node down on large keyspaces. A key created or deleted
+     * while the scan runs may or may not be returned, as with {@code SCAN} itself.
+     *
+     * @return the keys, which must be closed if not read to the end
+     */
+    public ClusterScan scan(ScanOptions options) {
+        final List<RedisClusterNode> masters = new ArrayList<>();
+        try (RedisClusterConnection connection = connectionFactory.getClusterConnection()) {
+            for (RedisClusterNode node : connection.clusterGetNodes()) {
+                if (node.isMaster() && !node.getSlotRange().getSlots().isEmpty()) {
+                    masters.add(node);
+                }
+            }
+        }
+        final ClusterScan scan = new ClusterScan(masters.size(), bufferedBatches);
+        for (RedisClusterNode master : masters) {
+            scan.start(master.getHost() + ":" + master.getPort(), () -> scanNode(scan, master, options));
+        }
+        return scan;
+    }
+
+    private void scanNode(ClusterScan scan, RedisClusterNode node, ScanOptions options) {
+        try (RedisClusterConnection connection = connectionFactory.getClusterConnection();
+             Cursor<byte[]> cursor = connection.scan(node, options)) {
+            List<byte[]> batch = new ArrayList<>(batchSize);
+            while (cursor.hasNext() && !scan.isClosed()) {
+                batch.add(cursor.next());
+                if (batch.size() == batchSize) {
+                    scan.offer(batch);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            if (!batch.isEmpty()) {
+                scan.offer(batch);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not close the scan cursor of " + node, e);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.scan;
+
+import com.example.cluster.ClusterSlots;
+import org.springframework.data.redis.connection.RedisClusterConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Deletes keys with {@code UNLINK}, so the memory is reclaimed off the main thread of Redis. Keys are taken in
+ * batches of {@link PurgePolicy#getBatchSize()}, grouped by slot and sent as one pipeline with one {@code UNLINK}
+ * per slot, which the connection factory spreads over the owning nodes. Batches are paced to stay under
+ * {@link PurgePolicy#getMaxKeysPerSecond()}.
+ * <p>
+ * The connection factory must support pipelining on cluster connections, as the factories of
+ * {@link com.example.JedisConfig} and {@link com.example.LettuceConfig} do.
+ */
+public class KeyPurger {
+
+    private static final long MAX_CREDIT_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final RedisConnectionFactory connectionFactory;
+
+    private final PurgePolicy policy;
+
+    private final long nanosPerKey;
+
+    public KeyPurger(RedisConnectionFactory connectionFactory, PurgePolicy policy) {
+        this.connectionFactory = connectionFactory;
+        this.policy = policy;
+        this.nanosPerKey = policy.getMaxKeysPerSecond() == 0 ? 0
+                : TimeUnit.SECONDS.toNanos(1) / policy.getMaxKeysPerSecond();
+    }
+
+    /**
+     * Unlinks every key of {@code keys}, typically a {@link ClusterScan}.
+     *
+     * @return the number of keys that existed and were removed
+     */
+    public long purge(Iterator<byte[]> keys) {
+        final List<byte[]> batch = new ArrayList<>(policy.getBatchSize());
+        long removed = 0;
+        long deadline = System.nanoTime();
+        try (RedisClusterConnection connection = connectionFactory.getClusterConnection()) {
+            while (keys.hasNext()) {
+                batch.add(keys.next());
+                if (batch.size() == policy.getBatchSize() || !keys.hasNext()) {
+                    removed += unlink(connection, batch);
+                    deadline = pace(deadline, batch.size());
+                    batch.clear();
+                }
+            }
+        }
+        return removed;
+    }
+
+    private static long unlink(RedisClusterConnection connection, List<byte[]> batch) {
+        final Map<Integer, List<byte[]>> bySlot = new HashMap<>();
+        for (byte[] key : batch) {
+            bySlot.computeIfAbsent(ClusterSlots.slot(key), slot -> new ArrayList<>()).add(key);
+        }
+        connection.openPipeline();
+        for (List<byte[]> keys : bySlot.values()) {
+            connection.unlink(keys.toArray(new byte[keys.size()][]));
+        }
+        long removed = 0;
+        for (Object reply : connection.closePipeline()) {
+            if (reply instanceof Long) {
+                removed += (Long) reply;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Waits until {@code keys} more keys are allowed. Time lost while the keys were read does not build up more
+     * than a second of credit, so a stalled scan cannot be followed by a burst.
+     *
+     * @return the deadline for the next batch
+     */
+    private long pace(long deadline, int keys) {
+        if (nanosPerKey == 0) {
+            return deadline;
+        }
+        final long next = Math.max(deadline, System.nanoTime() - MAX_CREDIT_NANOS) + keys * nanosPerKey;
+        while (next - System.nanoTime() > 0) {
+            LockSupport.parkNanos(this, next - System.nanoTime());
+        }
+        return next;
+    }
+}
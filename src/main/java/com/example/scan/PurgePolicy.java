@@ -0,0 +1,41 @@
+package com.example.scan;
+
+/**
+ * Pace of a {@link KeyPurger}. Keys are unlinked {@code batchSize} at a time, in one pipeline per batch, and at
+ * most {@code maxKeysPerSecond} per second overall; {@code 0} means unlimited.
+ */
+public class PurgePolicy {
+
+    private final int batchSize;
+
+    private final long maxKeysPerSecond;
+
+    public PurgePolicy(int batchSize, long maxKeysPerSecond) {
+        if (batchSize < 1 || maxKeysPerSecond < 0) {
+            throw new IllegalArgumentException("batchSize must be positive and maxKeysPerSecond not negative");
+        }
+        this.batchSize = batchSize;
+        this.maxKeysPerSecond = maxKeysPerSecond;
+    }
+
+    /**
+     * 1000 keys per batch and 200,000 keys per second, which removes ten million keys in under a minute without
+     * holding any node busy for more than the time of a few hundred unlinks at once.
+     */
+    public static PurgePolicy defaults() {
+        return new PurgePolicy(1000, 200_000);
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public long getMaxKeysPerSecond() {
+        return maxKeysPerSecond;
+    }
+
+    @Override
+    public String toString() {
+        return "PurgePolicy[batchSize=" + batchSize + ", maxKeysPerSecond=" + maxKeysPerSecond + "]";
+    }
+}
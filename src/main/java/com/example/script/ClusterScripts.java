@@ -0,0 +1,129 @@
+package com.example.script;
+
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Scripts to keep in the script cache of every cluster node so that {@code EVALSHA} finds them wherever a key's
+ * slot lives. Scripts are loaded at startup, the first time they are used and again after a topology change or a
+ * {@code NOSCRIPT} reply, which means a node restarted, failed over or joined since the last load.
+ * <p>
+ * Every load that reached all masters bumps a generation, so that a burst of {@code NOSCRIPT} replies seen by many
+ * threads reloads the cluster once. A load that missed a master leaves the scripts stale and the generation as it
+ * was, so the next execution tries again.
+ */
+public class ClusterScripts {
+
+    private final RedisConnectionFactory connectionFactory;
+
+    private final ScriptLoader loader;
+
+    private final Map<String, byte[]> sources = new ConcurrentHashMap<>();
+
+    private final AtomicLong generation = new AtomicLong();
+
+    private volatile boolean stale = true;
+
+    public ClusterScripts(RedisConnectionFactory connectionFactory, ScriptLoader loader) {
+        this.connectionFactory = connectionFactory;
+        this.loader = loader;
+    }
+
+    /**
+     * Adds a script to preload, loading it on the next use if it is new.
+     */
+    public <T> RedisScript<T> register(RedisScript<T> script) {
+        final String sha = script.getSha1();
+        if (!sources.containsKey(sha)
+                && sources.putIfAbsent(sha, script.getScriptAsString().getBytes(StandardCharsets.UTF_8)) == null) {
+            stale = true;
+        }
+        return script;
+    }
+
+    /**
+     * Loads the registered scripts on every node.
+     */
+    public void preload() {
+        if (sources.isEmpty()) {
+            return;
+        }
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            reload(connection, generation.get());
+        }
+    }
+
+    /**
+     * Loads the registered scripts on every node if scripts were added or the topology changed since the last load.
+     *
+     * @return the generation of the scripts to pass to {@link #reload(RedisConnection, long)} after a
+     * {@code NOSCRIPT} reply
+     */
+    public long ensureLoaded(RedisConnection connection) {
+        final long current = generation.get();
+        if (stale) {
+            reload(connection, current);
+        }
+        return generation.get();
+    }
+
+    /**
+     * Loads the registered scripts on every node unless another thread did so since {@code seenGeneration}.
+     */
+    public synchronized void reload(RedisConnection connection, long seenGeneration) {
+        if (generation.get() != seenGeneration) {
+            return;
+        }
+        // cleared first, a topology change reported during the load makes the next call load again
+        stale = false;
+        final boolean complete;
+        try {
+            complete = loader.load(connection, sources.values());
+        } catch (RuntimeException e) {
+            stale = true;
+            throw e;
+        }
+        if (!complete) {
+            stale = true;
+            return;
+        }
+        generation.incrementAndGet();
+    }
+
+    /**
+     * Makes the next script execution load the scripts again, for nodes that joined or were promoted.
+     */
+    public void topologyChanged() {
+        stale = true;
+    }
+
+    public boolean isStale() {
+        return stale;
+    }
+
+    public long getGeneration() {
+        return generation.get();
+    }
+
+    public int size() {
+        return sources.size();
+    }
+
+    /**
+     * @return whether the exception or one of its causes is a {@code NOSCRIPT} reply
+     */
+    static boolean isNoScript(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause.getMessage() != null && cause.getMessage().contains("NOSCRIPT")) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.script;
+
+import com.example.cluster.ClusterSlots;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultScriptExecutor;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+/**
+ * Runs template scripts as {@code EVALSHA} of scripts preloaded through {@link ClusterScripts}, routed to the node
+ * owning the slot of their keys. On {@code NOSCRIPT} the scripts are loaded on every node again and the call is
+ * retried, falling back to {@code EVAL} only if the node still does not know the script.
+ * <p>
+ * A script is atomic on one node only, so its keys must share a hash slot.
+ */
+public class PreloadingScriptExecutor<K> extends DefaultScriptExecutor<K> {
+
+    private final ClusterScripts scripts;
+
+    public PreloadingScriptExecutor(RedisTemplate<K, ?> template, ClusterScripts scripts) {
+        super(template);
+        this.scripts = scripts;
+    }
+
+    @Override
+    protected <T> T eval(RedisConnection connection, RedisScript<T> script, ReturnType returnType, int numKeys,
+                         byte[][] keysAndArgs, RedisSerializer<T> resultSerializer) {
+        requireSingleSlot(numKeys, keysAndArgs);
+        scripts.register(script);
+        final long generation = scripts.ensureLoaded(connection);
+        final Object result;
+        try {
+            result = connection.evalSha(script.getSha1(), returnType, numKeys, keysAndArgs);
+        } catch (RuntimeException e) {
+            if (!ClusterScripts.isNoScript(e)) {
+                throw e;
+            }
+            scripts.reload(connection, generation);
+            return super.eval(connection, script, returnType, numKeys, keysAndArgs, resultSerializer);
+        }
+        return script.getResultType() != null ? deserializeResult(resultSerializer, result) : null;
+    }
+
+    private static void requireSingleSlot(int numKeys, byte[][] keysAndArgs) {
+        if (numKeys < 2) {
+            return;
+        }
+        final int slot = ClusterSlots.slot(keysAndArgs[0]);
+        for (int i = 1; i < numKeys; i++) {
+            if (ClusterSlots.slot(keysAndArgs[i]) != slot) {
+                throw new InvalidDataAccessApiUsageException(
+                        "Script keys must share a hash slot, use a hash tag such as {user1000}");
+            }
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.script;
+
+import org.springframework.data.redis.connection.RedisConnection;
+
+import java.util.Collection;
+
+/**
+ * Loads scripts into the script cache of every node of the cluster a connection belongs to, which
+ * {@code RedisConnection} cannot address one by one.
+ */
+public interface ScriptLoader {
+
+    /**
+     * Sends {@code SCRIPT LOAD} for each source to every reachable node. Unreachable nodes are skipped, they answer
+     * {@code NOSCRIPT} once they are back, which triggers another load.
+     *
+     * @return whether the scripts were loaded on every master; unreachable replicas do not count
+     */
+    boolean load(RedisConnection connection, Collection<byte[]> sources);
+}
@@ -0,0 +1,115 @@
+package com.example.serializer;
+
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Input of {@link BinarySchema}s, the counterpart of {@link BinaryWriter}. Reading past the end throws
+ * {@link SerializationException}.
+ */
+public final class BinaryReader {
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private byte[] buffer = EMPTY;
+
+    private int position;
+
+    private int limit;
+
+    BinaryReader() {
+    }
+
+    public long readVarLong() {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            final byte b = next();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new SerializationException("Malformed varint at offset " + position);
+    }
+
+    public long readLong() {
+        final long value = readVarLong();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    public int readInt() {
+        return (int) readLong();
+    }
+
+    public boolean readBoolean() {
+        return next() != 0;
+    }
+
+    public double readDouble() {
+        require(8);
+        long bits = 0;
+        for (int shift = 0; shift < 64; shift += 8) {
+            bits |= (buffer[position++] & 0xFFL) << shift;
+        }
+        return Double.longBitsToDouble(bits);
+    }
+
+    public String readString() {
+        final int length = length();
+        if (length < 0) {
+            return null;
+        }
+        final String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+        position += length;
+        return value;
+    }
+
+    public byte[] readBytes() {
+        final int length = length();
+        if (length < 0) {
+            return null;
+        }
+        final byte[] value = Arrays.copyOfRange(buffer, position, position + length);
+        position += length;
+        return value;
+    }
+
+    /**
+     * @return {@code true} if there are bytes left, which lets a schema read fields appended by a newer writer
+     */
+    public boolean hasRemaining() {
+        return position < limit;
+    }
+
+    void reset(byte[] bytes) {
+        this.buffer = bytes;
+        this.position = 0;
+        this.limit = bytes.length;
+    }
+
+    void clear() {
+        reset(EMPTY);
+    }
+
+    private int length() {
+        final long length = readVarLong() - 1;
+        if (length >= 0) {
+            require(length);
+        }
+        return (int) length;
+    }
+
+    private byte next() {
+        require(1);
+        return buffer[position++];
+    }
+
+    private void require(long bytes) {
+        if (limit - position < bytes) {
+            throw new SerializationException("Value truncated at offset " + position + ", " + bytes
+                    + " more bytes expected");
+        }
+    }
+}
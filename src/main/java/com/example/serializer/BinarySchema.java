@@ -0,0 +1,21 @@
+package com.example.serializer;
+
+/**
+ * Field layout of one type for {@link BinaryRedisSerializer}: fields are written and read in a fixed order,
+ * without names. New fields may only be appended; readers of the new layout check
+ * {@link BinaryReader#hasRemaining()} before reading them, readers of the old one ignore them. Declare schemas
+ * as beans to have them registered with the templates' {@link BinaryTypeRegistry}.
+ */
+public interface BinarySchema<T> {
+
+    /**
+     * @return the positive id written in front of every value of the type, stable across releases
+     */
+    int typeId();
+
+    Class<T> type();
+
+    void write(T value, BinaryWriter out);
+
+    T read(BinaryReader in);
+}
@@ -0,0 +1,63 @@
+package com.example.serializer;
+
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link BinarySchema}s by exact type and by type id. Lookups allocate nothing; type ids index an array, so keep
+ * them small.
+ */
+public class BinaryTypeRegistry {
+
+    static final int MAX_TYPE_ID = 65_535;
+
+    private final Map<Class<?>, BinarySchema<?>> byType = new ConcurrentHashMap<>();
+
+    private volatile BinarySchema<?>[] byId = new BinarySchema<?>[16];
+
+    public synchronized BinaryTypeRegistry register(BinarySchema<?> schema) {
+        final int id = schema.typeId();
+        if (id < 1 || id > MAX_TYPE_ID) {
+            throw new IllegalArgumentException("Type id of " + schema.type().getName() + " must be between 1 and "
+                    + MAX_TYPE_ID);
+        }
+        if (byType.containsKey(schema.type())) {
+            throw new IllegalArgumentException(schema.type().getName() + " is already registered");
+        }
+        BinarySchema<?>[] table = byId;
+        if (id < table.length && table[id] != null) {
+            throw new IllegalArgumentException("Type id " + id + " is already used by "
+                    + table[id].type().getName());
+        }
+        if (id >= table.length) {
+            table = Arrays.copyOf(table, Math.max(id + 1, table.length * 2));
+        } else {
+            table = table.clone();
+        }
+        table[id] = schema;
+        byType.put(schema.type(), schema);
+        byId = table;
+        return this;
+    }
+
+    @SuppressWarnings("unchecked")
+    <T> BinarySchema<T> schemaFor(Class<T> type) {
+        final BinarySchema<T> schema = (BinarySchema<T>) byType.get(type);
+        if (schema == null) {
+            throw new SerializationException("No binary schema registered for " + type.getName());
+        }
+        return schema;
+    }
+
+    BinarySchema<?> schemaFor(long typeId) {
+        final BinarySchema<?>[] table = byId;
+        final BinarySchema<?> schema = typeId > 0 && typeId < table.length ? table[(int) typeId] : null;
+        if (schema == null) {
+            throw new SerializationException("No binary schema registered for type id " + typeId);
+        }
+        return schema;
+    }
+}
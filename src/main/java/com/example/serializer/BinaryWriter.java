@@ -0,0 +1,108 @@
+package com.example.serializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Growable output of {@link BinarySchema}s. Integers are varints, zigzag-encoded where they may be negative,
+ * strings and byte arrays are prefixed with their length plus one, {@code 0} standing for {@code null}.
+ * ASCII strings are copied char by char without an intermediate array.
+ */
+public final class BinaryWriter {
+
+    private static final int MAX_RETAINED_BUFFER = 64 * 1024;
+
+    private byte[] buffer;
+
+    private int position;
+
+    BinaryWriter(int capacity) {
+        this.buffer = new byte[capacity];
+    }
+
+    /**
+     * Unsigned varint, 1 byte up to 127.
+     */
+    public BinaryWriter writeVarLong(long value) {
+        ensure(10);
+        long remaining = value;
+        while ((remaining & ~0x7FL) != 0) {
+            buffer[position++] = (byte) ((remaining & 0x7F) | 0x80);
+            remaining >>>= 7;
+        }
+        buffer[position++] = (byte) remaining;
+        return this;
+    }
+
+    /**
+     * Zigzag varint, 1 byte from -64 to 63.
+     */
+    public BinaryWriter writeLong(long value) {
+        return writeVarLong((value << 1) ^ (value >> 63));
+    }
+
+    public BinaryWriter writeInt(int value) {
+        return writeLong(value);
+    }
+
+    public BinaryWriter writeBoolean(boolean value) {
+        ensure(1);
+        buffer[position++] = (byte) (value ? 1 : 0);
+        return this;
+    }
+
+    public BinaryWriter writeDouble(double value) {
+        ensure(8);
+        final long bits = Double.doubleToRawLongBits(value);
+        for (int shift = 0; shift < 64; shift += 8) {
+            buffer[position++] = (byte) (bits >>> shift);
+        }
+        return this;
+    }
+
+    public BinaryWriter writeString(String value) {
+        if (value == null) {
+            return writeVarLong(0);
+        }
+        final int length = value.length();
+        for (int i = 0; i < length; i++) {
+            if (value.charAt(i) >= 0x80) {
+                return writeBytes(value.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        writeVarLong(length + 1L);
+        ensure(length);
+        for (int i = 0; i < length; i++) {
+            buffer[position++] = (byte) value.charAt(i);
+        }
+        return this;
+    }
+
+    public BinaryWriter writeBytes(byte[] value) {
+        if (value == null) {
+            return writeVarLong(0);
+        }
+        writeVarLong(value.length + 1L);
+        ensure(value.length);
+        System.arraycopy(value, 0, buffer, position, value.length);
+        position += value.length;
+        return this;
+    }
+
+    void reset() {
+        if (buffer.length > MAX_RETAINED_BUFFER) {
+            buffer = new byte[MAX_RETAINED_BUFFER];
+        }
+        position = 0;
+    }
+
+    byte[] toByteArray() {
+        return Arrays.copyOf(buffer, position);
+    }
+
+    private void ensure(int bytes) {
+        if (buffer.length - position < bytes) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + bytes));
+        }
+    }
+}
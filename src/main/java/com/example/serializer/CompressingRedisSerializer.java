@@ -0,0 +1,159 @@
+package com.example.serializer;
+
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.util.Arrays;
+
+/**
+ * Compresses the output of another {@link RedisSerializer} once it reaches a size threshold. Smaller values, and
+ * values that do not get smaller, are stored exactly as the delegate produced them, so data written before
+ * compression was turned on, or by plain connections, stays readable.
+ * <p>
+ * A compressed value is {@code tag, original length (4 bytes, big endian), compressed bytes}. The tags are
+ * {@code 0xF5}-{@code 0xF7}, which never start valid UTF-8; the rare uncompressed value that starts with one of
+ * them anyway is prefixed with {@link #RAW}. LZ4 values can always be read, Zstd values only with the dictionary
+ * they were written with.
+ * <p>
+ * The original length in the header is checked against a maximum value length and against what the payload can
+ * decompress to before anything is allocated, so a corrupt or forged header cannot exhaust the heap.
+ * <p>
+ * Compression goes through a per-thread buffer that grows to the largest value seen, up to 1 MiB, so the only
+ * allocation per value is the result.
+ */
+public class CompressingRedisSerializer<T> implements RedisSerializer<T> {
+
+    static final byte RAW = (byte) 0xF5;
+
+    static final byte LZ4 = (byte) 0xF6;
+
+    static final byte ZSTD = (byte) 0xF7;
+
+    private static final int HEADER_LENGTH = 5;
+
+    private static final int MAX_RETAINED_BUFFER = 1024 * 1024;
+
+    public static final int DEFAULT_MAX_VALUE_LENGTH = 64 * 1024 * 1024;
+
+    private final RedisSerializer<T> delegate;
+
+    private final Compressor compressor;
+
+    private final int threshold;
+
+    private final int maxValueLength;
+
+    private final ThreadLocal<byte[]> buffers = ThreadLocal.withInitial(() -> new byte[0]);
+
+    /**
+     * @param threshold the smallest serialized value that is compressed, in bytes
+     */
+    public CompressingRedisSerializer(RedisSerializer<T> delegate, Compressor compressor, int threshold) {
+        this(delegate, compressor, threshold, DEFAULT_MAX_VALUE_LENGTH);
+    }
+
+    /**
+     * @param threshold      the smallest serialized value that is compressed, in bytes
+     * @param maxValueLength the largest original length a compressed value may declare, in bytes
+     */
+    public CompressingRedisSerializer(RedisSerializer<T> delegate, Compressor compressor, int threshold,
+                                      int maxValueLength) {
+        if (threshold < 0) {
+            throw new IllegalArgumentException("threshold must not be negative");
+        }
+        if (maxValueLength <= 0) {
+            throw new IllegalArgumentException("maxValueLength must be positive");
+        }
+        this.delegate = delegate;
+        this.compressor = compressor;
+        this.threshold = threshold;
+        this.maxValueLength = maxValueLength;
+    }
+
+    @Override
+    public byte[] serialize(T value) throws SerializationException {
+        final byte[] raw = delegate.serialize(value);
+        if (raw == null) {
+            return null;
+        }
+        if (raw.length >= threshold && raw.length > HEADER_LENGTH) {
+            final byte[] buffer = buffer(HEADER_LENGTH + compressor.maxCompressedLength(raw.length));
+            final int length = HEADER_LENGTH + compressor.compress(raw, raw.length, buffer, HEADER_LENGTH);
+            if (length < raw.length) {
+                buffer[0] = compressor.tag();
+                buffer[1] = (byte) (raw.length >>> 24);
+                buffer[2] = (byte) (raw.length >>> 16);
+                buffer[3] = (byte) (raw.length >>> 8);
+                buffer[4] = (byte) raw.length;
+                return Arrays.copyOf(buffer, length);
+            }
+        }
+        if (raw.length > 0 && isTag(raw[0])) {
+            final byte[] escaped = new byte[raw.length + 1];
+            escaped[0] = RAW;
+            System.arraycopy(raw, 0, escaped, 1, raw.length);
+            return escaped;
+        }
+        return raw;
+    }
+
+    @Override
+    public T deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0 || !isTag(bytes[0])) {
+            return delegate.deserialize(bytes);
+        }
+        if (bytes[0] == RAW) {
+            return delegate.deserialize(Arrays.copyOfRange(bytes, 1, bytes.length));
+        }
+        if (bytes.length < HEADER_LENGTH) {
+            throw new SerializationException("Compressed value of " + bytes.length + " bytes has no header");
+        }
+        final int length = (bytes[1] & 0xFF) << 24 | (bytes[2] & 0xFF) << 16 | (bytes[3] & 0xFF) << 8
+                | bytes[4] & 0xFF;
+        if (length < 0) {
+            throw new SerializationException("Compressed value has a negative length");
+        }
+        if (length > maxValueLength) {
+            throw new SerializationException("Compressed value declares " + length + " bytes, more than the maximum of "
+                    + maxValueLength);
+        }
+        final Compressor decompressor = decompressor(bytes[0]);
+        if (length > decompressor.maxDecompressedLength(bytes.length - HEADER_LENGTH)) {
+            throw new SerializationException("Compressed value of " + bytes.length + " bytes cannot decompress to "
+                    + length + " bytes");
+        }
+        final byte[] raw = new byte[length];
+        try {
+            decompressor.decompress(bytes, HEADER_LENGTH, bytes.length - HEADER_LENGTH, raw);
+        } catch (IllegalArgumentException e) {
+            throw new SerializationException(e.getMessage(), e);
+        }
+        return delegate.deserialize(raw);
+    }
+
+    private Compressor decompressor(byte tag) {
+        if (tag == compressor.tag()) {
+            return compressor;
+        }
+        if (tag == LZ4) {
+            return Lz4Compressor.INSTANCE;
+        }
+        throw new SerializationException(String.format("No decompressor for tag 0x%02X", tag));
+    }
+
+    private byte[] buffer(int length) {
+        byte[] buffer = buffers.get();
+        if (buffer.length < length) {
+            if (length > MAX_RETAINED_BUFFER) {
+                return new byte[length];
+            }
+            buffer = new byte[Math.min(Math.max(length, buffer.length * 2), MAX_RETAINED_BUFFER)];
+            buffers.set(buffer);
+        }
+        return buffer;
+    }
+
+    private static boolean isTag(byte b) {
+        return b == RAW || b == LZ4 || b == ZSTD;
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.serializer;
+
+/**
+ * Block compression used by {@link CompressingRedisSerializer}. Implementations are stateless or thread-safe, the
+ * serializer owns the buffers.
+ */
+public interface Compressor {
+
+    /**
+     * @return the header byte marking payloads of this compressor, one of the {@code CompressingRedisSerializer}
+     * tags
+     */
+    byte tag();
+
+    /**
+     * @return the size of a destination buffer large enough for any input of the given length
+     */
+    int maxCompressedLength(int length);
+
+    /**
+     * @return the largest original length a payload of the given compressed length can decompress to
+     */
+    long maxDecompressedLength(int compressedLength);
+
+    /**
+     * Compresses {@code src[0, length)} into {@code dst} starting at {@code offset}.
+     *
+     * @return the number of bytes written
+     */
+    int compress(byte[] src, int length, byte[] dst, int offset);
+
+    /**
+     * Decompresses {@code src[offset, offset + length)} into {@code dst}, which is exactly as long as the
+     * original input.
+     *
+     * @throws IllegalArgumentException if the payload is corrupt or does not decompress to {@code dst.length}
+     * bytes
+     */
+    void decompress(byte[] src, int offset, int length, byte[] dst);
+}
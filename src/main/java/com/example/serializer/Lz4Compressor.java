@@ -0,0 +1,61 @@
+package com.example.serializer;
+
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Exception;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4SafeDecompressor;
+
+/**
+ * LZ4 block compression through the fastest implementation lz4-java finds, JNI if available.
+ */
+public class Lz4Compressor implements Compressor {
+
+    // each byte of a match length extension adds at most 255 bytes of output, the densest LZ4 gets
+    private static final int MAX_RATIO = 255;
+
+    public static final Lz4Compressor INSTANCE = new Lz4Compressor();
+
+    private final LZ4Compressor compressor;
+
+    private final LZ4SafeDecompressor decompressor;
+
+    private Lz4Compressor() {
+        final LZ4Factory factory = LZ4Factory.fastestInstance();
+        this.compressor = factory.fastCompressor();
+        this.decompressor = factory.safeDecompressor();
+    }
+
+    @Override
+    public byte tag() {
+        return CompressingRedisSerializer.LZ4;
+    }
+
+    @Override
+    public int maxCompressedLength(int length) {
+        return compressor.maxCompressedLength(length);
+    }
+
+    @Override
+    public long maxDecompressedLength(int compressedLength) {
+        return (long) compressedLength * MAX_RATIO;
+    }
+
+    @Override
+    public int compress(byte[] src, int length, byte[] dst, int offset) {
+        return compressor.compress(src, 0, length, dst, offset, dst.length - offset);
+    }
+
+    @Override
+    public void decompress(byte[] src, int offset, int length, byte[] dst) {
+        final int decompressed;
+        try {
+            decompressed = decompressor.decompress(src, offset, length, dst, 0, dst.length);
+        } catch (LZ4Exception e) {
+            throw new IllegalArgumentException("Corrupt LZ4 payload", e);
+        }
+        if (decompressed != dst.length) {
+            throw new IllegalArgumentException("LZ4 payload decompressed to " + decompressed + " bytes instead of "
+                    + dst.length);
+        }
+    }
+}
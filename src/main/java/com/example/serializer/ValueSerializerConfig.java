@@ -0,0 +1,66 @@
+package com.example.serializer;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * The value serializer of the templates of both client profiles. {@code redis.compression.algorithm} is
+ * {@code none}, {@code lz4} or {@code zstd}; values of at least {@code redis.compression.threshold-bytes} are
+ * compressed, and compressed values declaring more than {@code redis.compression.max-value-bytes} are rejected
+ * when read. Zstd needs {@code redis.compression.zstd.dictionary}, a resource location of a dictionary trained
+ * with {@link ZstdDictionaryCompressor#train}.
+ * <p>
+ * The {@link BinaryTypeRegistry} of the object templates collects every {@link BinarySchema} bean.
+ */
+@Configuration
+public class ValueSerializerConfig {
+
+    @Bean
+    RedisSerializer<String> redisValueSerializer(@Value("${redis.compression.algorithm:none}") String algorithm,
+                                                 @Value("${redis.compression.threshold-bytes:512}") int threshold,
+                                                 @Value("${redis.compression.zstd.dictionary:}") String dictionary,
+                                                 @Value("${redis.compression.zstd.level:3}") int level,
+                                                 @Value("${redis.compression.max-value-bytes:67108864}") int maxValue,
+                                                 ResourceLoader resourceLoader) {
+        final StringRedisSerializer serializer = new StringRedisSerializer();
+        switch (algorithm) {
+            case "none":
+                return serializer;
+            case "lz4":
+                return new CompressingRedisSerializer<>(serializer, Lz4Compressor.INSTANCE, threshold, maxValue);
+            case "zstd":
+                if (dictionary.isEmpty()) {
+                    throw new IllegalStateException("redis.compression.zstd.dictionary is required for zstd");
+                }
+                return new CompressingRedisSerializer<>(serializer,
+                        new ZstdDictionaryCompressor(read(resourceLoader, dictionary), level), threshold, maxValue);
+            default:
+                throw new IllegalArgumentException("Unknown redis.compression.algorithm: " + algorithm);
+        }
+    }
+
+    @Bean
+    BinaryTypeRegistry binaryTypeRegistry(ObjectProvider<BinarySchema<?>> schemas) {
+        final BinaryTypeRegistry registry = new BinaryTypeRegistry();
+        schemas.orderedStream().forEach(registry::register);
+        return registry;
+    }
+
+    private static byte[] read(ResourceLoader resourceLoader, String location) {
+        try (InputStream in = resourceLoader.getResource(location).getInputStream()) {
+            return StreamUtils.copyToByteArray(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read the zstd dictionary " + location, e);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.serializer;
+
+import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdDictCompress;
+import com.github.luben.zstd.ZstdDictDecompress;
+import com.github.luben.zstd.ZstdDictTrainer;
+
+import java.util.Collection;
+
+/**
+ * Zstd with a dictionary trained on sample values. Small values share little with themselves but a lot with each
+ * other, so a dictionary is what makes values of a few hundred bytes compress at all. Every writer and reader of
+ * the data needs the same dictionary; store it next to the application, not in Redis.
+ * <p>
+ * Needs {@code com.github.luben:zstd-jni} at runtime, which is an optional dependency.
+ */
+public class ZstdDictionaryCompressor implements Compressor {
+
+    private static final int MAX_BLOCK_SIZE = 128 * 1024;
+
+    private final ZstdDictCompress compressDictionary;
+
+    private final ZstdDictDecompress decompressDictionary;
+
+    /**
+     * @param dictionary a dictionary from {@link #train}
+     * @param level      zstd compression level, 3 is zstd's default
+     */
+    public ZstdDictionaryCompressor(byte[] dictionary, int level) {
+        this.compressDictionary = new ZstdDictCompress(dictionary, level);
+        this.decompressDictionary = new ZstdDictDecompress(dictionary);
+    }
+
+    /**
+     * Trains a dictionary of at most {@code dictionarySize} bytes, about 100 times smaller than the samples.
+     */
+    public static byte[] train(Collection<byte[]> samples, int dictionarySize) {
+        long total = 0;
+        for (byte[] sample : samples) {
+            total += sample.length;
+        }
+        final ZstdDictTrainer trainer = new ZstdDictTrainer((int) Math.min(total, Integer.MAX_VALUE), dictionarySize);
+        for (byte[] sample : samples) {
+            trainer.addSample(sample);
+        }
+        return trainer.trainSamples();
+    }
+
+    @Override
+    public byte tag() {
+        return CompressingRedisSerializer.ZSTD;
+    }
+
+    @Override
+    public int maxCompressedLength(int length) {
+        return (int) Zstd.compressBound(length);
+    }
+
+    @Override
+    public long maxDecompressedLength(int compressedLength) {
+        // a 4-byte RLE block expands to at most one 128 KiB block
+        return (long) compressedLength * (MAX_BLOCK_SIZE / 4);
+    }
+
+    @Override
+    public int compress(byte[] src, int length, byte[] dst, int offset) {
+        final long written = Zstd.compressFastDict(dst, offset, src, 0, length, compressDictionary);
+        if (Zstd.isError(written)) {
+            throw new IllegalStateException("Zstd compression failed: " + Zstd.getErrorName(written));
+        }
+        return (int) written;
+    }
+
+    @Override
+    public void decompress(byte[] src, int offset, int length, byte[] dst) {
+        final long decompressed = Zstd.decompressFastDict(dst, 0, src, offset, length, decompressDictionary);
+        if (Zstd.isError(decompressed)) {
+            throw new IllegalArgumentException("Corrupt Zstd payload: " + Zstd.getErrorName(decompressed));
+        }
+        if (decompressed != dst.length) {
+            throw new IllegalArgumentException("Zstd payload decompressed to " + decompressed + " bytes instead of "
+                    + dst.length);
+        }
+    }
+}
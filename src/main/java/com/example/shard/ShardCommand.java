@@ -0,0 +1,58 @@
+package com.example.shard;
+
+import org.springframework.data.redis.serializer.RedisSerializer;
+import redis.clients.jedis.Client;
+
+/**
+ * The commands a {@link ShardExecutor} routes, each written straight to the worker's {@link Client} and its raw
+ * reply converted to what the matching {@code RedisTemplate} operation returns.
+ */
+enum ShardCommand {
+
+    GET {
+        @Override
+        void send(Client client, byte[] key, byte[] value) {
+            client.get(key);
+        }
+
+        @Override
+        Object convert(Object reply, RedisSerializer<?> valueSerializer) {
+            return valueSerializer.deserialize((byte[]) reply);
+        }
+    },
+
+    SET {
+        @Override
+        void send(Client client, byte[] key, byte[] value) {
+            client.set(key, value);
+        }
+
+        @Override
+        Object convert(Object reply, RedisSerializer<?> valueSerializer) {
+            return reply != null;
+        }
+    },
+
+    DEL {
+        @Override
+        void send(Client client, byte[] key, byte[] value) {
+            client.del(key);
+        }
+    },
+
+    INCR {
+        @Override
+        void send(Client client, byte[] key, byte[] value) {
+            client.incr(key);
+        }
+    };
+
+    abstract void send(Client client, byte[] key, byte[] value);
+
+    /**
+     * @param reply the reply as read by {@link Client#getOne()}
+     */
+    Object convert(Object reply, RedisSerializer<?> valueSerializer) {
+        return reply;
+    }
+}
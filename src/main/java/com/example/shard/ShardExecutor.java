@@ -0,0 +1,193 @@
+package com.example.shard;
+
+import com.example.cluster.ClusterSlots;
+import org.springframework.data.redis.ClusterStateFailureException;
+import org.springframework.data.redis.TooManyClusterRedirectionsException;
+import org.springframework.data.redis.connection.RedisClusterConnection;
+import org.springframework.data.redis.connection.RedisClusterNode;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.exceptions.JedisAskDataException;
+import redis.clients.jedis.exceptions.JedisRedirectionException;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Thread-per-shard execution of single-key commands from many threads. Every cluster master gets one
+ * {@link ShardWorker} that owns a dedicated connection to it; commands are routed to the worker of their key's
+ * slot and each worker writes whatever queued up since its last cycle as one pipeline. Under load the pipelines
+ * deepen by themselves, while an idle executor sends every command on its own without lingering.
+ * <p>
+ * Futures are completed on the worker threads, so blocking dependent actions stall a whole master and belong in
+ * the {@code ...Async} variants. {@code MOVED} replies repoint the slot to the worker of the new owner, which is
+ * started on first use, and {@code ASK} replies requeue the command there once; a command fails with
+ * {@link TooManyClusterRedirectionsException} after {@value #MAX_REDIRECTS} redirects. Like the bulk loader, the
+ * workers connect over plain TCP, without {@code AUTH} or TLS.
+ */
+public class ShardExecutor<K, V> implements AutoCloseable {
+
+    static final int MAX_REDIRECTS = 5;
+
+    private final RedisSerializer<K> keySerializer;
+
+    private final RedisSerializer<V> valueSerializer;
+
+    private final ShardPolicy policy;
+
+    private final Map<String, ShardWorker> workers = new ConcurrentHashMap<>();
+
+    private final AtomicReferenceArray<ShardWorker> owners = new AtomicReferenceArray<>(ClusterSlots.SLOT_COUNT);
+
+    private volatile boolean closed;
+
+    /**
+     * Starts a worker for every master currently serving slots.
+     */
+    @SuppressWarnings("unchecked")
+    public ShardExecutor(RedisTemplate<K, V> template, ShardPolicy policy) {
+        this.keySerializer = (RedisSerializer<K>) template.getKeySerializer();
+        this.valueSerializer = (RedisSerializer<V>) template.getValueSerializer();
+        this.policy = policy;
+        connect(template.getRequiredConnectionFactory());
+    }
+
+    private void connect(RedisConnectionFactory connectionFactory) {
+        try (RedisClusterConnection connection = connectionFactory.getClusterConnection()) {
+            for (RedisClusterNode node : connection.clusterGetNodes()) {
+                if (!node.isMaster() || node.getSlotRange().getSlots().isEmpty()) {
+                    continue;
+                }
+                final ShardWorker worker = worker(node.getHost(), node.getPort());
+                for (int slot : node.getSlotRange().getSlotsArray()) {
+                    owners.set(slot, worker);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return a future of the value, {@code null} if the key does not exist
+     */
+    @SuppressWarnings("unchecked")
+    public CompletableFuture<V> get(K key) {
+        return (CompletableFuture<V>) (CompletableFuture<?>) submit(ShardCommand.GET, key, null);
+    }
+
+    /**
+     * @return a future of whether the value was set
+     */
+    @SuppressWarnings("unchecked")
+    public CompletableFuture<Boolean> set(K key, V value) {
+        return (CompletableFuture<Boolean>) (CompletableFuture<?>) submit(ShardCommand.SET, key, value);
+    }
+
+    /**
+     * @return a future of the number of keys deleted
+     */
+    @SuppressWarnings("unchecked")
+    public CompletableFuture<Long> delete(K key) {
+        return (CompletableFuture<Long>) (CompletableFuture<?>) submit(ShardCommand.DEL, key, null);
+    }
+
+    /**
+     * @return a future of the value after the increment
+     */
+    @SuppressWarnings("unchecked")
+    public CompletableFuture<Long> increment(K key) {
+        return (CompletableFuture<Long>) (CompletableFuture<?>) submit(ShardCommand.INCR, key, null);
+    }
+
+    private CompletableFuture<Object> submit(ShardCommand command, K key, V value) {
+        final byte[] rawKey = keySerializer.serialize(key);
+        final ShardTask task = new ShardTask(command, rawKey,
+                value != null ? valueSerializer.serialize(value) : null, ClusterSlots.slot(rawKey));
+        final ShardWorker worker = owners.get(task.slot);
+        if (closed) {
+            task.fail(closed());
+        } else if (worker == null) {
+            task.fail(new ClusterStateFailureException("No master serves slot " + task.slot));
+        } else if (!worker.submit(task, true)) {
+            task.fail(closed());
+        }
+        return task.future;
+    }
+
+    /**
+     * Requeues a task on the worker of the redirect's target. Called by the workers.
+     */
+    void redirect(ShardTask task, JedisRedirectionException redirect) {
+        if (++task.redirects > MAX_REDIRECTS) {
+            task.fail(new TooManyClusterRedirectionsException(
+                    "No more redirects allowed after " + MAX_REDIRECTS + " attempts for slot " + task.slot));
+            return;
+        }
+        final HostAndPort target = redirect.getTargetNode();
+        final ShardWorker worker;
+        try {
+            worker = worker(target.getHost(), target.getPort());
+        } catch (RejectedExecutionException e) {
+            task.fail(e);
+            return;
+        }
+        task.asking = redirect instanceof JedisAskDataException;
+        if (!task.asking) {
+            owners.set(redirect.getSlot(), worker);
+        }
+        if (!worker.submit(task, false)) {
+            task.fail(closed());
+        }
+    }
+
+    private ShardWorker worker(String host, int port) {
+        return workers.computeIfAbsent(host + ":" + port, address -> {
+            if (closed) {
+                throw closed();
+            }
+            return new ShardWorker(host, port, policy, this);
+        });
+    }
+
+    RedisSerializer<V> getValueSerializer() {
+        return valueSerializer;
+    }
+
+    RejectedExecutionException closed() {
+        return new RejectedExecutionException("Shard executor is closed");
+    }
+
+    /**
+     * @return the number of masters with a worker, including former owners of moved slots
+     */
+    public int getWorkerCount() {
+        return workers.size();
+    }
+
+    /**
+     * Stops accepting commands and waits up to the policy timeout for the queued ones.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (ShardWorker worker : workers.values()) {
+            worker.close();
+        }
+        try {
+            for (ShardWorker worker : workers.values()) {
+                worker.awaitTermination(policy.getTimeout().toMillis());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ShardExecutor[workers=" + workers.values() + ", policy=" + policy + "]";
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.shard;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.time.Duration;
+
+/**
+ * A {@link ShardExecutor} with the serializers of {@code redisTemplateNonTransaction}, for either client profile,
+ * turned on with {@code redis.shard-executor.enabled=true}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "redis.shard-executor.enabled")
+public class ShardExecutorConfig {
+
+    @Bean
+    ShardPolicy shardPolicy(@Value("${redis.shard-executor.max-batch:1024}") int maxBatch,
+                            @Value("${redis.shard-executor.max-pending:16384}") int maxPending,
+                            @Value("${redis.shard-executor.timeout-ms:2000}") long timeout) {
+        return new ShardPolicy(maxBatch, maxPending, Duration.ofMillis(timeout));
+    }
+
+    @Bean(destroyMethod = "close")
+    ShardExecutor<String, String> shardExecutor(
+            @Qualifier("redisTemplateNonTransaction") RedisTemplate<String, String> template,
+            ShardPolicy shardPolicy) {
+        return new ShardExecutor<>(template, shardPolicy);
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.shard;
+
+import java.time.Duration;
+
+/**
+ * Limits of a {@link ShardExecutor}: a worker writes at most {@code maxBatch} commands per flush and holds at
+ * most {@code maxPending} queued commands, submitters wait for space beyond that. Connecting to a master and
+ * every reply are bounded by {@code timeout}.
+ */
+public class ShardPolicy {
+
+    private final int maxBatch;
+
+    private final int maxPending;
+
+    private final Duration timeout;
+
+    public ShardPolicy(int maxBatch, int maxPending, Duration timeout) {
+        if (maxBatch < 1 || maxPending < maxBatch || timeout.isNegative() || timeout.isZero()) {
+            throw new IllegalArgumentException(
+                    "maxBatch must be positive, maxPending at least maxBatch and timeout positive");
+        }
+        this.maxBatch = maxBatch;
+        this.maxPending = maxPending;
+        this.timeout = timeout;
+    }
+
+    /**
+     * Batches of up to 1024 commands, 16 batches queued per master and a two second timeout, enough for a few
+     * hundred submitting threads without letting a slow master buffer an unbounded backlog.
+     */
+    public static ShardPolicy defaults() {
+        return new ShardPolicy(1024, 16 * 1024, Duration.ofSeconds(2));
+    }
+
+    public int getMaxBatch() {
+        return maxBatch;
+    }
+
+    public int getMaxPending() {
+        return maxPending;
+    }
+
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    @Override
+    public String toString() {
+        return "ShardPolicy[maxBatch=" + maxBatch + ", maxPending=" + maxPending + ", timeout=" + timeout + "]";
+    }
+}
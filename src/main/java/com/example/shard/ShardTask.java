@@ -0,0 +1,59 @@
+package com.example.shard;
+
+import org.springframework.data.redis.serializer.RedisSerializer;
+import redis.clients.jedis.Client;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A submitted command and the future its reply completes. Only the worker currently holding the task touches its
+ * redirect state; handing it over through a worker queue publishes it.
+ */
+final class ShardTask {
+
+    final ShardCommand command;
+
+    final byte[] key;
+
+    final byte[] value;
+
+    final int slot;
+
+    final CompletableFuture<Object> future = new CompletableFuture<>();
+
+    int redirects;
+
+    boolean asking;
+
+    ShardTask(ShardCommand command, byte[] key, byte[] value, int slot) {
+        this.command = command;
+        this.key = key;
+        this.value = value;
+        this.slot = slot;
+    }
+
+    /**
+     * Writes the command, preceded by {@code ASKING} if the slot is being imported by the worker's master.
+     */
+    void send(Client client) {
+        if (asking) {
+            client.asking();
+        }
+        command.send(client, key, value);
+    }
+
+    void complete(Object reply, RedisSerializer<?> valueSerializer) {
+        final Object result;
+        try {
+            result = command.convert(reply, valueSerializer);
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            return;
+        }
+        future.complete(result);
+    }
+
+    void fail(Throwable failure) {
+        future.completeExceptionally(failure);
+    }
+}
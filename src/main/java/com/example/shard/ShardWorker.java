@@ -0,0 +1,164 @@
+package com.example.shard;
+
+import com.example.cluster.NodeQueue;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.jedis.JedisConverters;
+import redis.clients.jedis.Client;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.jedis.exceptions.JedisRedirectionException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The worker of one cluster master: any number of submitting threads, one worker thread that owns the only
+ * connection to the master and consumes a {@link NodeQueue}. Each cycle the worker takes whatever is queued, up
+ * to {@link ShardPolicy#getMaxBatch()} commands, writes all of them before the first read flushes the connection's
+ * buffer, and then reads the replies in order, so the pipeline is as deep as the queue. The worker parks while the
+ * queue is empty.
+ */
+final class ShardWorker implements Runnable {
+
+    private final String host;
+
+    private final int port;
+
+    private final ShardPolicy policy;
+
+    private final ShardExecutor<?, ?> executor;
+
+    private final NodeQueue<ShardTask> queue;
+
+    // the tasks of the current cycle, each replaced by null once answered or handed to another worker
+    private final List<ShardTask> batch;
+
+    private final Thread worker;
+
+    private Client client;
+
+    ShardWorker(String host, int port, ShardPolicy policy, ShardExecutor<?, ?> executor) {
+        this.host = host;
+        this.port = port;
+        this.policy = policy;
+        this.executor = executor;
+        this.batch = new ArrayList<>(policy.getMaxBatch());
+        this.worker = new Thread(this, "shard-" + host + ":" + port);
+        this.worker.setDaemon(true);
+        this.queue = new NodeQueue<>(worker, policy.getMaxPending(), task -> task.fail(executor.closed()));
+        this.worker.start();
+    }
+
+    /**
+     * Queues a task, waiting while {@link ShardPolicy#getMaxPending()} tasks are queued. Redirected tasks are
+     * requeued by other workers with {@code wait} off, so that two full workers never wait for each other.
+     *
+     * @return {@code false} if the worker was closed while its queue was full
+     */
+    boolean submit(ShardTask task, boolean wait) {
+        if (!wait) {
+            queue.add(task);
+            return true;
+        }
+        return queue.offer(task, Long.MAX_VALUE);
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (queue.isOpen() || !queue.isEmpty()) {
+                final int count = queue.drainTo(batch, policy.getMaxBatch());
+                if (count == 0) {
+                    queue.awaitItems();
+                    continue;
+                }
+                execute(count);
+                batch.clear();
+            }
+        } finally {
+            disconnect();
+            queue.terminate();
+        }
+    }
+
+    private void execute(int count) {
+        try {
+            if (client == null) {
+                client = connect();
+            }
+            for (int i = 0; i < count; i++) {
+                batch.get(i).send(client);
+            }
+            for (int i = 0; i < count; i++) {
+                read(batch.get(i));
+                batch.set(i, null);
+            }
+        } catch (JedisConnectionException e) {
+            disconnect();
+            final DataAccessException failure = JedisConverters.toDataAccessException(e);
+            for (int i = 0; i < count; i++) {
+                final ShardTask task = batch.get(i);
+                if (task != null) {
+                    task.fail(failure);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the reply of the task, and the one of its {@code ASKING} first. An error reply to {@code ASKING} is
+     * dropped: the command then ran without it and its own reply, usually a redirect, tells what happened.
+     */
+    private void read(ShardTask task) {
+        if (task.asking) {
+            try {
+                client.getOne();
+            } catch (JedisDataException e) {
+                // the command's reply follows either way
+            }
+        }
+        try {
+            task.complete(client.getOne(), executor.getValueSerializer());
+        } catch (JedisRedirectionException e) {
+            executor.redirect(task, e);
+        } catch (JedisDataException e) {
+            task.fail(JedisConverters.toDataAccessException(e));
+        }
+    }
+
+    private Client connect() {
+        final int timeout = (int) policy.getTimeout().toMillis();
+        final Client connection = new Client(host, port);
+        connection.setConnectionTimeout(timeout);
+        connection.setSoTimeout(timeout);
+        connection.connect();
+        return connection;
+    }
+
+    private void disconnect() {
+        if (client != null) {
+            try {
+                client.close();
+            } catch (JedisConnectionException e) {
+                // the connection is discarded either way
+            }
+            client = null;
+        }
+    }
+
+    /**
+     * Stops taking tasks; those queued already are still executed.
+     */
+    void close() {
+        queue.close();
+    }
+
+    void awaitTermination(long millis) throws InterruptedException {
+        worker.join(millis);
+    }
+
+    @Override
+    public String toString() {
+        return "ShardWorker[" + host + ":" + port + ", size=" + queue.size() + "]";
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.writebehind;
+
+import com.example.cluster.NodeQueue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * The write queue of one cluster node: any number of writer threads, one flusher thread consuming a
+ * {@link NodeQueue}. The flusher parks until a batch is full or the linger time of the oldest write has passed.
+ */
+final class NodeLane implements Runnable {
+
+    private final String name;
+
+    private final WriteBehindPolicy policy;
+
+    private final WriteBehindBatcher<?, ?> batcher;
+
+    private final NodeQueue<PendingWrite> queue;
+
+    private final Thread flusher;
+
+    NodeLane(String name, WriteBehindPolicy policy, WriteBehindBatcher<?, ?> batcher) {
+        this.name = name;
+        this.policy = policy;
+        this.batcher = batcher;
+        this.flusher = new Thread(this, "write-behind-" + name);
+        this.flusher.setDaemon(true);
+        this.queue = new NodeQueue<>(flusher, policy.getQueueCapacity(), write -> batcher.fail(write,
+                new RejectedExecutionException("Write-behind batcher is closed")));
+        this.flusher.start();
+    }
+
+    /**
+     * @return {@code false} if the queue stayed full until the deadline
+     */
+    boolean offer(PendingWrite write, long deadline) {
+        write.enqueuedAt = System.nanoTime();
+        return queue.offer(write, deadline);
+    }
+
+    @Override
+    public void run() {
+        try {
+            flushUntilClosed();
+        } finally {
+            queue.terminate();
+        }
+    }
+
+    private void flushUntilClosed() {
+        final List<PendingWrite> batch = new ArrayList<>(policy.getMaxBatch());
+        while (queue.isOpen() || !queue.isEmpty()) {
+            final int pending = queue.size();
+            if (pending == 0) {
+                queue.awaitItems();
+                continue;
+            }
+            final PendingWrite oldest = queue.peek();
+            if (oldest == null) {
+                // a writer reserved space but has not enqueued yet
+                Thread.yield();
+                continue;
+            }
+            final long wait = oldest.enqueuedAt + policy.lingerNanos() - System.nanoTime();
+            if (pending < policy.getMaxBatch() && wait > 0 && queue.isOpen()) {
+                queue.awaitSize(policy.getMaxBatch(), wait);
+                continue;
+            }
+
+            queue.drainTo(batch, policy.getMaxBatch());
+            batcher.flush(batch);
+            batch.clear();
+        }
+    }
+
+    void close() {
+        queue.close();
+    }
+
+    void awaitTermination(long millis) throws InterruptedException {
+        flusher.join(millis);
+    }
+
+    @Override
+    public String toString() {
+        return "NodeLane[" + name + ", size=" + queue.size() + "]";
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.writebehind;
+
+import com.example.cluster.ClusterSlots;
+import org.springframework.data.redis.connection.RedisConnection;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A queued {@code SET} or {@code DEL} and the future its reply completes.
+ */
+final class PendingWrite {
+
+    final byte[] key;
+
+    final byte[] value;
+
+    final int slot;
+
+    final CompletableFuture<Object> future = new CompletableFuture<>();
+
+    /**
+     * When the write was queued, for the linger of the oldest write still queued.
+     */
+    long enqueuedAt;
+
+    private PendingWrite(byte[] key, byte[] value) {
+        this.key = key;
+        this.value = value;
+        this.slot = ClusterSlots.slot(key);
+    }
+
+    static PendingWrite set(byte[] key, byte[] value) {
+        return new PendingWrite(key, value);
+    }
+
+    static PendingWrite delete(byte[] key) {
+        return new PendingWrite(key, null);
+    }
+
+    void issue(RedisConnection connection) {
+        if (value != null) {
+            connection.set(key, value);
+        } else {
+            connection.del(key);
+        }
+    }
+}
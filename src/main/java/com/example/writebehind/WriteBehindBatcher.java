@@ -0,0 +1,205 @@
+package com.example.writebehind;
+
+import com.example.cluster.ClusterNodeIndex;
+import com.example.cluster.ClusterSlots;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.RedisClusterConnection;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisPipelineException;
+import org.springframework.data.redis.core.RedisConnectionUtils;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Write-behind for {@code SET}/{@code DEL} traffic from many threads. Writes are queued per cluster node and
+ * each node's flusher sends them as one pipeline when a batch is full or has lingered long enough, so one round
+ * trip is shared by all callers whose writes it carries. Every write returns a future of its reply; a writer
+ * whose node queue is full waits for space up to the offer timeout and then gets a future failed with
+ * {@link RejectedExecutionException}.
+ * <p>
+ * Writers only read the node index. It is reloaded by whichever flusher sends the next batch after it went stale,
+ * so a writer never waits for {@code CLUSTER NODES}; until the first load all writes share one lane. The writes of
+ * a slot stay on the lane that still holds earlier ones of it and follow a new owner only once those are flushed,
+ * so a write is never overtaken by a later write of the same key on another lane.
+ */
+public class WriteBehindBatcher<K, V> implements AutoCloseable {
+
+    private final RedisConnectionFactory connectionFactory;
+
+    private final RedisSerializer<K> keySerializer;
+
+    private final RedisSerializer<V> valueSerializer;
+
+    private final WriteBehindPolicy policy;
+
+    private final ClusterNodeIndex nodes = new ClusterNodeIndex();
+
+    private final NodeLane[] lanes = new NodeLane[ClusterNodeIndex.MAX_NODES + 1];
+
+    // per slot, the lane holding its unflushed writes in the high half and their number in the low half
+    private final AtomicLongArray slotLanes = new AtomicLongArray(ClusterSlots.SLOT_COUNT);
+
+    private volatile boolean clustered = true;
+
+    private volatile boolean closed;
+
+    @SuppressWarnings("unchecked")
+    public WriteBehindBatcher(RedisTemplate<K, V> template, WriteBehindPolicy policy) {
+        this.connectionFactory = template.getRequiredConnectionFactory();
+        this.keySerializer = (RedisSerializer<K>) template.getKeySerializer();
+        this.valueSerializer = (RedisSerializer<V>) template.getValueSerializer();
+        this.policy = policy;
+    }
+
+    /**
+     * @return a future of whether the value was set
+     */
+    @SuppressWarnings("unchecked")
+    public CompletableFuture<Boolean> set(K key, V value) {
+        final PendingWrite write = PendingWrite.set(keySerializer.serialize(key), valueSerializer.serialize(value));
+        enqueue(write);
+        return (CompletableFuture<Boolean>) (CompletableFuture<?>) write.future;
+    }
+
+    /**
+     * @return a future of the number of keys deleted
+     */
+    @SuppressWarnings("unchecked")
+    public CompletableFuture<Long> delete(K key) {
+        final PendingWrite write = PendingWrite.delete(keySerializer.serialize(key));
+        enqueue(write);
+        return (CompletableFuture<Long>) (CompletableFuture<?>) write.future;
+    }
+
+    private void enqueue(PendingWrite write) {
+        if (closed) {
+            write.future.completeExceptionally(new RejectedExecutionException("Write-behind batcher is closed"));
+            return;
+        }
+        final long deadline = System.nanoTime() + policy.getOfferTimeout().toNanos();
+        final int node = claimLane(write.slot);
+        if (!lane(node).offer(write, deadline)) {
+            fail(write, new RejectedExecutionException(
+                    "Write queue of node " + nodes.name(node) + " stayed full for " + policy.getOfferTimeout()));
+        }
+    }
+
+    /**
+     * @return the lane still holding unflushed writes of the slot, otherwise the lane of the slot's owner
+     */
+    private int claimLane(int slot) {
+        while (true) {
+            final long state = slotLanes.get(slot);
+            final long unflushed = state & 0xFFFFFFFFL;
+            final int lane = unflushed == 0 ? nodes.node(slot) : (int) (state >>> 32);
+            if (slotLanes.compareAndSet(slot, state, ((long) lane << 32) | (unflushed + 1))) {
+                return lane;
+            }
+        }
+    }
+
+    private void refreshNodes() {
+        final RedisConnection connection = RedisConnectionUtils.getConnection(connectionFactory);
+        try {
+            if (connection instanceof RedisClusterConnection) {
+                nodes.refresh((RedisClusterConnection) connection);
+            } else {
+                clustered = false;
+            }
+        } catch (DataAccessException e) {
+            // writes go to the shared UNKNOWN lane until a refresh succeeds
+        } finally {
+            RedisConnectionUtils.releaseConnection(connection, connectionFactory);
+        }
+    }
+
+    private NodeLane lane(int node) {
+        NodeLane lane = lanes[node];
+        if (lane == null) {
+            synchronized (lanes) {
+                lane = lanes[node];
+                if (lane == null) {
+                    lane = new NodeLane(nodes.name(node), policy, this);
+                    lanes[node] = lane;
+                }
+            }
+        }
+        return lane;
+    }
+
+    /**
+     * Sends one batch as a pipeline and completes the futures of its writes, reloading the node index first if it
+     * is stale. Called by the lane flushers.
+     */
+    void flush(List<PendingWrite> batch) {
+        if (clustered && nodes.isStale()) {
+            refreshNodes();
+        }
+        List<Object> results;
+        final RedisConnection connection = RedisConnectionUtils.getConnection(connectionFactory);
+        try {
+            connection.openPipeline();
+            for (PendingWrite write : batch) {
+                write.issue(connection);
+            }
+            results = connection.closePipeline();
+        } catch (RedisPipelineException e) {
+            results = e.getPipelineResult();
+        } catch (RuntimeException e) {
+            for (PendingWrite write : batch) {
+                fail(write, e);
+            }
+            return;
+        } finally {
+            RedisConnectionUtils.releaseConnection(connection, connectionFactory);
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            final PendingWrite write = batch.get(i);
+            final Object result = i < results.size() ? results.get(i) : null;
+            if (result instanceof Throwable) {
+                fail(write, (Throwable) result);
+            } else {
+                slotLanes.decrementAndGet(write.slot);
+                write.future.complete(result);
+            }
+        }
+    }
+
+    /**
+     * Fails a write that left its lane, so later writes of its slot no longer wait for it to follow a new owner.
+     */
+    void fail(PendingWrite write, Throwable failure) {
+        slotLanes.decrementAndGet(write.slot);
+        write.future.completeExceptionally(failure);
+    }
+
+    /**
+     * Stops accepting writes and flushes what is queued.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (NodeLane lane : lanes) {
+            if (lane != null) {
+                lane.close();
+            }
+        }
+        try {
+            for (NodeLane lane : lanes) {
+                if (lane != null) {
+                    lane.awaitTermination(TimeUnit.SECONDS.toMillis(5));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.writebehind;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits of a {@link WriteBehindBatcher}: a node's queued writes are flushed once {@code maxBatch} are waiting
+ * or {@code lingerMicros} after the first of them. A node queue holds at most {@code queueCapacity} writes;
+ * further writers wait up to {@code offerTimeout} for space.
+ */
+public class WriteBehindPolicy {
+
+    private final int maxBatch;
+
+    private final long lingerMicros;
+
+    private final int queueCapacity;
+
+    private final Duration offerTimeout;
+
+    public WriteBehindPolicy(int maxBatch, long lingerMicros, int queueCapacity, Duration offerTimeout) {
+        if (maxBatch < 1 || lingerMicros < 0 || queueCapacity < maxBatch) {
+            throw new IllegalArgumentException(
+                    "maxBatch must be positive, lingerMicros not negative and queueCapacity at least maxBatch");
+        }
+        this.maxBatch = maxBatch;
+        this.lingerMicros = lingerMicros;
+        this.queueCapacity = queueCapacity;
+        this.offerTimeout = offerTimeout;
+    }
+
+    public int getMaxBatch() {
+        return maxBatch;
+    }
+
+    public long getLingerMicros() {
+        return lingerMicros;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public Duration getOfferTimeout() {
+        return offerTimeout;
+    }
+
+    long lingerNanos() {
+        return TimeUnit.MICROSECONDS.toNanos(lingerMicros);
+    }
+
+    @Override
+    public String toString() {
+        return "WriteBehindPolicy[maxBatch=" + maxBatch + ", lingerMicros=" + lingerMicros + ", queueCapacity="
+                + queueCapacity + ", offerTimeout=" + offerTimeout + "]";
+    }
+}
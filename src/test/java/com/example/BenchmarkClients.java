@@ -0,0 +1,84 @@
+package com.example;
+
+import com.example.bootstrap.RedisClientSettings;
+import com.example.bootstrap.RedisClients;
+import com.example.embedded.EmbeddedRedisCluster;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.io.Closeable;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * {@link RedisClients} for one benchmark fork, started without a Spring context. They run against a three-master
+ * {@link EmbeddedRedisCluster} unless {@code -Dbenchmark.embedded=false}, in which case against the cluster in
+ * {@code -Dredis.cluster.nodes}.
+ */
+final class BenchmarkClients implements Closeable {
+
+    private final EmbeddedRedisCluster cluster;
+
+    private final RedisClients clients;
+
+    private BenchmarkClients(EmbeddedRedisCluster cluster, RedisClients clients) {
+        this.cluster = cluster;
+        this.clients = clients;
+    }
+
+    static boolean isEmbedded() {
+        return Boolean.parseBoolean(System.getProperty("benchmark.embedded", "true"));
+    }
+
+    static BenchmarkClients start(String client) {
+        return start(client, RedisClientSettings.builder());
+    }
+
+    /**
+     * @param settings everything but the client and the nodes, which are set here
+     */
+    static BenchmarkClients start(String client, RedisClientSettings.Builder settings) {
+        settings.client(RedisClientSettings.Client.valueOf(client.toUpperCase(Locale.ROOT)));
+        if (!isEmbedded()) {
+            settings.nodes(Arrays.asList(System.getProperty("redis.cluster.nodes", "0.0.0.0:7000").split(",")));
+            return new BenchmarkClients(null, RedisClients.start(settings.build()));
+        }
+        final EmbeddedRedisCluster cluster = EmbeddedRedisCluster.start(3);
+        try {
+            settings.nodes(cluster.getNodeAddresses());
+            return new BenchmarkClients(cluster, RedisClients.start(settings.build()));
+        } catch (RuntimeException e) {
+            cluster.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return the embedded cluster, {@code null} when running against a real one
+     */
+    EmbeddedRedisCluster getCluster() {
+        return cluster;
+    }
+
+    RedisClients getClients() {
+        return clients;
+    }
+
+    RedisTemplate<String, String> getTemplate() {
+        return clients.getTemplate();
+    }
+
+    RedisTemplate<String, String> getNonTransactionTemplate() {
+        return clients.getNonTransactionTemplate();
+    }
+
+    @Override
+    public void close() {
+        try {
+            clients.close();
+        } finally {
+            if (cluster != null) {
+                cluster.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.example;
+
+import com.example.embedded.EmbeddedRedisCluster;
+import com.example.load.KneeDetector;
+import com.example.load.LoadStep;
+import com.example.load.OpenLoopLoadGenerator;
+import com.example.workload.KeyDistribution;
+import com.example.workload.ValueSizes;
+import com.example.workload.Workload;
+import org.junit.Assume;
+import org.junit.Test;
+import org.springframework.boot.Banner;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Ramps every client and {@link WorkloadMode} through increasing constant arrival rates on the embedded cluster
+ * and prints each step and the knee of the throughput/p99 curve. Takes minutes, so it only runs with
+ * {@code -Dload.capacity=true}; {@code load.initialRate}, {@code load.factor}, {@code load.steps},
+ * {@code load.stepSeconds} and {@code load.batchDepth} tune the ramp, {@code load.distribution} picks the
+ * {@link KeyDistribution}.
+ */
+public class CapacityTests {
+
+    private static final int WORKERS = 200;
+
+    @Test
+    public void jedis() {
+        capacity("jedis");
+    }
+
+    @Test
+    public void lettuce() {
+        capacity("lettuce");
+    }
+
+    private static void capacity(String client) {
+        Assume.assumeTrue(Boolean.getBoolean("load.capacity"));
+
+        final ConfigurableApplicationContext context = new SpringApplicationBuilder(Application.class)
+                .bannerMode(Banner.Mode.OFF)
+                .profiles(client, "embedded")
+                .build()
+                .run();
+        try (OpenLoopLoadGenerator generator = new OpenLoopLoadGenerator(WORKERS, Duration.ofSeconds(10))) {
+            @SuppressWarnings("unchecked")
+            final RedisTemplate<String, String> redisTemplate =
+                    context.getBean("redisTemplateNonTransaction", RedisTemplate.class);
+            final RedisScript<Long> script = WorkloadMode.script();
+            WorkloadMode.registerScript(context.getBean(EmbeddedRedisCluster.class));
+            final int batchDepth = Integer.getInteger("load.batchDepth", 4);
+            final Workload workload = Workload.builder()
+                    .keys(KeyDistribution.of(System.getProperty("load.distribution", "uniform"), 100_000))
+                    .groupSize(batchDepth)
+                    .values(ValueSizes.fixed(20))
+                    .build();
+            final ThreadLocal<Batch> batches = ThreadLocal.withInitial(() -> new Batch(workload.cursor()));
+
+            for (WorkloadMode mode : WorkloadMode.values()) {
+                final List<LoadStep> steps = generator.ramp(
+                        Double.parseDouble(System.getProperty("load.initialRate", "500")),
+                        Double.parseDouble(System.getProperty("load.factor", "1.5")),
+                        Integer.getInteger("load.steps", 10),
+                        Duration.ofSeconds(Integer.getInteger("load.stepSeconds", 5)),
+                        () -> {
+                            final Batch batch = batches.get();
+                            batch.cursor.batch(batch.keys, batchDepth, mode.isSingleSlot());
+                            mode.execute(redisTemplate, script, batch.keys, batch.cursor.value());
+                        });
+
+                System.out.println(client + " " + mode.name().toLowerCase());
+                steps.forEach(step -> System.out.println("  " + step));
+                System.out.println("  knee: " + KneeDetector.knee(steps, 99));
+            }
+        } finally {
+            context.close();
+        }
+    }
+
+    private static final class Batch {
+
+        final Workload.Cursor cursor;
+
+        final List<String> keys = new ArrayList<>();
+
+        Batch(Workload.Cursor cursor) {
+            this.cursor = cursor;
+        }
+    }
+}
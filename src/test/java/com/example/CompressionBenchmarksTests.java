@@ -0,0 +1,197 @@
+package com.example;
+
+import com.example.serializer.ZstdDictionaryCompressor;
+import jmh.mbr.junit4.Microbenchmark;
+import org.junit.runner.RunWith;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.Banner;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code GET}/{@code SET} of JSON documents of about {@code valueSize} bytes with the value serializer configured
+ * by {@code codec}: {@code none}, {@code lz4} or {@code zstd} with a dictionary trained on similar documents.
+ * Values below the default 512 byte threshold are not compressed. Next to the throughput, {@code valueBytes}
+ * reports the value bytes put on the wire per second, and the {@code used_memory} the dataset takes in Redis is
+ * printed after loading it.
+ */
+@Measurement(iterations = 5, time = 2)
+@Warmup(iterations = 3, time = 2)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(16)
+@Fork(1)
+@RunWith(Microbenchmark.class)
+public class CompressionBenchmarksTests {
+
+    static final int KEYS = 10_000;
+
+    static final int DICTIONARY_SAMPLES = 2_000;
+
+    static final String[] NAMES = {"alice", "bob", "carol", "dave", "erin", "frank", "grace", "heidi"};
+
+    static final String[] COUNTRIES = {"KR", "US", "DE", "FR", "JP", "BR"};
+
+    static final String[] EVENTS = {"login", "logout", "purchase", "refund", "view", "search"};
+
+    @Benchmark
+    public String read(CompressionContext context, Traffic traffic) {
+        final int key = traffic.next();
+        traffic.valueBytes += context.storedSizes[key];
+        return context.redisTemplate.opsForValue().get(context.keys[key]);
+    }
+
+    @Benchmark
+    public void write(CompressionContext context, Traffic traffic) {
+        final int key = traffic.next();
+        traffic.valueBytes += context.storedSizes[key];
+        context.redisTemplate.opsForValue().set(context.keys[key], context.values[key]);
+    }
+
+    @State(Scope.Benchmark)
+    public static class CompressionContext {
+
+        @Param({"jedis", "lettuce"})
+        String client;
+
+        @Param({"none", "lz4", "zstd"})
+        String codec;
+
+        @Param({"128", "1024", "8192"})
+        int valueSize;
+
+        final String[] keys = new String[KEYS];
+
+        final String[] values = new String[KEYS];
+
+        final int[] storedSizes = new int[KEYS];
+
+        volatile ConfigurableApplicationContext context;
+
+        volatile RedisTemplate<String, String> redisTemplate;
+
+        Path dictionary;
+
+        @Setup
+        @SuppressWarnings("unchecked")
+        public void setup() throws IOException {
+            final Random random = new Random(42);
+            for (int i = 0; i < KEYS; i++) {
+                keys[i] = "document:" + i;
+                values[i] = document(random, i, valueSize);
+            }
+            final SpringApplicationBuilder builder = new SpringApplicationBuilder(Application.class)
+                    .bannerMode(Banner.Mode.OFF)
+                    .profiles(client, "embedded")
+                    .properties("redis.compression.algorithm=" + codec);
+            if (codec.equals("zstd")) {
+                this.dictionary = Files.createTempFile("redis-values", ".dict");
+                Files.write(dictionary, ZstdDictionaryCompressor.train(samples(), 16 * 1024));
+                builder.properties("redis.compression.zstd.dictionary=" + dictionary.toUri());
+            }
+            this.context = builder.build().run();
+            this.redisTemplate = context.getBean("redisTemplateNonTransaction", RedisTemplate.class);
+
+            final RedisSerializer<String> serializer = (RedisSerializer<String>) redisTemplate.getValueSerializer();
+            long raw = 0;
+            long stored = 0;
+            for (int i = 0; i < KEYS; i++) {
+                storedSizes[i] = serializer.serialize(values[i]).length;
+                raw += values[i].length();
+                stored += storedSizes[i];
+            }
+
+            final long before = usedMemory();
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (int i = 0; i < KEYS; i++) {
+                    connection.set(keys[i].getBytes(StandardCharsets.UTF_8), serializer.serialize(values[i]));
+                }
+                return null;
+            });
+            final long used = usedMemory() - before;
+            System.out.printf("%n%s %s %d-byte values: %d raw, %d stored (%.2f), used_memory %d (%d per key)%n",
+                    client, codec, valueSize, raw, stored, (double) stored / raw, used, used / KEYS);
+        }
+
+        private List<byte[]> samples() {
+            final Random random = new Random(7);
+            final List<byte[]> samples = new ArrayList<>(DICTIONARY_SAMPLES);
+            for (int i = 0; i < DICTIONARY_SAMPLES; i++) {
+                samples.add(document(random, KEYS + i, valueSize).getBytes(StandardCharsets.UTF_8));
+            }
+            return samples;
+        }
+
+        private long usedMemory() {
+            final Properties info = redisTemplate.execute((RedisCallback<Properties>) connection ->
+                    connection.info("memory"));
+            long used = 0;
+            for (String name : info.stringPropertyNames()) {
+                if (name.endsWith("used_memory")) {
+                    used += Long.parseLong(info.getProperty(name).trim());
+                }
+            }
+            return used;
+        }
+
+        @TearDown
+        public void clean() throws IOException {
+            this.context.close();
+            if (dictionary != null) {
+                Files.deleteIfExists(dictionary);
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Traffic {
+
+        public long valueBytes;
+
+        private int key;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            valueBytes = 0;
+        }
+
+        int next() {
+            key = (key + 1) % KEYS;
+            return key;
+        }
+    }
+
+    /**
+     * A user profile with an event history, long enough to reach {@code size} bytes.
+     */
+    static String document(Random random, int id, int size) {
+        final StringBuilder document = new StringBuilder(size + 64)
+                .append("{\"id\":").append(id)
+                .append(",\"name\":\"").append(NAMES[random.nextInt(NAMES.length)]).append("\"")
+                .append(",\"country\":\"").append(COUNTRIES[random.nextInt(COUNTRIES.length)]).append("\"")
+                .append(",\"events\":[");
+        long timestamp = 1_546_300_800_000L + random.nextInt(1_000_000);
+        while (document.length() < size - 2) {
+            timestamp += random.nextInt(60_000);
+            document.append("{\"type\":\"").append(EVENTS[random.nextInt(EVENTS.length)])
+                    .append("\",\"ts\":").append(timestamp)
+                    .append(",\"amount\":").append(random.nextInt(10_000)).append("},");
+        }
+        document.setLength(document.length() - 1);
+        return document.append("]}").toString();
+    }
+}
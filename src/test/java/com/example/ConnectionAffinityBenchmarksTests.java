@@ -0,0 +1,86 @@
+package com.example;
+
+import com.example.bootstrap.RedisClientSettings;
+import com.example.jedis.AffinityPolicy;
+import com.example.workload.KeyDistribution;
+import com.example.workload.ValueSizes;
+import com.example.workload.Workload;
+import jmh.mbr.junit4.Microbenchmark;
+import org.junit.runner.RunWith;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code set} then {@code delete} of one key through the transactional {@code redisTemplate} of the Jedis profile,
+ * outside of any transaction, with and without thread-to-connection affinity. Without it every command borrows
+ * and returns a pooled connection; the two methods show how that cost grows with 100 and 200 threads.
+ */
+@Measurement(iterations = 5, time = 2)
+@Warmup(iterations = 3, time = 2)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@RunWith(Microbenchmark.class)
+public class ConnectionAffinityBenchmarksTests {
+
+    @Benchmark
+    @Threads(100)
+    public Boolean threads100(AffinityContext context, Client client) {
+        return setAndDelete(context, client);
+    }
+
+    @Benchmark
+    @Threads(200)
+    public Boolean threads200(AffinityContext context, Client client) {
+        return setAndDelete(context, client);
+    }
+
+    private static Boolean setAndDelete(AffinityContext context, Client client) {
+        final Workload.Cursor cursor = client.cursor.next();
+        context.redisTemplate.opsForValue().set(cursor.key(), cursor.value());
+        return context.redisTemplate.delete(cursor.key());
+    }
+
+    @State(Scope.Benchmark)
+    public static class AffinityContext {
+
+        @Param({"false", "true"})
+        boolean affinity;
+
+        volatile BenchmarkClients clients;
+
+        volatile RedisTemplate<String, String> redisTemplate;
+
+        final Workload workload = Workload.builder()
+                .keys(KeyDistribution.uniform(100_000))
+                .values(ValueSizes.fixed(100))
+                .build();
+
+        @Setup
+        public void setup() {
+            final AffinityPolicy policy = new AffinityPolicy(1000, Duration.ofSeconds(1), Duration.ofMillis(50));
+            this.clients = BenchmarkClients.start("jedis", RedisClientSettings.builder()
+                    .affinity(affinity ? policy : null));
+            this.redisTemplate = clients.getTemplate();
+        }
+
+        @TearDown
+        public void clean() {
+            this.clients.close();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Client {
+
+        Workload.Cursor cursor;
+
+        @Setup
+        public void setup(AffinityContext context) {
+            this.cursor = context.workload.cursor();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.example;
+
+import com.example.bootstrap.RedisClientSettings;
+import com.example.lettuce.EventLoopPolicy;
+import com.example.workload.KeyDistribution;
+import com.example.workload.ValueSizes;
+import com.example.workload.Workload;
+import jmh.mbr.junit4.Microbenchmark;
+import org.junit.runner.RunWith;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * {@code set} then {@code get} of one key through the Lettuce profile with 100 and 200 threads, on NIO and epoll,
+ * with the default or a fixed number of I/O threads and with or without pinning them to CPUs {@code 0..n-1}.
+ * Lettuce picks its transport once per JVM, which the fork per parameter combination takes care of. The epoll
+ * variants need Linux and fail to start elsewhere; run with {@code -Dbenchmark.embedded=false} against a real
+ * cluster to keep the embedded nodes from competing with the client for the pinned CPUs.
+ */
+@Measurement(iterations = 5, time = 2)
+@Warmup(iterations = 3, time = 2)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@RunWith(Microbenchmark.class)
+public class EventLoopBenchmarksTests {
+
+    @Benchmark
+    @Threads(100)
+    public String threads100(EventLoopContext context, Client client) {
+        return setAndGet(context, client);
+    }
+
+    @Benchmark
+    @Threads(200)
+    public String threads200(EventLoopContext context, Client client) {
+        return setAndGet(context, client);
+    }
+
+    private static String setAndGet(EventLoopContext context, Client client) {
+        final Workload.Cursor cursor = client.cursor.next();
+        context.redisTemplate.opsForValue().set(cursor.key(), cursor.value());
+        return context.redisTemplate.opsForValue().get(cursor.key());
+    }
+
+    @State(Scope.Benchmark)
+    public static class EventLoopContext {
+
+        @Param({"nio", "epoll"})
+        String transport;
+
+        @Param({"0", "4"})
+        int ioThreads;
+
+        @Param({"false", "true"})
+        boolean pinned;
+
+        volatile BenchmarkClients clients;
+
+        volatile RedisTemplate<String, String> redisTemplate;
+
+        final Workload workload = Workload.builder()
+                .keys(KeyDistribution.uniform(100_000))
+                .values(ValueSizes.fixed(100))
+                .build();
+
+        @Setup
+        public void setup() {
+            final int threads = ioThreads > 0 ? ioThreads : Math.max(3, Runtime.getRuntime().availableProcessors());
+            final List<Integer> cpus = pinned ? IntStream.range(0, threads)
+                    .map(cpu -> cpu % Runtime.getRuntime().availableProcessors())
+                    .boxed()
+                    .collect(Collectors.toList()) : Collections.emptyList();
+            final EventLoopPolicy.Transport transport =
+                    EventLoopPolicy.Transport.valueOf(this.transport.toUpperCase(Locale.ROOT));
+            this.clients = BenchmarkClients.start("lettuce", RedisClientSettings.builder()
+                    .eventLoops(new EventLoopPolicy(transport, ioThreads, 0, cpus)));
+            this.redisTemplate = clients.getNonTransactionTemplate();
+        }
+
+        @TearDown
+        public void clean() {
+            this.clients.close();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Client {
+
+        Workload.Cursor cursor;
+
+        @Setup
+        public void setup(EventLoopContext context) {
+            this.cursor = context.workload.cursor();
+        }
+    }
+}
@@ -1,8 +1,12 @@
 package com.example;
 
-import org.apache.commons.lang3.RandomStringUtils;
+import com.example.bootstrap.ClusterReadiness;
+import com.example.cluster.FireAndForgetPipeline;
+import com.example.embedded.EmbeddedRedisClusterConfig;
+import com.example.workload.KeyDistribution;
+import com.example.workload.ValueSizes;
+import com.example.workload.Workload;
 import org.junit.Before;
-import org.junit.Ignore;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -16,10 +20,12 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.util.StopWatch;
 
+import java.time.Duration;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 
 /**
@@ -30,8 +36,8 @@ import java.util.function.Consumer;
  00418  100%
  */
 @RunWith(SpringRunner.class)
-@Import(JedisConfig.class)
-@ActiveProfiles("jedis")
+@Import({JedisConfig.class, EmbeddedRedisClusterConfig.class})
+@ActiveProfiles({"jedis", "embedded"})
 public class JedisNonTransactionTests {
 
     @Autowired
@@ -41,36 +47,32 @@ public class JedisNonTransactionTests {
     private static final int THREADS = 200;
     private static final int END = 1000;
 
+    private static final Workload WORKLOAD = Workload.builder()
+            .keys(KeyDistribution.uniform(END))
+            .values(ValueSizes.fixed(100))
+            .build();
+
     @Before
-    public void sleep() {
-        for (int i = 0; i < 5; i++) {
-            redisTemplate.getConnectionFactory().getConnection().ping();
-            try {
-                Thread.sleep(100L);
-            } catch (InterruptedException e) {
-                // ignored
-            }
-        }
+    public void awaitCluster() {
+        ClusterReadiness.await(redisTemplate.getConnectionFactory(), Duration.ofSeconds(10));
     }
 
     @Test
     public void normal() {
         process("normal", num -> {
-            final String key = String.valueOf(num);
-            final String value = RandomStringUtils.randomAlphabetic(100);
+            final String key = WORKLOAD.key(num);
+            final String value = WORKLOAD.value(num);
 
             redisTemplate.opsForValue().set(key, value);
             redisTemplate.delete(key);
         });
     }
 
-    // jedis does not support pipeline on cluster
-    @Ignore
     @Test
     public void pipeline() {
         process("pipeline", num -> {
-            final String key = String.valueOf(num);
-            final String value = RandomStringUtils.randomAlphabetic(100);
+            final String key = WORKLOAD.key(num);
+            final String value = WORKLOAD.value(num);
 
             redisTemplate.executePipelined(new SessionCallback<Object>() {
                 @Override
@@ -83,26 +85,57 @@ public class JedisNonTransactionTests {
         });
     }
 
+    @Test
+    public void pipelineDiscardingReplies() {
+        process("pipelineDiscardingReplies", num -> {
+            final String key = WORKLOAD.key(num);
+            final String value = WORKLOAD.value(num);
+
+            FireAndForgetPipeline.execute(redisTemplate, new SessionCallback<Object>() {
+                @Override
+                public Object execute(RedisOperations redisOperations) throws DataAccessException {
+                    redisOperations.opsForValue().set(key, value);
+                    redisOperations.delete(key);
+                    return null;
+                }
+            });
+        });
+    }
+
     private static void process(String title, Consumer<Integer> consumer) {
         final ExecutorService executorService = Executors.newFixedThreadPool(THREADS);
 
         CountDownLatch latch = new CountDownLatch(END);
         final StopWatch stopWatch = new StopWatch(title);
         stopWatch.start();
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
         for (int i = 0; i < END; i++) {
             final int number = i;
             executorService.submit(() -> {
-                consumer.accept(number);
-                latch.countDown();
+                try {
+                    consumer.accept(number);
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                } finally {
+                    latch.countDown();
+                }
             });
         }
 
         try {
-            latch.await(20, TimeUnit.SECONDS);
+            if (!latch.await(20, TimeUnit.SECONDS)) {
+                throw new AssertionError(title + ": " + latch.getCount() + " tasks did not finish within 20 seconds");
+            }
             stopWatch.stop();
             System.out.println(stopWatch.prettyPrint());
-        } catch (Exception e) {
-            // ignored
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AssertionError(title + " was interrupted", e);
+        } finally {
+            executorService.shutdownNow();
+        }
+        if (failure.get() != null) {
+            throw new AssertionError(title + " failed", failure.get());
         }
     }
 }
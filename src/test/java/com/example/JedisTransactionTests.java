@@ -1,8 +1,11 @@
 package com.example;
 
-import org.apache.commons.lang3.RandomStringUtils;
+import com.example.bootstrap.ClusterReadiness;
+import com.example.embedded.EmbeddedRedisClusterConfig;
+import com.example.workload.KeyDistribution;
+import com.example.workload.ValueSizes;
+import com.example.workload.Workload;
 import org.junit.Before;
-import org.junit.Ignore;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -17,10 +20,12 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.util.StopWatch;
 
+import java.time.Duration;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 
 /**
@@ -32,8 +37,8 @@ import java.util.function.Consumer;
  */
 @RunWith(SpringRunner.class)
 @SpringBootTest
-@Import(LettuceConfig.class)
-@ActiveProfiles("jedis")
+@Import({LettuceConfig.class, EmbeddedRedisClusterConfig.class})
+@ActiveProfiles({"jedis", "embedded"})
 public class JedisTransactionTests {
 
     @Autowired
@@ -43,36 +48,32 @@ public class JedisTransactionTests {
     private static final int THREADS = 200;
     private static final int END = 1000;
 
+    private static final Workload WORKLOAD = Workload.builder()
+            .keys(KeyDistribution.uniform(END))
+            .values(ValueSizes.fixed(20))
+            .build();
+
     @Before
-    public void sleep() {
-        for (int i = 0; i < 5; i++) {
-            redisTemplate.getConnectionFactory().getConnection().ping();
-            try {
-                Thread.sleep(100L);
-            } catch (InterruptedException e) {
-                // ignored
-            }
-        }
+    public void awaitCluster() {
+        ClusterReadiness.await(redisTemplate.getConnectionFactory(), Duration.ofSeconds(10));
     }
 
     @Test
     public void normal() {
         process("normal", num -> {
-            final String key = String.valueOf(num);
-            final String value = RandomStringUtils.randomAlphabetic(20);
+            final String key = WORKLOAD.key(num);
+            final String value = WORKLOAD.value(num);
 
             redisTemplate.opsForValue().set(key, value);
             redisTemplate.delete(key);
         });
     }
 
-    // jedis does not support pipeline on cluster
-    @Ignore
     @Test
     public void pipeline() {
         process("pipeline", num -> {
-            final String key = String.valueOf(num);
-            final String value = RandomStringUtils.randomAlphabetic(20);
+            final String key = WORKLOAD.key(num);
+            final String value = WORKLOAD.value(num);
 
             redisTemplate.executePipelined(new SessionCallback<Object>() {
                 @Override
@@ -91,20 +92,34 @@ public class JedisTransactionTests {
         CountDownLatch latch = new CountDownLatch(END);
         final StopWatch stopWatch = new StopWatch(title);
         stopWatch.start();
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
         for (int i = 0; i < END; i++) {
             final int number = i;
             executorService.submit(() -> {
-                consumer.accept(number);
-                latch.countDown();
+                try {
+                    consumer.accept(number);
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                } finally {
+                    latch.countDown();
+                }
             });
         }
 
         try {
-            latch.await(20, TimeUnit.SECONDS);
+            if (!latch.await(20, TimeUnit.SECONDS)) {
+                throw new AssertionError(title + ": " + latch.getCount() + " tasks did not finish within 20 seconds");
+            }
             stopWatch.stop();
             System.out.println(stopWatch.prettyPrint());
-        } catch (Exception e) {
-            // ignored
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AssertionError(title + " was interrupted", e);
+        } finally {
+            executorService.shutdownNow();
+        }
+        if (failure.get() != null) {
+            throw new AssertionError(title + " failed", failure.get());
         }
     }
 }
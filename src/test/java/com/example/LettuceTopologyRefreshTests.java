@@ -0,0 +1,116 @@
+package com.example;
+
+import com.example.embedded.EmbeddedRedisCluster;
+import com.example.embedded.EmbeddedRedisClusterConfig;
+import com.example.metrics.RedisMetricsConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Moves slots between masters of the embedded cluster while readers are running. Commands for the moved slots
+ * are redirected until the adaptive refresh has reloaded the partitions, after which redirects stop. Prints the
+ * read latency before, during and after the reshard.
+ */
+@RunWith(SpringRunner.class)
+@Import({LettuceConfig.class, EmbeddedRedisClusterConfig.class, RedisMetricsConfig.class})
+@ActiveProfiles({"lettuce", "embedded"})
+@TestPropertySource(properties = {"redis.lettuce.topology.period-ms=0", "redis.lettuce.topology.debounce-ms=200"})
+public class LettuceTopologyRefreshTests {
+
+    private static final int KEYS = 2000;
+
+    private static final int THREADS = 8;
+
+    @Autowired
+    @Qualifier("redisTemplateNonTransaction")
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Autowired
+    private EmbeddedRedisCluster cluster;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    public void redirectsStopAfterTheAdaptiveRefresh() throws Exception {
+        for (int i = 0; i < KEYS; i++) {
+            redisTemplate.opsForValue().set("topology:" + i, "value");
+        }
+
+        final Recorder recorder = new Recorder(3);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final ExecutorService readers = Executors.newFixedThreadPool(THREADS);
+        final List<Histogram> phases = new ArrayList<>();
+        try {
+            for (int i = 0; i < THREADS; i++) {
+                readers.submit(() -> {
+                    while (!Thread.currentThread().isInterrupted() && failure.get() == null) {
+                        final String key = "topology:" + ThreadLocalRandom.current().nextInt(KEYS);
+                        final long start = System.nanoTime();
+                        try {
+                            assertThat(redisTemplate.opsForValue().get(key)).isEqualTo("value");
+                        } catch (Throwable e) {
+                            failure.compareAndSet(null, e);
+                        }
+                        recorder.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+                    }
+                });
+            }
+
+            Thread.sleep(1000);
+            phases.add(recorder.getIntervalHistogram());
+            cluster.moveSlots(0, 2999, 2);
+            Thread.sleep(1000);
+            phases.add(recorder.getIntervalHistogram());
+            Thread.sleep(1000);
+            phases.add(recorder.getIntervalHistogram());
+        } finally {
+            readers.shutdownNow();
+            readers.awaitTermination(5, TimeUnit.SECONDS);
+        }
+        if (failure.get() != null) {
+            throw new AssertionError("Reads failed during the reshard", failure.get());
+        }
+
+        final String[] names = {"before", "during", "after"};
+        for (int i = 0; i < phases.size(); i++) {
+            final Histogram phase = phases.get(i);
+            System.out.printf("%s reshard: %d reads, p50=%dus p99=%dus max=%dus%n", names[i],
+                    phase.getTotalCount(), phase.getValueAtPercentile(50), phase.getValueAtPercentile(99),
+                    phase.getMaxValue());
+        }
+
+        final double redirects = redirects();
+        assertThat(redirects).isPositive();
+        for (int i = 0; i < KEYS; i++) {
+            redisTemplate.opsForValue().get("topology:" + i);
+        }
+        assertThat(redirects()).isEqualTo(redirects);
+        assertThat(meterRegistry.get("redis.topology.changes").counter().count()).isPositive();
+    }
+
+    private double redirects() {
+        return meterRegistry.find("redis.redirects").counters().stream().mapToDouble(Counter::count).sum();
+    }
+}
@@ -0,0 +1,101 @@
+package com.example;
+
+import com.example.workload.KeyDistribution;
+import com.example.workload.OperationMix;
+import com.example.workload.ValueSizes;
+import com.example.workload.Workload;
+import jmh.mbr.junit4.Microbenchmark;
+import org.junit.runner.RunWith;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single commands drawn from a {@link Workload}: {@code mix} is {@code reads:writes:deletes}, {@code distribution}
+ * the {@link KeyDistribution} and {@code valueSizes} either a fixed size or a {@code min-max} range. Every key is
+ * written once before the measurement so that reads hit. Narrow the matrix with JMH's {@code -p}, it is large.
+ */
+@Measurement(iterations = 5, time = 2)
+@Warmup(iterations = 3, time = 2)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(16)
+@Fork(1)
+@RunWith(Microbenchmark.class)
+public class MixedWorkloadBenchmarksTests {
+
+    static final int KEYS = 10_000;
+
+    @Benchmark
+    public Object operation(MixContext context, Client client) {
+        final Workload.Cursor cursor = client.cursor.next();
+        switch (cursor.operation()) {
+            case READ:
+                return context.redisTemplate.opsForValue().get(cursor.key());
+            case WRITE:
+                context.redisTemplate.opsForValue().set(cursor.key(), cursor.value());
+                return null;
+            default:
+                return context.redisTemplate.delete(cursor.key());
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class MixContext {
+
+        @Param({"jedis", "lettuce"})
+        String client;
+
+        @Param({"uniform", "zipfian", "hotspot", "slot-skewed"})
+        String distribution;
+
+        @Param({"95:5:0", "50:50:0", "60:30:10"})
+        String mix;
+
+        @Param({"100", "16-4096"})
+        String valueSizes;
+
+        volatile BenchmarkClients clients;
+
+        volatile RedisTemplate<String, String> redisTemplate;
+
+        volatile Workload workload;
+
+        @Setup
+        public void setup() {
+            this.clients = BenchmarkClients.start(client);
+            this.redisTemplate = clients.getNonTransactionTemplate();
+            this.workload = Workload.builder()
+                    .keys(KeyDistribution.of(distribution, KEYS))
+                    .values(ValueSizes.of(valueSizes))
+                    .mix(OperationMix.of(mix))
+                    .build();
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (int i = 0; i < KEYS; i++) {
+                    connection.set(workload.key(i).getBytes(StandardCharsets.UTF_8),
+                            workload.value(i).getBytes(StandardCharsets.UTF_8));
+                }
+                return null;
+            });
+        }
+
+        @TearDown
+        public void clean() {
+            this.clients.close();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Client {
+
+        Workload.Cursor cursor;
+
+        @Setup
+        public void setup(MixContext context) {
+            this.cursor = context.workload.cursor();
+        }
+    }
+}
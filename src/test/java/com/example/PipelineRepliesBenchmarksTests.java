@@ -0,0 +1,83 @@
+package com.example;
+
+import com.example.workload.KeyDistribution;
+import com.example.workload.ValueSizes;
+import com.example.workload.Workload;
+import jmh.mbr.junit4.Microbenchmark;
+import org.junit.runner.RunWith;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes and deletes 10,000 keys in one pipeline, once collecting and deserializing all 20,000 replies as
+ * {@code executePipelined} does and once dropping them through
+ * {@link com.example.cluster.FireAndForgetPipeline}. Run {@link #main} to get {@code gc.alloc.rate.norm}, the
+ * bytes allocated per batch, next to the time per batch.
+ */
+@Measurement(iterations = 5, time = 2)
+@Warmup(iterations = 3, time = 2)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@RunWith(Microbenchmark.class)
+public class PipelineRepliesBenchmarksTests {
+
+    private static final int BATCH = 10_000;
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PipelineRepliesBenchmarksTests.class.getName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+
+    @Benchmark
+    public Object batch(RepliesContext context) {
+        context.cursor.batch(context.keys, BATCH, false);
+        return context.workload.execute(context.redisTemplate, null, context.keys, context.cursor.value());
+    }
+
+    @State(Scope.Benchmark)
+    public static class RepliesContext {
+
+        @Param({"jedis", "lettuce"})
+        String client;
+
+        @Param({"pipeline", "pipeline_discard"})
+        String mode;
+
+        volatile BenchmarkClients clients;
+
+        volatile RedisTemplate<String, String> redisTemplate;
+
+        volatile WorkloadMode workload;
+
+        final List<String> keys = new ArrayList<>(BATCH);
+
+        final Workload.Cursor cursor = Workload.builder()
+                .keys(KeyDistribution.uniform(100_000))
+                .values(ValueSizes.fixed(100))
+                .build()
+                .cursor();
+
+        @Setup
+        public void setup() {
+            this.clients = BenchmarkClients.start(client);
+            this.redisTemplate = clients.getNonTransactionTemplate();
+            this.workload = WorkloadMode.of(mode);
+        }
+
+        @TearDown
+        public void clean() {
+            this.clients.close();
+        }
+    }
+}
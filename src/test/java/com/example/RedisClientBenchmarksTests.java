@@ -0,0 +1,138 @@
+package com.example;
+
+import com.example.scan.ClusterScan;
+import com.example.scan.ClusterScanner;
+import com.example.scan.KeyPurger;
+import com.example.scan.PurgePolicy;
+import com.example.workload.KeyDistribution;
+import com.example.workload.ValueSizes;
+import com.example.workload.Workload;
+import jmh.mbr.junit4.Microbenchmark;
+import org.junit.runner.RunWith;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One benchmark over the client/mode/payload/batch matrix. Every invocation writes and deletes
+ * {@code batchDepth} keys of {@code payloadSize} bytes in the given {@link WorkloadMode}. Keys and values are
+ * pre-generated by a {@link Workload} and drawn with the key {@code distribution} ({@code uniform},
+ * {@code zipfian}, {@code hotspot} or {@code slot-skewed}).
+ * <p>
+ * Throughput and sampled latency (for p99) are measured. The thread count is not a JMH parameter, run
+ * {@link com.example.benchmark.BenchmarkMatrix} to sweep it and to write JSON results. Set
+ * {@code -Dbenchmark.embedded=false} to run against the cluster in {@code redis.cluster.nodes} instead of the
+ * embedded one.
+ */
+@Measurement(iterations = 5, time = 2)
+@Warmup(iterations = 3, time = 2)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(16)
+@Fork(1)
+@RunWith(Microbenchmark.class)
+public class RedisClientBenchmarksTests {
+
+    @Benchmark
+    public void operation(BenchmarkContext context, Batch batch, Blackhole blackhole) {
+        final List<String> keys = batch.next(context);
+        blackhole.consume(context.workload.execute(context.redisTemplate, context.script, keys, batch.value()));
+    }
+
+    @State(Scope.Benchmark)
+    public static class BenchmarkContext {
+
+        static final int KEY_GROUPS = 16_384;
+
+        @Param({"jedis", "lettuce"})
+        String client;
+
+        @Param({"single", "pipeline", "pipeline_discard", "transaction", "slot_transaction", "script"})
+        String mode;
+
+        @Param({"16", "1024"})
+        int payloadSize;
+
+        @Param({"1", "16"})
+        int batchDepth;
+
+        @Param({"uniform"})
+        String distribution;
+
+        volatile BenchmarkClients clients;
+
+        volatile RedisTemplate<String, String> redisTemplate;
+
+        volatile WorkloadMode workload;
+
+        volatile RedisScript<Long> script;
+
+        volatile Workload dataset;
+
+        @Setup
+        public void setup() {
+            this.clients = BenchmarkClients.start(client);
+            this.redisTemplate = clients.getNonTransactionTemplate();
+            this.workload = WorkloadMode.of(mode);
+            this.script = WorkloadMode.script();
+            this.dataset = Workload.builder()
+                    .keys(KeyDistribution.of(distribution, KEY_GROUPS))
+                    .groupSize(batchDepth)
+                    .values(ValueSizes.fixed(payloadSize))
+                    .build();
+            if (clients.getCluster() != null) {
+                WorkloadMode.registerScript(clients.getCluster());
+            } else {
+                purgeResidue(clients.getClients().getConnectionFactory());
+            }
+        }
+
+        /**
+         * Removes the keys an aborted earlier run left behind between its set and delete.
+         */
+        private static void purgeResidue(RedisConnectionFactory connectionFactory) {
+            try (ClusterScan residue = new ClusterScanner(connectionFactory)
+                    .scan(ScanOptions.scanOptions().match("*key:*").count(1000).build())) {
+                new KeyPurger(connectionFactory, PurgePolicy.defaults()).purge(residue);
+            }
+        }
+
+        @TearDown
+        public void clean() {
+            this.clients.close();
+        }
+    }
+
+    /**
+     * Per-thread key buffer. Keys of one batch share a hash tag in the {@link WorkloadMode#isSingleSlot()
+     * single-slot} modes and are spread over the cluster otherwise.
+     */
+    @State(Scope.Thread)
+    public static class Batch {
+
+        private final List<String> keys = new ArrayList<>();
+
+        private Workload.Cursor cursor;
+
+        @Setup
+        public void setup(BenchmarkContext context) {
+            this.cursor = context.dataset.cursor();
+        }
+
+        List<String> next(BenchmarkContext context) {
+            cursor.batch(keys, context.batchDepth, context.workload.isSingleSlot());
+            return keys;
+        }
+
+        String value() {
+            return cursor.value();
+        }
+    }
+}
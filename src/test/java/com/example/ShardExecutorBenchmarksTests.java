@@ -0,0 +1,88 @@
+package com.example;
+
+import com.example.shard.ShardExecutor;
+import com.example.shard.ShardPolicy;
+import com.example.workload.KeyDistribution;
+import com.example.workload.ValueSizes;
+import com.example.workload.Workload;
+import jmh.mbr.junit4.Microbenchmark;
+import org.junit.runner.RunWith;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code set} then {@code get} of one key from 200 threads, once through {@code redisTemplateNonTransaction},
+ * where every thread waits for its own round trip, and once through a {@link ShardExecutor}, where the commands
+ * of all threads waiting on the same master share one pipelined write of its worker.
+ */
+@Measurement(iterations = 5, time = 2)
+@Warmup(iterations = 3, time = 2)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@RunWith(Microbenchmark.class)
+public class ShardExecutorBenchmarksTests {
+
+    @Benchmark
+    @Threads(200)
+    public String setAndGet(ShardContext context, Client client) {
+        final Workload.Cursor cursor = client.cursor.next();
+        if (context.executor == null) {
+            context.redisTemplate.opsForValue().set(cursor.key(), cursor.value());
+            return context.redisTemplate.opsForValue().get(cursor.key());
+        }
+        context.executor.set(cursor.key(), cursor.value()).join();
+        return context.executor.get(cursor.key()).join();
+    }
+
+    @State(Scope.Benchmark)
+    public static class ShardContext {
+
+        @Param({"jedis", "lettuce"})
+        String client;
+
+        @Param({"template", "shard"})
+        String mode;
+
+        volatile BenchmarkClients clients;
+
+        volatile RedisTemplate<String, String> redisTemplate;
+
+        volatile ShardExecutor<String, String> executor;
+
+        final Workload workload = Workload.builder()
+                .keys(KeyDistribution.uniform(100_000))
+                .values(ValueSizes.fixed(100))
+                .build();
+
+        @Setup
+        public void setup() {
+            this.clients = BenchmarkClients.start(client);
+            this.redisTemplate = clients.getNonTransactionTemplate();
+            if ("shard".equals(mode)) {
+                this.executor = new ShardExecutor<>(redisTemplate, ShardPolicy.defaults());
+            }
+        }
+
+        @TearDown
+        public void clean() {
+            if (executor != null) {
+                executor.close();
+            }
+            this.clients.close();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Client {
+
+        Workload.Cursor cursor;
+
+        @Setup
+        public void setup(ShardContext context) {
+            this.cursor = context.workload.cursor();
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.example;
+
+import com.example.cluster.FireAndForgetPipeline;
+import com.example.embedded.EmbeddedRedisCluster;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.List;
+
+/**
+ * The ways the benchmarks and the load driver write and delete a batch of keys.
+ */
+enum WorkloadMode {
+
+    /**
+     * One round trip per command.
+     */
+    SINGLE {
+        @Override
+        Object execute(RedisTemplate<String, String> redisTemplate, RedisScript<Long> script, List<String> keys,
+                       String value) {
+            for (String key : keys) {
+                redisTemplate.opsForValue().set(key, value);
+            }
+            long deleted = 0;
+            for (String key : keys) {
+                deleted += Boolean.TRUE.equals(redisTemplate.delete(key)) ? 1 : 0;
+            }
+            return deleted;
+        }
+    },
+
+    /**
+     * All commands in one {@code executePipelined}.
+     */
+    PIPELINE {
+        @Override
+        Object execute(RedisTemplate<String, String> redisTemplate, RedisScript<Long> script, List<String> keys,
+                       String value) {
+            return redisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                public Object execute(RedisOperations redisOperations) throws DataAccessException {
+                    writeAndDelete(redisOperations, keys, value);
+                    return null;
+                }
+            });
+        }
+    },
+
+    /**
+     * {@link #PIPELINE} through {@link FireAndForgetPipeline}, dropping the replies unread.
+     */
+    PIPELINE_DISCARD {
+        @Override
+        Object execute(RedisTemplate<String, String> redisTemplate, RedisScript<Long> script, List<String> keys,
+                       String value) {
+            FireAndForgetPipeline.execute(redisTemplate, new SessionCallback<Object>() {
+                @Override
+                public Object execute(RedisOperations redisOperations) throws DataAccessException {
+                    writeAndDelete(redisOperations, keys, value);
+                    return null;
+                }
+            });
+            return null;
+        }
+    },
+
+    /**
+     * All commands between {@code multi()} and {@code exec()}.
+     */
+    TRANSACTION {
+        @Override
+        Object execute(RedisTemplate<String, String> redisTemplate, RedisScript<Long> script, List<String> keys,
+                       String value) {
+            return redisTemplate.execute(new SessionCallback<List<Object>>() {
+                @Override
+                public List<Object> execute(RedisOperations redisOperations) throws DataAccessException {
+                    redisOperations.multi();
+                    writeAndDelete(redisOperations, keys, value);
+                    return redisOperations.exec();
+                }
+            });
+        }
+    },
+
+    /**
+     * {@link #TRANSACTION} over keys sharing a hash slot, the like-for-like comparison with {@link #SCRIPT}.
+     */
+    SLOT_TRANSACTION {
+        @Override
+        Object execute(RedisTemplate<String, String> redisTemplate, RedisScript<Long> script, List<String> keys,
+                       String value) {
+            return TRANSACTION.execute(redisTemplate, script, keys, value);
+        }
+
+        @Override
+        boolean isSingleSlot() {
+            return true;
+        }
+    },
+
+    /**
+     * One {@code EVALSHA} of a script preloaded on every node; the keys must share a hash slot.
+     */
+    SCRIPT {
+        @Override
+        Object execute(RedisTemplate<String, String> redisTemplate, RedisScript<Long> script, List<String> keys,
+                       String value) {
+            return redisTemplate.execute(script, keys, value);
+        }
+
+        @Override
+        boolean isSingleSlot() {
+            return true;
+        }
+    };
+
+    static final String SET_AND_DELETE = "for i, key in ipairs(KEYS) do redis.call('SET', key, ARGV[1]) end\n"
+            + "return redis.call('DEL', unpack(KEYS))";
+
+    abstract Object execute(RedisTemplate<String, String> redisTemplate, RedisScript<Long> script,
+                            List<String> keys, String value);
+
+    /**
+     * @return whether the keys of one batch have to share a hash tag
+     */
+    boolean isSingleSlot() {
+        return false;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void writeAndDelete(RedisOperations redisOperations, List<String> keys, String value) {
+        for (String key : keys) {
+            redisOperations.opsForValue().set(key, value);
+        }
+        for (String key : keys) {
+            redisOperations.delete(key);
+        }
+    }
+
+    static WorkloadMode of(String name) {
+        return valueOf(name.toUpperCase());
+    }
+
+    static RedisScript<Long> script() {
+        return new DefaultRedisScript<>(SET_AND_DELETE, Long.class);
+    }
+
+    /**
+     * Registers the Java stand-in of the {@link #SCRIPT} mode's Lua script.
+     */
+    static void registerScript(EmbeddedRedisCluster cluster) {
+        cluster.registerScript(SET_AND_DELETE, (node, keys, args) -> {
+            long deleted = 0;
+            for (byte[] key : keys) {
+                node.set(key, args[0]);
+            }
+            for (byte[] key : keys) {
+                deleted += node.del(key) ? 1 : 0;
+            }
+            return deleted;
+        });
+    }
+}
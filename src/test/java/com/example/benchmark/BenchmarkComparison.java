@@ -0,0 +1,151 @@
+package com.example.benchmark;
+
+import com.jayway.jsonpath.JsonPath;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compares two JMH JSON result files run by {@link BenchmarkMatrix}. Flags a regression when throughput drops
+ * or p99 latency grows beyond a tolerance. A throughput drop must also exceed the combined score errors, so a
+ * noisy run is not reported as a regression.
+ * <pre>
+ * BenchmarkComparison baseline.json current.json [throughputTolerance=0.10] [p99Tolerance=0.20]
+ * </pre>
+ * Exits with status 1 if a regression was found.
+ */
+public final class BenchmarkComparison {
+
+    public static final double DEFAULT_THROUGHPUT_TOLERANCE = 0.10;
+
+    public static final double DEFAULT_P99_TOLERANCE = 0.20;
+
+    private BenchmarkComparison() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("usage: BenchmarkComparison <baseline.json> <current.json> "
+                    + "[throughputTolerance] [p99Tolerance]");
+            System.exit(2);
+        }
+        final double throughputTolerance = args.length > 2
+                ? Double.parseDouble(args[2]) : DEFAULT_THROUGHPUT_TOLERANCE;
+        final double p99Tolerance = args.length > 3 ? Double.parseDouble(args[3]) : DEFAULT_P99_TOLERANCE;
+        final List<String> regressions = compare(Paths.get(args[0]), Paths.get(args[1]),
+                throughputTolerance, p99Tolerance);
+        regressions.forEach(System.out::println);
+        if (!regressions.isEmpty()) {
+            System.exit(1);
+        }
+    }
+
+    public static List<String> compare(Path baseline, Path current, double throughputTolerance,
+                                       double p99Tolerance) throws IOException {
+        return compare(load(baseline), load(current), throughputTolerance, p99Tolerance);
+    }
+
+    /**
+     * @return one line per regression, empty if there is none
+     */
+    static List<String> compare(Map<String, Score> baseline, Map<String, Score> current,
+                                double throughputTolerance, double p99Tolerance) {
+        final List<String> regressions = new ArrayList<>();
+        for (Map.Entry<String, Score> entry : current.entrySet()) {
+            final Score before = baseline.get(entry.getKey());
+            final Score after = entry.getValue();
+            if (before == null) {
+                continue;
+            }
+            if (!Double.isNaN(before.throughput) && !Double.isNaN(after.throughput)) {
+                final double drop = before.throughput - after.throughput;
+                if (drop > before.throughput * throughputTolerance
+                        && drop > errorOrZero(before.throughputError) + errorOrZero(after.throughputError)) {
+                    regressions.add(String.format("%s: throughput %.3f -> %.3f (%+.1f%%)", entry.getKey(),
+                            before.throughput, after.throughput, -100 * drop / before.throughput));
+                }
+            }
+            if (!Double.isNaN(before.p99) && !Double.isNaN(after.p99)
+                    && after.p99 > before.p99 * (1 + p99Tolerance)) {
+                regressions.add(String.format("%s: p99 %.3f -> %.3f (%+.1f%%)", entry.getKey(),
+                        before.p99, after.p99, 100 * (after.p99 - before.p99) / before.p99));
+            }
+        }
+        return regressions;
+    }
+
+    static Map<String, Score> load(Path file) throws IOException {
+        return load(new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Reads throughput and sample-time results of the same benchmark, parameters and thread count into one
+     * {@link Score}.
+     */
+    @SuppressWarnings("unchecked")
+    static Map<String, Score> load(String json) {
+        final List<Map<String, Object>> results = JsonPath.parse(json).read("$");
+        final Map<String, Score> scores = new TreeMap<>();
+        for (Map<String, Object> result : results) {
+            final Score score = scores.computeIfAbsent(key(result), key -> new Score());
+            final Map<String, Object> metric = (Map<String, Object>) result.get("primaryMetric");
+            switch (String.valueOf(result.get("mode"))) {
+                case "thrpt":
+                    score.throughput = number(metric.get("score"));
+                    score.throughputError = number(metric.get("scoreError"));
+                    break;
+                case "sample":
+                    final Map<String, Object> percentiles = (Map<String, Object>) metric.get("scorePercentiles");
+                    score.p99 = percentiles != null ? number(percentiles.get("99.0")) : Double.NaN;
+                    break;
+                default:
+                    break;
+            }
+        }
+        return scores;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static String key(Map<String, Object> result) {
+        final String benchmark = String.valueOf(result.get("benchmark"));
+        final int method = benchmark.lastIndexOf('.');
+        final StringBuilder key = new StringBuilder(benchmark.substring(benchmark.lastIndexOf('.', method - 1) + 1));
+        final Object params = result.get("params");
+        if (params instanceof Map) {
+            new TreeMap<>((Map<String, Object>) params)
+                    .forEach((name, value) -> key.append(' ').append(name).append('=').append(value));
+        }
+        return key.append(" threads=").append(result.get("threads")).toString();
+    }
+
+    private static double number(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        try {
+            return value == null ? Double.NaN : Double.parseDouble(value.toString());
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    private static double errorOrZero(double error) {
+        return Double.isNaN(error) ? 0 : error;
+    }
+
+    static final class Score {
+
+        double throughput = Double.NaN;
+
+        double throughputError = Double.NaN;
+
+        double p99 = Double.NaN;
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.benchmark;
+
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BenchmarkComparisonTests {
+
+    private static String result(String mode, double score, double error, double p99) {
+        return "{\"benchmark\":\"com.example.RedisClientBenchmarksTests.operation\",\"mode\":\"" + mode + "\","
+                + "\"threads\":16,\"params\":{\"client\":\"jedis\",\"mode\":\"pipeline\"},"
+                + "\"primaryMetric\":{\"score\":" + score + ",\"scoreError\":" + error + ","
+                + "\"scorePercentiles\":{\"99.0\":" + p99 + "}}}";
+    }
+
+    private static Map<String, BenchmarkComparison.Score> load(double throughput, double error, double p99) {
+        return BenchmarkComparison.load("[" + result("thrpt", throughput, error, 0) + ","
+                + result("sample", 0, 0, p99) + "]");
+    }
+
+    @Test
+    public void mergesThroughputAndSampleResultsOfOneConfiguration() {
+        final Map<String, BenchmarkComparison.Score> scores = load(10, 1, 250);
+
+        assertThat(scores)
+                .containsOnlyKeys("RedisClientBenchmarksTests.operation client=jedis mode=pipeline threads=16");
+        final BenchmarkComparison.Score score = scores.values().iterator().next();
+        assertThat(score.throughput).isEqualTo(10);
+        assertThat(score.p99).isEqualTo(250);
+    }
+
+    @Test
+    public void flagsThroughputDropBeyondToleranceAndError() {
+        assertThat(BenchmarkComparison.compare(load(10, 0.5, 100), load(8, 0.5, 100), 0.1, 0.2)).hasSize(1);
+    }
+
+    @Test
+    public void ignoresThroughputDropWithinTheError() {
+        assertThat(BenchmarkComparison.compare(load(10, 2, 100), load(8, 2, 100), 0.1, 0.2)).isEmpty();
+    }
+
+    @Test
+    public void flagsP99Growth() {
+        assertThat(BenchmarkComparison.compare(load(10, 0, 100), load(10, 0, 130), 0.1, 0.2)).hasSize(1);
+    }
+}
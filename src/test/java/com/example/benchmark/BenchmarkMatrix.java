@@ -0,0 +1,79 @@
+package com.example.benchmark;
+
+import com.example.RedisClientBenchmarksTests;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs {@link RedisClientBenchmarksTests} once per thread count and writes all results into one JMH JSON file.
+ * <ul>
+ * <li>{@code -Dbenchmark.threads=1,16,64}: thread counts to sweep</li>
+ * <li>{@code -Dbenchmark.params=client=jedis;mode=pipeline,script}: narrows the parameter matrix</li>
+ * <li>{@code -Dbenchmark.result=target/benchmarks/result.json}: where to write the results</li>
+ * <li>{@code -Dbenchmark.baseline=...}: results of an earlier run to compare against with
+ * {@link BenchmarkComparison}, exits with status 1 on a regression</li>
+ * </ul>
+ */
+public final class BenchmarkMatrix {
+
+    private BenchmarkMatrix() {
+    }
+
+    public static void main(String[] args) throws IOException, RunnerException {
+        final Path result = Paths.get(System.getProperty("benchmark.result", "target/benchmarks/result.json"));
+        Files.createDirectories(result.toAbsolutePath().getParent());
+
+        final List<String> runs = new ArrayList<>();
+        for (String threads : System.getProperty("benchmark.threads", "1,16,64").split(",")) {
+            final Path run = Files.createTempFile("jmh-" + threads.trim() + "-", ".json");
+            final ChainedOptionsBuilder options = new OptionsBuilder()
+                    .include(RedisClientBenchmarksTests.class.getName())
+                    .threads(Integer.parseInt(threads.trim()))
+                    .resultFormat(ResultFormatType.JSON)
+                    .result(run.toString());
+            for (String param : System.getProperty("benchmark.params", "").split(";")) {
+                final int separator = param.indexOf('=');
+                if (separator > 0) {
+                    options.param(param.substring(0, separator).trim(),
+                            param.substring(separator + 1).trim().split(","));
+                }
+            }
+            new Runner(options.build()).run();
+            final String elements = elements(run);
+            if (!elements.isEmpty()) {
+                runs.add(elements);
+            }
+            Files.delete(run);
+        }
+        Files.write(result, ("[" + String.join(",", runs) + "]").getBytes(StandardCharsets.UTF_8));
+
+        final String baseline = System.getProperty("benchmark.baseline");
+        if (baseline != null) {
+            final List<String> regressions = BenchmarkComparison.compare(Paths.get(baseline), result,
+                    BenchmarkComparison.DEFAULT_THROUGHPUT_TOLERANCE, BenchmarkComparison.DEFAULT_P99_TOLERANCE);
+            regressions.forEach(System.out::println);
+            if (!regressions.isEmpty()) {
+                System.exit(1);
+            }
+        }
+    }
+
+    /**
+     * @return the elements of the JSON array in the file, without the enclosing brackets
+     */
+    private static String elements(Path run) throws IOException {
+        final String json = new String(Files.readAllBytes(run), StandardCharsets.UTF_8).trim();
+        return json.substring(1, json.length() - 1).trim();
+    }
+}
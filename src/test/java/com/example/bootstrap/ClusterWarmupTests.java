@@ -0,0 +1,59 @@
+package com.example.bootstrap;
+
+import com.example.JedisConfig;
+import com.example.embedded.EmbeddedRedisCluster;
+import com.example.embedded.EmbeddedRedisClusterConfig;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import redis.clients.jedis.JedisCluster;
+import redis.clients.jedis.JedisPool;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(SpringRunner.class)
+@Import({JedisConfig.class, EmbeddedRedisClusterConfig.class, ClusterWarmupConfig.class})
+@ActiveProfiles({"jedis", "embedded"})
+@TestPropertySource(properties = {"redis.warmup.enabled=true", "redis.jedis.pool.min-total=4",
+        "redis.warmup.iterations=200"})
+public class ClusterWarmupTests {
+
+    @Autowired
+    private ClusterWarmup clusterWarmup;
+
+    @Autowired
+    private EmbeddedRedisCluster cluster;
+
+    @Autowired
+    private RedisConnectionFactory connectionFactory;
+
+    @Test
+    public void runsBeforeTheContextIsReady() {
+        assertThat(clusterWarmup.isComplete()).isTrue();
+    }
+
+    @Test
+    public void fillsEveryNodePool() {
+        final Map<String, JedisPool> pools =
+                ((JedisCluster) connectionFactory.getClusterConnection().getNativeConnection()).getClusterNodes();
+
+        assertThat(pools).hasSize(cluster.getNodes().size());
+        assertThat(pools.values()).allMatch(pool -> pool.getNumIdle() + pool.getNumActive() >= 4);
+    }
+
+    @Test
+    public void leavesNoPrimingKeysBehind() {
+        cluster.flushAll();
+
+        clusterWarmup.run();
+
+        assertThat(cluster.size()).isZero();
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.bootstrap;
+
+import com.example.embedded.EmbeddedRedisCluster;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class RedisClientsTests {
+
+    private static EmbeddedRedisCluster cluster;
+
+    @BeforeClass
+    public static void startCluster() {
+        cluster = EmbeddedRedisCluster.start(3);
+    }
+
+    @AfterClass
+    public static void stopCluster() {
+        cluster.close();
+    }
+
+    @Test
+    public void jedis() {
+        clientWorks(RedisClientSettings.Client.JEDIS);
+    }
+
+    @Test
+    public void lettuce() {
+        clientWorks(RedisClientSettings.Client.LETTUCE);
+    }
+
+    private static void clientWorks(RedisClientSettings.Client client) {
+        try (RedisClients clients = RedisClients.start(settings(client, cluster.getNodeAddresses()))) {
+            assertThat(ClusterReadiness.await(clients.getConnectionFactory(), Duration.ofSeconds(1)))
+                    .hasSize(cluster.getNodes().size());
+
+            clients.getNonTransactionTemplate().opsForValue().set("bootstrap:" + client, "value");
+
+            assertThat(clients.getTemplate().opsForValue().get("bootstrap:" + client)).isEqualTo("value");
+            assertThat(clients.getObjectTemplate().hasKey("bootstrap:" + client)).isTrue();
+        }
+    }
+
+    @Test
+    public void failsWhenTheClusterIsNotReachable() {
+        final List<String> nodes;
+        try (EmbeddedRedisCluster stopped = EmbeddedRedisCluster.start(3)) {
+            nodes = stopped.getNodeAddresses();
+        }
+        final RedisClientSettings settings = RedisClientSettings.builder()
+                .client(RedisClientSettings.Client.JEDIS)
+                .nodes(nodes)
+                .warmup(new WarmupPolicy(Duration.ofMillis(200), 0, 1, 1, Collections.emptyList()))
+                .build();
+
+        final long started = System.nanoTime();
+        assertThatThrownBy(() -> RedisClients.start(settings))
+                .isInstanceOf(RedisConnectionFailureException.class)
+                .hasMessageStartingWith("Cluster not ready after 200 ms");
+        assertThat(Duration.ofNanos(System.nanoTime() - started)).isLessThan(Duration.ofSeconds(5));
+    }
+
+    private static RedisClientSettings settings(RedisClientSettings.Client client, List<String> nodes) {
+        return RedisClientSettings.builder()
+                .client(client)
+                .nodes(nodes)
+                .build();
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.bulk;
+
+import com.example.JedisConfig;
+import com.example.embedded.EmbeddedRedisCluster;
+import com.example.embedded.EmbeddedRedisClusterConfig;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@RunWith(SpringRunner.class)
+@Import({JedisConfig.class, EmbeddedRedisClusterConfig.class})
+@ActiveProfiles({"jedis", "embedded"})
+public class BulkLoaderTests {
+
+    private static final int RECORDS = 20_000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Autowired
+    private EmbeddedRedisCluster cluster;
+
+    @Autowired
+    private RedisConnectionFactory connectionFactory;
+
+    @Autowired
+    @Qualifier("redisTemplateNonTransaction")
+    private RedisTemplate<String, String> redisTemplate;
+
+    private BulkLoader loader;
+
+    private Path checkpoint;
+
+    @Before
+    public void setUp() throws IOException {
+        cluster.flushAll();
+        // small windows and buffers so that remapping, flushing and waiting for the window are exercised
+        loader = new BulkLoader(connectionFactory,
+                new BulkLoadPolicy(64, 512, Duration.ofMillis(10), Duration.ofSeconds(10)), 8192);
+        checkpoint = folder.getRoot().toPath().resolve("load.checkpoint");
+    }
+
+    @Test
+    public void loadsEveryRecordOnItsNode() throws IOException {
+        final Path input = write("load.tsv", tsv());
+        final List<BulkLoadProgress> reports = new ArrayList<>();
+
+        final BulkLoadProgress progress = loader.load(input, BulkLoadFormat.TSV, checkpoint, reports::add);
+
+        assertThat(progress.isComplete()).isTrue();
+        assertThat(progress.getAcknowledged()).isEqualTo(RECORDS);
+        assertThat(progress.getFailed()).isZero();
+        assertThat(reports).isNotEmpty();
+        assertThat(cluster.size()).isEqualTo(RECORDS);
+        assertThat(redisTemplate.opsForValue().get("key:{4}:1234")).isEqualTo("value 1234");
+        assertThat(checkpoint).doesNotExist();
+    }
+
+    @Test
+    public void resumesFromTheCheckpoint() throws IOException {
+        final String tsv = tsv();
+        final Path input = write("load.tsv", tsv);
+        BulkLoader.writeCheckpoint(checkpoint, tsv.indexOf("key:{0}:15000\t"));
+
+        final BulkLoadProgress progress = loader.load(input, BulkLoadFormat.TSV, checkpoint, report -> {
+        });
+
+        assertThat(progress.getSent()).isEqualTo(RECORDS - 15_000);
+        assertThat(cluster.size()).isEqualTo(RECORDS - 15_000);
+        assertThat(redisTemplate.opsForValue().get("key:{9}:14999")).isNull();
+    }
+
+    @Test
+    public void countsErrorRepliesOfRawCommands() throws IOException {
+        final Path input = write("load.resp", command("SET", "counter", "1") + command("INCR", "counter")
+                + command("SET", "name", "redis") + command("INCR", "name"));
+
+        final BulkLoadProgress progress = loader.load(input, BulkLoadFormat.RESP, checkpoint, report -> {
+        });
+
+        assertThat(progress.isComplete()).isTrue();
+        assertThat(progress.getFailed()).isEqualTo(1);
+        assertThat(progress.getErrors()).hasSize(1).allMatch(error -> error.contains("not an integer"));
+        assertThat(redisTemplate.opsForValue().get("counter")).isEqualTo("2");
+    }
+
+    @Test
+    public void stopsAtAMalformedRecordAndSavesTheCheckpoint() throws IOException {
+        final Path input = write("load.csv", "a,1\nb,2\nno separator\nc,3\n");
+
+        assertThatThrownBy(() -> loader.load(input, BulkLoadFormat.CSV, checkpoint, report -> {
+        }))
+                .isInstanceOf(BulkLoadException.class)
+                .hasMessageContaining("offset 8");
+        assertThat(BulkLoader.readCheckpoint(checkpoint)).isEqualTo(8);
+        assertThat(redisTemplate.opsForValue().get("b")).isEqualTo("2");
+    }
+
+    private Path write(String name, String content) throws IOException {
+        return Files.write(folder.getRoot().toPath().resolve(name), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String tsv() {
+        final StringBuilder tsv = new StringBuilder();
+        for (int i = 0; i < RECORDS; i++) {
+            tsv.append("key:{").append(i % 10).append("}:").append(i).append('\t').append("value ").append(i)
+                    .append(i % 2 == 0 ? "\n" : "\r\n");
+        }
+        return tsv.toString();
+    }
+
+    private static String command(String... args) {
+        final StringBuilder command = new StringBuilder().append('*').append(args.length).append("\r\n");
+        for (String arg : args) {
+            command.append('$').append(arg.length()).append("\r\n").append(arg).append("\r\n");
+        }
+        return command.toString();
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.cluster;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ClusterSlotsTests {
+
+    @Test
+    public void crc16MatchesXmodemCheckValue() {
+        final byte[] bytes = "123456789".getBytes();
+        assertThat(ClusterSlots.crc16(bytes, 0, bytes.length)).isEqualTo(0x31C3);
+    }
+
+    @Test
+    public void slotsMatchRedisKeySlot() {
+        assertThat(ClusterSlots.slot("foo")).isEqualTo(12182);
+        assertThat(ClusterSlots.slot("bar")).isEqualTo(5061);
+        assertThat(ClusterSlots.slot("")).isEqualTo(0);
+    }
+
+    @Test
+    public void hashtagSelectsTheHashedPart() {
+        assertThat(ClusterSlots.slot("{user1000}.following")).isEqualTo(ClusterSlots.slot("user1000"));
+        final byte[] emptyTag = "foo{}{bar}".getBytes();
+        assertThat(ClusterSlots.slot(emptyTag)).isEqualTo(ClusterSlots.crc16(emptyTag, 0, emptyTag.length) & 16383);
+        assertThat(ClusterSlots.slot("foo{{bar}}zap")).isEqualTo(ClusterSlots.slot("{bar"));
+        assertThat(ClusterSlots.slot("foo{bar}{zap}")).isEqualTo(ClusterSlots.slot("bar"));
+    }
+
+    @Test
+    public void buffersHashLikeArrays() {
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(32);
+        buffer.put("xx{user1000}.followingyy".getBytes());
+        assertThat(ClusterSlots.slot(buffer, 2, 20)).isEqualTo(ClusterSlots.slot("user1000"));
+        assertThat(ClusterSlots.slot(buffer, 12, 10)).isEqualTo(ClusterSlots.slot(".following"));
+        assertThat(buffer.position()).isEqualTo(24);
+
+        final ByteBuffer heap = ByteBuffer.wrap("xx{user1000}.followingyy".getBytes(), 1, 22).slice();
+        assertThat(ClusterSlots.slot(heap, 1, 20)).isEqualTo(ClusterSlots.slot("user1000"));
+    }
+}
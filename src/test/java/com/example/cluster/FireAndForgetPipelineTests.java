@@ -0,0 +1,75 @@
+package com.example.cluster;
+
+import com.example.JedisConfig;
+import com.example.embedded.EmbeddedRedisCluster;
+import com.example.embedded.EmbeddedRedisClusterConfig;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.RedisPipelineException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@RunWith(SpringRunner.class)
+@Import({JedisConfig.class, EmbeddedRedisClusterConfig.class})
+@ActiveProfiles({"jedis", "embedded"})
+public class FireAndForgetPipelineTests {
+
+    @Autowired
+    private EmbeddedRedisCluster cluster;
+
+    @Autowired
+    @Qualifier("redisTemplateNonTransaction")
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Before
+    public void setUp() {
+        cluster.flushAll();
+    }
+
+    @Test
+    public void executesLargeBatchesAcrossTheCluster() {
+        FireAndForgetPipeline.execute(redisTemplate, new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object execute(RedisOperations operations) throws DataAccessException {
+                for (int i = 0; i < 10_000; i++) {
+                    operations.opsForValue().set("key:" + i, "value " + i);
+                }
+                operations.delete("key:0");
+                return null;
+            }
+        });
+
+        assertThat(cluster.size()).isEqualTo(9_999);
+        assertThat(redisTemplate.opsForValue().get("key:9999")).isEqualTo("value 9999");
+    }
+
+    @Test
+    public void reportsErrorsAfterRunningEveryCommand() {
+        redisTemplate.opsForValue().set("name", "redis");
+
+        assertThatThrownBy(() -> FireAndForgetPipeline.execute(redisTemplate, new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object execute(RedisOperations operations) throws DataAccessException {
+                operations.opsForValue().increment("name", 1);
+                operations.opsForValue().increment("counter", 1);
+                return null;
+            }
+        }))
+                .isInstanceOf(RedisPipelineException.class)
+                .satisfies(e -> assertThat(((RedisPipelineException) e).getPipelineResult()).hasSize(1));
+        assertThat(redisTemplate.opsForValue().get("counter")).isEqualTo("1");
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.cluster;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class NodeQueueTests {
+
+    private final List<Integer> rejected = new ArrayList<>();
+
+    private final AtomicReference<NodeQueue<Integer>> consumed = new AtomicReference<>();
+
+    @Test
+    public void offersWaitForCapacityUntilTheDeadline() {
+        final NodeQueue<Integer> queue = new NodeQueue<>(Thread.currentThread(), 2, rejected::add);
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(20);
+
+        assertThat(queue.offer(1, deadline)).isTrue();
+        assertThat(queue.offer(2, deadline)).isTrue();
+        assertThat(queue.offer(3, deadline)).isFalse();
+        queue.add(3);
+
+        assertThat(queue.size()).isEqualTo(3);
+    }
+
+    @Test
+    public void drainsInQueueOrder() {
+        final NodeQueue<Integer> queue = new NodeQueue<>(Thread.currentThread(), 10, rejected::add);
+        for (int i = 0; i < 5; i++) {
+            queue.add(i);
+        }
+        final List<Integer> batch = new ArrayList<>();
+
+        assertThat(queue.drainTo(batch, 3)).isEqualTo(3);
+        assertThat(batch).containsExactly(0, 1, 2);
+        assertThat(queue.peek()).isEqualTo(3);
+        assertThat(queue.size()).isEqualTo(2);
+    }
+
+    @Test
+    public void rejectsItemsQueuedAfterTermination() {
+        final NodeQueue<Integer> queue = new NodeQueue<>(Thread.currentThread(), 10, rejected::add);
+        queue.add(1);
+        queue.close();
+
+        queue.terminate();
+        queue.add(2);
+
+        assertThat(rejected).containsExactly(1, 2);
+        assertThat(queue.size()).isZero();
+    }
+
+    @Test
+    public void wakesTheConsumerOnceTheAwaitedItemsAreQueued() throws Exception {
+        final List<Integer> batch = new ArrayList<>();
+        final Thread consumer = new Thread(() -> {
+            final NodeQueue<Integer> queue = consumed.get();
+            queue.awaitSize(3, TimeUnit.SECONDS.toNanos(10));
+            queue.drainTo(batch, 10);
+        });
+        consumed.set(new NodeQueue<>(consumer, 10, rejected::add));
+        consumer.start();
+
+        final long started = System.nanoTime();
+        for (int i = 0; i < 3; i++) {
+            consumed.get().add(i);
+        }
+        consumer.join(TimeUnit.SECONDS.toMillis(5));
+
+        assertThat(batch).containsExactly(0, 1, 2);
+        assertThat(System.nanoTime() - started).isLessThan(TimeUnit.SECONDS.toNanos(5));
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.cluster;
+
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ReadRoutingTests {
+
+    @Test
+    public void ordersReplicasByLatencyAndKeepsTheMasterLast() {
+        final NodeLatencies latencies = new NodeLatencies(0.5);
+        latencies.record("10.0.0.2:7000", 900_000);
+        latencies.record("10.0.0.3:7000", 300_000);
+        final ReadRouting routing = new ReadRouting(latencies, 1024, Duration.ofSeconds(1));
+
+        assertThat(routing.order("10.0.0.1:7000", Arrays.asList("10.0.0.2:7000", "10.0.0.3:7000"),
+                Function.identity()))
+                .containsExactly("10.0.0.3:7000", "10.0.0.2:7000", "10.0.0.1:7000");
+    }
+
+    @Test
+    public void nodesWithoutSamplesAreTriedFirst() {
+        final NodeLatencies latencies = new NodeLatencies(0.5);
+        latencies.record("10.0.0.2:7000", 100_000);
+        final ReadRouting routing = new ReadRouting(latencies, 1024, Duration.ofSeconds(1));
+
+        assertThat(routing.order(null, Arrays.asList("10.0.0.2:7000", "10.0.0.3:7000"), Function.identity()))
+                .containsExactly("10.0.0.3:7000", "10.0.0.2:7000");
+    }
+
+    @Test
+    public void replicasTrailingTheMasterOrOfflineAreLagging() {
+        final Properties replication = new Properties();
+        replication.setProperty("role", "master");
+        replication.setProperty("connected_slaves", "3");
+        replication.setProperty("master_repl_offset", "5000000");
+        replication.setProperty("slave0", "ip=10.0.0.2,port=7000,state=online,offset=4999000,lag=0");
+        replication.setProperty("slave1", "ip=10.0.0.3,port=7000,state=online,offset=3000000,lag=1");
+        replication.setProperty("slave2", "ip=10.0.0.4,port=7000,state=wait_bgsave,offset=4999999,lag=0");
+
+        assertThat(ReadRouting.laggingReplicas(replication, 1024 * 1024))
+                .containsExactlyInAnyOrder("10.0.0.3:7000", "10.0.0.4:7000");
+    }
+
+    @Test
+    public void averagesFollowNewSamplesAndDecayWhenIdle() {
+        final NodeLatencies latencies = new NodeLatencies(0.5);
+        latencies.record("a", 1000);
+        latencies.record("a", 3000);
+        assertThat(latencies.average("a")).isEqualTo(2000);
+
+        latencies.decayIdle();
+        assertThat(latencies.average("a")).isEqualTo(2000);
+        latencies.decayIdle();
+        assertThat(latencies.average("a")).isEqualTo(1000);
+        assertThat(latencies.average("b")).isZero();
+    }
+}
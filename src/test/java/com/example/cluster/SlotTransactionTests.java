@@ -0,0 +1,98 @@
+package com.example.cluster;
+
+import org.junit.Test;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.data.redis.RedisSystemException;
+import org.springframework.data.redis.connection.RedisKeyCommands;
+import org.springframework.data.redis.connection.RedisStringCommands;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+public class SlotTransactionTests {
+
+    private static QueuedCommand get(String key) throws NoSuchMethodException {
+        return QueuedCommand.of(RedisStringCommands.class.getMethod("get", byte[].class),
+                new Object[]{key.getBytes()});
+    }
+
+    @Test
+    public void groupsBySlotInOrderOfFirstAppearance() throws Exception {
+        final List<SlotTransaction> transactions = SlotTransaction.partition(
+                Arrays.asList(get("foo"), get("bar"), get("{foo}.1")),
+                Collections.singletonList("{bar}.watched".getBytes()));
+
+        assertThat(transactions).extracting(SlotTransaction::getSlot).containsExactly(12182, 5061);
+        assertThat(transactions.get(0).getCommands()).hasSize(2);
+        assertThat(transactions.get(0).getWatchedKeys()).isEmpty();
+        assertThat(transactions.get(1).getWatchedKeys()).hasSize(1);
+    }
+
+    @Test
+    public void watchesKeysWithoutCommandsInATransactionOfTheirOwn() throws Exception {
+        final List<SlotTransaction> transactions = SlotTransaction.partition(
+                Collections.singletonList(get("foo")), Collections.singletonList("bar".getBytes()));
+
+        assertThat(transactions).extracting(SlotTransaction::getSlot).containsExactly(12182, 5061);
+        assertThat(transactions.get(1).getCommands()).isEmpty();
+        assertThat(transactions.get(1).getWatchedKeys()).hasSize(1);
+
+        transactions.get(0).completed(Collections.singletonList("a"));
+        transactions.get(1).completed(Collections.emptyList());
+        assertThat(SlotTransaction.merge(1, transactions)).containsExactly("a");
+
+        transactions.get(1).completed(null);
+        final Throwable thrown = catchThrowable(() -> SlotTransaction.merge(1, transactions));
+        assertThat(thrown).isInstanceOf(ClusterTransactionException.class);
+        assertThat(((ClusterTransactionException) thrown).getFailedSlots()).containsExactly(5061);
+    }
+
+    @Test
+    public void rejectsCommandsWithKeysOfSeveralSlots() throws Exception {
+        final QueuedCommand delete = QueuedCommand.of(RedisKeyCommands.class.getMethod("del", byte[][].class),
+                new Object[]{new byte[][]{"foo".getBytes(), "bar".getBytes()}});
+
+        assertThat(catchThrowable(() -> SlotTransaction.partition(Arrays.asList(get("foo"), delete),
+                Collections.emptyList())))
+                .isInstanceOf(InvalidDataAccessApiUsageException.class)
+                .hasMessageContaining("CROSSSLOT");
+    }
+
+    @Test
+    public void mergesRepliesBackIntoQueueOrder() throws Exception {
+        final List<SlotTransaction> transactions = SlotTransaction.partition(
+                Arrays.asList(get("foo"), get("bar"), get("{foo}.1")), Collections.emptyList());
+        transactions.get(0).completed(Arrays.asList("a", "c"));
+        transactions.get(1).completed(Collections.singletonList("b"));
+
+        assertThat(SlotTransaction.merge(3, transactions)).containsExactly("a", "b", "c");
+    }
+
+    @Test
+    public void returnsNullWhenEverySlotWasDiscarded() throws Exception {
+        final List<SlotTransaction> transactions = SlotTransaction.partition(
+                Arrays.asList(get("foo"), get("bar")), Collections.emptyList());
+        transactions.forEach(transaction -> transaction.completed(null));
+
+        assertThat(SlotTransaction.merge(2, transactions)).isNull();
+    }
+
+    @Test
+    public void reportsPartiallyAppliedTransactions() throws Exception {
+        final List<SlotTransaction> transactions = SlotTransaction.partition(
+                Arrays.asList(get("foo"), get("bar")), Collections.emptyList());
+        transactions.get(0).completed(Collections.singletonList("a"));
+        transactions.get(1).failed(new RedisSystemException("EXECABORT", null));
+
+        final Throwable thrown = catchThrowable(() -> SlotTransaction.merge(2, transactions));
+        assertThat(thrown).isInstanceOf(ClusterTransactionException.class);
+        final ClusterTransactionException exception = (ClusterTransactionException) thrown;
+        assertThat(exception.getFailedSlots()).containsExactly(5061);
+        assertThat(exception.getResults().get(0)).isEqualTo("a");
+        assertThat(exception.getResults().get(1)).isInstanceOf(RedisSystemException.class);
+    }
+}
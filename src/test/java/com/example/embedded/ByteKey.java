@@ -0,0 +1,94 @@
+package com.example.embedded;
+
+import com.example.cluster.ClusterSlots;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Hash key over a byte range. Stored keys own a private copy; probes are reused per session and point into the
+ * read buffer, so lookups do not allocate.
+ */
+final class ByteKey {
+
+    private byte[] bytes;
+
+    private int offset;
+
+    private int length;
+
+    private int hash;
+
+    ByteKey() {
+    }
+
+    private ByteKey(byte[] bytes) {
+        set(bytes, 0, bytes.length);
+    }
+
+    static ByteKey copyOf(byte[] bytes, int offset, int length) {
+        return new ByteKey(Arrays.copyOfRange(bytes, offset, offset + length));
+    }
+
+    static ByteKey of(byte[] bytes) {
+        return new ByteKey(bytes);
+    }
+
+    ByteKey set(byte[] bytes, int offset, int length) {
+        this.bytes = bytes;
+        this.offset = offset;
+        this.length = length;
+        int h = 1;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            h = 31 * h + bytes[i];
+        }
+        this.hash = h;
+        return this;
+    }
+
+    ByteKey copy() {
+        return copyOf(bytes, offset, length);
+    }
+
+    byte[] toArray() {
+        return offset == 0 && length == bytes.length ? bytes : Arrays.copyOfRange(bytes, offset, offset + length);
+    }
+
+    int length() {
+        return length;
+    }
+
+    int slot() {
+        return ClusterSlots.slot(bytes, offset, length);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof ByteKey)) {
+            return false;
+        }
+        final ByteKey other = (ByteKey) obj;
+        if (other.hash != hash || other.length != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (bytes[offset + i] != other.bytes[other.offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return new String(bytes, offset, length, StandardCharsets.UTF_8);
+    }
+}
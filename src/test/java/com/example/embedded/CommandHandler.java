@@ -0,0 +1,780 @@
+package com.example.embedded;
+
+import com.example.cluster.ClusterSlots;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Executes parsed commands against the keyspace of the node a session is connected to, including cluster
+ * redirection ({@code MOVED}/{@code ASK}), {@code MULTI}/{@code EXEC} with {@code WATCH}, scripts and pub/sub.
+ */
+final class CommandHandler {
+
+    enum Command {
+        PING(-1), ECHO(2), QUIT(1), SELECT(2),
+        GET(2, 1, 1), SET(-3, 1, 1), SETEX(4, 1, 1), PSETEX(4, 1, 1), SETNX(3, 1, 1), GETSET(3, 1, 1),
+        DEL(-2, 1, -1), UNLINK(-2, 1, -1), EXISTS(-2, 1, -1),
+        EXPIRE(3, 1, 1), PEXPIRE(3, 1, 1), TTL(2, 1, 1), PTTL(2, 1, 1),
+        INCR(2, 1, 1), INCRBY(3, 1, 1), DECR(2, 1, 1), DECRBY(3, 1, 1),
+        MULTI(1), EXEC(1), DISCARD(1), WATCH(-2, 1, -1), UNWATCH(1),
+        EVAL(-3), EVALSHA(-3), SCRIPT(-2),
+        SUBSCRIBE(-2), UNSUBSCRIBE(-1), PUBLISH(3),
+        CLUSTER(-2), CLIENT(-2), INFO(-1), ASKING(1), READONLY(1), READWRITE(1),
+        DBSIZE(1), SCAN(-2), FLUSHALL(-1), FLUSHDB(-1), COMMAND(-1);
+
+        private static final Command[] TABLE = new Command[256];
+
+        static {
+            for (Command command : values()) {
+                int index = hash(command.name()) & (TABLE.length - 1);
+                while (TABLE[index] != null) {
+                    index = (index + 1) & (TABLE.length - 1);
+                }
+                TABLE[index] = command;
+            }
+        }
+
+        final int arity;
+
+        final int firstKey;
+
+        final int lastKey;
+
+        Command(int arity) {
+            this(arity, 0, 0);
+        }
+
+        Command(int arity, int firstKey, int lastKey) {
+            this.arity = arity;
+            this.firstKey = firstKey;
+            this.lastKey = lastKey;
+        }
+
+        static Command lookup(RespArgs args) {
+            final byte[] array = args.array(0);
+            final int offset = args.offset(0);
+            int hash = 0;
+            for (int i = 0; i < args.length(0); i++) {
+                hash = 31 * hash + Character.toUpperCase((char) array[offset + i]);
+            }
+            for (int index = hash & (TABLE.length - 1); TABLE[index] != null; index = (index + 1) & (TABLE.length - 1)) {
+                if (args.is(0, TABLE[index].name())) {
+                    return TABLE[index];
+                }
+            }
+            return null;
+        }
+
+        private static int hash(String name) {
+            int hash = 0;
+            for (int i = 0; i < name.length(); i++) {
+                hash = 31 * hash + name.charAt(i);
+            }
+            return hash;
+        }
+
+        boolean controlsTransaction() {
+            return this == MULTI || this == EXEC || this == DISCARD || this == WATCH || this == QUIT;
+        }
+
+        boolean arityMatches(int count) {
+            return arity > 0 ? count == arity : count >= -arity;
+        }
+    }
+
+    private final EmbeddedRedisCluster cluster;
+
+    CommandHandler(EmbeddedRedisCluster cluster) {
+        this.cluster = cluster;
+    }
+
+    void handle(RespSession session) {
+        final RespArgs args = session.args;
+        final Command command = args.count() == 0 ? null : Command.lookup(args);
+        try {
+            if (command == null) {
+                session.error("ERR unknown command '" + (args.count() == 0 ? "" : args.string(0)) + "'");
+                session.multiFailed = session.multi != null;
+            } else if (!command.arityMatches(args.count())) {
+                session.error("ERR wrong number of arguments for '" + command.name().toLowerCase() + "' command");
+                session.multiFailed = session.multi != null;
+            } else if (session.multi != null && !command.controlsTransaction()) {
+                if (routed(session, command, args)) {
+                    session.multi.add(args.copy());
+                    session.simple("QUEUED");
+                } else {
+                    session.multiFailed = true;
+                }
+            } else if (routed(session, command, args)) {
+                execute(session, command, args);
+            }
+        } catch (NumberFormatException e) {
+            session.error("ERR value is not an integer or out of range");
+        } catch (RuntimeException e) {
+            session.error("ERR " + e.getMessage());
+        }
+        if (command != Command.ASKING) {
+            session.asking = false;
+        }
+    }
+
+    private boolean routed(RespSession session, Command command, RespArgs args) {
+        int first = command.firstKey;
+        int last = command.lastKey < 0 ? args.count() - 1 : command.lastKey;
+        if (command == Command.EVAL || command == Command.EVALSHA) {
+            final int keys = (int) args.longValue(2);
+            if (keys < 0 || 3 + keys > args.count()) {
+                session.error("ERR Number of keys can't be greater than number of args");
+                return false;
+            }
+            first = keys > 0 ? 3 : 0;
+            last = 2 + keys;
+        }
+        if (first == 0) {
+            return true;
+        }
+
+        final int slot = args.key(first, session.probe).slot();
+        for (int i = first + 1; i <= last; i++) {
+            if (args.key(i, session.probe).slot() != slot) {
+                session.error("CROSSSLOT Keys in request don't hash to the same slot");
+                return false;
+            }
+        }
+
+        final EmbeddedRedisNode node = session.node;
+        final EmbeddedRedisNode owner = cluster.owner(slot);
+        final EmbeddedRedisNode migrationTarget = cluster.migrationTarget(slot);
+        if (owner == node) {
+            if (migrationTarget != null && node.lookup(args.key(first, session.probe)) == null) {
+                session.redirect("ASK", slot, migrationTarget);
+                return false;
+            }
+            return true;
+        }
+        if (session.asking && migrationTarget == node) {
+            return true;
+        }
+        session.redirect("MOVED", slot, owner);
+        return false;
+    }
+
+    private void execute(RespSession session, Command command, RespArgs args) {
+        final EmbeddedRedisNode node = session.node;
+        final ByteKey probe = session.probe;
+        switch (command) {
+            case PING:
+                if (args.count() > 1) {
+                    session.bulk(args.array(1), args.offset(1), args.length(1));
+                } else {
+                    session.simple("PONG");
+                }
+                break;
+            case ECHO:
+                session.bulk(args.array(1), args.offset(1), args.length(1));
+                break;
+            case QUIT:
+                session.ok();
+                session.closeAfterWrite = true;
+                break;
+            case SELECT:
+                if (args.is(1, "0")) {
+                    session.ok();
+                } else {
+                    session.error("ERR SELECT is not allowed in cluster mode");
+                }
+                break;
+            case GET: {
+                final EmbeddedRedisNode.Entry entry = node.lookup(args.key(1, probe));
+                session.bulk(entry != null ? entry.value : null);
+                break;
+            }
+            case SET:
+                set(session, args);
+                break;
+            case SETEX:
+            case PSETEX: {
+                final long ttl = args.longValue(2);
+                if (ttl <= 0) {
+                    session.error("ERR invalid expire time in " + command.name().toLowerCase());
+                    break;
+                }
+                final long expireAt = System.currentTimeMillis() + (command == Command.SETEX ? ttl * 1000 : ttl);
+                node.put(args.key(1, probe), args.bytes(3), expireAt);
+                session.ok();
+                break;
+            }
+            case SETNX:
+                if (node.lookup(args.key(1, probe)) != null) {
+                    session.integer(0);
+                } else {
+                    node.put(probe, args.bytes(2), 0);
+                    session.integer(1);
+                }
+                break;
+            case GETSET: {
+                final EmbeddedRedisNode.Entry entry = node.lookup(args.key(1, probe));
+                final byte[] previous = entry != null ? entry.value : null;
+                node.put(probe, args.bytes(2), 0);
+                session.bulk(previous);
+                break;
+            }
+            case DEL:
+            case UNLINK: {
+                int removed = 0;
+                for (int i = 1; i < args.count(); i++) {
+                    if (node.lookup(args.key(i, probe)) != null && node.remove(probe)) {
+                        removed++;
+                    }
+                }
+                session.integer(removed);
+                break;
+            }
+            case EXISTS: {
+                int existing = 0;
+                for (int i = 1; i < args.count(); i++) {
+                    if (node.lookup(args.key(i, probe)) != null) {
+                        existing++;
+                    }
+                }
+                session.integer(existing);
+                break;
+            }
+            case EXPIRE:
+            case PEXPIRE: {
+                final EmbeddedRedisNode.Entry entry = node.lookup(args.key(1, probe));
+                if (entry == null) {
+                    session.integer(0);
+                    break;
+                }
+                final long ttl = args.longValue(2);
+                if (ttl <= 0) {
+                    node.remove(probe);
+                } else {
+                    entry.expireAt = System.currentTimeMillis() + (command == Command.EXPIRE ? ttl * 1000 : ttl);
+                    node.touch(entry);
+                }
+                session.integer(1);
+                break;
+            }
+            case TTL:
+            case PTTL: {
+                final EmbeddedRedisNode.Entry entry = node.lookup(args.key(1, probe));
+                if (entry == null) {
+                    session.integer(-2);
+                } else if (entry.expireAt == 0) {
+                    session.integer(-1);
+                } else {
+                    final long remaining = entry.expireAt - System.currentTimeMillis();
+                    session.integer(command == Command.TTL ? (remaining + 500) / 1000 : remaining);
+                }
+                break;
+            }
+            case INCR:
+            case INCRBY:
+            case DECR:
+            case DECRBY: {
+                final long delta = command == Command.INCR ? 1 : command == Command.DECR ? -1
+                        : command == Command.INCRBY ? args.longValue(2) : -args.longValue(2);
+                final EmbeddedRedisNode.Entry entry = node.lookup(args.key(1, probe));
+                final long current = entry != null ? Long.parseLong(new String(entry.value, StandardCharsets.US_ASCII)) : 0;
+                final long updated = current + delta;
+                node.put(probe, Long.toString(updated).getBytes(StandardCharsets.US_ASCII),
+                        entry != null ? entry.expireAt : 0);
+                session.integer(updated);
+                break;
+            }
+            case MULTI:
+                if (session.multi != null) {
+                    session.error("ERR MULTI calls can not be nested");
+                } else {
+                    session.multi = new ArrayList<>();
+                    session.multiFailed = false;
+                    session.ok();
+                }
+                break;
+            case EXEC:
+                exec(session);
+                break;
+            case DISCARD:
+                if (session.multi == null) {
+                    session.error("ERR DISCARD without MULTI");
+                } else {
+                    session.multi = null;
+                    session.watched = null;
+                    session.ok();
+                }
+                break;
+            case WATCH:
+                if (session.multi != null) {
+                    session.error("ERR WATCH inside MULTI is not allowed");
+                    break;
+                }
+                if (session.watched == null) {
+                    session.watched = new HashMap<>();
+                }
+                for (int i = 1; i < args.count(); i++) {
+                    final ByteKey key = args.key(i, probe);
+                    session.watched.put(key.copy(), node.versionOf(key));
+                }
+                session.ok();
+                break;
+            case UNWATCH:
+                session.watched = null;
+                session.ok();
+                break;
+            case EVAL: {
+                final String source = args.string(1);
+                node.scripts.put(sha1(source), source);
+                evaluate(session, source, args);
+                break;
+            }
+            case EVALSHA: {
+                final String source = node.scripts.get(args.string(1).toLowerCase());
+                if (source == null) {
+                    session.error("NOSCRIPT No matching script. Please use EVAL.");
+                } else {
+                    evaluate(session, source, args);
+                }
+                break;
+            }
+            case SCRIPT:
+                script(session, args);
+                break;
+            case SUBSCRIBE:
+                if (session.channels == null) {
+                    session.channels = new HashSet<>();
+                }
+                for (int i = 1; i < args.count(); i++) {
+                    final String channel = args.string(i);
+                    session.channels.add(channel);
+                    session.arrayHeader(3);
+                    session.bulk("subscribe");
+                    session.bulk(channel);
+                    session.integer(session.channels.size());
+                }
+                break;
+            case UNSUBSCRIBE:
+                unsubscribe(session, args);
+                break;
+            case PUBLISH:
+                session.integer(publish(args.string(1), args.bytes(2)));
+                break;
+            case CLUSTER:
+                cluster(session, args);
+                break;
+            case CLIENT:
+                client(session, args);
+                break;
+            case INFO:
+                session.bulk(info(node));
+                break;
+            case ASKING:
+                session.asking = true;
+                session.ok();
+                break;
+            case READONLY:
+            case READWRITE:
+                session.ok();
+                break;
+            case DBSIZE:
+                session.integer(node.data.size());
+                break;
+            case SCAN:
+                scan(session, args);
+                break;
+            case FLUSHALL:
+            case FLUSHDB:
+                node.flush();
+                session.ok();
+                break;
+            case COMMAND:
+                session.arrayHeader(0);
+                break;
+            default:
+                session.error("ERR unsupported command " + command);
+        }
+    }
+
+    /**
+     * The cursor is the next slot to visit, so keys of slots already visited are never returned again however the
+     * keyspace changes in between. Every call returns whole slots, at least {@code COUNT} keys unless the end is
+     * reached.
+     */
+    private static void scan(RespSession session, RespArgs args) {
+        final long cursor = args.longValue(1);
+        if (cursor < 0 || cursor > ClusterSlots.SLOT_COUNT) {
+            session.error("ERR invalid cursor");
+            return;
+        }
+        Pattern pattern = null;
+        long count = 10;
+        for (int i = 2; i < args.count(); i += 2) {
+            if (i + 1 == args.count()) {
+                session.error("ERR syntax error");
+                return;
+            }
+            if (args.is(i, "MATCH")) {
+                pattern = glob(args.string(i + 1));
+            } else if (args.is(i, "COUNT")) {
+                count = args.longValue(i + 1);
+                if (count < 1) {
+                    session.error("ERR syntax error");
+                    return;
+                }
+            } else {
+                session.error("ERR syntax error");
+                return;
+            }
+        }
+
+        final List<byte[]> keys = new ArrayList<>();
+        long visited = 0;
+        int next = 0;
+        for (Map.Entry<Integer, Set<ByteKey>> slot : session.node.keysBySlot.tailMap((int) cursor).entrySet()) {
+            if (visited >= count) {
+                next = slot.getKey();
+                break;
+            }
+            for (ByteKey key : slot.getValue()) {
+                final byte[] bytes = key.toArray();
+                if (pattern == null || pattern.matcher(new String(bytes, StandardCharsets.ISO_8859_1)).matches()) {
+                    keys.add(bytes);
+                }
+            }
+            visited += slot.getValue().size();
+        }
+        session.arrayHeader(2);
+        session.bulk(Integer.toString(next));
+        session.arrayHeader(keys.size());
+        for (byte[] key : keys) {
+            session.bulk(key);
+        }
+    }
+
+    /**
+     * Translates a Redis glob ({@code *}, {@code ?}, {@code [...]} and {@code \} escapes) to a regular expression.
+     */
+    private static Pattern glob(String glob) {
+        final StringBuilder regex = new StringBuilder();
+        boolean inClass = false;
+        for (int i = 0; i < glob.length(); i++) {
+            final char c = glob.charAt(i);
+            if (c == '\\' && i + 1 < glob.length()) {
+                regex.append(Pattern.quote(String.valueOf(glob.charAt(++i))));
+            } else if (inClass) {
+                if (c == ']') {
+                    inClass = false;
+                    regex.append(']');
+                } else if (c == '^' && glob.charAt(i - 1) == '[') {
+                    regex.append('^');
+                } else if (c == '-') {
+                    regex.append('-');
+                } else {
+                    regex.append(Pattern.quote(String.valueOf(c)));
+                }
+            } else if (c == '*') {
+                regex.append(".*");
+            } else if (c == '?') {
+                regex.append('.');
+            } else if (c == '[') {
+                inClass = true;
+                regex.append('[');
+            } else {
+                regex.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+        if (inClass) {
+            regex.append(']');
+        }
+        return Pattern.compile(regex.toString(), Pattern.DOTALL);
+    }
+
+    private void set(RespSession session, RespArgs args) {
+        long expireAt = 0;
+        boolean nx = false;
+        boolean xx = false;
+        for (int i = 3; i < args.count(); i++) {
+            if (args.is(i, "NX")) {
+                nx = true;
+            } else if (args.is(i, "XX")) {
+                xx = true;
+            } else if ((args.is(i, "EX") || args.is(i, "PX")) && i + 1 < args.count()) {
+                final long ttl = args.longValue(i + 1);
+                if (ttl <= 0) {
+                    session.error("ERR invalid expire time in set");
+                    return;
+                }
+                expireAt = System.currentTimeMillis() + (args.is(i, "EX") ? ttl * 1000 : ttl);
+                i++;
+            } else {
+                session.error("ERR syntax error");
+                return;
+            }
+        }
+        final EmbeddedRedisNode node = session.node;
+        final boolean exists = node.lookup(args.key(1, session.probe)) != null;
+        if ((nx && exists) || (xx && !exists)) {
+            session.nullBulk();
+            return;
+        }
+        node.put(session.probe, args.bytes(2), expireAt);
+        session.ok();
+    }
+
+    private void exec(RespSession session) {
+        if (session.multi == null) {
+            session.error("ERR EXEC without MULTI");
+            return;
+        }
+        final List<RespArgs> queued = session.multi;
+        final boolean failed = session.multiFailed;
+        final Map<ByteKey, Long> watched = session.watched;
+        session.multi = null;
+        session.multiFailed = false;
+        session.watched = null;
+
+        if (failed) {
+            session.error("EXECABORT Transaction discarded because of previous errors.");
+            return;
+        }
+        if (watched != null) {
+            for (Map.Entry<ByteKey, Long> watch : watched.entrySet()) {
+                if (session.node.versionOf(watch.getKey()) != watch.getValue()) {
+                    session.nullArray();
+                    return;
+                }
+            }
+        }
+        session.arrayHeader(queued.size());
+        for (RespArgs command : queued) {
+            try {
+                execute(session, Command.lookup(command), command);
+            } catch (NumberFormatException e) {
+                session.error("ERR value is not an integer or out of range");
+            } catch (RuntimeException e) {
+                session.error("ERR " + e.getMessage());
+            }
+        }
+    }
+
+    private void evaluate(RespSession session, String source, RespArgs args) {
+        final EmbeddedScript script = cluster.script(source);
+        if (script == null) {
+            session.error("ERR the embedded server cannot run Lua, register an EmbeddedScript for this source");
+            return;
+        }
+        final int keyCount = (int) args.longValue(2);
+        final byte[][] keys = new byte[keyCount][];
+        final byte[][] argv = new byte[args.count() - 3 - keyCount][];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = args.bytes(3 + i);
+        }
+        for (int i = 0; i < argv.length; i++) {
+            argv[i] = args.bytes(3 + keyCount + i);
+        }
+        reply(session, script.execute(session.node, keys, argv));
+    }
+
+    private static void reply(RespSession session, Object result) {
+        if (result == null || Boolean.FALSE.equals(result)) {
+            session.nullBulk();
+        } else if (result instanceof Boolean) {
+            session.integer(1);
+        } else if (result instanceof Number) {
+            session.integer(((Number) result).longValue());
+        } else if (result instanceof byte[]) {
+            session.bulk((byte[]) result);
+        } else if (result instanceof String) {
+            session.bulk((String) result);
+        } else if (result instanceof List) {
+            final List<?> elements = (List<?>) result;
+            session.arrayHeader(elements.size());
+            for (Object element : elements) {
+                reply(session, element);
+            }
+        } else {
+            session.error("ERR unsupported script result " + result.getClass().getName());
+        }
+    }
+
+    private void script(RespSession session, RespArgs args) {
+        final EmbeddedRedisNode node = session.node;
+        if (args.is(1, "LOAD") && args.count() == 3) {
+            final String source = args.string(2);
+            final String sha = sha1(source);
+            node.scripts.put(sha, source);
+            session.bulk(sha);
+        } else if (args.is(1, "EXISTS")) {
+            session.arrayHeader(args.count() - 2);
+            for (int i = 2; i < args.count(); i++) {
+                session.integer(node.scripts.containsKey(args.string(i).toLowerCase()) ? 1 : 0);
+            }
+        } else if (args.is(1, "FLUSH")) {
+            node.scripts.clear();
+            session.ok();
+        } else {
+            session.error("ERR unknown SCRIPT subcommand '" + args.string(1) + "'");
+        }
+    }
+
+    private static void unsubscribe(RespSession session, RespArgs args) {
+        final List<String> channels = new ArrayList<>();
+        if (args.count() > 1) {
+            for (int i = 1; i < args.count(); i++) {
+                channels.add(args.string(i));
+            }
+        } else if (session.channels != null) {
+            channels.addAll(session.channels);
+        }
+        if (channels.isEmpty()) {
+            session.arrayHeader(3);
+            session.bulk("unsubscribe");
+            session.nullBulk();
+            session.integer(0);
+            return;
+        }
+        for (String channel : channels) {
+            if (session.channels != null) {
+                session.channels.remove(channel);
+            }
+            session.arrayHeader(3);
+            session.bulk("unsubscribe");
+            session.bulk(channel);
+            session.integer(session.channels == null ? 0 : session.channels.size());
+        }
+    }
+
+    /**
+     * Delivers the message to the subscribers on every master, as the cluster bus does.
+     */
+    private int publish(String channel, byte[] message) {
+        int receivers = 0;
+        for (EmbeddedRedisNode node : cluster.getNodes()) {
+            for (RespSession subscriber : node.sessions) {
+                if (subscriber.channels != null && subscriber.channels.contains(channel)) {
+                    subscriber.arrayHeader(3);
+                    subscriber.bulk("message");
+                    subscriber.bulk(channel);
+                    subscriber.bulk(message);
+                    cluster.published(subscriber);
+                    receivers++;
+                }
+            }
+        }
+        return receivers;
+    }
+
+    private void cluster(RespSession session, RespArgs args) {
+        final EmbeddedRedisNode node = session.node;
+        if (args.is(1, "SLOTS")) {
+            clusterSlots(session);
+        } else if (args.is(1, "NODES")) {
+            session.bulk(clusterNodes(node));
+        } else if (args.is(1, "MYID")) {
+            session.bulk(node.getId());
+        } else if (args.is(1, "INFO")) {
+            final int nodes = cluster.getNodes().size();
+            session.bulk("cluster_state:ok\r\ncluster_slots_assigned:16384\r\ncluster_slots_ok:16384\r\n"
+                    + "cluster_slots_pfail:0\r\ncluster_slots_fail:0\r\ncluster_known_nodes:" + nodes
+                    + "\r\ncluster_size:" + nodes + "\r\ncluster_current_epoch:" + nodes
+                    + "\r\ncluster_my_epoch:" + (node.index + 1) + "\r\n");
+        } else if (args.is(1, "KEYSLOT") && args.count() == 3) {
+            session.integer(args.key(2, session.probe).slot());
+        } else if (args.is(1, "COUNTKEYSINSLOT") && args.count() == 3) {
+            session.integer(node.countKeysInSlot((int) args.longValue(2)));
+        } else {
+            session.error("ERR unknown CLUSTER subcommand '" + args.string(1) + "'");
+        }
+    }
+
+    private void clusterSlots(RespSession session) {
+        final List<int[]> ranges = cluster.slotRanges();
+        session.arrayHeader(ranges.size());
+        for (int[] range : ranges) {
+            final EmbeddedRedisNode owner = cluster.getNodes().get(range[2]);
+            session.arrayHeader(3);
+            session.integer(range[0]);
+            session.integer(range[1]);
+            session.arrayHeader(3);
+            session.bulk(owner.getHost());
+            session.integer(owner.getPort());
+            session.bulk(owner.getId());
+        }
+    }
+
+    private String clusterNodes(EmbeddedRedisNode self) {
+        final List<int[]> ranges = cluster.slotRanges();
+        final StringBuilder builder = new StringBuilder();
+        for (EmbeddedRedisNode node : cluster.getNodes()) {
+            builder.append(node.getId()).append(' ')
+                    .append(node.getHost()).append(':').append(node.getPort()).append('@').append(node.getPort() + 10000)
+                    .append(node == self ? " myself,master" : " master")
+                    .append(" - 0 0 ").append(node.index + 1).append(" connected");
+            for (int[] range : ranges) {
+                if (range[2] == node.index) {
+                    builder.append(' ').append(range[0]);
+                    if (range[1] != range[0]) {
+                        builder.append('-').append(range[1]);
+                    }
+                }
+            }
+            builder.append('\n');
+        }
+        return builder.toString();
+    }
+
+    private void client(RespSession session, RespArgs args) {
+        if (args.is(1, "LIST")) {
+            final StringBuilder builder = new StringBuilder();
+            for (RespSession client : session.node.sessions) {
+                builder.append("id=").append(client.id).append(" addr=").append(client.address)
+                        .append(" fd=0 name=").append(client.name)
+                        .append(" age=0 idle=0 flags=N db=0 sub=0 psub=0 multi=-1 cmd=client\n");
+            }
+            session.bulk(builder.toString());
+        } else if (args.is(1, "SETNAME") && args.count() == 3) {
+            session.name = args.string(2);
+            session.ok();
+        } else if (args.is(1, "GETNAME")) {
+            if (session.name.isEmpty()) {
+                session.nullBulk();
+            } else {
+                session.bulk(session.name);
+            }
+        } else {
+            session.ok();
+        }
+    }
+
+    private static String info(EmbeddedRedisNode node) {
+        return "# Server\r\nredis_version:5.0.0\r\nredis_mode:cluster\r\ntcp_port:" + node.getPort() + "\r\n\r\n"
+                + "# Clients\r\nconnected_clients:" + node.sessions.size() + "\r\n\r\n"
+                + "# Memory\r\nused_memory:" + node.getUsedMemory() + "\r\n\r\n"
+                + "# Replication\r\nrole:master\r\nconnected_slaves:0\r\nmaster_repl_offset:0\r\n\r\n"
+                + "# Cluster\r\ncluster_enabled:1\r\n\r\n"
+                + "# Keyspace\r\ndb0:keys=" + node.data.size() + ",expires=0,avg_ttl=0\r\n";
+    }
+
+    static String sha1(String source) {
+        try {
+            final byte[] digest = MessageDigest.getInstance("SHA-1").digest(source.getBytes(StandardCharsets.UTF_8));
+            final StringBuilder hex = new StringBuilder(40);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
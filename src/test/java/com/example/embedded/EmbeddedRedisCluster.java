@@ -0,0 +1,389 @@
+package com.example.embedded;
+
+import com.example.cluster.ClusterSlots;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * In-process Redis Cluster stand-in speaking RESP2. Several masters listen on their own ports and share one
+ * non-blocking event loop, which owns every keyspace, so commands need no locking. Slots are split evenly between
+ * the masters; commands for foreign slots are answered with {@code MOVED}, keys of a migrating slot that are not
+ * present any more with {@code ASK}.
+ * <p>
+ * Supports the string commands used by the templates, {@code MULTI}/{@code EXEC}/{@code WATCH},
+ * {@code EVALSHA} for scripts registered through {@link #registerScript(String, EmbeddedScript)},
+ * {@code SUBSCRIBE}/{@code PUBLISH} with cluster-wide delivery and the {@code CLUSTER}/{@code CLIENT}/{@code INFO}
+ * commands Jedis and Lettuce use for topology discovery.
+ */
+public final class EmbeddedRedisCluster implements Closeable {
+
+    public static final String HOST = "127.0.0.1";
+
+    private final List<EmbeddedRedisNode> nodes;
+
+    private final int[] slotOwners = new int[ClusterSlots.SLOT_COUNT];
+
+    private final int[] migrationTargets = new int[ClusterSlots.SLOT_COUNT];
+
+    private final Map<String, EmbeddedScript> scripts = new ConcurrentHashMap<>();
+
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+    private final CommandHandler handler = new CommandHandler(this);
+
+    private final Selector selector;
+
+    private final List<ServerSocketChannel> servers = new ArrayList<>();
+
+    private final List<RespSession> published = new ArrayList<>();
+
+    private final Thread eventLoop;
+
+    private volatile boolean running = true;
+
+    private long sessionIds;
+
+    private EmbeddedRedisCluster(int masters, int basePort) throws IOException {
+        this.selector = Selector.open();
+        final List<EmbeddedRedisNode> created = new ArrayList<>(masters);
+        for (int i = 0; i < masters; i++) {
+            final ServerSocketChannel server = ServerSocketChannel.open();
+            server.bind(new InetSocketAddress(HOST, basePort == 0 ? 0 : basePort + i));
+            server.configureBlocking(false);
+            servers.add(server);
+
+            final int port = ((InetSocketAddress) server.getLocalAddress()).getPort();
+            final EmbeddedRedisNode node = new EmbeddedRedisNode(i, nodeId(port), HOST, port);
+            server.register(selector, SelectionKey.OP_ACCEPT, node);
+            created.add(node);
+
+            final int from = i * ClusterSlots.SLOT_COUNT / masters;
+            final int to = (i + 1) * ClusterSlots.SLOT_COUNT / masters;
+            Arrays.fill(slotOwners, from, to, i);
+        }
+        Arrays.fill(migrationTargets, -1);
+        this.nodes = Collections.unmodifiableList(created);
+
+        this.eventLoop = new Thread(this::run, "embedded-redis-cluster");
+        this.eventLoop.setDaemon(true);
+        this.eventLoop.start();
+    }
+
+    /**
+     * Starts a cluster with the given number of masters on ephemeral ports.
+     */
+    public static EmbeddedRedisCluster start(int masters) {
+        return start(masters, 0);
+    }
+
+    /**
+     * Starts a cluster with the given number of masters on {@code basePort}, {@code basePort + 1}, ... or on
+     * ephemeral ports if {@code basePort} is {@code 0}.
+     */
+    public static EmbeddedRedisCluster start(int masters, int basePort) {
+        if (masters < 1) {
+            throw new IllegalArgumentException("At least one master is required");
+        }
+        try {
+            return new EmbeddedRedisCluster(masters, basePort);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public List<EmbeddedRedisNode> getNodes() {
+        return nodes;
+    }
+
+    /**
+     * @return the {@code host:port} of every master, as accepted by {@code RedisClusterConfiguration}
+     */
+    public List<String> getNodeAddresses() {
+        final List<String> addresses = new ArrayList<>(nodes.size());
+        for (EmbeddedRedisNode node : nodes) {
+            addresses.add(node.getAddress());
+        }
+        return addresses;
+    }
+
+    /**
+     * Makes {@code EVAL}/{@code EVALSHA} of the given Lua source run the Java implementation instead.
+     */
+    public void registerScript(String source, EmbeddedScript script) {
+        scripts.put(source, script);
+    }
+
+    /**
+     * Starts migrating a slot from its current owner to the target master: keys missing on the owner are
+     * answered with {@code ASK}, the target accepts them after {@code ASKING}.
+     */
+    public void beginMigration(int slot, int targetIndex) {
+        call(() -> {
+            migrationTargets[slot] = targetIndex;
+            return null;
+        });
+    }
+
+    /**
+     * Moves the remaining keys of a migrating slot to its target, which then owns the slot.
+     */
+    public void completeMigration(int slot) {
+        call(() -> {
+            final int target = migrationTargets[slot];
+            if (target >= 0) {
+                nodes.get(slotOwners[slot]).transferSlots(slot, slot, nodes.get(target));
+                slotOwners[slot] = target;
+                migrationTargets[slot] = -1;
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Reassigns the slots {@code [from, to]} with their keys to the target master in one step.
+     */
+    public void moveSlots(int from, int to, int targetIndex) {
+        call(() -> {
+            final EmbeddedRedisNode target = nodes.get(targetIndex);
+            for (EmbeddedRedisNode node : nodes) {
+                if (node != target) {
+                    node.transferSlots(from, to, target);
+                }
+            }
+            Arrays.fill(slotOwners, from, to + 1, targetIndex);
+            Arrays.fill(migrationTargets, from, to + 1, -1);
+            return null;
+        });
+    }
+
+    public void flushAll() {
+        call(() -> {
+            for (EmbeddedRedisNode node : nodes) {
+                node.flush();
+            }
+            return null;
+        });
+    }
+
+    /**
+     * @return the number of keys stored across all masters
+     */
+    public int size() {
+        return call(() -> {
+            int size = 0;
+            for (EmbeddedRedisNode node : nodes) {
+                size += node.data.size();
+            }
+            return size;
+        });
+    }
+
+    /**
+     * Runs the task on the event loop and waits for its result.
+     */
+    public <T> T call(Callable<T> task) {
+        final FutureTask<T> future = new FutureTask<>(task);
+        tasks.add(future);
+        selector.wakeup();
+        try {
+            return future.get(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // event loop state, only accessed from the event loop
+
+    EmbeddedRedisNode owner(int slot) {
+        return nodes.get(slotOwners[slot]);
+    }
+
+    EmbeddedRedisNode migrationTarget(int slot) {
+        final int target = migrationTargets[slot];
+        return target < 0 ? null : nodes.get(target);
+    }
+
+    EmbeddedScript script(String source) {
+        return scripts.get(source);
+    }
+
+    /**
+     * Schedules a flush of a subscriber a message was just written to.
+     */
+    void published(RespSession subscriber) {
+        if (!published.contains(subscriber)) {
+            published.add(subscriber);
+        }
+    }
+
+    /**
+     * @return contiguous slot ranges as {@code [from, to, ownerIndex]}
+     */
+    List<int[]> slotRanges() {
+        final List<int[]> ranges = new ArrayList<>();
+        int from = 0;
+        for (int slot = 1; slot <= ClusterSlots.SLOT_COUNT; slot++) {
+            if (slot == ClusterSlots.SLOT_COUNT || slotOwners[slot] != slotOwners[from]) {
+                ranges.add(new int[]{from, slot - 1, slotOwners[from]});
+                from = slot;
+            }
+        }
+        return ranges;
+    }
+
+    private void run() {
+        try {
+            while (running) {
+                selector.select();
+                Runnable task;
+                while ((task = tasks.poll()) != null) {
+                    task.run();
+                }
+                final Iterator<SelectionKey> selected = selector.selectedKeys().iterator();
+                while (selected.hasNext()) {
+                    final SelectionKey key = selected.next();
+                    selected.remove();
+                    try {
+                        if (key.isAcceptable()) {
+                            accept(key);
+                        } else {
+                            if (key.isReadable()) {
+                                read(key);
+                            }
+                            if (key.isValid() && key.isWritable()) {
+                                write(key);
+                            }
+                        }
+                    } catch (IOException | CancelledKeyException e) {
+                        close(key);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            for (SelectionKey key : selector.keys()) {
+                close(key);
+            }
+        }
+    }
+
+    private void accept(SelectionKey key) throws IOException {
+        final SocketChannel channel = ((ServerSocketChannel) key.channel()).accept();
+        if (channel == null) {
+            return;
+        }
+        channel.configureBlocking(false);
+        channel.socket().setTcpNoDelay(true);
+        final EmbeddedRedisNode node = (EmbeddedRedisNode) key.attachment();
+        final String address = channel.getRemoteAddress().toString().replace("/", "");
+        final RespSession session = new RespSession(++sessionIds, channel, address, node);
+        node.sessions.add(session);
+        session.key = channel.register(selector, SelectionKey.OP_READ, session);
+    }
+
+    private void read(SelectionKey key) throws IOException {
+        final RespSession session = (RespSession) key.attachment();
+        if (!session.read()) {
+            close(key);
+            return;
+        }
+        session.beginParsing();
+        try {
+            while (!session.closeAfterWrite && session.parse()) {
+                handler.handle(session);
+            }
+        } finally {
+            session.endParsing();
+        }
+        write(key);
+        flushPublished();
+    }
+
+    private void flushPublished() {
+        for (RespSession subscriber : published) {
+            if (subscriber.key.isValid()) {
+                try {
+                    write(subscriber.key);
+                } catch (IOException | CancelledKeyException e) {
+                    close(subscriber.key);
+                }
+            }
+        }
+        published.clear();
+    }
+
+    private void write(SelectionKey key) throws IOException {
+        final RespSession session = (RespSession) key.attachment();
+        if (session.flush()) {
+            if (session.closeAfterWrite) {
+                close(key);
+            } else {
+                key.interestOps(SelectionKey.OP_READ);
+            }
+        } else {
+            key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+        }
+    }
+
+    private static void close(SelectionKey key) {
+        key.cancel();
+        if (key.attachment() instanceof RespSession) {
+            final RespSession session = (RespSession) key.attachment();
+            session.node.sessions.remove(session);
+        }
+        try {
+            key.channel().close();
+        } catch (IOException e) {
+            // already closed
+        }
+    }
+
+    private static String nodeId(int port) {
+        final String id = String.format("%08x", port);
+        final StringBuilder builder = new StringBuilder(40);
+        while (builder.length() < 40) {
+            builder.append(id);
+        }
+        return builder.toString();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        selector.wakeup();
+        try {
+            eventLoop.join(TimeUnit.SECONDS.toMillis(5));
+            selector.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            // nothing left to release
+        }
+    }
+}
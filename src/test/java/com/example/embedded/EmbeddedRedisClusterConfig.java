@@ -0,0 +1,25 @@
+package com.example.embedded;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.redis.connection.RedisClusterConfiguration;
+
+/**
+ * Points the Jedis and Lettuce profiles at an {@link EmbeddedRedisCluster} instead of a live cluster.
+ */
+@Configuration
+@Profile("embedded")
+public class EmbeddedRedisClusterConfig {
+
+    @Bean(destroyMethod = "close")
+    EmbeddedRedisCluster embeddedRedisCluster(@Value("${redis.embedded.masters:3}") int masters) {
+        return EmbeddedRedisCluster.start(masters);
+    }
+
+    @Bean
+    RedisClusterConfiguration redisClusterConfiguration(EmbeddedRedisCluster embeddedRedisCluster) {
+        return new RedisClusterConfiguration(embeddedRedisCluster.getNodeAddresses());
+    }
+}
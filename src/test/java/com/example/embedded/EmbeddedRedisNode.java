@@ -0,0 +1,184 @@
+package com.example.embedded;
+
+import com.example.cluster.ClusterSlots;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * One master of an {@link EmbeddedRedisCluster}: its address, keyspace and loaded scripts. All state is only
+ * touched from the cluster event loop, including the accessors scripts use.
+ * <p>
+ * Every write takes the next value of a node-wide version counter, which {@code WATCH} compares. A removed key has
+ * no entry left to carry its version, so removals stamp their slot instead: a missing key reports the version of
+ * the last removal in its slot, which never goes back to a value a watcher saw before.
+ */
+public final class EmbeddedRedisNode {
+
+    private static final int ENTRY_OVERHEAD = 48;
+
+    final int index;
+
+    final String id;
+
+    private final String host;
+
+    private final int port;
+
+    final Map<ByteKey, Entry> data = new HashMap<>();
+
+    /**
+     * The stored keys by slot, for {@code SCAN} and slot migrations. Slots without keys have no set.
+     */
+    final TreeMap<Integer, Set<ByteKey>> keysBySlot = new TreeMap<>();
+
+    private final long[] removedVersions = new long[ClusterSlots.SLOT_COUNT];
+
+    final Map<String, String> scripts = new HashMap<>();
+
+    final List<RespSession> sessions = new ArrayList<>();
+
+    private long usedMemory;
+
+    private long version;
+
+    EmbeddedRedisNode(int index, String id, String host, int port) {
+        this.index = index;
+        this.id = id;
+        this.host = host;
+        this.port = port;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public String getAddress() {
+        return host + ":" + port;
+    }
+
+    long getUsedMemory() {
+        return usedMemory;
+    }
+
+    // keyspace operations used by commands and scripts
+
+    public byte[] get(byte[] key) {
+        final Entry entry = lookup(ByteKey.of(key));
+        return entry != null ? entry.value : null;
+    }
+
+    public void set(byte[] key, byte[] value) {
+        put(ByteKey.of(key), value, 0);
+    }
+
+    public boolean del(byte[] key) {
+        return remove(ByteKey.of(key));
+    }
+
+    Entry lookup(ByteKey key) {
+        final Entry entry = data.get(key);
+        if (entry != null && entry.expireAt != 0 && entry.expireAt <= System.currentTimeMillis()) {
+            remove(key);
+            return null;
+        }
+        return entry;
+    }
+
+    /**
+     * @param key a stored key, or a probe that is copied when the key is new
+     */
+    void put(ByteKey key, byte[] value, long expireAt) {
+        final Entry existing = data.get(key);
+        if (existing != null) {
+            usedMemory += value.length - existing.value.length;
+            existing.value = value;
+            existing.expireAt = expireAt;
+            existing.version = ++version;
+            return;
+        }
+        final ByteKey stored = key.copy();
+        data.put(stored, new Entry(value, expireAt, ++version));
+        keysBySlot.computeIfAbsent(stored.slot(), ignored -> new HashSet<>()).add(stored);
+        usedMemory += stored.length() + value.length + ENTRY_OVERHEAD;
+    }
+
+    void touch(Entry entry) {
+        entry.version = ++version;
+    }
+
+    boolean remove(ByteKey key) {
+        final Entry removed = data.remove(key);
+        if (removed == null) {
+            return false;
+        }
+        usedMemory -= key.length() + removed.value.length + ENTRY_OVERHEAD;
+        final int slot = key.slot();
+        final Set<ByteKey> slotKeys = keysBySlot.get(slot);
+        slotKeys.remove(key);
+        if (slotKeys.isEmpty()) {
+            keysBySlot.remove(slot);
+        }
+        removedVersions[slot] = ++version;
+        return true;
+    }
+
+    long versionOf(ByteKey key) {
+        final Entry entry = lookup(key);
+        return entry != null ? entry.version : removedVersions[key.slot()];
+    }
+
+    int countKeysInSlot(int slot) {
+        return keysBySlot.getOrDefault(slot, Collections.emptySet()).size();
+    }
+
+    /**
+     * Moves every key whose slot is in {@code [from, to]} to the target node.
+     */
+    void transferSlots(int from, int to, EmbeddedRedisNode target) {
+        for (Set<ByteKey> slotKeys : new ArrayList<>(keysBySlot.subMap(from, true, to, true).values())) {
+            for (ByteKey key : new ArrayList<>(slotKeys)) {
+                final Entry entry = data.get(key);
+                remove(key);
+                target.put(key, entry.value, entry.expireAt);
+            }
+        }
+    }
+
+    void flush() {
+        data.clear();
+        keysBySlot.clear();
+        Arrays.fill(removedVersions, ++version);
+        usedMemory = 0;
+    }
+
+    static final class Entry {
+
+        byte[] value;
+
+        long expireAt;
+
+        long version;
+
+        Entry(byte[] value, long expireAt, long version) {
+            this.value = value;
+            this.expireAt = expireAt;
+            this.version = version;
+        }
+    }
+}
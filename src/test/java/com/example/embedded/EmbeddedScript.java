@@ -0,0 +1,15 @@
+package com.example.embedded;
+
+/**
+ * Java stand-in for a Lua script, registered on the {@link EmbeddedRedisCluster} under the script source so
+ * that {@code EVAL}/{@code EVALSHA} of that source can run without a Lua interpreter.
+ * <p>
+ * Return values follow the Lua conversion rules: {@code null} or {@code false} is a nil bulk reply, numbers
+ * and {@code true} are integer replies, {@code byte[]} and {@link String} are bulk replies and
+ * {@link java.util.List}s become arrays.
+ */
+@FunctionalInterface
+public interface EmbeddedScript {
+
+    Object execute(EmbeddedRedisNode node, byte[][] keys, byte[][] args);
+}
@@ -0,0 +1,112 @@
+package com.example.embedded;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Arguments of one command as byte ranges. Parsed commands point into the session read buffer; commands queued
+ * inside {@code MULTI} are detached with {@link #copy()}.
+ */
+final class RespArgs {
+
+    private byte[][] arrays = new byte[8][];
+
+    private int[] offsets = new int[8];
+
+    private int[] lengths = new int[8];
+
+    private int count;
+
+    void clear() {
+        count = 0;
+    }
+
+    void add(byte[] array, int offset, int length) {
+        if (count == arrays.length) {
+            arrays = Arrays.copyOf(arrays, count * 2);
+            offsets = Arrays.copyOf(offsets, count * 2);
+            lengths = Arrays.copyOf(lengths, count * 2);
+        }
+        arrays[count] = array;
+        offsets[count] = offset;
+        lengths[count] = length;
+        count++;
+    }
+
+    int count() {
+        return count;
+    }
+
+    byte[] array(int index) {
+        return arrays[index];
+    }
+
+    int offset(int index) {
+        return offsets[index];
+    }
+
+    int length(int index) {
+        return lengths[index];
+    }
+
+    byte[] bytes(int index) {
+        return Arrays.copyOfRange(arrays[index], offsets[index], offsets[index] + lengths[index]);
+    }
+
+    String string(int index) {
+        return new String(arrays[index], offsets[index], lengths[index], StandardCharsets.UTF_8);
+    }
+
+    ByteKey key(int index, ByteKey probe) {
+        return probe.set(arrays[index], offsets[index], lengths[index]);
+    }
+
+    boolean is(int index, String upperCase) {
+        final int length = lengths[index];
+        if (length != upperCase.length()) {
+            return false;
+        }
+        final byte[] array = arrays[index];
+        final int offset = offsets[index];
+        for (int i = 0; i < length; i++) {
+            if (Character.toUpperCase((char) array[offset + i]) != upperCase.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @throws NumberFormatException if the argument is not a valid integer
+     */
+    long longValue(int index) {
+        final byte[] array = arrays[index];
+        final int offset = offsets[index];
+        final int length = lengths[index];
+        if (length == 0 || length > 20) {
+            throw new NumberFormatException();
+        }
+        final boolean negative = array[offset] == '-';
+        int i = negative ? 1 : 0;
+        if (i == length) {
+            throw new NumberFormatException();
+        }
+        long value = 0;
+        for (; i < length; i++) {
+            final int digit = array[offset + i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException();
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    RespArgs copy() {
+        final RespArgs copy = new RespArgs();
+        for (int i = 0; i < count; i++) {
+            copy.add(bytes(i), 0, lengths[i]);
+        }
+        return copy;
+    }
+}
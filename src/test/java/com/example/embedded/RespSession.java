@@ -0,0 +1,284 @@
+package com.example.embedded;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * One client connection: RESP2 request parser over a reusable read buffer, reply encoder into a reusable write
+ * buffer, and the per-connection {@code MULTI}/{@code WATCH}/{@code ASKING} and subscription state.
+ */
+final class RespSession {
+
+    private static final int INITIAL_BUFFER_SIZE = 16 * 1024;
+
+    private static final byte[] CRLF = {'\r', '\n'};
+
+    private static final byte[] OK = "+OK\r\n".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] NULL_BULK = "$-1\r\n".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] NULL_ARRAY = "*-1\r\n".getBytes(StandardCharsets.US_ASCII);
+
+    final long id;
+
+    final SocketChannel channel;
+
+    final String address;
+
+    final EmbeddedRedisNode node;
+
+    final RespArgs args = new RespArgs();
+
+    final ByteKey probe = new ByteKey();
+
+    boolean asking;
+
+    List<RespArgs> multi;
+
+    boolean multiFailed;
+
+    Map<ByteKey, Long> watched;
+
+    Set<String> channels;
+
+    SelectionKey key;
+
+    String name = "";
+
+    boolean closeAfterWrite;
+
+    private ByteBuffer in = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+
+    private ByteBuffer out = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+
+    private final byte[] digits = new byte[20];
+
+    private int number;
+
+    RespSession(long id, SocketChannel channel, String address, EmbeddedRedisNode node) {
+        this.id = id;
+        this.channel = channel;
+        this.address = address;
+        this.node = node;
+    }
+
+    /**
+     * @return {@code false} once the peer has closed the connection
+     */
+    boolean read() throws IOException {
+        if (!in.hasRemaining()) {
+            final ByteBuffer grown = ByteBuffer.allocate(in.capacity() * 2);
+            in.flip();
+            grown.put(in);
+            in = grown;
+        }
+        return channel.read(in) >= 0;
+    }
+
+    void beginParsing() {
+        in.flip();
+    }
+
+    void endParsing() {
+        in.compact();
+    }
+
+    /**
+     * Parses the next complete command into {@link #args}.
+     *
+     * @return {@code false} if the buffered bytes do not hold a complete command yet
+     * @throws IOException on a protocol error
+     */
+    boolean parse() throws IOException {
+        final byte[] buffer = in.array();
+        final int start = in.position();
+        final int limit = in.limit();
+        if (start >= limit) {
+            return false;
+        }
+        if (buffer[start] != '*') {
+            throw new IOException("Protocol error: expected '*', got '" + (char) buffer[start] + "'");
+        }
+        int position = readNumber(buffer, start + 1, limit);
+        if (position < 0) {
+            return false;
+        }
+        final int count = number;
+        args.clear();
+        for (int i = 0; i < count; i++) {
+            if (position >= limit) {
+                return false;
+            }
+            if (buffer[position] != '$') {
+                throw new IOException("Protocol error: expected '$', got '" + (char) buffer[position] + "'");
+            }
+            position = readNumber(buffer, position + 1, limit);
+            if (position < 0 || position + number + 2 > limit) {
+                return false;
+            }
+            args.add(buffer, position, number);
+            position += number + 2;
+        }
+        in.position(position);
+        return true;
+    }
+
+    private int readNumber(byte[] buffer, int position, int limit) throws IOException {
+        int value = 0;
+        boolean negative = false;
+        for (int i = position; i < limit; i++) {
+            final byte b = buffer[i];
+            if (b == '\r') {
+                if (i + 1 >= limit) {
+                    return -1;
+                }
+                number = negative ? -value : value;
+                return i + 2;
+            }
+            if (b == '-') {
+                negative = true;
+            } else if (b >= '0' && b <= '9') {
+                value = value * 10 + (b - '0');
+            } else {
+                throw new IOException("Protocol error: invalid length");
+            }
+        }
+        return -1;
+    }
+
+    // replies
+
+    void ok() {
+        write(OK);
+    }
+
+    void simple(String status) {
+        ensure(status.length() + 3);
+        out.put((byte) '+');
+        ascii(status);
+        out.put(CRLF);
+    }
+
+    void error(String message) {
+        ensure(message.length() + 3);
+        out.put((byte) '-');
+        ascii(message);
+        out.put(CRLF);
+    }
+
+    void redirect(String kind, int slot, EmbeddedRedisNode target) {
+        ensure(kind.length() + target.getHost().length() + 32);
+        out.put((byte) '-');
+        ascii(kind);
+        out.put((byte) ' ');
+        digits(slot);
+        out.put((byte) ' ');
+        ascii(target.getHost());
+        out.put((byte) ':');
+        digits(target.getPort());
+        out.put(CRLF);
+    }
+
+    void integer(long value) {
+        ensure(23);
+        out.put((byte) ':');
+        digits(value);
+        out.put(CRLF);
+    }
+
+    void bulk(byte[] value) {
+        if (value == null) {
+            write(NULL_BULK);
+        } else {
+            bulk(value, 0, value.length);
+        }
+    }
+
+    void bulk(byte[] value, int offset, int length) {
+        ensure(length + 25);
+        out.put((byte) '$');
+        digits(length);
+        out.put(CRLF);
+        out.put(value, offset, length);
+        out.put(CRLF);
+    }
+
+    void bulk(String value) {
+        bulk(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    void nullBulk() {
+        write(NULL_BULK);
+    }
+
+    void arrayHeader(int size) {
+        ensure(23);
+        out.put((byte) '*');
+        digits(size);
+        out.put(CRLF);
+    }
+
+    void nullArray() {
+        write(NULL_ARRAY);
+    }
+
+    private void write(byte[] bytes) {
+        ensure(bytes.length);
+        out.put(bytes);
+    }
+
+    private void ascii(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            out.put((byte) text.charAt(i));
+        }
+    }
+
+    private void digits(long value) {
+        if (value == 0) {
+            out.put((byte) '0');
+            return;
+        }
+        if (value < 0) {
+            out.put((byte) '-');
+        }
+        int position = digits.length;
+        long remaining = value;
+        while (remaining != 0) {
+            digits[--position] = (byte) ('0' + Math.abs(remaining % 10));
+            remaining /= 10;
+        }
+        out.put(digits, position, digits.length - position);
+    }
+
+    private void ensure(int bytes) {
+        if (out.remaining() < bytes) {
+            final ByteBuffer grown = ByteBuffer.allocate(Math.max(out.capacity() * 2, out.position() + bytes));
+            out.flip();
+            grown.put(out);
+            out = grown;
+        }
+    }
+
+    /**
+     * @return {@code true} if all pending replies were written
+     */
+    boolean flush() throws IOException {
+        out.flip();
+        try {
+            channel.write(out);
+            return !out.hasRemaining();
+        } finally {
+            out.compact();
+        }
+    }
+
+    boolean hasPendingWrites() {
+        return out.position() > 0;
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.jedis;
+
+import com.example.JedisConfig;
+import com.example.bootstrap.ClusterReadiness;
+import com.example.cluster.ClusterSlots;
+import com.example.embedded.EmbeddedRedisCluster;
+import com.example.embedded.EmbeddedRedisClusterConfig;
+import com.example.embedded.EmbeddedRedisNode;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@RunWith(SpringRunner.class)
+@Import({JedisConfig.class, EmbeddedRedisClusterConfig.class})
+@ActiveProfiles({"jedis", "embedded"})
+public class JedisClusterPipelineExecutorTests {
+
+    @Autowired
+    @Qualifier("redisTemplateNonTransaction")
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Autowired
+    private EmbeddedRedisCluster cluster;
+
+    @Before
+    public void awaitCluster() {
+        ClusterReadiness.await(redisTemplate.getConnectionFactory(), Duration.ofSeconds(10));
+    }
+
+    @Test
+    public void repliesOfAllNodesComeBackInQueueOrder() {
+        final List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (int i = 0; i < 100; i++) {
+                connection.set(bytes("ordered:" + i), bytes(String.valueOf(i)));
+                connection.get(bytes("ordered:" + i));
+            }
+            return null;
+        });
+
+        assertThat(results).hasSize(200);
+        for (int i = 0; i < 100; i++) {
+            assertThat(results.get(2 * i)).isEqualTo(true);
+            assertThat(results.get(2 * i + 1)).isEqualTo(String.valueOf(i));
+        }
+    }
+
+    @Test
+    public void followsMovedSlots() {
+        final String key = "pipeline:moved";
+        redisTemplate.opsForValue().set(key, "before");
+        final int slot = ClusterSlots.slot(key);
+
+        cluster.moveSlots(slot, slot, otherThanOwner(key));
+
+        final List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            connection.get(bytes(key));
+            connection.set(bytes(key), bytes("after"));
+            return null;
+        });
+        assertThat(results).containsExactly("before", true);
+        assertThat(redisTemplate.opsForValue().get(key)).isEqualTo("after");
+    }
+
+    @Test
+    public void followsAskRedirectsDuringMigration() {
+        final String anchor = "{pipeline:ask}:anchor";
+        final String key = "{pipeline:ask}:migrated";
+        redisTemplate.opsForValue().set(anchor, "stays");
+        final int slot = ClusterSlots.slot(key);
+        final int target = otherThanOwner(anchor);
+
+        cluster.beginMigration(slot, target);
+        try {
+            final List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                connection.set(bytes(key), bytes("imported"));
+                connection.get(bytes(anchor));
+                return null;
+            });
+
+            assertThat(results).containsExactly(true, "stays");
+            assertThat(holder(key)).isEqualTo(target);
+        } finally {
+            cluster.completeMigration(slot);
+        }
+        assertThat(redisTemplate.opsForValue().get(key)).isEqualTo("imported");
+    }
+
+    @Test
+    public void rejectsKeylessCommands() {
+        assertThatThrownBy(() -> redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            connection.set(bytes("pipeline:keyless"), bytes("1"));
+            connection.ping();
+            return null;
+        })).isInstanceOf(InvalidDataAccessApiUsageException.class);
+
+        assertThat(redisTemplate.hasKey("pipeline:keyless")).isFalse();
+    }
+
+    @Test
+    public void rejectsCrossSlotCommandsBeforeSendingAnything() {
+        assertThat(ClusterSlots.slot("a")).isNotEqualTo(ClusterSlots.slot("b"));
+
+        assertThatThrownBy(() -> redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            connection.set(bytes("pipeline:crossslot"), bytes("1"));
+            connection.mGet(bytes("a"), bytes("b"));
+            return null;
+        })).isInstanceOf(InvalidDataAccessApiUsageException.class).hasMessageContaining("CROSSSLOT");
+
+        assertThat(redisTemplate.hasKey("pipeline:crossslot")).isFalse();
+    }
+
+    @Test
+    public void multiKeyCommandsWithinOneSlotAreSent() {
+        redisTemplate.opsForValue().set("{pipeline}:a", "1");
+        redisTemplate.opsForValue().set("{pipeline}:b", "2");
+
+        final List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            connection.mGet(bytes("{pipeline}:a"), bytes("{pipeline}:b"));
+            return null;
+        });
+
+        assertThat(results).hasSize(1);
+        assertThat((List<?>) results.get(0)).containsExactly("1", "2");
+    }
+
+    private int holder(String key) {
+        final List<EmbeddedRedisNode> nodes = cluster.getNodes();
+        final byte[] raw = bytes(key);
+        return cluster.call(() -> IntStream.range(0, nodes.size())
+                .filter(i -> nodes.get(i).get(raw) != null)
+                .findFirst()
+                .getAsInt());
+    }
+
+    private int otherThanOwner(String existingKey) {
+        return (holder(existingKey) + 1) % cluster.getNodes().size();
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.jedis;
+
+import com.example.JedisConfig;
+import com.example.embedded.EmbeddedRedisClusterConfig;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.redis.connection.RedisClusterConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import redis.clients.jedis.JedisCluster;
+import redis.clients.jedis.JedisPool;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(SpringRunner.class)
+@Import({JedisConfig.class, EmbeddedRedisClusterConfig.class})
+@ActiveProfiles({"jedis", "embedded"})
+@TestPropertySource(properties = {"redis.jedis.affinity.enabled=true", "redis.jedis.affinity.max-operations=50",
+        "redis.jedis.affinity.idle-ms=100"})
+public class JedisConnectionAffinityTests {
+
+    @Autowired
+    @Qualifier("redisTemplate")
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Autowired
+    private RedisConnectionFactory connectionFactory;
+
+    @Before
+    public void waitForIdleLeases() throws InterruptedException {
+        for (int i = 0; i < 20 && active() > 0; i++) {
+            TimeUnit.MILLISECONDS.sleep(50);
+        }
+    }
+
+    @Test
+    public void threadKeepsOneConnectionPerNodeUntilIdle() throws InterruptedException {
+        for (int i = 0; i < 30; i++) {
+            redisTemplate.opsForValue().set("affinity:" + i, String.valueOf(i));
+            assertThat(redisTemplate.opsForValue().get("affinity:" + i)).isEqualTo(String.valueOf(i));
+        }
+        assertThat(active()).isEqualTo(pools().length);
+
+        TimeUnit.MILLISECONDS.sleep(500);
+        assertThat(active()).isZero();
+    }
+
+    @Test
+    public void leaseIsGivenBackAfterMaxOperations() {
+        for (int i = 0; i < 50; i++) {
+            redisTemplate.opsForValue().set("{affinity}:counted", String.valueOf(i));
+        }
+
+        assertThat(active()).isZero();
+    }
+
+    @Test
+    public void multiKeyCommandsStillSpanTheCluster() {
+        redisTemplate.opsForValue().set("affinity:a", "1");
+        redisTemplate.opsForValue().set("affinity:b", "2");
+
+        assertThat(redisTemplate.delete(Arrays.asList("affinity:a", "affinity:b"))).isEqualTo(2L);
+    }
+
+    private int active() {
+        int active = 0;
+        for (JedisPool pool : pools()) {
+            active += pool.getNumActive();
+        }
+        return active;
+    }
+
+    private JedisPool[] pools() {
+        try (RedisClusterConnection connection = connectionFactory.getClusterConnection()) {
+            final JedisCluster cluster = (JedisCluster) connection.getNativeConnection();
+            return cluster.getClusterNodes().values().toArray(new JedisPool[0]);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.jedis;
+
+import org.junit.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PoolSizingPolicyTests {
+
+    private final PoolSizingPolicy policy = new PoolSizingPolicy(8, 32, 8, Duration.ofMillis(2), 0.5, 3,
+            Duration.ofMillis(500));
+
+    @Test
+    public void growsWhileCallersWait() {
+        assertThat(policy.resize(8, 8, 5, 0, 0)).isEqualTo(16);
+        assertThat(policy.resize(16, 16, 0, 10, 0)).isEqualTo(24);
+        assertThat(policy.resize(32, 32, 5, 10, 0)).isEqualTo(32);
+    }
+
+    @Test
+    public void shrinksOnlyAfterConsecutiveQuietChecks() {
+        assertThat(policy.isQuiet(32, 4, 0)).isTrue();
+        assertThat(policy.resize(32, 4, 0, 0, 2)).isEqualTo(32);
+        assertThat(policy.resize(32, 4, 0, 0, 3)).isEqualTo(24);
+        assertThat(policy.resize(8, 0, 0, 0, 3)).isEqualTo(8);
+    }
+
+    @Test
+    public void neverShrinksBelowTheActiveConnections() {
+        assertThat(policy.resize(32, 30, 0, 0, 3)).isEqualTo(30);
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.lettuce;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BufferCodecTests {
+
+    private final BufferCodec codec = new BufferCodec(16);
+
+    @Test
+    public void encodesKeysLikeStringGetBytes() {
+        for (String key : new String[]{"user:1", "{tag}:\u00e9", "\u043a\u043b\u044e\u0447",
+                "key:\u20ac", "key:\ud83d\ude00", "key:\ud83d"}) {
+            assertThat(bytes(codec.encodeKey(key))).containsExactly(key.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void reusesTheKeyBufferOfTheThread() {
+        assertThat(codec.encodeKey("first")).isSameAs(codec.encodeKey("second"));
+
+        final StringBuilder longKey = new StringBuilder();
+        while (longKey.length() * 3 <= BufferCodec.MAX_KEY_BUFFER) {
+            longKey.append("long:");
+        }
+        assertThat(bytes(codec.encodeKey(longKey.toString())))
+                .containsExactly(longKey.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static byte[] bytes(ByteBuffer buffer) {
+        final byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return bytes;
+    }
+}
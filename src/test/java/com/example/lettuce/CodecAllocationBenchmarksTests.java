@@ -0,0 +1,108 @@
+package com.example.lettuce;
+
+import io.lettuce.core.codec.ByteArrayCodec;
+import io.lettuce.core.protocol.CommandArgs;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import jmh.mbr.junit4.Microbenchmark;
+import org.apache.commons.lang3.RandomStringUtils;
+import org.junit.runner.RunWith;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encodes a {@code SET} into a pooled Netty buffer and decodes a {@code GET} reply, once through
+ * {@link StringRedisSerializer} and {@link ByteArrayCodec} as the templates do and once through
+ * {@link BufferCodec}. No network is involved, so the difference is the codec path alone. Run {@link #main} to
+ * get {@code gc.alloc.rate.norm}, the bytes allocated per operation.
+ */
+@Measurement(iterations = 5, time = 1)
+@Warmup(iterations = 3, time = 1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@RunWith(Microbenchmark.class)
+public class CodecAllocationBenchmarksTests {
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CodecAllocationBenchmarksTests.class.getName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+
+    @Benchmark
+    public void stringSerializer(CodecState state, Blackhole blackhole) {
+        final ByteBuf buffer = state.buffer.clear();
+        new CommandArgs<>(ByteArrayCodec.INSTANCE)
+                .addKey(state.serializer.serialize(state.key))
+                .addValue(state.serializer.serialize(state.value))
+                .encode(buffer);
+        final byte[] reply = ByteArrayCodec.INSTANCE.decodeValue(state.reply.duplicate());
+        blackhole.consume(state.serializer.deserialize(reply));
+    }
+
+    @Benchmark
+    public void bufferCodec(CodecState state, Blackhole blackhole) {
+        final ByteBuf buffer = state.buffer.clear();
+        state.valueBuffer.rewind();
+        new CommandArgs<>(state.codec)
+                .addKey(state.key)
+                .addValue(state.valueBuffer)
+                .encode(buffer);
+        state.target.clear();
+        final IntoBufferOutput output = state.output;
+        output.set(state.reply.duplicate());
+        blackhole.consume(output.get());
+    }
+
+    @State(Scope.Thread)
+    public static class CodecState {
+
+        @Param({"16", "1024"})
+        int payloadSize;
+
+        final StringRedisSerializer serializer = new StringRedisSerializer();
+
+        final BufferCodec codec = new BufferCodec(1024);
+
+        final String key = "user:1000:profile";
+
+        String value;
+
+        ByteBuffer valueBuffer;
+
+        ByteBuffer reply;
+
+        ByteBuffer target;
+
+        IntoBufferOutput output;
+
+        ByteBuf buffer;
+
+        @Setup
+        public void setup() {
+            value = RandomStringUtils.randomAlphabetic(payloadSize);
+            valueBuffer = ByteBuffer.allocateDirect(payloadSize);
+            valueBuffer.put(value.getBytes(StandardCharsets.UTF_8)).flip();
+            reply = ByteBuffer.wrap(value.getBytes(StandardCharsets.UTF_8)).asReadOnlyBuffer();
+            target = ByteBuffer.allocate(payloadSize);
+            output = new IntoBufferOutput(codec, target);
+            buffer = PooledByteBufAllocator.DEFAULT.directBuffer(payloadSize + 256);
+        }
+
+        @TearDown
+        public void release() {
+            buffer.release();
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.lettuce;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class HotKeyCacheTests {
+
+    private final HotKeyCache cache = new HotKeyCache(16);
+
+    @Test
+    public void cachesAKeyOnItsSecondUse() {
+        assertThat(cache.get("user:1")).isNull();
+        assertThat(cache.get(new String("user:1"))).containsExactly("user:1".getBytes());
+        assertThat(cache.get("user:1")).isSameAs(cache.get("user:1"));
+    }
+
+    @Test
+    public void neverReturnsTheEncodingOfAnotherKey() {
+        for (int i = 0; i < 1000; i++) {
+            final String key = "key:" + (i % 37);
+            final byte[] encoded = cache.get(key);
+            if (encoded != null) {
+                assertThat(encoded).containsExactly(key.getBytes());
+            }
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package com.example.lettuce;
+
+import com.example.LettuceConfig;
+import com.example.bootstrap.ClusterReadiness;
+import com.example.cluster.ClusterSlots;
+import com.example.cluster.FireAndForgetPipeline;
+import com.example.cluster.QueuedCommand;
+import com.example.embedded.EmbeddedRedisCluster;
+import com.example.embedded.EmbeddedRedisClusterConfig;
+import com.example.embedded.EmbeddedRedisNode;
+import io.lettuce.core.ReadFrom;
+import io.lettuce.core.codec.ByteArrayCodec;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.RedisClusterConfiguration;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(SpringRunner.class)
+@Import({LettuceConfig.class, EmbeddedRedisClusterConfig.class})
+@ActiveProfiles({"lettuce", "embedded"})
+public class LettuceBatchingPipelineExecutorTests {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    @Autowired
+    @Qualifier("redisTemplateNonTransaction")
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Autowired
+    private EmbeddedRedisCluster cluster;
+
+    @Autowired
+    private RedisClusterConfiguration clusterConfiguration;
+
+    @Before
+    public void awaitCluster() {
+        ClusterReadiness.await(redisTemplate.getConnectionFactory(), Duration.ofSeconds(10));
+        cluster.flushAll();
+    }
+
+    @Test
+    public void concurrentPipelinesShareFlushesAndKeepTheirOwnReplies() throws Exception {
+        try (LettuceBatchingPipelineExecutor executor = executor(new FlushPolicy(64, 64 * 1024, 500))) {
+            final List<CompletableFuture<List<Object>>> pipelines = IntStream.range(0, 50)
+                    .mapToObj(i -> CompletableFuture.supplyAsync(() -> executor.execute(Arrays.asList(
+                            set("batched:" + i, "value" + i), get("batched:" + i)))))
+                    .collect(Collectors.toList());
+
+            for (int i = 0; i < pipelines.size(); i++) {
+                final List<Object> replies = pipelines.get(i).get(5, TimeUnit.SECONDS);
+                assertThat(replies.get(0)).isEqualTo(true);
+                assertThat(replies.get(1)).isEqualTo(bytes("value" + i));
+            }
+        }
+    }
+
+    @Test
+    public void lingerFlushesALoneCallerBelowTheLimits() {
+        try (LettuceBatchingPipelineExecutor executor = executor(new FlushPolicy(1000, 1 << 20, 20_000))) {
+            final long started = System.nanoTime();
+
+            assertThat(executor.execute(Arrays.asList(set("linger", "1"), get("linger"))))
+                    .containsExactly(true, bytes("1"));
+            assertThat(Duration.ofNanos(System.nanoTime() - started)).isLessThan(TIMEOUT);
+        }
+    }
+
+    @Test
+    public void redirectedCommandsAreFlushedForALoneCaller() {
+        final String key = "batching:moved";
+        redisTemplate.opsForValue().set(key, "before");
+        final int slot = ClusterSlots.slot(key);
+
+        try (LettuceBatchingPipelineExecutor executor = executor(FlushPolicy.immediate())) {
+            assertThat(executor.execute(Arrays.asList(get(key)))).containsExactly(bytes("before"));
+
+            cluster.moveSlots(slot, slot, otherThanOwner(key));
+            final long started = System.nanoTime();
+
+            assertThat(executor.execute(Arrays.asList(get(key), set(key, "after"))))
+                    .containsExactly(bytes("before"), true);
+            assertThat(Duration.ofNanos(System.nanoTime() - started)).isLessThan(Duration.ofSeconds(1));
+        }
+        assertThat(redisTemplate.opsForValue().get(key)).isEqualTo("after");
+    }
+
+    @Test
+    public void templatePipelinesFollowAskRedirects() {
+        final String anchor = "{batching:ask}:anchor";
+        final String key = "{batching:ask}:migrated";
+        redisTemplate.opsForValue().set(anchor, "stays");
+        final int slot = ClusterSlots.slot(key);
+        final int target = otherThanOwner(anchor);
+
+        cluster.beginMigration(slot, target);
+        try {
+            final List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                connection.set(bytes(key), bytes("imported"));
+                connection.get(bytes(anchor));
+                return null;
+            });
+
+            assertThat(results).containsExactly(true, "stays");
+            assertThat(holder(key)).isEqualTo(target);
+        } finally {
+            cluster.completeMigration(slot);
+        }
+    }
+
+    @Test
+    public void discardedPipelinesWaitForRedirectedWrites() {
+        final String key = "batching:discarded";
+        redisTemplate.opsForValue().set(key, "before");
+        final int slot = ClusterSlots.slot(key);
+        final int target = otherThanOwner(key);
+
+        cluster.moveSlots(slot, slot, target);
+        FireAndForgetPipeline.execute(redisTemplate, new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object execute(RedisOperations operations) throws DataAccessException {
+                operations.opsForValue().set(key, "after");
+                return null;
+            }
+        });
+
+        assertThat(holder(key)).isEqualTo(target);
+        assertThat(redisTemplate.opsForValue().get(key)).isEqualTo("after");
+    }
+
+    @Test
+    public void mixedPipelinesReadTheirOwnWritesFromTheMasters() {
+        // the embedded cluster has no replicas, a read routed to one fails
+        final BatchingLettuceConnectionFactory replicaReads = new BatchingLettuceConnectionFactory(
+                clusterConfiguration, LettuceClientConfiguration.builder().readFrom(ReadFrom.SLAVE).build(),
+                FlushPolicy.defaults());
+        replicaReads.afterPropertiesSet();
+        try {
+            final StringRedisTemplate template = new StringRedisTemplate(replicaReads);
+            final List<Object> results = template.executePipelined((RedisCallback<Object>) connection -> {
+                for (int i = 0; i < 20; i++) {
+                    connection.set(bytes("batching:mixed:" + i), bytes("value" + i));
+                    connection.get(bytes("batching:mixed:" + i));
+                }
+                return null;
+            });
+
+            assertThat(results).hasSize(40);
+            for (int i = 0; i < 20; i++) {
+                assertThat(results.get(2 * i)).isEqualTo(true);
+                assertThat(results.get(2 * i + 1)).isEqualTo("value" + i);
+            }
+        } finally {
+            replicaReads.destroy();
+        }
+    }
+
+    private LettuceBatchingPipelineExecutor executor(FlushPolicy flushPolicy) {
+        final BatchingLettuceConnectionFactory factory =
+                (BatchingLettuceConnectionFactory) redisTemplate.getRequiredConnectionFactory();
+        return new LettuceBatchingPipelineExecutor(() -> factory.connect(ByteArrayCodec.INSTANCE), flushPolicy,
+                TIMEOUT);
+    }
+
+    private static QueuedCommand set(String key, String value) {
+        return command("set", new Object[]{bytes(key), bytes(value)}, byte[].class, byte[].class);
+    }
+
+    private static QueuedCommand get(String key) {
+        return command("get", new Object[]{bytes(key)}, byte[].class);
+    }
+
+    private static QueuedCommand command(String name, Object[] args, Class<?>... parameterTypes) {
+        try {
+            return QueuedCommand.of(RedisStringCommands.class.getMethod(name, parameterTypes), args);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private int holder(String key) {
+        final List<EmbeddedRedisNode> nodes = cluster.getNodes();
+        final byte[] raw = bytes(key);
+        return cluster.call(() -> IntStream.range(0, nodes.size())
+                .filter(i -> nodes.get(i).get(raw) != null)
+                .findFirst()
+                .getAsInt());
+    }
+
+    private int otherThanOwner(String existingKey) {
+        return (holder(existingKey) + 1) % cluster.getNodes().size();
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.lettuce;
+
+import com.example.LettuceConfig;
+import com.example.bootstrap.ClusterReadiness;
+import com.example.embedded.EmbeddedRedisClusterConfig;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(SpringRunner.class)
+@Import({LettuceConfig.class, EmbeddedRedisClusterConfig.class})
+@ActiveProfiles({"lettuce", "embedded"})
+public class LettuceClusterTransactionExecutorTests {
+
+    @Autowired
+    @Qualifier("redisTemplateNonTransaction")
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Before
+    public void awaitCluster() {
+        ClusterReadiness.await(redisTemplate.getConnectionFactory(), Duration.ofSeconds(10));
+    }
+
+    @Test
+    public void aKeyChangedByAnotherClientAfterWatchDiscardsTheTransaction() {
+        final String key = "transaction:watched";
+        redisTemplate.opsForValue().set(key, "before");
+
+        final List<Object> results = redisTemplate.execute((RedisCallback<List<Object>>) connection -> {
+            connection.watch(bytes(key));
+            redisTemplate.opsForValue().set(key, "changed");
+            connection.multi();
+            connection.set(bytes(key), bytes("mine"));
+            return connection.exec();
+        });
+
+        assertThat(results).isNull();
+        assertThat(redisTemplate.opsForValue().get(key)).isEqualTo("changed");
+    }
+
+    @Test
+    public void aWatchedKeyOfASlotWithoutCommandsDiscardsTheTransaction() {
+        final String watched = "transaction:watched-elsewhere";
+        final String written = "transaction:written";
+        redisTemplate.opsForValue().set(written, "before");
+
+        final List<Object> results = redisTemplate.execute((RedisCallback<List<Object>>) connection -> {
+            connection.watch(bytes(watched));
+            redisTemplate.opsForValue().set(watched, "changed");
+            connection.multi();
+            connection.set(bytes(written), bytes("mine"));
+            return connection.exec();
+        });
+
+        assertThat(results).isNull();
+        assertThat(redisTemplate.opsForValue().get(written)).isEqualTo("before");
+    }
+
+    @Test
+    public void anUnchangedWatchedKeyLetsTheTransactionApply() {
+        final String key = "transaction:unchanged";
+        redisTemplate.opsForValue().set(key, "before");
+
+        final List<Object> results = redisTemplate.execute((RedisCallback<List<Object>>) connection -> {
+            connection.watch(bytes(key));
+            connection.multi();
+            connection.set(bytes(key), bytes("mine"));
+            return connection.exec();
+        });
+
+        assertThat(results).hasSize(1);
+        assertThat(redisTemplate.opsForValue().get(key)).isEqualTo("mine");
+    }
+
+    @Test
+    public void unwatchForgetsTheWatchedKeys() {
+        final String key = "transaction:unwatched";
+        redisTemplate.opsForValue().set(key, "before");
+
+        final List<Object> results = redisTemplate.execute((RedisCallback<List<Object>>) connection -> {
+            connection.watch(bytes(key));
+            connection.unwatch();
+            redisTemplate.opsForValue().set(key, "changed");
+            connection.multi();
+            connection.set(bytes(key), bytes("mine"));
+            return connection.exec();
+        });
+
+        assertThat(results).hasSize(1);
+        assertThat(redisTemplate.opsForValue().get(key)).isEqualTo("mine");
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
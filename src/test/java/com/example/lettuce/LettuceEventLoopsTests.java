@@ -0,0 +1,35 @@
+package com.example.lettuce;
+
+import io.netty.channel.nio.NioEventLoopGroup;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class LettuceEventLoopsTests {
+
+    @Test
+    public void sharesOneGroupPerTypeUntilClosed() {
+        final LettuceEventLoops eventLoops = new LettuceEventLoops(
+                new EventLoopPolicy(EventLoopPolicy.Transport.AUTO, 2, 1, Collections.emptyList()));
+        final NioEventLoopGroup group = eventLoops.allocate(NioEventLoopGroup.class);
+
+        assertThat(eventLoops.allocate(NioEventLoopGroup.class)).isSameAs(group);
+        assertThat(group.executorCount()).isEqualTo(2);
+        assertThat(eventLoops.release(group, 0, 1, TimeUnit.SECONDS).getNow()).isTrue();
+        assertThat(group.isShuttingDown()).isFalse();
+
+        eventLoops.close();
+
+        assertThat(group.isTerminated()).isTrue();
+    }
+
+    @Test
+    public void rejectsNegativeThreadCounts() {
+        assertThatThrownBy(() -> new EventLoopPolicy(EventLoopPolicy.Transport.NIO, -1, 0, Collections.emptyList()))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.load;
+
+import java.util.List;
+
+/**
+ * Finds the knee of a throughput/latency curve with the Kneedle method. Both axes are normalised to [0, 1]
+ * and the knee is the step that lies furthest below the line from the first step to the last, that is the
+ * highest throughput reached before latency starts to climb steeply.
+ */
+public final class KneeDetector {
+
+    private KneeDetector() {
+    }
+
+    /**
+     * @return the knee step, the last step if the curve has no knee, {@code null} for no steps
+     */
+    public static LoadStep knee(List<LoadStep> steps, double percentile) {
+        if (steps.isEmpty()) {
+            return null;
+        }
+        if (steps.size() < 3) {
+            return steps.get(steps.size() - 1);
+        }
+        double minRate = Double.MAX_VALUE, maxRate = 0, minLatency = Double.MAX_VALUE, maxLatency = 0;
+        for (LoadStep step : steps) {
+            minRate = Math.min(minRate, step.getAchievedRate());
+            maxRate = Math.max(maxRate, step.getAchievedRate());
+            minLatency = Math.min(minLatency, step.percentileMicros(percentile));
+            maxLatency = Math.max(maxLatency, step.percentileMicros(percentile));
+        }
+        if (maxRate == minRate || maxLatency == minLatency) {
+            return steps.get(steps.size() - 1);
+        }
+
+        LoadStep knee = steps.get(steps.size() - 1);
+        double best = 0;
+        for (LoadStep step : steps) {
+            final double x = (step.getAchievedRate() - minRate) / (maxRate - minRate);
+            final double y = (step.percentileMicros(percentile) - minLatency) / (maxLatency - minLatency);
+            if (x - y > best) {
+                best = x - y;
+                knee = step;
+            }
+        }
+        return knee;
+    }
+}
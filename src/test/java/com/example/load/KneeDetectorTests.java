@@ -0,0 +1,34 @@
+package com.example.load;
+
+import org.HdrHistogram.Histogram;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class KneeDetectorTests {
+
+    private static LoadStep step(double rate, long p99Micros) {
+        final Histogram histogram = new Histogram(TimeUnit.MINUTES.toNanos(1), 3);
+        histogram.recordValue(TimeUnit.MICROSECONDS.toNanos(p99Micros));
+        return new LoadStep(rate, rate, 1, 0, 0, histogram);
+    }
+
+    @Test
+    public void picksTheLastStepBeforeLatencyClimbs() {
+        final List<LoadStep> steps = Arrays.asList(step(1000, 500), step(2000, 520), step(4000, 600),
+                step(8000, 900), step(9000, 20000), step(9200, 90000));
+
+        assertThat(KneeDetector.knee(steps, 99).getAchievedRate()).isEqualTo(8000);
+    }
+
+    @Test
+    public void fallsBackToTheLastStepOfAFlatCurve() {
+        final List<LoadStep> steps = Arrays.asList(step(1000, 500), step(2000, 500), step(4000, 500));
+
+        assertThat(KneeDetector.knee(steps, 99).getAchievedRate()).isEqualTo(4000);
+    }
+}
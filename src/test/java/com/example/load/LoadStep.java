@@ -0,0 +1,75 @@
+package com.example.load;
+
+import org.HdrHistogram.Histogram;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Outcome of driving one constant arrival rate. Latencies are measured from the intended start of each request,
+ * so they include the time a request waited for a free worker.
+ */
+public final class LoadStep {
+
+    private final double targetRate;
+
+    private final double achievedRate;
+
+    private final long completed;
+
+    private final long failed;
+
+    private final long missed;
+
+    private final Histogram latencies;
+
+    LoadStep(double targetRate, double achievedRate, long completed, long failed, long missed,
+             Histogram latencies) {
+        this.targetRate = targetRate;
+        this.achievedRate = achievedRate;
+        this.completed = completed;
+        this.failed = failed;
+        this.missed = missed;
+        this.latencies = latencies;
+    }
+
+    public double getTargetRate() {
+        return targetRate;
+    }
+
+    /**
+     * @return completed requests per second
+     */
+    public double getAchievedRate() {
+        return achievedRate;
+    }
+
+    public long getCompleted() {
+        return completed;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    /**
+     * @return requests still outstanding when the step's drain timeout ran out; their latency up to that point is
+     * part of the percentiles
+     */
+    public long getMissed() {
+        return missed;
+    }
+
+    /**
+     * @return the latency at the percentile, in microseconds
+     */
+    public double percentileMicros(double percentile) {
+        return TimeUnit.NANOSECONDS.toMicros(latencies.getValueAtPercentile(percentile));
+    }
+
+    @Override
+    public String toString() {
+        return String.format("target %8.0f/s  achieved %8.0f/s  p50 %8.0f us  p99 %8.0f us  p999 %8.0f us"
+                        + "  failed %d  missed %d", targetRate, achievedRate, percentileMicros(50),
+                percentileMicros(99), percentileMicros(99.9), failed, missed);
+    }
+}
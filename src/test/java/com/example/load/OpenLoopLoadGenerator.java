@@ -0,0 +1,125 @@
+package com.example.load;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Issues requests at a constant arrival rate regardless of how fast earlier ones complete. A dispatcher hands
+ * every request to a worker pool at its intended start time, and latency is measured from that time rather
+ * than from when a worker picked it up. A server that falls behind therefore shows up as growing latency
+ * instead of a lower request rate (coordinated omission). Requests still outstanding at the drain deadline are
+ * recorded with their latency up to that deadline, and replies arriving later are ignored, so a stalled server
+ * cannot hide its slowest requests or spill them into the next step.
+ */
+public class OpenLoopLoadGenerator implements AutoCloseable {
+
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final ExecutorService workers;
+
+    private final Duration drainTimeout;
+
+    public OpenLoopLoadGenerator(int workerThreads, Duration drainTimeout) {
+        this.workers = Executors.newFixedThreadPool(workerThreads, runnable -> {
+            final Thread thread = new Thread(runnable, "open-loop-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.drainTimeout = drainTimeout;
+    }
+
+    /**
+     * Drives {@code request} at {@code ratePerSecond} for {@code duration}, then waits up to the drain timeout
+     * for outstanding requests and counts the rest as missed.
+     */
+    public LoadStep run(double ratePerSecond, Duration duration, Runnable request) {
+        final Recorder recorder = new Recorder(HIGHEST_TRACKABLE_NANOS, 3);
+        final AtomicLong completed = new AtomicLong();
+        final AtomicLong failed = new AtomicLong();
+        final long period = (long) (TimeUnit.SECONDS.toNanos(1) / ratePerSecond);
+        final long total = (long) (ratePerSecond * duration.toNanos() / TimeUnit.SECONDS.toNanos(1));
+        // indexes of the requests dispatched but not yet recorded; whoever removes one records it
+        final Set<Long> outstanding = ConcurrentHashMap.newKeySet();
+
+        final long start = System.nanoTime();
+        for (long i = 0; i < total; i++) {
+            final Long index = i;
+            final long intendedStart = start + i * period;
+            long wait;
+            while ((wait = intendedStart - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            outstanding.add(index);
+            workers.execute(() -> {
+                if (!outstanding.contains(index)) {
+                    // missed by a step already over, running it now would only delay the next one
+                    return;
+                }
+                boolean succeeded;
+                try {
+                    request.run();
+                    succeeded = true;
+                } catch (RuntimeException e) {
+                    succeeded = false;
+                }
+                if (outstanding.remove(index)) {
+                    (succeeded ? completed : failed).incrementAndGet();
+                    recorder.recordValue(Math.min(System.nanoTime() - intendedStart, HIGHEST_TRACKABLE_NANOS));
+                }
+            });
+        }
+
+        final long deadline = System.nanoTime() + drainTimeout.toNanos();
+        while (!outstanding.isEmpty() && System.nanoTime() < deadline) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        final long drained = System.nanoTime();
+        long missed = 0;
+        for (Long index : outstanding) {
+            if (outstanding.remove(index)) {
+                missed++;
+                recorder.recordValue(Math.min(drained - (start + index * period), HIGHEST_TRACKABLE_NANOS));
+            }
+        }
+        final long elapsed = drained - start;
+        final long done = completed.get();
+        final Histogram latencies = recorder.getIntervalHistogram();
+        return new LoadStep(ratePerSecond, done * (double) TimeUnit.SECONDS.toNanos(1) / elapsed, done,
+                failed.get(), missed, latencies);
+    }
+
+    /**
+     * Multiplies the rate by {@code factor} after every step until the achieved rate falls below 90% of the
+     * target, requests fail or go missing, or {@code maxSteps} is reached.
+     */
+    public List<LoadStep> ramp(double initialRate, double factor, int maxSteps, Duration stepDuration,
+                               Runnable request) {
+        final List<LoadStep> steps = new ArrayList<>();
+        double rate = initialRate;
+        for (int i = 0; i < maxSteps; i++) {
+            final LoadStep step = run(rate, stepDuration, request);
+            steps.add(step);
+            if (step.getAchievedRate() < 0.9 * rate || step.getFailed() > 0 || step.getMissed() > 0) {
+                break;
+            }
+            rate *= factor;
+        }
+        return steps;
+    }
+
+    @Override
+    public void close() {
+        workers.shutdownNow();
+    }
+}
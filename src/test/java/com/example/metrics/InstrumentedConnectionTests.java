@@ -0,0 +1,56 @@
+package com.example.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+import org.springframework.data.redis.connection.RedisConnection;
+
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class InstrumentedConnectionTests {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private final RedisConnection connection = InstrumentedConnection.wrap(stub(), new RedisMetrics(registry));
+
+    private static RedisConnection stub() {
+        return (RedisConnection) Proxy.newProxyInstance(InstrumentedConnectionTests.class.getClassLoader(),
+                new Class<?>[]{RedisConnection.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "get":
+                            return "value".getBytes();
+                        case "closePipeline":
+                            return Arrays.asList("a".getBytes(), 1L);
+                        default:
+                            return method.getReturnType() == boolean.class ? false : null;
+                    }
+                });
+    }
+
+    @Test
+    public void recordsSingleCommandsPerCommand() {
+        connection.get("key".getBytes());
+        connection.get("key".getBytes());
+
+        assertThat(registry.get("redis.command").tag("command", "get").tag("node", RedisMetrics.STANDALONE)
+                .timer().count()).isEqualTo(2);
+        assertThat(registry.get("redis.bytes.out").tag("mode", "single").counter().count()).isEqualTo(6);
+        assertThat(registry.get("redis.bytes.in").tag("mode", "single").counter().count()).isEqualTo(10);
+    }
+
+    @Test
+    public void recordsPipelinesAsOneBatch() {
+        connection.openPipeline();
+        connection.set("a".getBytes(), "1".getBytes());
+        connection.get("a".getBytes());
+        connection.closePipeline();
+
+        assertThat(registry.get("redis.batch").tag("mode", "pipeline").timer().count()).isEqualTo(1);
+        assertThat(registry.get("redis.batch.depth").tag("mode", "pipeline").summary().totalAmount())
+                .isEqualTo(2);
+        assertThat(registry.find("redis.command").timers()).isEmpty();
+        assertThat(registry.get("redis.bytes.in").tag("mode", "pipeline").counter().count()).isEqualTo(1);
+    }
+}
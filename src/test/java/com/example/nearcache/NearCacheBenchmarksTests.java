@@ -0,0 +1,175 @@
+package com.example.nearcache;
+
+import com.example.Application;
+import com.example.workload.KeyDistribution;
+import com.example.workload.ValueSizes;
+import com.example.workload.Workload;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jmh.mbr.junit4.Microbenchmark;
+import org.HdrHistogram.Histogram;
+import org.junit.runner.RunWith;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.Banner;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Zipfian reads of {@value #KEYS} keys with the near cache sized for a tenth of them, against reads that always
+ * go to the embedded cluster ({@code eviction=none}); compare the throughput of the two.
+ * <p>
+ * {@code stalenessWindow} writes a key through one near cache while a second one, subscribed to the same
+ * invalidation channel, has it cached, and spins until the second one returns the new value. The printed
+ * percentiles are the time from the write returning to the reader seeing it, i.e. how long other instances may
+ * serve the old value.
+ */
+@Measurement(iterations = 5, time = 2)
+@Warmup(iterations = 3, time = 2)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@RunWith(Microbenchmark.class)
+public class NearCacheBenchmarksTests {
+
+    static final int KEYS = 10_000;
+
+    private static final double ZIPF_EXPONENT = 0.99;
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @Threads(16)
+    public String zipfianRead(ReadContext context, Reader reader) {
+        final String key = reader.cursor.next().key();
+        return context.nearCache != null ? context.nearCache.get(key) : context.redisTemplate.opsForValue().get(key);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @Threads(1)
+    public String stalenessWindow(StalenessContext context) {
+        final String value = Long.toString(++context.version);
+        context.reader.get(StalenessContext.KEY);
+        context.writer.set(StalenessContext.KEY, value);
+        final long written = System.nanoTime();
+        String seen;
+        while (!value.equals(seen = context.reader.get(StalenessContext.KEY))) {
+            Thread.yield();
+        }
+        context.window.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - written));
+        return seen;
+    }
+
+    @SuppressWarnings("unchecked")
+    static RedisTemplate<String, String> template(ConfigurableApplicationContext context) {
+        return context.getBean("redisTemplateNonTransaction", RedisTemplate.class);
+    }
+
+    static ConfigurableApplicationContext start(String client, String... properties) {
+        return new SpringApplicationBuilder(Application.class)
+                .bannerMode(Banner.Mode.OFF)
+                .profiles(client, "embedded")
+                .properties(properties)
+                .build()
+                .run();
+    }
+
+    @State(Scope.Benchmark)
+    public static class ReadContext {
+
+        @Param({"jedis", "lettuce"})
+        String client;
+
+        @Param({"none", "lru", "tiny-lfu"})
+        String eviction;
+
+        volatile ConfigurableApplicationContext context;
+
+        volatile RedisTemplate<String, String> redisTemplate;
+
+        volatile NearCache nearCache;
+
+        final Workload workload = Workload.builder()
+                .keys(KeyDistribution.zipfian(KEYS, ZIPF_EXPONENT))
+                .values(ValueSizes.fixed(64))
+                .variants(1)
+                .build();
+
+        @Setup
+        public void setup() {
+            final boolean cached = !"none".equals(eviction);
+            final String value = workload.value(0);
+            final long maxBytes = KEYS / 10 * new NearCacheEntry(workload.key(KEYS - 1), value, 0).getWeight();
+            this.context = start(client, "redis.near-cache.enabled=" + cached,
+                    "redis.near-cache.eviction=" + eviction, "redis.near-cache.max-bytes=" + maxBytes);
+            this.redisTemplate = template(context);
+            this.nearCache = cached ? context.getBean(NearCache.class) : null;
+            final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (int i = 0; i < KEYS; i++) {
+                    connection.set(workload.key(i).getBytes(StandardCharsets.UTF_8), bytes);
+                }
+                return null;
+            });
+        }
+
+        @TearDown
+        public void clean() {
+            this.context.close();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class StalenessContext {
+
+        static final String KEY = "staleness";
+
+        @Param({"jedis", "lettuce"})
+        String client;
+
+        final Histogram window = new Histogram(TimeUnit.SECONDS.toMicros(10), 3);
+
+        ConfigurableApplicationContext context;
+
+        NearCache writer;
+
+        NearCache reader;
+
+        long version;
+
+        @Setup
+        public void setup() {
+            this.context = start(client, "redis.near-cache.enabled=true");
+            this.writer = context.getBean(NearCache.class);
+            final RedisConnectionFactory connectionFactory = context.getBean(RedisConnectionFactory.class);
+            this.reader = new NearCache("reader", template(context), new TinyLfuStore(1024 * 1024),
+                    Duration.ofMinutes(1),
+                    new BroadcastInvalidationChannel(connectionFactory, BroadcastInvalidationChannel.DEFAULT_CHANNEL),
+                    new SimpleMeterRegistry());
+        }
+
+        @TearDown
+        public void clean() {
+            System.out.printf("%nstaleness window [us] of %s: p50=%d p99=%d p999=%d max=%d (%d writes)%n", client,
+                    window.getValueAtPercentile(50), window.getValueAtPercentile(99),
+                    window.getValueAtPercentile(99.9), window.getMaxValue(), window.getTotalCount());
+            reader.close();
+            context.close();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Reader {
+
+        Workload.Cursor cursor;
+
+        @Setup
+        public void setup(ReadContext context) {
+            this.cursor = context.workload.cursor();
+        }
+    }
+}
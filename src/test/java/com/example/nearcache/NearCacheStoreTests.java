@@ -0,0 +1,99 @@
+package com.example.nearcache;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class NearCacheStoreTests {
+
+    private static NearCacheEntry entry(String key) {
+        return new NearCacheEntry(key, "value", Long.MAX_VALUE);
+    }
+
+    @Test
+    public void lruStaysWithinTheByteLimit() {
+        final int weight = entry("key:00").getWeight();
+        final LruStore store = new LruStore(10 * weight);
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(store.put("key:0" + i, entry("key:0" + i))).isZero();
+        }
+        store.get("key:00");
+        assertThat(store.put("key:10", entry("key:10"))).isEqualTo(1);
+
+        assertThat(store.weightedSize()).isEqualTo(10L * weight);
+        assertThat(store.get("key:00")).isNotNull();
+        assertThat(store.get("key:01")).isNull();
+    }
+
+    @Test
+    public void tinyLfuKeepsFrequentKeysDuringAScan() {
+        final int weight = entry("key:000").getWeight();
+        final TinyLfuStore store = new TinyLfuStore(100 * weight);
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 50; i++) {
+                final String key = String.format("key:%03d", i);
+                if (store.get(key) == null) {
+                    store.put(key, entry(key));
+                }
+            }
+        }
+
+        for (int i = 100; i < 1000; i++) {
+            final String key = String.format("key:%03d", i);
+            store.put(key, entry(key));
+        }
+
+        int retained = 0;
+        for (int i = 0; i < 50; i++) {
+            if (store.get(String.format("key:%03d", i)) != null) {
+                retained++;
+            }
+        }
+        assertThat(retained).isEqualTo(50);
+        assertThat(store.weightedSize()).isLessThanOrEqualTo(100L * weight);
+    }
+
+    @Test
+    public void replacingAnEntryUpdatesTheWeight() {
+        final TinyLfuStore store = new TinyLfuStore(1024 * 1024);
+        store.put("key", new NearCacheEntry("key", "a", Long.MAX_VALUE));
+        store.put("key", new NearCacheEntry("key", "abc", Long.MAX_VALUE));
+
+        assertThat(store.size()).isEqualTo(1);
+        assertThat(store.weightedSize()).isEqualTo(store.get("key").getWeight());
+        assertThat(store.remove("key")).isTrue();
+        assertThat(store.weightedSize()).isZero();
+    }
+
+    @Test
+    public void rejectsEntriesLargerThanTheStore() {
+        final LruStore store = new LruStore(16);
+
+        assertThat(store.put("key", entry("key"))).isEqualTo(1);
+        assertThat(store.size()).isZero();
+    }
+
+    @Test
+    public void reportsEveryEvictedKey() {
+        final int weight = entry("key:000").getWeight();
+        final TinyLfuStore store = new TinyLfuStore(100 * weight);
+        final List<String> evicted = new ArrayList<>();
+        store.setEvictionListener(evicted::add);
+
+        int count = 0;
+        for (int i = 0; i < 1000; i++) {
+            final String key = String.format("key:%03d", i);
+            count += store.put(key, entry(key));
+        }
+
+        assertThat(evicted).hasSize(count).doesNotHaveDuplicates();
+        assertThat(store.size()).isEqualTo(1000 - count);
+        for (String key : evicted) {
+            assertThat(store.get(key)).isNull();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.scan;
+
+import com.example.JedisConfig;
+import com.example.embedded.EmbeddedRedisCluster;
+import com.example.embedded.EmbeddedRedisClusterConfig;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(SpringRunner.class)
+@Import({JedisConfig.class, EmbeddedRedisClusterConfig.class})
+@ActiveProfiles({"jedis", "embedded"})
+public class ClusterScannerTests {
+
+    private static final int KEYS = 2_000;
+
+    @Autowired
+    private EmbeddedRedisCluster cluster;
+
+    @Autowired
+    private RedisConnectionFactory connectionFactory;
+
+    @Autowired
+    @Qualifier("redisTemplateNonTransaction")
+    private RedisTemplate<String, String> redisTemplate;
+
+    private ClusterScanner scanner;
+
+    @Before
+    public void setUp() {
+        cluster.flushAll();
+        for (int i = 0; i < KEYS; i++) {
+            redisTemplate.opsForValue().set((i % 2 == 0 ? "even:" : "odd:") + i, "value");
+        }
+        // a small queue and batches so that the workers have to wait for the consumer
+        scanner = new ClusterScanner(connectionFactory, 2, 16);
+    }
+
+    @Test
+    public void scansEveryNode() {
+        final Set<String> keys = keys(ScanOptions.scanOptions().count(50).build());
+
+        assertThat(keys).hasSize(KEYS).contains("even:0", "odd:1999");
+    }
+
+    @Test
+    public void scansMatchingKeys() {
+        final Set<String> keys = keys(ScanOptions.scanOptions().match("odd:1?").count(50).build());
+
+        assertThat(keys).containsOnly("odd:11", "odd:13", "odd:15", "odd:17", "odd:19");
+    }
+
+    @Test
+    public void stopsWhenClosedEarly() {
+        try (Stream<byte[]> keys = scanner.scan(ScanOptions.scanOptions().count(10).build()).stream()) {
+            assertThat(keys.limit(100).count()).isEqualTo(100);
+        }
+    }
+
+    @Test
+    public void purgesScannedKeys() {
+        final KeyPurger purger = new KeyPurger(connectionFactory, new PurgePolicy(100, 50_000));
+
+        final long removed;
+        try (ClusterScan keys = scanner.scan(ScanOptions.scanOptions().match("even:*").count(100).build())) {
+            removed = purger.purge(keys);
+        }
+
+        assertThat(removed).isEqualTo(KEYS / 2);
+        assertThat(cluster.size()).isEqualTo(KEYS / 2);
+        assertThat(redisTemplate.opsForValue().get("odd:1")).isEqualTo("value");
+        assertThat(redisTemplate.hasKey("even:0")).isFalse();
+    }
+
+    private Set<String> keys(ScanOptions options) {
+        try (Stream<byte[]> keys = scanner.scan(options).stream()) {
+            return keys.map(key -> new String(key, StandardCharsets.UTF_8)).collect(Collectors.toSet());
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.script;
+
+import com.example.JedisConfig;
+import com.example.embedded.EmbeddedRedisCluster;
+import com.example.embedded.EmbeddedRedisClusterConfig;
+import com.example.embedded.EmbeddedRedisNode;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import redis.clients.jedis.Jedis;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@RunWith(SpringRunner.class)
+@Import({JedisConfig.class, EmbeddedRedisClusterConfig.class})
+@ActiveProfiles({"jedis", "embedded"})
+public class ClusterScriptsTests {
+
+    private static final String SET_AND_GET = "redis.call('SET', KEYS[1], ARGV[1]) return redis.call('GET', KEYS[1])";
+
+    private static final RedisScript<String> SCRIPT = new DefaultRedisScript<>(SET_AND_GET, String.class);
+
+    @Autowired
+    private EmbeddedRedisCluster cluster;
+
+    @Autowired
+    @Qualifier("redisTemplateNonTransaction")
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Autowired
+    private ClusterScripts clusterScripts;
+
+    @Before
+    public void registerScript() {
+        cluster.registerScript(SET_AND_GET, (node, keys, args) -> {
+            node.set(keys[0], args[0]);
+            return node.get(keys[0]);
+        });
+    }
+
+    @Test
+    public void firstUseLoadsTheScriptOnEveryNode() {
+        assertThat(redisTemplate.execute(SCRIPT, Collections.singletonList("script:a"), "1")).isEqualTo("1");
+
+        for (EmbeddedRedisNode node : cluster.getNodes()) {
+            try (Jedis jedis = new Jedis(node.getHost(), node.getPort())) {
+                assertThat(jedis.scriptExists(SCRIPT.getSha1())).isTrue();
+            }
+        }
+    }
+
+    @Test
+    public void noScriptReloadsAllNodesOnce() {
+        redisTemplate.execute(SCRIPT, Collections.singletonList("script:b"), "1");
+        final long generation = clusterScripts.getGeneration();
+        for (EmbeddedRedisNode node : cluster.getNodes()) {
+            try (Jedis jedis = new Jedis(node.getHost(), node.getPort())) {
+                jedis.scriptFlush();
+            }
+        }
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(redisTemplate.execute(SCRIPT, Collections.singletonList("script:" + i), "2")).isEqualTo("2");
+        }
+        assertThat(clusterScripts.getGeneration()).isEqualTo(generation + 1);
+    }
+
+    @Test
+    public void loadsMissingAMasterKeepTheScriptsStale() {
+        final ClusterScripts scripts = new ClusterScripts(redisTemplate.getRequiredConnectionFactory(),
+                (connection, sources) -> false);
+        scripts.register(SCRIPT);
+
+        scripts.preload();
+
+        assertThat(scripts.isStale()).isTrue();
+        assertThat(scripts.getGeneration()).isZero();
+    }
+
+    @Test
+    public void keysOfDifferentSlotsAreRejected() {
+        assertThatThrownBy(() -> redisTemplate.execute(SCRIPT, Arrays.asList("foo", "bar"), "1"))
+                .isInstanceOf(InvalidDataAccessApiUsageException.class);
+    }
+
+    @Test
+    public void pipelinedScriptsRunOnTheNodeOfTheirKey() {
+        final byte[] source = SET_AND_GET.getBytes(StandardCharsets.UTF_8);
+        final List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (int i = 0; i < 20; i++) {
+                connection.eval(source, ReturnType.VALUE, 1, ("pipelined:" + i).getBytes(StandardCharsets.UTF_8),
+                        String.valueOf(i).getBytes(StandardCharsets.UTF_8));
+            }
+            return null;
+        });
+
+        assertThat(results).hasSize(20);
+        for (int i = 0; i < 20; i++) {
+            assertThat(redisTemplate.opsForValue().get("pipelined:" + i)).isEqualTo(String.valueOf(i));
+        }
+    }
+}
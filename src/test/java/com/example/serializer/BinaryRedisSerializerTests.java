@@ -0,0 +1,65 @@
+package com.example.serializer;
+
+import org.junit.Test;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class BinaryRedisSerializerTests {
+
+    private final BinaryTypeRegistry registry = new BinaryTypeRegistry().register(new Profile.Schema());
+
+    private final BinaryRedisSerializer<Object> serializer = new BinaryRedisSerializer<>(registry);
+
+    @Test
+    public void roundTripsWithoutFieldNames() {
+        final Profile profile = Profile.sample(-42);
+        profile.name = "hélène";
+        profile.email = null;
+
+        final byte[] bytes = serializer.serialize(profile);
+
+        assertThat(bytes[0]).isEqualTo((byte) 1);
+        assertThat(new String(bytes)).doesNotContain("name");
+        assertThat(serializer.deserialize(bytes)).isEqualTo(profile);
+    }
+
+    @Test
+    public void encodesSmallIntegersInOneByte() {
+        final BinaryWriter writer = new BinaryWriter(1);
+        writer.writeInt(-64).writeInt(63).writeVarLong(127);
+        assertThat(writer.toByteArray()).hasSize(3);
+
+        writer.writeInt(64).writeVarLong(Long.MAX_VALUE).writeLong(Long.MIN_VALUE);
+        final BinaryReader reader = new BinaryReader();
+        reader.reset(writer.toByteArray());
+        assertThat(reader.readInt()).isEqualTo(-64);
+        assertThat(reader.readInt()).isEqualTo(63);
+        assertThat(reader.readVarLong()).isEqualTo(127);
+        assertThat(reader.readInt()).isEqualTo(64);
+        assertThat(reader.readVarLong()).isEqualTo(Long.MAX_VALUE);
+        assertThat(reader.readLong()).isEqualTo(Long.MIN_VALUE);
+        assertThat(reader.hasRemaining()).isFalse();
+    }
+
+    @Test
+    public void rejectsTruncatedValuesAndUnknownTypes() {
+        final byte[] bytes = serializer.serialize(Profile.sample(7));
+        final byte[] unknown = bytes.clone();
+        unknown[0] = 2;
+
+        assertThatThrownBy(() -> serializer.deserialize(Arrays.copyOf(bytes, bytes.length - 1)))
+                .isInstanceOf(SerializationException.class);
+        assertThatThrownBy(() -> serializer.deserialize(unknown)).isInstanceOf(SerializationException.class);
+        assertThatThrownBy(() -> serializer.serialize("not registered")).isInstanceOf(SerializationException.class);
+    }
+
+    @Test
+    public void refusesDuplicateTypeIds() {
+        assertThatThrownBy(() -> registry.register(new Profile.Schema()))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
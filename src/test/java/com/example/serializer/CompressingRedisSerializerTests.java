@@ -0,0 +1,104 @@
+package com.example.serializer;
+
+import org.apache.commons.lang3.RandomStringUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Test;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class CompressingRedisSerializerTests {
+
+    private final CompressingRedisSerializer<String> serializer =
+            new CompressingRedisSerializer<>(new StringRedisSerializer(), Lz4Compressor.INSTANCE, 64);
+
+    @Test
+    public void compressesValuesFromTheThreshold() {
+        final String value = StringUtils.repeat("{\"name\":\"alice\",\"active\":true}", 20);
+
+        final byte[] bytes = serializer.serialize(value);
+
+        assertThat(bytes[0]).isEqualTo(CompressingRedisSerializer.LZ4);
+        assertThat(bytes.length).isLessThan(value.length() / 4);
+        assertThat(serializer.deserialize(bytes)).isEqualTo(value);
+    }
+
+    @Test
+    public void storesSmallAndIncompressibleValuesUnchanged() {
+        final String small = StringUtils.repeat('a', 63);
+        final String random = RandomStringUtils.random(256, 0, 0, true, true, null, new Random(1));
+
+        assertThat(serializer.serialize(small)).isEqualTo(small.getBytes(StandardCharsets.UTF_8));
+        assertThat(serializer.serialize(random)).isEqualTo(random.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void readsValuesWrittenWithoutCompression() {
+        final String value = StringUtils.repeat("plain ", 100);
+
+        assertThat(serializer.deserialize(value.getBytes(StandardCharsets.UTF_8))).isEqualTo(value);
+        assertThat(serializer.deserialize(null)).isNull();
+    }
+
+    @Test
+    public void escapesUncompressedValuesStartingWithATag() {
+        final CompressingRedisSerializer<byte[]> binary =
+                new CompressingRedisSerializer<>(new IdentitySerializer(), Lz4Compressor.INSTANCE, 64);
+        final byte[] value = {CompressingRedisSerializer.LZ4, 1, 2, 3};
+
+        final byte[] bytes = binary.serialize(value);
+
+        assertThat(bytes).startsWith(CompressingRedisSerializer.RAW, CompressingRedisSerializer.LZ4);
+        assertThat(binary.deserialize(bytes)).isEqualTo(value);
+    }
+
+    @Test
+    public void rejectsCorruptAndUnreadablePayloads() {
+        final byte[] bytes = serializer.serialize(StringUtils.repeat("compressible ", 50));
+        final byte[] truncated = Arrays.copyOf(bytes, bytes.length - 4);
+        final byte[] zstd = bytes.clone();
+        zstd[0] = CompressingRedisSerializer.ZSTD;
+
+        assertThatThrownBy(() -> serializer.deserialize(truncated)).isInstanceOf(SerializationException.class);
+        assertThatThrownBy(() -> serializer.deserialize(zstd)).isInstanceOf(SerializationException.class);
+    }
+
+    @Test
+    public void rejectsHeadersDeclaringImplausibleLengths() {
+        final byte[] bytes = serializer.serialize(StringUtils.repeat("compressible ", 50));
+        final byte[] oversized = bytes.clone();
+        oversized[1] = 0x7F;
+        final byte[] expanded = bytes.clone();
+        expanded[1] = 0;
+        expanded[2] = 0x10;
+        final CompressingRedisSerializer<String> small =
+                new CompressingRedisSerializer<>(new StringRedisSerializer(), Lz4Compressor.INSTANCE, 64, 256);
+
+        assertThatThrownBy(() -> serializer.deserialize(oversized)).isInstanceOf(SerializationException.class)
+                .hasMessageContaining("maximum");
+        assertThatThrownBy(() -> serializer.deserialize(expanded)).isInstanceOf(SerializationException.class)
+                .hasMessageContaining("cannot decompress");
+        assertThatThrownBy(() -> small.deserialize(bytes)).isInstanceOf(SerializationException.class)
+                .hasMessageContaining("maximum");
+    }
+
+    private static class IdentitySerializer implements RedisSerializer<byte[]> {
+
+        @Override
+        public byte[] serialize(byte[] value) {
+            return value;
+        }
+
+        @Override
+        public byte[] deserialize(byte[] bytes) {
+            return bytes;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.serializer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jmh.mbr.junit4.Microbenchmark;
+import org.junit.runner.RunWith;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encodes and decodes a {@link Profile} with {@link BinaryRedisSerializer}, JDK serialization, Jackson straight to
+ * bytes and the current string path: Jackson to a {@code String}, then {@link StringRedisSerializer}. The encoded
+ * size of each is printed on setup. Run {@link #main} to also get {@code gc.alloc.rate.norm}.
+ */
+@Measurement(iterations = 5, time = 1)
+@Warmup(iterations = 3, time = 1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@RunWith(Microbenchmark.class)
+public class ObjectSerializerBenchmarksTests {
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ObjectSerializerBenchmarksTests.class.getName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+
+    @Benchmark
+    public byte[] encode(SerializerState state) {
+        return state.serializer.serialize(state.profile);
+    }
+
+    @Benchmark
+    public Object decode(SerializerState state) {
+        return state.serializer.deserialize(state.encoded);
+    }
+
+    @State(Scope.Thread)
+    public static class SerializerState {
+
+        @Param({"binary", "jdk", "jackson", "string"})
+        String codec;
+
+        final Profile profile = Profile.sample(1_000_042);
+
+        RedisSerializer<Object> serializer;
+
+        byte[] encoded;
+
+        @Setup
+        public void setup() {
+            this.serializer = serializer(codec);
+            this.encoded = serializer.serialize(profile);
+            if (!profile.equals(serializer.deserialize(encoded))) {
+                throw new IllegalStateException(codec + " does not round-trip");
+            }
+            System.out.printf("%n%s: %d bytes%n", codec, encoded.length);
+        }
+
+        @SuppressWarnings("unchecked")
+        private static RedisSerializer<Object> serializer(String codec) {
+            switch (codec) {
+                case "binary":
+                    return new BinaryRedisSerializer<>(new BinaryTypeRegistry().register(new Profile.Schema()));
+                case "jdk":
+                    return new JdkSerializationRedisSerializer();
+                case "jackson":
+                    final Jackson2JsonRedisSerializer<?> jackson = new Jackson2JsonRedisSerializer<>(Profile.class);
+                    return (RedisSerializer<Object>) jackson;
+                default:
+                    return new JsonStringSerializer();
+            }
+        }
+    }
+
+    /**
+     * What services do today before handing values to a {@code RedisTemplate<String, String>}.
+     */
+    static class JsonStringSerializer implements RedisSerializer<Object> {
+
+        private final ObjectMapper mapper = new ObjectMapper();
+
+        private final StringRedisSerializer strings = new StringRedisSerializer();
+
+        @Override
+        public byte[] serialize(Object value) {
+            try {
+                return strings.serialize(mapper.writeValueAsString(value));
+            } catch (JsonProcessingException e) {
+                throw new SerializationException(e.getMessage(), e);
+            }
+        }
+
+        @Override
+        public Object deserialize(byte[] bytes) {
+            try {
+                return mapper.readValue(strings.deserialize(bytes), Profile.class);
+            } catch (IOException e) {
+                throw new SerializationException(e.getMessage(), e);
+            }
+        }
+    }
+}
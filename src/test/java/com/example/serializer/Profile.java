@@ -0,0 +1,100 @@
+package com.example.serializer;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Sample value type, with public fields so that Jackson and JDK serialization need no configuration either.
+ */
+public class Profile implements Serializable {
+
+    public long id;
+
+    public String name;
+
+    public String email;
+
+    public int age;
+
+    public double score;
+
+    public boolean active;
+
+    public List<String> tags = new ArrayList<>();
+
+    static Profile sample(long id) {
+        final Profile profile = new Profile();
+        profile.id = id;
+        profile.name = "user-" + id;
+        profile.email = "user-" + id + "@example.com";
+        profile.age = (int) (id % 80) + 18;
+        profile.score = id * 0.25;
+        profile.active = id % 2 == 0;
+        profile.tags.add("premium");
+        profile.tags.add("newsletter");
+        return profile;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Profile)) {
+            return false;
+        }
+        final Profile other = (Profile) o;
+        return id == other.id && age == other.age && Double.compare(score, other.score) == 0
+                && active == other.active && Objects.equals(name, other.name) && Objects.equals(email, other.email)
+                && Objects.equals(tags, other.tags);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, name, email, age, score, active, tags);
+    }
+
+    static class Schema implements BinarySchema<Profile> {
+
+        @Override
+        public int typeId() {
+            return 1;
+        }
+
+        @Override
+        public Class<Profile> type() {
+            return Profile.class;
+        }
+
+        @Override
+        public void write(Profile value, BinaryWriter out) {
+            out.writeLong(value.id)
+                    .writeString(value.name)
+                    .writeString(value.email)
+                    .writeInt(value.age)
+                    .writeDouble(value.score)
+                    .writeBoolean(value.active)
+                    .writeVarLong(value.tags.size());
+            for (String tag : value.tags) {
+                out.writeString(tag);
+            }
+        }
+
+        @Override
+        public Profile read(BinaryReader in) {
+            final Profile profile = new Profile();
+            profile.id = in.readLong();
+            profile.name = in.readString();
+            profile.email = in.readString();
+            profile.age = in.readInt();
+            profile.score = in.readDouble();
+            profile.active = in.readBoolean();
+            for (long i = in.readVarLong(); i > 0; i--) {
+                profile.tags.add(in.readString());
+            }
+            return profile;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.shard;
+
+import com.example.JedisConfig;
+import com.example.bootstrap.ClusterReadiness;
+import com.example.cluster.ClusterSlots;
+import com.example.embedded.EmbeddedRedisCluster;
+import com.example.embedded.EmbeddedRedisClusterConfig;
+import com.example.embedded.EmbeddedRedisNode;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@RunWith(SpringRunner.class)
+@Import({JedisConfig.class, EmbeddedRedisClusterConfig.class, ShardExecutorConfig.class})
+@ActiveProfiles({"jedis", "embedded"})
+@TestPropertySource(properties = {"redis.shard-executor.enabled=true", "redis.shard-executor.max-batch=64"})
+public class ShardExecutorTests {
+
+    @Autowired
+    private ShardExecutor<String, String> executor;
+
+    @Autowired
+    @Qualifier("redisTemplateNonTransaction")
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Autowired
+    private EmbeddedRedisCluster cluster;
+
+    @Before
+    public void awaitCluster() {
+        ClusterReadiness.await(redisTemplate.getConnectionFactory(), Duration.ofSeconds(10));
+        cluster.flushAll();
+    }
+
+    @Test
+    public void startsAWorkerPerMaster() {
+        assertThat(executor.getWorkerCount()).isEqualTo(cluster.getNodes().size());
+    }
+
+    @Test
+    public void routesConcurrentCommandsToTheOwningMaster() throws Exception {
+        final List<CompletableFuture<Boolean>> sets = IntStream.range(0, 2000).parallel()
+                .mapToObj(i -> executor.set("shard:" + i, "value" + i))
+                .collect(Collectors.toList());
+        for (CompletableFuture<Boolean> set : sets) {
+            assertThat(set.get(5, TimeUnit.SECONDS)).isTrue();
+        }
+
+        for (int i = 0; i < 2000; i += 97) {
+            assertThat(redisTemplate.opsForValue().get("shard:" + i)).isEqualTo("value" + i);
+            assertThat(executor.get("shard:" + i).get(5, TimeUnit.SECONDS)).isEqualTo("value" + i);
+        }
+        assertThat(executor.delete("shard:0").get(5, TimeUnit.SECONDS)).isEqualTo(1L);
+        assertThat(executor.get("shard:0").get(5, TimeUnit.SECONDS)).isNull();
+    }
+
+    @Test
+    public void countsEveryIncrementFromManyThreads() {
+        IntStream.range(0, 1000).parallel()
+                .mapToObj(i -> executor.increment("shard:counter"))
+                .collect(Collectors.toList())
+                .forEach(CompletableFuture::join);
+
+        assertThat(redisTemplate.opsForValue().get("shard:counter")).isEqualTo("1000");
+    }
+
+    @Test
+    public void failsOnlyTheCommandWithAnErrorReply() throws Exception {
+        redisTemplate.opsForValue().set("shard:text", "text");
+
+        final CompletableFuture<Long> increment = executor.increment("shard:text");
+        final CompletableFuture<Boolean> set = executor.set("shard:text", "other");
+
+        assertThatThrownBy(() -> increment.get(5, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(InvalidDataAccessApiUsageException.class);
+        assertThat(set.get(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    public void followsMovedSlots() throws Exception {
+        final String key = "shard:moved";
+        final int slot = ClusterSlots.slot(key);
+        executor.set(key, "before").get(5, TimeUnit.SECONDS);
+        final List<EmbeddedRedisNode> nodes = cluster.getNodes();
+        final byte[] rawKey = key.getBytes(StandardCharsets.UTF_8);
+        final int target = cluster.call(() -> IntStream.range(0, nodes.size())
+                .filter(i -> nodes.get(i).get(rawKey) == null)
+                .findFirst()
+                .getAsInt());
+
+        cluster.moveSlots(slot, slot, target);
+
+        assertThat(executor.get(key).get(5, TimeUnit.SECONDS)).isEqualTo("before");
+        assertThat(executor.set(key, "after").get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(redisTemplate.opsForValue().get(key)).isEqualTo("after");
+    }
+
+    @Test
+    public void rejectsCommandsAfterClose() throws Exception {
+        final ShardExecutor<String, String> closing = new ShardExecutor<>(redisTemplate, ShardPolicy.defaults());
+        final List<CompletableFuture<Boolean>> queued = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            queued.add(closing.set("shard:closing:" + i, "value"));
+        }
+
+        closing.close();
+
+        for (CompletableFuture<Boolean> set : queued) {
+            assertThat(set.get(5, TimeUnit.SECONDS)).isTrue();
+        }
+        assertThatThrownBy(() -> closing.get("shard:closing:0").join())
+                .hasCauseInstanceOf(RejectedExecutionException.class);
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.workload;
+
+import com.example.cluster.ClusterSlots;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Which key group an operation touches, as an index in {@code [0, groups)}. Drawing an index allocates nothing;
+ * Zipfian draws binary-search a CDF precomputed at construction.
+ */
+public abstract class KeyDistribution {
+
+    private final int groups;
+
+    KeyDistribution(int groups) {
+        if (groups < 1) {
+            throw new IllegalArgumentException("At least one key group is required");
+        }
+        this.groups = groups;
+    }
+
+    public int getGroups() {
+        return groups;
+    }
+
+    public abstract int next(Random random);
+
+    /**
+     * @return the hash tag all keys of the group carry, {@code null} to leave the slot to the key name
+     */
+    String hashTag(int group) {
+        return null;
+    }
+
+    public static KeyDistribution uniform(int groups) {
+        return new KeyDistribution(groups) {
+            @Override
+            public int next(Random random) {
+                return random.nextInt(groups);
+            }
+        };
+    }
+
+    /**
+     * Group {@code i} is drawn with a probability proportional to {@code 1 / (i + 1)^exponent}.
+     */
+    public static KeyDistribution zipfian(int groups, double exponent) {
+        final double[] cdf = new double[groups];
+        double sum = 0;
+        for (int i = 0; i < groups; i++) {
+            sum += 1 / Math.pow(i + 1, exponent);
+            cdf[i] = sum;
+        }
+        for (int i = 0; i < groups; i++) {
+            cdf[i] /= sum;
+        }
+        return new KeyDistribution(groups) {
+            @Override
+            public int next(Random random) {
+                final int index = Arrays.binarySearch(cdf, random.nextDouble());
+                return Math.min(groups - 1, index < 0 ? -index - 1 : index);
+            }
+        };
+    }
+
+    /**
+     * {@code hotAccessFraction} of the draws go to the first {@code hotGroupFraction} of the groups.
+     */
+    public static KeyDistribution hotspot(int groups, double hotGroupFraction, double hotAccessFraction) {
+        return new HotSet(groups, Math.max(1, (int) (groups * hotGroupFraction)), hotAccessFraction);
+    }
+
+    /**
+     * {@code hotAccessFraction} of the draws go to groups whose keys all hash into {@code hotSlots} slots, the rest
+     * to groups spread over the whole cluster. This loads a few nodes, and slots, much harder than the others.
+     */
+    public static KeyDistribution slotSkewed(int groups, int hotSlots, double hotAccessFraction) {
+        final String[] tags = slotTags(hotSlots);
+        return new HotSet(groups, Math.max(hotSlots, groups / 100), hotAccessFraction) {
+            @Override
+            String hashTag(int group) {
+                return group < getHotGroups() ? tags[group % tags.length] : null;
+            }
+        };
+    }
+
+    /**
+     * Parses {@code uniform}, {@code zipfian}, {@code hotspot} (80% of the draws on 20% of the groups) or
+     * {@code slot-skewed} (80% of the draws on 8 slots).
+     */
+    public static KeyDistribution of(String name, int groups) {
+        switch (name) {
+            case "uniform":
+                return uniform(groups);
+            case "zipfian":
+                return zipfian(groups, 0.99);
+            case "hotspot":
+                return hotspot(groups, 0.2, 0.8);
+            case "slot-skewed":
+                return slotSkewed(groups, 8, 0.8);
+            default:
+                throw new IllegalArgumentException("Unknown key distribution " + name);
+        }
+    }
+
+    /**
+     * @return hash tags of {@code count} distinct slots
+     */
+    private static String[] slotTags(int count) {
+        final String[] tags = new String[count];
+        final Set<Integer> slots = new HashSet<>();
+        for (int i = 0, found = 0; found < count; i++) {
+            final String tag = "hot" + i;
+            if (slots.add(ClusterSlots.slot(tag))) {
+                tags[found++] = tag;
+            }
+        }
+        return tags;
+    }
+
+    private static class HotSet extends KeyDistribution {
+
+        private final int hotGroups;
+
+        private final double hotAccessFraction;
+
+        HotSet(int groups, int hotGroups, double hotAccessFraction) {
+            super(groups);
+            this.hotGroups = Math.min(groups, hotGroups);
+            this.hotAccessFraction = hotAccessFraction;
+        }
+
+        int getHotGroups() {
+            return hotGroups;
+        }
+
+        @Override
+        public int next(Random random) {
+            if (hotGroups == getGroups() || random.nextDouble() < hotAccessFraction) {
+                return random.nextInt(hotGroups);
+            }
+            return hotGroups + random.nextInt(getGroups() - hotGroups);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.workload;
+
+import java.util.Random;
+
+/**
+ * Weighted mix of reads, writes and deletes.
+ */
+public final class OperationMix {
+
+    public enum Operation {
+        READ, WRITE, DELETE
+    }
+
+    private final double readThreshold;
+
+    private final double writeThreshold;
+
+    public OperationMix(double reads, double writes, double deletes) {
+        final double total = reads + writes + deletes;
+        if (reads < 0 || writes < 0 || deletes < 0 || total <= 0) {
+            throw new IllegalArgumentException("Weights must not be negative and not all zero");
+        }
+        this.readThreshold = reads / total;
+        this.writeThreshold = (reads + writes) / total;
+    }
+
+    public Operation next(Random random) {
+        final double draw = random.nextDouble();
+        if (draw < readThreshold) {
+            return Operation.READ;
+        }
+        return draw < writeThreshold ? Operation.WRITE : Operation.DELETE;
+    }
+
+    /**
+     * Parses {@code reads:writes:deletes}, e.g. {@code 90:10:0}.
+     */
+    public static OperationMix of(String spec) {
+        final String[] weights = spec.split(":");
+        if (weights.length != 3) {
+            throw new IllegalArgumentException("Expected reads:writes:deletes, got " + spec);
+        }
+        return new OperationMix(Double.parseDouble(weights[0]), Double.parseDouble(weights[1]),
+                Double.parseDouble(weights[2]));
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.workload;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * Off-heap block of random alphanumeric bytes that values are sliced from. It is filled once, so generating a
+ * value costs nothing during a measurement, and it stays out of the heap the garbage collector scans.
+ */
+public final class PayloadArena {
+
+    private static final byte[] ALPHABET =
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789".getBytes(StandardCharsets.US_ASCII);
+
+    private final ByteBuffer bytes;
+
+    public PayloadArena(int capacity, long seed) {
+        this.bytes = ByteBuffer.allocateDirect(capacity);
+        final Random random = new Random(seed);
+        for (int i = 0; i < capacity; i++) {
+            bytes.put(i, ALPHABET[random.nextInt(ALPHABET.length)]);
+        }
+    }
+
+    public int capacity() {
+        return bytes.capacity();
+    }
+
+    /**
+     * @return a read-only view of the whole arena with its own position and limit, one per thread
+     */
+    public ByteBuffer newView() {
+        return bytes.asReadOnlyBuffer();
+    }
+
+    /**
+     * Narrows a view obtained from {@link #newView()} to the given range.
+     */
+    public static ByteBuffer slice(ByteBuffer view, int offset, int length) {
+        view.limit(offset + length);
+        view.position(offset);
+        return view;
+    }
+
+    /**
+     * Copies the given range onto the heap, for setup code that needs a {@link String}.
+     */
+    public String string(int offset, int length) {
+        final byte[] copy = new byte[length];
+        final ByteBuffer view = slice(newView(), offset, length);
+        view.get(copy);
+        return new String(copy, StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.workload;
+
+import java.util.Random;
+
+/**
+ * Distribution of value sizes in bytes.
+ */
+public abstract class ValueSizes {
+
+    private final int max;
+
+    ValueSizes(int max) {
+        if (max < 1) {
+            throw new IllegalArgumentException("Values must be at least one byte");
+        }
+        this.max = max;
+    }
+
+    public int getMax() {
+        return max;
+    }
+
+    public abstract int next(Random random);
+
+    public static ValueSizes fixed(int size) {
+        return new ValueSizes(size) {
+            @Override
+            public int next(Random random) {
+                return size;
+            }
+        };
+    }
+
+    public static ValueSizes uniform(int min, int max) {
+        return new ValueSizes(max) {
+            @Override
+            public int next(Random random) {
+                return min + random.nextInt(max - min + 1);
+            }
+        };
+    }
+
+    /**
+     * Mostly {@code small} values with a {@code largeFraction} of {@code large} ones, like a cache holding small
+     * counters next to serialized documents.
+     */
+    public static ValueSizes bimodal(int small, int large, double largeFraction) {
+        return new ValueSizes(Math.max(small, large)) {
+            @Override
+            public int next(Random random) {
+                return random.nextDouble() < largeFraction ? large : small;
+            }
+        };
+    }
+
+    /**
+     * Parses {@code 100} (fixed) or {@code 16-1024} (uniform).
+     */
+    public static ValueSizes of(String spec) {
+        final int separator = spec.indexOf('-');
+        if (separator < 0) {
+            return fixed(Integer.parseInt(spec.trim()));
+        }
+        return uniform(Integer.parseInt(spec.substring(0, separator).trim()),
+                Integer.parseInt(spec.substring(separator + 1).trim()));
+    }
+}
@@ -0,0 +1,233 @@
+package com.example.workload;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Pre-generated keys and values for benchmarks and load tests. Key names, value slices of the off-heap
+ * {@link PayloadArena} and their {@link String} forms are all built up front, so that pulling the next operation
+ * from a {@link Cursor} allocates nothing and random-string generation stays out of the measurement.
+ * <p>
+ * Keys come in groups of {@code groupSize} sharing a hash tag, so that a batch of one group fits a single slot
+ * for scripts and slot transactions. The {@link KeyDistribution} picks the group, the value sizes follow
+ * {@link ValueSizes} over {@code variants} pre-sampled values.
+ */
+public final class Workload {
+
+    private final KeyDistribution distribution;
+
+    private final OperationMix mix;
+
+    private final int groupSize;
+
+    private final String[] keys;
+
+    private final PayloadArena arena;
+
+    private final int[] valueOffsets;
+
+    private final int[] valueLengths;
+
+    private final String[] values;
+
+    private Workload(Builder builder) {
+        this.distribution = builder.distribution;
+        this.mix = builder.mix;
+        this.groupSize = builder.groupSize;
+
+        final Random random = new Random(builder.seed);
+        this.keys = new String[distribution.getGroups() * groupSize];
+        for (int group = 0; group < distribution.getGroups(); group++) {
+            final String tag = distribution.hashTag(group);
+            for (int member = 0; member < groupSize; member++) {
+                keys[group * groupSize + member] = keyName(builder.prefix, tag, group, member);
+            }
+        }
+
+        this.arena = new PayloadArena(Math.max(builder.sizes.getMax() * 2, 64 * 1024), builder.seed);
+        this.valueOffsets = new int[builder.variants];
+        this.valueLengths = new int[builder.variants];
+        this.values = new String[builder.variants];
+        for (int i = 0; i < builder.variants; i++) {
+            valueLengths[i] = builder.sizes.next(random);
+            valueOffsets[i] = random.nextInt(arena.capacity() - valueLengths[i] + 1);
+            values[i] = arena.string(valueOffsets[i], valueLengths[i]);
+        }
+    }
+
+    private String keyName(String prefix, String tag, int group, int member) {
+        if (tag != null) {
+            return "{" + tag + "}" + prefix + group + ":" + member;
+        }
+        return groupSize > 1 ? "{" + prefix + group + "}:" + member : prefix + group;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public int getKeyCount() {
+        return keys.length;
+    }
+
+    public int getGroupSize() {
+        return groupSize;
+    }
+
+    /**
+     * @return the key with the given index modulo the key count, for harnesses that number their operations
+     */
+    public String key(int index) {
+        return keys[Math.floorMod(index, keys.length)];
+    }
+
+    /**
+     * @return the value variant with the given index modulo the number of variants
+     */
+    public String value(int index) {
+        return values[Math.floorMod(index, values.length)];
+    }
+
+    /**
+     * @return a cursor for the calling thread; cursors are not thread-safe
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * The operation drawn last by one thread. All accessors return pre-built objects or the cursor's own view of
+     * the arena.
+     */
+    public final class Cursor {
+
+        private final ByteBuffer view = arena.newView();
+
+        private OperationMix.Operation operation;
+
+        private int key;
+
+        private int value;
+
+        /**
+         * Draws the next operation, key and value.
+         */
+        public Cursor next() {
+            final ThreadLocalRandom random = ThreadLocalRandom.current();
+            operation = mix.next(random);
+            key = distribution.next(random) * groupSize + (groupSize > 1 ? random.nextInt(groupSize) : 0);
+            value = random.nextInt(values.length);
+            return this;
+        }
+
+        public OperationMix.Operation operation() {
+            return operation;
+        }
+
+        public String key() {
+            return keys[key];
+        }
+
+        public String value() {
+            return values[value];
+        }
+
+        /**
+         * @return the value as a slice of the off-heap arena, valid until the next call
+         */
+        public ByteBuffer valueBuffer() {
+            return PayloadArena.slice(view, valueOffsets[value], valueLengths[value]);
+        }
+
+        /**
+         * Replaces the contents of {@code batch} with {@code depth} keys: the first {@code depth} keys of one group
+         * if {@code singleSlot}, otherwise keys of independently drawn groups.
+         */
+        public void batch(List<String> batch, int depth, boolean singleSlot) {
+            batch.clear();
+            final ThreadLocalRandom random = ThreadLocalRandom.current();
+            if (singleSlot) {
+                if (depth > groupSize) {
+                    throw new IllegalArgumentException("A single-slot batch holds at most " + groupSize + " keys");
+                }
+                final int first = distribution.next(random) * groupSize;
+                for (int i = 0; i < depth; i++) {
+                    batch.add(keys[first + i]);
+                }
+            } else {
+                for (int i = 0; i < depth; i++) {
+                    batch.add(keys[distribution.next(random) * groupSize
+                            + (groupSize > 1 ? random.nextInt(groupSize) : 0)]);
+                }
+            }
+            value = random.nextInt(values.length);
+        }
+    }
+
+    public static final class Builder {
+
+        private KeyDistribution distribution = KeyDistribution.uniform(100_000);
+
+        private int groupSize = 1;
+
+        private ValueSizes sizes = ValueSizes.fixed(100);
+
+        private OperationMix mix = new OperationMix(0, 1, 0);
+
+        private int variants = 1024;
+
+        private String prefix = "key:";
+
+        private long seed = 42;
+
+        private Builder() {
+        }
+
+        public Builder keys(KeyDistribution distribution) {
+            this.distribution = distribution;
+            return this;
+        }
+
+        /**
+         * Number of keys sharing a hash tag in each group, {@code 1} for untagged keys.
+         */
+        public Builder groupSize(int groupSize) {
+            if (groupSize < 1) {
+                throw new IllegalArgumentException("groupSize must be positive");
+            }
+            this.groupSize = groupSize;
+            return this;
+        }
+
+        public Builder values(ValueSizes sizes) {
+            this.sizes = sizes;
+            return this;
+        }
+
+        public Builder mix(OperationMix mix) {
+            this.mix = mix;
+            return this;
+        }
+
+        public Builder variants(int variants) {
+            this.variants = variants;
+            return this;
+        }
+
+        public Builder prefix(String prefix) {
+            this.prefix = prefix;
+            return this;
+        }
+
+        public Builder seed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        public Workload build() {
+            return new Workload(this);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.workload;
+
+import com.example.cluster.ClusterSlots;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class WorkloadTests {
+
+    private static final int DRAWS = 100_000;
+
+    @Test
+    public void zipfianFavoursTheFirstGroups() {
+        final int[] counts = counts(KeyDistribution.zipfian(1000, 0.99));
+
+        assertThat(counts[0]).isGreaterThan(counts[10] * 5);
+        assertThat(counts[10]).isGreaterThan(counts[999]);
+    }
+
+    @Test
+    public void hotspotSendsTheHotFractionToTheHotGroups() {
+        final int[] counts = counts(KeyDistribution.hotspot(1000, 0.2, 0.8));
+
+        int hot = 0;
+        for (int i = 0; i < 200; i++) {
+            hot += counts[i];
+        }
+        assertThat(hot / (double) DRAWS).isBetween(0.78, 0.82);
+    }
+
+    @Test
+    public void slotSkewConcentratesTrafficOnFewSlots() {
+        final Workload workload = Workload.builder().keys(KeyDistribution.slotSkewed(10_000, 8, 0.8)).build();
+        final Workload.Cursor cursor = workload.cursor();
+        final Map<Integer, Integer> slots = new HashMap<>();
+        for (int i = 0; i < DRAWS; i++) {
+            slots.merge(ClusterSlots.slot(cursor.next().key()), 1, Integer::sum);
+        }
+
+        final List<Integer> counts = new ArrayList<>(slots.values());
+        counts.sort((a, b) -> b - a);
+        int top = 0;
+        for (int i = 0; i < 8; i++) {
+            top += counts.get(i);
+        }
+        assertThat(top / (double) DRAWS).isBetween(0.78, 0.82);
+    }
+
+    @Test
+    public void singleSlotBatchesShareAHashTag() {
+        final Workload workload = Workload.builder().keys(KeyDistribution.uniform(100)).groupSize(4).build();
+        final List<String> batch = new ArrayList<>();
+        workload.cursor().batch(batch, 4, true);
+
+        assertThat(batch).hasSize(4);
+        for (String key : batch) {
+            assertThat(ClusterSlots.slot(key)).isEqualTo(ClusterSlots.slot(batch.get(0)));
+        }
+    }
+
+    @Test
+    public void mixAndValueSizesFollowTheirWeights() {
+        final Workload workload = Workload.builder()
+                .values(ValueSizes.uniform(16, 4096))
+                .mix(OperationMix.of("60:30:10"))
+                .build();
+        final Workload.Cursor cursor = workload.cursor();
+        final Map<OperationMix.Operation, Integer> operations = new HashMap<>();
+        for (int i = 0; i < DRAWS; i++) {
+            final Workload.Cursor next = cursor.next();
+            operations.merge(next.operation(), 1, Integer::sum);
+            assertThat(next.valueBuffer().remaining()).isEqualTo(next.value().length()).isBetween(16, 4096);
+        }
+
+        assertThat(operations.get(OperationMix.Operation.READ) / (double) DRAWS).isBetween(0.58, 0.62);
+        assertThat(operations.get(OperationMix.Operation.DELETE) / (double) DRAWS).isBetween(0.09, 0.11);
+    }
+
+    @Test
+    public void valueBuffersAreSlicesOfTheValues() {
+        final Workload workload = Workload.builder().values(ValueSizes.bimodal(8, 512, 0.5)).build();
+        final Workload.Cursor cursor = workload.cursor().next();
+        final ByteBuffer buffer = cursor.valueBuffer();
+        final byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+
+        assertThat(new String(bytes)).isEqualTo(cursor.value());
+    }
+
+    @Test
+    public void drawingOperationsAllocatesNothing() {
+        final com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        final Workload workload = Workload.builder()
+                .keys(KeyDistribution.zipfian(10_000, 0.99))
+                .values(ValueSizes.uniform(16, 1024))
+                .mix(OperationMix.of("50:40:10"))
+                .build();
+        final Workload.Cursor cursor = workload.cursor();
+        final List<String> batch = new ArrayList<>(16);
+        long sink = 0;
+        for (int i = 0; i < DRAWS; i++) {
+            sink += drawAll(cursor, batch);
+        }
+
+        final long before = threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+        for (int i = 0; i < DRAWS; i++) {
+            sink += drawAll(cursor, batch);
+        }
+        final long allocated = threads.getThreadAllocatedBytes(Thread.currentThread().getId()) - before;
+
+        assertThat(sink).isNotZero();
+        assertThat(allocated).isLessThan(DRAWS / 10);
+    }
+
+    private static int drawAll(Workload.Cursor cursor, List<String> batch) {
+        cursor.next();
+        cursor.batch(batch, 16, false);
+        return cursor.key().length() + cursor.valueBuffer().remaining() + cursor.operation().ordinal();
+    }
+
+    private static int[] counts(KeyDistribution distribution) {
+        final Random random = new Random(7);
+        final int[] counts = new int[distribution.getGroups()];
+        for (int i = 0; i < DRAWS; i++) {
+            counts[distribution.next(random)]++;
+        }
+        return counts;
+    }
+}
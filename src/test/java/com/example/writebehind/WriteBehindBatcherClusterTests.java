@@ -0,0 +1,107 @@
+package com.example.writebehind;
+
+import com.example.JedisConfig;
+import com.example.bootstrap.ClusterReadiness;
+import com.example.embedded.EmbeddedRedisCluster;
+import com.example.embedded.EmbeddedRedisClusterConfig;
+import com.example.embedded.EmbeddedRedisNode;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(SpringRunner.class)
+@Import({JedisConfig.class, EmbeddedRedisClusterConfig.class})
+@ActiveProfiles({"jedis", "embedded"})
+public class WriteBehindBatcherClusterTests {
+
+    private static final int KEYS = 500;
+
+    @Autowired
+    @Qualifier("redisTemplateNonTransaction")
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Autowired
+    private EmbeddedRedisCluster cluster;
+
+    private WriteBehindBatcher<String, String> batcher;
+
+    @Before
+    public void setUp() {
+        ClusterReadiness.await(redisTemplate.getConnectionFactory(), Duration.ofSeconds(10));
+        cluster.flushAll();
+        batcher = new WriteBehindBatcher<>(redisTemplate, new WriteBehindPolicy(16, 200, 1024, Duration.ofSeconds(1)));
+    }
+
+    @After
+    public void close() {
+        batcher.close();
+    }
+
+    @Test
+    public void queuesWritesPerOwningMaster() throws Exception {
+        // the first batch goes out through the shared lane and loads the node index
+        assertThat(batcher.set("write-behind:first", "value").get(5, TimeUnit.SECONDS)).isTrue();
+
+        final List<CompletableFuture<Boolean>> sets = IntStream.range(0, KEYS).parallel()
+                .mapToObj(i -> batcher.set("write-behind:" + i, "value" + i))
+                .collect(Collectors.toList());
+        for (CompletableFuture<Boolean> set : sets) {
+            assertThat(set.get(5, TimeUnit.SECONDS)).isTrue();
+        }
+
+        assertThat(holders()).hasSizeGreaterThanOrEqualTo(2);
+        final Set<String> flushers = Thread.getAllStackTraces().keySet().stream()
+                .map(Thread::getName)
+                .filter(name -> name.startsWith("write-behind-"))
+                .collect(Collectors.toSet());
+        assertThat(cluster.getNodeAddresses().stream().filter(address -> flushers.contains("write-behind-" + address)))
+                .hasSizeGreaterThanOrEqualTo(2);
+        for (int i = 0; i < KEYS; i += 37) {
+            assertThat(redisTemplate.opsForValue().get("write-behind:" + i)).isEqualTo("value" + i);
+        }
+    }
+
+    @Test
+    public void deletesOnEveryMaster() throws Exception {
+        for (int i = 0; i < 50; i++) {
+            redisTemplate.opsForValue().set("write-behind:delete:" + i, "value");
+        }
+
+        final List<CompletableFuture<Long>> deletes = IntStream.range(0, 50)
+                .mapToObj(i -> batcher.delete("write-behind:delete:" + i))
+                .collect(Collectors.toList());
+        for (CompletableFuture<Long> delete : deletes) {
+            assertThat(delete.get(5, TimeUnit.SECONDS)).isEqualTo(1L);
+        }
+        assertThat(cluster.size()).isZero();
+    }
+
+    /**
+     * @return the indexes of the masters holding at least one of the written keys
+     */
+    private Set<Integer> holders() {
+        final List<EmbeddedRedisNode> nodes = cluster.getNodes();
+        return cluster.call(() -> IntStream.range(0, KEYS)
+                .mapToObj(i -> ("write-behind:" + i).getBytes(StandardCharsets.UTF_8))
+                .flatMap(key -> IntStream.range(0, nodes.size()).filter(n -> nodes.get(n).get(key) != null).boxed())
+                .collect(Collectors.toSet()));
+    }
+}
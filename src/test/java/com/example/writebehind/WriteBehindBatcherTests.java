@@ -0,0 +1,172 @@
+package com.example.writebehind;
+
+import com.example.cluster.ClusterSlots;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.data.redis.connection.RedisClusterConnection;
+import org.springframework.data.redis.connection.RedisClusterNode;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class WriteBehindBatcherTests {
+
+    private final List<Integer> pipelines = new CopyOnWriteArrayList<>();
+
+    private final List<String> applied = new CopyOnWriteArrayList<>();
+
+    private final CountDownLatch keyQueued = new CountDownLatch(1);
+
+    private final CountDownLatch firstIssued = new CountDownLatch(1);
+
+    private final CountDownLatch releaseFirst = new CountDownLatch(1);
+
+    private WriteBehindBatcher<String, String> batcher;
+
+    @After
+    public void close() {
+        batcher.close();
+    }
+
+    private WriteBehindBatcher<String, String> batcher(WriteBehindPolicy policy) {
+        final StringRedisTemplate template = new StringRedisTemplate(factory());
+        batcher = new WriteBehindBatcher<>(template, policy);
+        return batcher;
+    }
+
+    private RedisConnectionFactory factory() {
+        return (RedisConnectionFactory) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{RedisConnectionFactory.class}, (proxy, method, args) ->
+                        "getConnection".equals(method.getName()) ? connection() : null);
+    }
+
+    private RedisConnection connection() {
+        final List<Object> replies = new ArrayList<>();
+        return (RedisConnection) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{RedisConnection.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "set":
+                            replies.add(Boolean.TRUE);
+                            return null;
+                        case "del":
+                            replies.add(1L);
+                            return null;
+                        case "closePipeline":
+                            pipelines.add(replies.size());
+                            return replies;
+                        default:
+                            return method.getReturnType() == boolean.class ? false : null;
+                    }
+                });
+    }
+
+    @Test
+    public void flushesFullBatchesWithoutWaitingForTheLinger() throws Exception {
+        batcher(new WriteBehindPolicy(4, TimeUnit.SECONDS.toMicros(30), 16, Duration.ofSeconds(1)));
+
+        final List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            futures.add(batcher.set("key" + i, "value"));
+        }
+        for (CompletableFuture<Boolean> future : futures) {
+            assertThat(future.get(5, TimeUnit.SECONDS)).isTrue();
+        }
+        assertThat(pipelines).containsOnly(4);
+    }
+
+    @Test
+    public void flushesPartialBatchesAfterTheLinger() throws Exception {
+        batcher(new WriteBehindPolicy(64, 1000, 64, Duration.ofSeconds(1)));
+
+        final CompletableFuture<Boolean> set = batcher.set("a", "1");
+        final CompletableFuture<Long> delete = batcher.delete("b");
+
+        assertThat(delete.get(5, TimeUnit.SECONDS)).isEqualTo(1L);
+        assertThat(set.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(pipelines.stream().mapToInt(Integer::intValue).sum()).isEqualTo(2);
+    }
+
+    @Test
+    public void rejectsWritesAfterClose() {
+        batcher(new WriteBehindPolicy(4, 1000, 16, Duration.ofSeconds(1))).close();
+
+        assertThatThrownBy(() -> batcher.set("a", "1").join()).hasCauseInstanceOf(RejectedExecutionException.class);
+        assertThat(pipelines).isEqualTo(Collections.emptyList());
+    }
+
+    @Test
+    public void keepsTheOrderOfAKeysWritesWhenTheNodeIndexLoads() throws Exception {
+        batcher = new WriteBehindBatcher<>(new StringRedisTemplate(clusterFactory()),
+                new WriteBehindPolicy(1, 1000, 16, Duration.ofSeconds(1)));
+
+        // the first batch loads the node index only once the set of "key" is queued behind it on the shared lane
+        final CompletableFuture<Boolean> first = batcher.set("first", "1");
+        final CompletableFuture<Boolean> set = batcher.set("key", "1");
+        keyQueued.countDown();
+        assertThat(firstIssued.await(5, TimeUnit.SECONDS)).isTrue();
+        // the index is loaded and the shared lane is busy, the delete must still not overtake the set
+        final CompletableFuture<Long> delete = batcher.delete("key");
+        Thread.sleep(100);
+        releaseFirst.countDown();
+
+        assertThat(first.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(set.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(delete.get(5, TimeUnit.SECONDS)).isEqualTo(1L);
+        assertThat(applied).containsExactly("set first", "set key", "del key");
+    }
+
+    private RedisConnectionFactory clusterFactory() {
+        final RedisClusterNode master = RedisClusterNode.newRedisClusterNode()
+                .listeningAt("127.0.0.1", 7000)
+                .promotedAs(RedisClusterNode.NodeType.MASTER)
+                .serving(new RedisClusterNode.SlotRange(0, ClusterSlots.SLOT_COUNT - 1))
+                .build();
+        return (RedisConnectionFactory) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{RedisConnectionFactory.class}, (proxy, method, args) ->
+                        "getConnection".equals(method.getName()) ? clusterConnection(master) : null);
+    }
+
+    private RedisConnection clusterConnection(RedisClusterNode master) {
+        final List<Object> replies = new ArrayList<>();
+        return (RedisConnection) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{RedisClusterConnection.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "clusterGetNodes":
+                            keyQueued.await(5, TimeUnit.SECONDS);
+                            return Collections.singleton(master);
+                        case "set":
+                            final String key = new String((byte[]) args[0], StandardCharsets.UTF_8);
+                            if ("first".equals(key)) {
+                                firstIssued.countDown();
+                                releaseFirst.await(5, TimeUnit.SECONDS);
+                            }
+                            applied.add("set " + key);
+                            replies.add(Boolean.TRUE);
+                            return null;
+                        case "del":
+                            applied.add("del " + new String(((byte[][]) args[0])[0], StandardCharsets.UTF_8));
+                            replies.add(1L);
+                            return null;
+                        case "closePipeline":
+                            return replies;
+                        default:
+                            return method.getReturnType() == boolean.class ? false : null;
+                    }
+                });
+    }
+}